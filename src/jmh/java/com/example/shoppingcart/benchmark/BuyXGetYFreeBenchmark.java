@@ -0,0 +1,43 @@
+package com.example.shoppingcart.benchmark;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.service.discount.BuyXGetYFreeDiscountStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cost of the "buy X get Y free" bean strategy, which scans every line and sorts the applicable prices.
+ */
+@State(Scope.Benchmark)
+public class BuyXGetYFreeBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int lines;
+
+    private final BuyXGetYFreeDiscountStrategy strategy = new BuyXGetYFreeDiscountStrategy();
+    private ShoppingCart cart;
+    private DiscountRule rule;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cart = SyntheticWorkload.shoppingCart(lines);
+        rule = new DiscountRule();
+        rule.setRuleId("B3G1");
+        rule.setBuyQuantity(3);
+        rule.setFreeQuantity(1);
+        rule.setApplicableCategories(List.of("fruit", "bakery"));
+    }
+
+    @Benchmark
+    public BigDecimal apply() {
+        return strategy.apply(cart, rule);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.shoppingcart.benchmark;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.ConflictResolution;
+import com.example.shoppingcart.service.discount.ConflictResolver;
+import com.example.shoppingcart.service.discount.action.PercentageOffProductStrategy;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.strategy.CartContainsStrategy;
+import com.example.shoppingcart.service.discount.strategy.CartSubtotalStrategy;
+import com.example.shoppingcart.service.discount.strategy.PaymentMethodIsStrategy;
+import com.example.shoppingcart.service.discount.strategy.UserHasTagStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Per-stage cost of pricing one cart: candidate lookup plus condition evaluation, conflict resolution in
+ * both modes, and action application. Each stage is measured on inputs prepared by the previous stages
+ * during setup, so a regression shows up against the stage that caused it.
+ */
+@State(Scope.Benchmark)
+public class DiscountEngineBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int lines;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int rules;
+
+    private RuleSet ruleSet;
+    private EvaluationContext context;
+    private List<String> productIds;
+    private List<String> hierarchies;
+    private List<CompiledRule> stackable;
+    private List<DiscountRule> nonStackable;
+
+    private final ConditionEvaluator conditionEvaluator = new ConditionEvaluator(List.of(
+            new CartContainsStrategy(), new CartSubtotalStrategy(), new PaymentMethodIsStrategy(), new UserHasTagStrategy()));
+    private final ActionApplier actionApplier = new ActionApplier(List.of(new PercentageOffProductStrategy()));
+    private final ConflictResolver priorityResolver = new ConflictResolver();
+    private final ConflictResolver bestForCustomerResolver = new ConflictResolver("BEST_FOR_CUSTOMER",
+            AppConstants.Discount.DEFAULT_SOLVER_MAX_NODES, AppConstants.Discount.DEFAULT_SOLVER_BUDGET_MS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ruleSet = SyntheticWorkload.ruleSet(rules);
+        context = SyntheticWorkload.context(lines);
+        productIds = new ArrayList<>(context.getCatalogItemMap().keySet());
+        hierarchies = context.getCatalogItemMap().values().stream().map(CatalogItem::getCategoryHierarchy).toList();
+
+        stackable = new ArrayList<>();
+        nonStackable = new ArrayList<>();
+        for (CompiledRule rule : ruleSet.candidatesFor(productIds, hierarchies)) {
+            if (!conditionEvaluator.matches(rule, context)) {
+                continue;
+            }
+            if (rule.isStackable()) {
+                stackable.add(rule);
+            } else {
+                nonStackable.add(rule.getSource());
+            }
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (CompiledRule rule : ruleSet.candidatesFor(productIds, hierarchies)) {
+            blackhole.consume(conditionEvaluator.matches(rule, context));
+        }
+    }
+
+    @Benchmark
+    public List<DiscountRule> resolvePriority() {
+        return priorityResolver.resolveNonStackable(nonStackable);
+    }
+
+    @Benchmark
+    public ConflictResolution resolveBestForCustomer() {
+        return bestForCustomerResolver.resolveBestForCustomer(nonStackable,
+                rule -> actionApplier.applyCompiled(List.of(ruleSet.compiledFor(rule)), context), context.getCartSubtotal());
+    }
+
+    @Benchmark
+    public List<AppliedDiscountDto> applyStackable() {
+        return actionApplier.applyCompiled(stackable, context);
+    }
+
+    @Benchmark
+    public List<AppliedDiscountDto> applyResolved() {
+        return actionApplier.applyCompiled(priorityResolver.resolveNonStackable(nonStackable).stream()
+                .map(ruleSet::compiledFor)
+                .filter(Objects::nonNull)
+                .toList(), context);
+    }
+}
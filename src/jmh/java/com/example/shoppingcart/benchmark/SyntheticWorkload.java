@@ -0,0 +1,150 @@
+package com.example.shoppingcart.benchmark;
+
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.action.PercentageOffProductStrategy;
+import com.example.shoppingcart.service.discount.ruleset.CompiledCondition;
+import com.example.shoppingcart.service.discount.ruleset.RuleCompiler;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.strategy.CartContainsStrategy;
+import com.example.shoppingcart.service.discount.strategy.CartSubtotalStrategy;
+import com.example.shoppingcart.service.discount.strategy.PaymentMethodIsStrategy;
+import com.example.shoppingcart.service.discount.strategy.UserHasTagStrategy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic synthetic carts and rule sets for the discount engine benchmarks.
+ * <p>
+ * Products are drawn from a fixed universe of {@value #PRODUCT_UNIVERSE} ids, so a larger rule set means
+ * more rules per product rather than rules that can never match. Every fourth rule is a subtotal rule with
+ * no product condition, which lands in the global candidate bucket; a third of the rules are non-stackable,
+ * spread over {@value #EXCLUSIVITY_GROUPS} exclusivity groups.
+ */
+final class SyntheticWorkload {
+
+    static final int PRODUCT_UNIVERSE = 1_000;
+    static final int EXCLUSIVITY_GROUPS = 16;
+    static final String[] CATEGORIES = {"FRUIT", "BAKERY", "DAIRY", "DRINKS"};
+
+    private static final long SEED = 42L;
+
+    private SyntheticWorkload() {}
+
+    static RuleCompiler compiler() {
+        return new RuleCompiler(
+                List.of(new CartContainsStrategy(), new CartSubtotalStrategy(), new PaymentMethodIsStrategy(), new UserHasTagStrategy()),
+                List.of(new PercentageOffProductStrategy()),
+                Collections.emptyMap());
+    }
+
+    static String productId(int index) {
+        return "P" + (index % PRODUCT_UNIVERSE);
+    }
+
+    static String category(int index) {
+        return CATEGORIES[index % CATEGORIES.length];
+    }
+
+    static int unitPrice(int index) {
+        return 25 + (index * 37) % 975;
+    }
+
+    static List<DiscountRule> rules(int count) {
+        Random random = new Random(SEED);
+        List<DiscountRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String productId = productId(random.nextInt(PRODUCT_UNIVERSE));
+            DiscountRule rule = new DiscountRule();
+            rule.setRuleId("R" + i);
+            rule.setRuleName("Rule " + i);
+            rule.setActive(true);
+            rule.setPriority(random.nextInt(100));
+            rule.setIsStackable(i % 3 != 0);
+            rule.setExclusivityGroup("G" + (i % EXCLUSIVITY_GROUPS));
+
+            DiscountRule.Condition condition = new DiscountRule.Condition();
+            if (i % 4 == 0) {
+                condition.setType("CART_SUBTOTAL");
+                condition.setOperator(CompiledCondition.GREATER_THAN_OR_EQUAL);
+                condition.setValue(500 + random.nextInt(5_000));
+            } else {
+                condition.setType("CART_CONTAINS");
+                condition.setProductId(productId);
+                condition.setQuantity(1 + random.nextInt(2));
+            }
+            rule.setConditions(List.of(condition));
+
+            DiscountRule.Action action = new DiscountRule.Action();
+            action.setType("PERCENTAGE_OFF_PRODUCT");
+            action.setProductId(productId);
+            action.setValue(5 + random.nextInt(20));
+            rule.setActions(List.of(action));
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    static RuleSet ruleSet(int count) {
+        return compiler().compile(rules(count), 1L);
+    }
+
+    /**
+     * A checkout-style evaluation context whose lines are the first {@code lines} products of the universe.
+     */
+    static EvaluationContext context(int lines) {
+        Random random = new Random(SEED);
+        List<CartItemDto> items = new ArrayList<>(lines);
+        Map<String, CatalogItem> catalog = new LinkedHashMap<>();
+        int subtotal = 0;
+        for (int i = 0; i < lines; i++) {
+            CartItemDto item = new CartItemDto();
+            item.setProductId(productId(i));
+            item.setQuantity(1 + random.nextInt(3));
+            item.setPriceInPence(unitPrice(i));
+            items.add(item);
+
+            CatalogItem catalogItem = new CatalogItem();
+            catalogItem.setName("Product " + i);
+            catalogItem.setPrice(unitPrice(i));
+            catalogItem.setCategoryHierarchy(category(i));
+            catalog.put(item.getProductId(), catalogItem);
+            subtotal += item.getPriceInPence() * item.getQuantity();
+        }
+        CartDto cart = new CartDto();
+        cart.setCartId("BENCH-" + lines);
+        cart.setItems(items);
+        EvaluationContext context = new EvaluationContext(cart, Set.of("PRIME_MEMBER"), "card", catalog);
+        context.setCartSubtotal(subtotal);
+        return context;
+    }
+
+    /**
+     * A persisted-cart view of the same lines, for the bean-based {@code DiscountStrategy} path.
+     */
+    static ShoppingCart shoppingCart(int lines) {
+        Random random = new Random(SEED);
+        List<ShoppingCart.CartItemData> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            int quantity = 1 + random.nextInt(3);
+            BigDecimal price = BigDecimal.valueOf(unitPrice(i), 2);
+            items.add(new ShoppingCart.CartItemData(productId(i), quantity, price,
+                    price.multiply(BigDecimal.valueOf(quantity)), "Product " + i, null, null, category(i)));
+        }
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("BENCH-" + lines);
+        cart.setItems(items);
+        return cart;
+    }
+}
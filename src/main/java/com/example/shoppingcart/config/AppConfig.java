@@ -19,13 +19,18 @@ public class AppConfig {
     // This configuration is specifically for local development/testing with DynamoDB Local.
     @Bean
     @Profile("!prod") // Only activate this bean when not in production profile
-    public DynamoDbEnhancedClient dynamoDbEnhancedClient() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.builder()
+    public DynamoDbClient dynamoDbClient() {
+        return DynamoDbClient.builder()
                 .endpointOverride(URI.create("http://localhost:8000")) // Pointing to DynamoDB Local
                 .region(Region.of("us-east-1")) // Dummy region for local development
                 .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy"))) // Dummy credentials
                 .build();
+    }
 
+    // The low-level client is shared so repositories can issue raw expression writes (e.g. the lines-and-totals UpdateItem).
+    @Bean
+    @Profile("!prod")
+    public DynamoDbEnhancedClient dynamoDbEnhancedClient(DynamoDbClient dynamoDbClient) {
         return DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
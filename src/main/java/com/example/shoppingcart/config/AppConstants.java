@@ -18,6 +18,40 @@ public final class AppConstants {
         public static final int DEFAULT_SESSION_TIMEOUT_MINUTES = 60;
         public static final String CART_ID_PREFIX = "CART-";
         public static final String DIRECT_CHECKOUT_PREFIX = "DIRECT_";
+        // Most line operations one bulk mutation request may carry
+        public static final int MAX_BULK_OPERATIONS = 100;
+        // Read-modify-write attempts before a conflicting cart write is reported to the caller
+        public static final int MAX_WRITE_ATTEMPTS = 3;
+        // Write-behind buffer: how long a cart's changes coalesce before they are flushed, how often the
+        // flusher runs, and how many carts one flush pass takes.
+        public static final long DEFAULT_WRITE_BEHIND_WINDOW_MS = 2_000;
+        public static final long DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MS = 500;
+        public static final int DEFAULT_WRITE_BEHIND_MAX_FLUSH = 500;
+        // How long the last version that reached DynamoDB is kept for staging checks once a cart has no journal entry
+        public static final long DEFAULT_WRITE_BEHIND_VERSION_TTL_MS = 600_000;
+        // How long a cart stays in the Redis tier after it was last read or written
+        public static final long DEFAULT_TIER_TTL_SECONDS = CacheConstants.CART_TTL_SECONDS;
+        // Carts untouched for this many days are deleted by DynamoDB TTL
+        public static final long DEFAULT_RETENTION_DAYS = 30;
+        // Carts idle this long are moved to the compressed archive form by the compactor
+        public static final long DEFAULT_COMPACT_AFTER_HOURS = 72;
+        public static final long DEFAULT_COMPACTION_INTERVAL_MINUTES = 60;
+        public static final int DEFAULT_COMPACTION_BATCH = 500;
+        // Items one compaction pass may read from the cart table, idle or not; bounds the pass's read capacity
+        public static final int DEFAULT_COMPACTION_SCAN_BUDGET = 10_000;
+        public static final String EXPIRES_AT_ATTRIBUTE = "expiresAt";
+        // Single-writer gate: in-process lock stripes, the cross-instance Redis lease, how long a write waits
+        // for a busy cart before giving up, and how often it re-checks a lease held elsewhere.
+        public static final int DEFAULT_WRITER_STRIPES = 256;
+        public static final long DEFAULT_WRITER_LEASE_MS = 2_000;
+        public static final long DEFAULT_WRITER_WAIT_MS = 2_500;
+        public static final long WRITER_LEASE_POLL_MS = 10;
+        // Cart streams: how long one stays open, how often an idle one gets a keep-alive comment, how many one
+        // instance holds, and the event name snapshots are sent under.
+        public static final long DEFAULT_STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+        public static final long DEFAULT_STREAM_HEARTBEAT_SECONDS = 20;
+        public static final int DEFAULT_MAX_STREAMS = 10_000;
+        public static final String STREAM_EVENT = "cart";
 
         private Cart() {}
     }
@@ -45,6 +79,14 @@ public final class AppConstants {
         public static final String PRODUCT_ID_PATTERN = "^[A-Za-z0-9]+$";
         public static final int DEFAULT_STOCK_LEVEL = 0;
         public static final int MIN_REORDER_POINT = 5;
+        // GSI on the Catalog table: categoryHierarchy partition, pk sort, so category pages come back in a stable order
+        public static final String CATALOG_CATEGORY_INDEX = "category-index";
+        // In-process product search index: full rebuild from Postgres on startup and then at this interval
+        public static final int DEFAULT_SEARCH_REBUILD_INTERVAL_MINUTES = 60;
+        // In-memory category tree: rebuilt from product_categories and a catalog scan at this interval
+        public static final int DEFAULT_CATEGORY_TREE_REFRESH_MINUTES = 5;
+        // Items materialised per category (and per category and region) for first pages served from memory
+        public static final int CATEGORY_FIRST_PAGE_ITEMS = 100;
 
         private Product() {}
     }
@@ -58,10 +100,47 @@ public final class AppConstants {
         public static final int CACHE_DURATION_MINUTES = 30;
         public static final String PERCENTAGE_TYPE = "PERCENTAGE";
         public static final String FIXED_AMOUNT_TYPE = "FIXED_AMOUNT";
+        // Best-for-customer conflict resolution search budget, overridable via app.discount.solver.*
+        public static final long DEFAULT_SOLVER_MAX_NODES = 10_000;
+        public static final long DEFAULT_SOLVER_BUDGET_MS = 5;
+        // Safety-net reload of the compiled rule set when a rules change notification is lost, app.discount.rules-refresh-ms
+        public static final long DEFAULT_RULES_REFRESH_MS = 60_000;
 
         private Discount() {}
     }
 
+    // ============================================
+    // CHECKOUT CONFIGURATION CONSTANTS
+    // ============================================
+    public static final class Checkout {
+        // Default fetch timeouts, overridable via app.checkout.*fetch-timeout-ms
+        public static final long DEFAULT_FETCH_TIMEOUT_MS = 300;
+        public static final long DEFAULT_BULK_FETCH_TIMEOUT_MS = 5_000;
+        // Default slow-stage warning thresholds, overridable via app.checkout.slow-stage.*
+        public static final long DEFAULT_SLOW_EVALUATE_MS = 50;
+        public static final long DEFAULT_SLOW_RESOLVE_MS = 50;
+        public static final long DEFAULT_SLOW_APPLY_MS = 50;
+        public static final long DEFAULT_SLOW_SANITIZE_MS = 10;
+        public static final int MAX_BULK_CARTS = 5_000;
+        // Completed checkouts are replayed for retries with the same Idempotency-Key, overridable via app.checkout.quote.*
+        public static final long DEFAULT_QUOTE_TTL_SECONDS = 86_400;
+        public static final long DEFAULT_QUOTE_CLAIM_TTL_SECONDS = 30;
+
+        private Checkout() {}
+    }
+
+    // ============================================
+    // PROMOTION SIMULATION CONSTANTS
+    // ============================================
+    public static final class Simulation {
+        // Carts held in memory at once, overridable via app.simulation.chunk-size
+        public static final int DEFAULT_CHUNK_SIZE = 50_000;
+        // Carts priced sequentially by one fork-join task
+        public static final int LEAF_SIZE = 512;
+
+        private Simulation() {}
+    }
+
     // ============================================
     // VALIDATION CONSTANTS
     // ============================================
@@ -91,6 +170,11 @@ public final class AppConstants {
         public static final int CART_TTL_SECONDS = 1800; // 30 minutes
         public static final int DISCOUNT_TTL_SECONDS = 1800; // 30 minutes
 
+        // In-JVM near cache for catalog lookups, in front of DynamoDB
+        public static final String CATALOG_NEAR_CACHE = "catalogNearCache";
+        public static final int DEFAULT_CATALOG_NEAR_CACHE_SIZE = 10_000;
+        public static final int DEFAULT_CATALOG_NEAR_CACHE_TTL_SECONDS = 60;
+
         private CacheConstants() {}
     }
 
@@ -120,6 +204,8 @@ public final class AppConstants {
 
         public static final int DEFAULT_PAGE_SIZE = 20;
         public static final int MAX_PAGE_SIZE = 100;
+        // Response header carrying the opaque token for the next page of a paginated query
+        public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
         public static final String DEFAULT_SORT_FIELD = "createdAt";
         public static final String DEFAULT_SORT_DIRECTION = "DESC";
 
@@ -0,0 +1,57 @@
+package com.example.shoppingcart.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Timings for the checkout pipeline.
+ * The fetch stage (catalog, stock and promotion reads) runs under a timeout and fails the checkout when it
+ * expires. The in-process stages cannot be pre-empted safely, so they only have slow-stage thresholds: a stage
+ * that takes longer is logged, never aborted.
+ */
+@Getter
+@Component
+public class CheckoutTimings {
+
+    private final Duration fetchTimeout;
+    // Shared reads for a whole bulk pricing request
+    private final Duration bulkFetchTimeout;
+    private final Duration slowEvaluate;
+    private final Duration slowResolve;
+    private final Duration slowApply;
+    private final Duration slowSanitize;
+
+    public CheckoutTimings(long fetchTimeoutMs, long slowEvaluateMs, long slowResolveMs, long slowApplyMs, long slowSanitizeMs) {
+        this(fetchTimeoutMs, AppConstants.Checkout.DEFAULT_BULK_FETCH_TIMEOUT_MS,
+                slowEvaluateMs, slowResolveMs, slowApplyMs, slowSanitizeMs);
+    }
+
+    @Autowired
+    public CheckoutTimings(
+            @Value("${app.checkout.fetch-timeout-ms:" + AppConstants.Checkout.DEFAULT_FETCH_TIMEOUT_MS + "}") long fetchTimeoutMs,
+            @Value("${app.checkout.bulk-fetch-timeout-ms:" + AppConstants.Checkout.DEFAULT_BULK_FETCH_TIMEOUT_MS + "}") long bulkFetchTimeoutMs,
+            @Value("${app.checkout.slow-stage.evaluate-ms:" + AppConstants.Checkout.DEFAULT_SLOW_EVALUATE_MS + "}") long slowEvaluateMs,
+            @Value("${app.checkout.slow-stage.resolve-ms:" + AppConstants.Checkout.DEFAULT_SLOW_RESOLVE_MS + "}") long slowResolveMs,
+            @Value("${app.checkout.slow-stage.apply-ms:" + AppConstants.Checkout.DEFAULT_SLOW_APPLY_MS + "}") long slowApplyMs,
+            @Value("${app.checkout.slow-stage.sanitize-ms:" + AppConstants.Checkout.DEFAULT_SLOW_SANITIZE_MS + "}") long slowSanitizeMs) {
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        this.bulkFetchTimeout = Duration.ofMillis(bulkFetchTimeoutMs);
+        this.slowEvaluate = Duration.ofMillis(slowEvaluateMs);
+        this.slowResolve = Duration.ofMillis(slowResolveMs);
+        this.slowApply = Duration.ofMillis(slowApplyMs);
+        this.slowSanitize = Duration.ofMillis(slowSanitizeMs);
+    }
+
+    public static CheckoutTimings defaults() {
+        return new CheckoutTimings(
+                AppConstants.Checkout.DEFAULT_FETCH_TIMEOUT_MS,
+                AppConstants.Checkout.DEFAULT_SLOW_EVALUATE_MS,
+                AppConstants.Checkout.DEFAULT_SLOW_RESOLVE_MS,
+                AppConstants.Checkout.DEFAULT_SLOW_APPLY_MS,
+                AppConstants.Checkout.DEFAULT_SLOW_SANITIZE_MS);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.shoppingcart.config;
 
 import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.ProductCatalogItem;
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import com.example.shoppingcart.model.dynamo.User;
@@ -38,6 +39,7 @@ public class DynamoDBSchemaConfig {
     @Profile({"dev", "test", "local"})
     public CommandLineRunner initializeDynamoDBSchema(
             DynamoDbEnhancedClient enhancedClient,
+            DynamoDbClient dynamoDbClient,
             UserService userService) {
 
         return args -> {
@@ -50,8 +52,9 @@ public class DynamoDBSchemaConfig {
 
             try {
                 createUserTable(enhancedClient);
-                createShoppingCartTable(enhancedClient);
+                createShoppingCartTable(enhancedClient, dynamoDbClient);
                 createProductCatalogTable(enhancedClient);
+                createCatalogTable(enhancedClient);
                 createDiscountRuleTable(enhancedClient);
                 // Other table creation methods can be called here
 
@@ -78,7 +81,7 @@ public class DynamoDBSchemaConfig {
         }
     }
 
-    private void createShoppingCartTable(DynamoDbEnhancedClient enhancedClient) {
+    private void createShoppingCartTable(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
         try {
             DynamoDbTable<ShoppingCart> table = enhancedClient.table(ShoppingCart.class.getSimpleName(), TableSchema.fromBean(ShoppingCart.class));
             EnhancedGlobalSecondaryIndex userCartIndex = EnhancedGlobalSecondaryIndex.builder()
@@ -93,7 +96,11 @@ public class DynamoDBSchemaConfig {
                     .globalSecondaryIndices(userCartIndex, sessionIndex)
                     .build();
             table.createTable(request);
-            log.info("Created DynamoDB table: ShoppingCart with required indexes.");
+            // Carts nobody touches are deleted once their expiresAt passes.
+            dynamoDbClient.updateTimeToLive(ttl -> ttl
+                    .tableName(ShoppingCart.class.getSimpleName())
+                    .timeToLiveSpecification(spec -> spec.attributeName(AppConstants.Cart.EXPIRES_AT_ATTRIBUTE).enabled(true)));
+            log.info("Created DynamoDB table: ShoppingCart with required indexes and TTL on {}.", AppConstants.Cart.EXPIRES_AT_ATTRIBUTE);
         } catch (ResourceInUseException e) {
             log.info("DynamoDB table ShoppingCart already exists.");
         }
@@ -116,6 +123,22 @@ public class DynamoDBSchemaConfig {
         }
     }
 
+    private void createCatalogTable(DynamoDbEnhancedClient enhancedClient) {
+        try {
+            DynamoDbTable<CatalogItem> table = enhancedClient.table("Catalog", TableSchema.fromBean(CatalogItem.class));
+            EnhancedGlobalSecondaryIndex categoryIndex = EnhancedGlobalSecondaryIndex.builder()
+                    .indexName(AppConstants.Product.CATALOG_CATEGORY_INDEX)
+                    .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                    .build();
+            table.createTable(CreateTableEnhancedRequest.builder()
+                    .globalSecondaryIndices(categoryIndex)
+                    .build());
+            log.info("Created DynamoDB table: Catalog with index {}", AppConstants.Product.CATALOG_CATEGORY_INDEX);
+        } catch (ResourceInUseException e) {
+            log.info("DynamoDB table Catalog already exists");
+        }
+    }
+
     private void createDiscountRuleTable(DynamoDbEnhancedClient enhancedClient) {
         try {
             DynamoDbTable<DiscountRule> table = enhancedClient.table(DiscountRule.class.getSimpleName(), TableSchema.fromBean(DiscountRule.class));
@@ -1,10 +1,13 @@
 package com.example.shoppingcart.controller;
 
 import com.example.shoppingcart.dto.AddItemRequest;
+import com.example.shoppingcart.dto.CartMutationRequestDto;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.redis.Cart;
 import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.service.CartMergePolicy;
 import com.example.shoppingcart.service.CartReadService;
+import com.example.shoppingcart.service.CartStreamService;
 import com.example.shoppingcart.service.CartWriteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,8 +16,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 
@@ -27,12 +32,15 @@ public class CartController {
     private final CartWriteService cartWriteService;
     private final CartReadService cartReadService;
     private final CatalogReadRepository catalogReadRepository;
+    private final CartStreamService cartStreamService;
 
     @Autowired
-    public CartController(CartWriteService cartWriteService, CartReadService cartReadService, CatalogReadRepository catalogReadRepository) {
+    public CartController(CartWriteService cartWriteService, CartReadService cartReadService, CatalogReadRepository catalogReadRepository,
+                          CartStreamService cartStreamService) {
         this.cartWriteService = cartWriteService;
         this.cartReadService = cartReadService;
         this.catalogReadRepository = catalogReadRepository;
+        this.cartStreamService = cartStreamService;
     }
 
     @Operation(summary = "Get a user's shopping cart")
@@ -49,6 +57,21 @@ public class CartController {
         return cartReadService.getCart(userId);
     }
 
+    @Operation(summary = "Stream a user's cart and totals as they change",
+            description = "Server-sent events named 'cart', each carrying the cart snapshot and totals. One is sent on connect, then one whenever the cart, a price in it or the discount rules change.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not authorized to access this cart"),
+            @ApiResponse(responseCode = "503", description = "Too many open streams; fall back to polling")
+    })
+    @GetMapping(value = "/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("#userId == authentication.principal.username or hasRole('ADMIN')")
+    public SseEmitter streamCart(@PathVariable String userId) {
+        log.info("Opening cart stream for user: {}", userId);
+        return cartStreamService.subscribe(userId);
+    }
+
     @Operation(summary = "Add an item to a user's shopping cart")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Item added successfully"),
@@ -86,4 +109,46 @@ public class CartController {
         log.info("Updating item {} to quantity {} for user: {}", productId, quantity, userId);
         return cartWriteService.updateItemQuantity(userId, productId, quantity);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Add, set and remove many items in one request",
+            description = "Operations are applied in order in a single write and the cart is re-priced once; if any operation is invalid, none is applied.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Operations applied successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., too many operations or items"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not authorized to access this cart"),
+            @ApiResponse(responseCode = "404", description = "A product or cart item was not found"),
+            @ApiResponse(responseCode = "409", description = "Insufficient stock, or the cart kept changing concurrently"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PatchMapping("/{userId}/items")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("#userId == authentication.principal.username or hasRole('ADMIN')")
+    public Cart applyOperations(@PathVariable String userId,
+                                @Valid @RequestBody CartMutationRequestDto request,
+                                @RequestHeader(value = "X-Region", defaultValue = "UK") String region) {
+        log.info("Applying {} operations to cart for user: {}", request.getOperations().size(), userId);
+        return cartWriteService.applyOperations(userId, request.getOperations(), region);
+    }
+
+    @Operation(summary = "Merge a guest cart into a user's cart",
+            description = "Call on login. Lines of the session's guest cart are merged into the user's cart and the guest cart is deleted, in one transaction. Quantities of products in both carts are combined by the policy, or the configured default.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Carts merged, or nothing was left to merge"),
+            @ApiResponse(responseCode = "400", description = "The merged cart would hold too many items"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not authorized to access this cart"),
+            @ApiResponse(responseCode = "404", description = "Neither a user cart nor a guest cart exists"),
+            @ApiResponse(responseCode = "409", description = "The carts kept changing concurrently"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/{userId}/merge")
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("#userId == authentication.principal.username or hasRole('ADMIN')")
+    public Cart mergeGuestCart(@PathVariable String userId,
+                               @RequestParam String sessionId,
+                               @RequestParam(required = false) CartMergePolicy policy) {
+        log.info("Merging guest cart of session {} for user: {}", sessionId, userId);
+        return cartWriteService.mergeGuestCart(sessionId, userId, policy);
+    }
+}
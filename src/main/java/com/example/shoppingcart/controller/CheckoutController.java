@@ -1,11 +1,14 @@
 package com.example.shoppingcart.controller;
 
+import com.example.shoppingcart.dto.BulkCheckoutRequestDto;
 import com.example.shoppingcart.dto.CartDto;
 import com.example.shoppingcart.dto.CartItemDto;
 import com.example.shoppingcart.dto.CheckoutResponseDto;
 import com.example.shoppingcart.model.redis.Cart;
 import com.example.shoppingcart.service.CartReadService;
+import com.example.shoppingcart.service.CheckoutQuoteService;
 import com.example.shoppingcart.service.CheckoutService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -13,10 +16,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -30,21 +39,30 @@ public class CheckoutController {
 
     private static final Logger log = LoggerFactory.getLogger(CheckoutController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final CheckoutQuoteService checkoutQuoteService;
     private final CheckoutService checkoutService;
     private final CartReadService cartReadService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public CheckoutController(CheckoutService checkoutService, CartReadService cartReadService) {
+    public CheckoutController(CheckoutQuoteService checkoutQuoteService, CheckoutService checkoutService,
+                              CartReadService cartReadService, ObjectMapper objectMapper) {
+        this.checkoutQuoteService = checkoutQuoteService;
         this.checkoutService = checkoutService;
         this.cartReadService = cartReadService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Checkout a user's persistent cart")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Checkout calculation successful"),
-            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., cart is empty or item out of stock"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., cart is empty"),
             @ApiResponse(responseCode = "401", description = "User is not authenticated"),
             @ApiResponse(responseCode = "403", description = "User is not authorized to access this cart"),
+            @ApiResponse(responseCode = "409", description = "An item is out of stock, or a checkout with this Idempotency-Key is still in progress"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different cart"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/by-cart/{userId}")
@@ -62,14 +80,16 @@ public class CheckoutController {
             throw new IllegalArgumentException("Cannot checkout an empty cart.");
         }
         CartDto cartDto = convertCartToDto(cart);
-        return executeCheckout(cartDto, userTags, region);
+        return executeCheckout(idempotencyKey, cartDto, userTags, region);
     }
 
     @Operation(summary = "Perform a stateless checkout with a list of product IDs")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Checkout calculation successful"),
-            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., empty list or item out of stock"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., empty list"),
             @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "409", description = "An item is out of stock, or a checkout with this Idempotency-Key is still in progress"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different cart"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PostMapping("/by-list")
@@ -86,13 +106,45 @@ public class CheckoutController {
             throw new IllegalArgumentException("Cannot checkout an empty list of items.");
         }
         CartDto cartDto = convertListToDto(productIds);
-        return executeCheckout(cartDto, userTags, region);
+        return executeCheckout(idempotencyKey, cartDto, userTags, region);
+    }
+
+    @Operation(summary = "Price many carts in one request without placing orders",
+            description = "Streams one JSON result per line (application/x-ndjson) as each cart is priced. "
+                    + "Results are in completion order; match them to carts by reference.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Results are streamed, one line per cart"),
+            @ApiResponse(responseCode = "400", description = "Invalid input, e.g., no carts or too many carts"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "403", description = "User is not authorized to bulk price"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> priceBulk(
+            @Valid @RequestBody BulkCheckoutRequestDto request,
+            @RequestHeader(value = "X-Region", defaultValue = "UK") String region) {
+
+        log.info("Processing bulk pricing for {} carts", request.getCarts().size());
+        StreamingResponseBody body = out -> checkoutService.priceCarts(request.getCarts(), "credit_card", region,
+                result -> writeLine(out, result));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    private CheckoutResponseDto executeCheckout(CartDto cartDto, Set<String> userTags, String region) {
+    private CheckoutResponseDto executeCheckout(String idempotencyKey, CartDto cartDto, Set<String> userTags, String region) {
         Set<String> tags = userTags != null ? userTags : Collections.emptySet();
         String paymentMethod = "credit_card";
-        return checkoutService.calculateFinalPrice(cartDto, tags, paymentMethod, region);
+        return checkoutQuoteService.checkout(idempotencyKey, cartDto, tags, paymentMethod, region);
     }
 
     private CartDto convertListToDto(List<String> productIds) {
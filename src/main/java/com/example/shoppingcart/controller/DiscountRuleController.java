@@ -2,8 +2,13 @@ package com.example.shoppingcart.controller;
 
 import com.example.shoppingcart.dto.AppApiResponse;
 import com.example.shoppingcart.dto.DiscountRuleDto;
+import com.example.shoppingcart.dto.SimulationRequestDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.DiscountService;
+import com.example.shoppingcart.service.simulation.PromotionSimulator;
+import com.example.shoppingcart.service.simulation.SimulationReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,10 +20,18 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 
 @RestController
@@ -33,6 +46,7 @@ public class DiscountRuleController {
     private static final Logger log = LoggerFactory.getLogger(DiscountRuleController.class);
 
     private final DiscountService discountService;
+    private final PromotionSimulator promotionSimulator;
 
     @PostMapping
     @Operation(summary = "Create a new discount rule")
@@ -81,4 +95,35 @@ public class DiscountRuleController {
         discountService.deleteDiscountRule(ruleId);
         return ResponseEntity.ok(AppApiResponse.success("Discount rule deleted successfully", null));
     }
-}
\ No newline at end of file
+
+    @PostMapping("/simulate")
+    @Operation(summary = "Simulate candidate discount rules over past orders",
+            description = "Replays orders placed in the given window against the candidate rules without touching live carts or rules")
+    @ApiResponses({
+       @ApiResponse(responseCode = "200", description = "Simulation completed"),
+       @ApiResponse(responseCode = "400", description = "Invalid request data")
+    })
+    public ResponseEntity<AppApiResponse<SimulationReport>> simulate(@Valid @RequestBody SimulationRequestDto request) {
+        log.info("Simulating {} candidate rules over orders from {} to {}", request.getRules().size(), request.getFrom(), request.getTo());
+        SimulationReport report = promotionSimulator.simulateOrders(request.getRules(), request.getFrom(), request.getTo());
+        return ResponseEntity.ok(AppApiResponse.success("Simulation completed", report));
+    }
+
+    @PostMapping(value = "/simulate/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Simulate candidate discount rules over an exported cart file",
+            description = "The corpus is a CSV with header orderId,paymentMethod,productId,quantity,unitPricePence,categoryHierarchy[,userTags], grouped by orderId; userTags is optional and ;-separated")
+    @ApiResponses({
+       @ApiResponse(responseCode = "200", description = "Simulation completed"),
+       @ApiResponse(responseCode = "400", description = "Invalid rules or corpus")
+    })
+    public ResponseEntity<AppApiResponse<SimulationReport>> simulateUpload(@RequestPart("rules") List<DiscountRule> rules,
+                                                                           @RequestPart("corpus") MultipartFile corpus) {
+        log.info("Simulating {} candidate rules over uploaded corpus {}", rules.size(), corpus.getOriginalFilename());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(corpus.getInputStream(), StandardCharsets.UTF_8))) {
+            SimulationReport report = promotionSimulator.simulateCsv(rules, reader);
+            return ResponseEntity.ok(AppApiResponse.success("Simulation completed", report));
+        } catch (IOException e) {
+            throw new ShoppingCartException(ErrorCode.VAL_300_INVALID_PARAMS, "Corpus could not be read", e);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.shoppingcart.controller;
 
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.CategoryNodeDto;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.repository.CatalogPage;
 import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.service.ProductService;
+import com.example.shoppingcart.service.catalog.CategoryTree;
+import com.example.shoppingcart.service.catalog.CategoryTreeRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -20,26 +26,77 @@ public class ProductController {
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
 
     private final CatalogReadRepository catalogReadRepository;
+    private final ProductService productService;
+    private final CategoryTreeRegistry categoryTreeRegistry;
 
     @Autowired
-    public ProductController(CatalogReadRepository catalogReadRepository) {
+    public ProductController(CatalogReadRepository catalogReadRepository, ProductService productService,
+                             CategoryTreeRegistry categoryTreeRegistry) {
         this.catalogReadRepository = catalogReadRepository;
+        this.productService = productService;
+        this.categoryTreeRegistry = categoryTreeRegistry;
     }
 
-    @Operation(summary = "Get a paginated list of products by category")
+    @Operation(summary = "Get a paginated list of products by category",
+            description = "Returns up to 'limit' products. When there are more, the X-Next-Page-Token response header carries an opaque token; pass it back as 'pageToken' for the next page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid page token"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
     public ResponseEntity<List<CatalogItem>> getProductsByCategory(
             @RequestHeader(value = "X-Region", defaultValue = "UK") String region,
             @RequestParam String category,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String pageToken) {
         log.info("Fetching products for category: {} in region: {}", category, region);
-    String categoryHierarchy = "/" + category.toUpperCase() + "/";
-    List<CatalogItem> items = catalogReadRepository.findByCategory(categoryHierarchy, limit);
-        return ResponseEntity.ok(items);
+    String categoryHierarchy = CategoryTree.path(category);
+    int pageSize = Math.max(1, Math.min(limit, AppConstants.Api.MAX_PAGE_SIZE));
+        // First pages come from the category tree unless a product in them changed; the token continues through
+        // the same index query
+        CatalogPage page = pageToken == null
+                ? categoryTreeRegistry.firstPage(categoryHierarchy, pageSize)
+                        .orElseGet(() -> catalogReadRepository.findByCategory(categoryHierarchy, pageSize, null))
+                : catalogReadRepository.findByCategory(categoryHierarchy, pageSize, pageToken);
+        return pageResponse(page);
+    }
+
+    @Operation(summary = "Browse the category tree",
+            description = "Returns a category (the root when 'category' is omitted) with product and in-stock counts for its whole subtree in the caller's region, its subcategories, and up to 'limit' of its own products for a landing page. Counts are refreshed periodically and may trail the catalog by a few minutes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Category retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Category not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/categories")
+    public ResponseEntity<CategoryNodeDto> getCategory(
+            @RequestHeader(value = "X-Region", defaultValue = "UK") String region,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "10") int limit) {
+        int itemLimit = Math.max(0, Math.min(limit, AppConstants.Api.MAX_PAGE_SIZE));
+        return categoryTreeRegistry.current().find(category)
+                .map(node -> CategoryNodeDto.of(node, region, node.firstItems(region, itemLimit)))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Search products by name, category and description",
+            description = "Every term matches as a prefix, so partial input works for typeahead. Best matches come first; paginate with 'pageToken' from the X-Next-Page-Token response header.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching products retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid page token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<CatalogItem>> searchProducts(
+            @RequestHeader(value = "X-Region", defaultValue = "UK") String region,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String pageToken) {
+        log.debug("Searching products for: {}", query);
+        int pageSize = Math.max(1, Math.min(limit, AppConstants.Api.MAX_PAGE_SIZE));
+        return pageResponse(productService.searchProducts(query, pageSize, pageToken, region));
     }
 
     @Operation(summary = "Get the details for a specific product")
@@ -56,4 +113,12 @@ public class ProductController {
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    private static ResponseEntity<List<CatalogItem>> pageResponse(CatalogPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextPageToken() != null) {
+            response.header(AppConstants.Api.NEXT_PAGE_TOKEN_HEADER, page.nextPageToken());
+        }
+        return response.body(page.items());
+    }
 }
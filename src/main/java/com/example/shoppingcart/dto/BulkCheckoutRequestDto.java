@@ -0,0 +1,39 @@
+package com.example.shoppingcart.dto;
+
+import com.example.shoppingcart.config.AppConstants;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DTO for pricing many carts in one request without placing orders.
+ */
+@Data
+@Schema(description = "Request to price many carts in one call")
+public class BulkCheckoutRequestDto {
+
+    @Valid
+    @NotEmpty(message = "Cart list cannot be empty")
+    @Size(max = AppConstants.Checkout.MAX_BULK_CARTS, message = "Too many carts in one request")
+    private List<BulkCart> carts;
+
+    @Data
+    @Schema(description = "A single cart to price")
+    public static class BulkCart {
+
+        @Schema(description = "Caller supplied reference echoed back with the result", example = "basket-42")
+        private String reference;
+
+        @Valid
+        @NotEmpty(message = "Cart items cannot be empty")
+        private List<CartItemDto> items;
+
+        @Schema(description = "Tags associated with the shopper, e.g. PRIME_MEMBER")
+        private Set<String> userTags;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.shoppingcart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of pricing one cart of a bulk request: either a result or the error that a single-cart
+ * checkout would have returned.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCheckoutResultDto {
+    private String reference;
+    private CheckoutResponseDto result;
+    private String errorCode;
+    private String errorMessage;
+}
@@ -1,10 +1,19 @@
 package com.example.shoppingcart.dto;
 
+import com.example.shoppingcart.config.AppConstants;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 @Data
 public class CartItemDto {
+    @NotBlank(message = "Product ID cannot be blank")
     private String productId;
+
+    @Min(value = AppConstants.Validation.MIN_QUANTITY, message = "Quantity must be at least 1")
+    @Max(value = AppConstants.Validation.MAX_QUANTITY_PER_ITEM, message = "Quantity cannot exceed 100")
     private int quantity;
+
     private int priceInPence;
 }
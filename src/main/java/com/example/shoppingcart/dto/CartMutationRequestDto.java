@@ -0,0 +1,49 @@
+package com.example.shoppingcart.dto;
+
+import com.example.shoppingcart.config.AppConstants;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for changing many lines of a cart in one request, e.g. restoring a saved list or a reorder.
+ */
+@Data
+@Schema(description = "Operations applied to a cart in order, in one write and with one re-price")
+public class CartMutationRequestDto {
+
+    @Valid
+    @NotEmpty(message = "Operation list cannot be empty")
+    @Size(max = AppConstants.Cart.MAX_BULK_OPERATIONS, message = "Too many operations in one request")
+    private List<Operation> operations;
+
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "ADD increases a line's quantity, SET replaces it (0 removes the line), REMOVE deletes the line")
+    public static class Operation {
+
+        @NotNull(message = "Operation type is required")
+        private Type op;
+
+        @NotBlank(message = "Product ID cannot be blank")
+        private String productId;
+
+        @Min(value = 0, message = "Quantity cannot be negative")
+        @Schema(description = "Quantity to add or set; ignored for REMOVE", example = "2")
+        private int quantity;
+    }
+}
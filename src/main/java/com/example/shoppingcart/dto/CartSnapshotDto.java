@@ -0,0 +1,36 @@
+package com.example.shoppingcart.dto;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cart and its totals as pushed on the cart stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSnapshotDto {
+    private String cartId;
+    private Long version;
+    private Map<String, Integer> items;
+    private BigDecimal subtotal;
+    private BigDecimal totalDiscount;
+    private BigDecimal total;
+    private String currency;
+    private Map<String, BigDecimal> appliedDiscounts;
+
+    public static CartSnapshotDto of(ShoppingCart cart) {
+        Map<String, Integer> items = new LinkedHashMap<>();
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            items.put(item.getProductId(), item.getQuantity());
+        }
+        return new CartSnapshotDto(cart.getCartId(), cart.getVersion(), items, cart.getSubtotal(),
+                cart.getTotalDiscount(), cart.getTotal(), cart.getCurrency(), cart.getAppliedDiscounts());
+    }
+}
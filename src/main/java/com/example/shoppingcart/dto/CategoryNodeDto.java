@@ -0,0 +1,32 @@
+package com.example.shoppingcart.dto;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.service.catalog.CategoryNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryNodeDto {
+    private String path;
+    private String name;
+    private int productCount;
+    private int inStockCount;
+    private List<CategoryNodeDto> children;
+    private List<CatalogItem> items;
+
+    /**
+     * Maps a node and its subtree with the counts for {@code region}; only the top node carries items.
+     */
+    public static CategoryNodeDto of(CategoryNode node, String region, List<CatalogItem> items) {
+        CategoryNode.Counts counts = node.counts(region);
+        List<CategoryNodeDto> children = node.getChildren().stream()
+                .map(child -> of(child, region, List.of()))
+                .toList();
+        return new CategoryNodeDto(node.getPath(), node.getName(), counts.products(), counts.inStock(), children, items);
+    }
+}
@@ -11,4 +11,5 @@ public class CheckoutResponseDto {
     private int totalDiscount;
     private List<AppliedDiscountDto> appliedDiscounts;
     private List<CartItemDto> items;
+    private String resolutionMode;
 }
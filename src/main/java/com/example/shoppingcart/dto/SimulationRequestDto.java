@@ -0,0 +1,30 @@
+package com.example.shoppingcart.dto;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for replaying historical orders against a candidate rule set.
+ */
+@Data
+@Schema(description = "Request to simulate candidate discount rules over past orders")
+public class SimulationRequestDto {
+
+    @NotEmpty(message = "Candidate rule list cannot be empty")
+    @Schema(description = "Rules to simulate; they are treated as active and their validity windows are ignored")
+    private List<DiscountRule> rules;
+
+    @NotNull(message = "Start of the order window is required")
+    @Schema(description = "Replay orders placed at or after this time", example = "2026-01-01T00:00:00")
+    private LocalDateTime from;
+
+    @NotNull(message = "End of the order window is required")
+    @Schema(description = "Replay orders placed before this time", example = "2026-02-01T00:00:00")
+    private LocalDateTime to;
+}
@@ -10,12 +10,15 @@ public enum ErrorCode {
     CART_003_MAX_ITEMS_EXCEEDED(HttpStatus.BAD_REQUEST, "CART_003", "Cart cannot contain more than 100 items"),
     CART_004_INVALID_STATE(HttpStatus.BAD_REQUEST, "CART_004", "Invalid cart state"),
     CART_005_IS_EMPTY(HttpStatus.BAD_REQUEST, "CART_005", "Shopping cart is empty"),
+    CART_006_CHECKOUT_IN_PROGRESS(HttpStatus.CONFLICT, "CART_006", "Checkout already in progress"),
+    CART_007_CONCURRENT_MODIFICATION(HttpStatus.CONFLICT, "CART_007", "Cart was modified concurrently"),
 
     // Product errors (100 to 199)
     PROD_100_NOT_FOUND(HttpStatus.NOT_FOUND, "PROD_100", "Product not found"),
     PROD_101_INVALID_ID_FORMAT(HttpStatus.BAD_REQUEST, "PROD_101", "Invalid product ID format"),
     PROD_102_ID_TOO_LONG(HttpStatus.BAD_REQUEST, "PROD_102", "Product ID must not exceed 8 characters"),
     PROD_103_INSUFFICIENT_STOCK(HttpStatus.CONFLICT, "PROD_103", "Insufficient inventory"),
+    PROD_104_NOT_PRICED(HttpStatus.CONFLICT, "PROD_104", "Product has no price"),
 
     // Price errors (200 to 299)
     PRICE_200_MUST_BE_POSITIVE(HttpStatus.BAD_REQUEST, "PRICE_200", "Price must be greater than zero"),
@@ -27,6 +30,7 @@ public enum ErrorCode {
     VAL_301_INVALID_QUANTITY(HttpStatus.BAD_REQUEST, "VAL_301", "Invalid quantity"),
     VAL_302_INVALID_REGION(HttpStatus.BAD_REQUEST, "VAL_302", "Invalid region code"),
     VAL_303_INVALID_CURRENCY(HttpStatus.BAD_REQUEST, "VAL_303", "Invalid currency code"),
+    VAL_304_IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "VAL_304", "Idempotency key already used for a different request"),
 
     // Authentication errors (400 to 499)
     AUTH_400_UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "AUTH_400", "Unauthorized access"),
@@ -0,0 +1,240 @@
+package com.example.shoppingcart.model;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * An amount of money held as a whole number of minor units (pence for GBP) with its currency.
+ * <p>
+ * All arithmetic is exact: additions and multiplications that would overflow a {@code long} raise
+ * {@link ErrorCode#PRICE_201_CALCULATION_ERROR} instead of wrapping, and divisions round with an explicit
+ * {@link RoundingMode}. The static {@code long} helpers do the same arithmetic on raw minor units for hot
+ * loops that should not allocate.
+ * <p>
+ * {@link BigDecimal} only appears at persistence boundaries, which come in two units: the DynamoDB cart stores
+ * amounts as decimal counts of minor units ({@link #fromMinor(BigDecimal)} / {@link #toMinorDecimal(long)}), while
+ * orders in Postgres store major units ({@link #fromMajor(BigDecimal)} / {@link #toMajor(long)}). Each caller
+ * names the unit it converts from.
+ */
+public record Money(long minor, String currency) implements Comparable<Money> {
+
+    public static final int MINOR_DIGITS = AppConstants.Pricing.DEFAULT_DECIMAL_PLACES;
+    private static final long PERCENT = 100;
+
+    public Money {
+        Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minor, String currency) {
+        return new Money(minor, currency);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * @param minor an amount stored as a decimal count of minor units, e.g. a cart's {@code 105} pence
+     */
+    public static Money ofMinor(BigDecimal minor, String currency) {
+        return new Money(fromMinor(minor), currency);
+    }
+
+    /**
+     * @param major an amount stored in major units, e.g. an order's {@code 1.05} pounds
+     */
+    public static Money ofMajor(BigDecimal major, String currency) {
+        return new Money(fromMajor(major), currency);
+    }
+
+    public Money plus(Money other) {
+        return new Money(add(minor, sameCurrency(other).minor), currency);
+    }
+
+    public Money minus(Money other) {
+        return new Money(subtract(minor, sameCurrency(other).minor), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(multiply(minor, quantity), currency);
+    }
+
+    public Money percentage(long percent, RoundingMode rounding) {
+        return new Money(percentage(minor, percent, rounding), currency);
+    }
+
+    public Money max(Money other) {
+        return minor >= sameCurrency(other).minor ? this : other;
+    }
+
+    public boolean isNegative() {
+        return minor < 0;
+    }
+
+    public boolean isZero() {
+        return minor == 0;
+    }
+
+    public int toIntExact() {
+        return toIntExact(minor);
+    }
+
+    public BigDecimal toMajor() {
+        return toMajor(minor);
+    }
+
+    public BigDecimal toMinorDecimal() {
+        return toMinorDecimal(minor);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, sameCurrency(other).minor);
+    }
+
+    @Override
+    public String toString() {
+        return toMajor().toPlainString() + " " + currency;
+    }
+
+    private Money sameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new ShoppingCartException(ErrorCode.VAL_303_INVALID_CURRENCY,
+                    "Cannot combine " + currency + " with " + other.currency);
+        }
+        return other;
+    }
+
+    // ------------------------------------------------------------------
+    // Allocation-free arithmetic on raw minor units
+    // ------------------------------------------------------------------
+
+    public static long add(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    public static long subtract(long a, long b) {
+        try {
+            return Math.subtractExact(a, b);
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    public static long multiply(long amount, long factor) {
+        try {
+            return Math.multiplyExact(amount, factor);
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    /**
+     * @return {@code percent}% of {@code amount}, rounded with {@code rounding}.
+     */
+    public static long percentage(long amount, long percent, RoundingMode rounding) {
+        return divide(multiply(amount, percent), PERCENT, rounding);
+    }
+
+    /**
+     * @return {@code amount * numerator / denominator}, rounded with {@code rounding}.
+     */
+    public static long scale(long amount, long numerator, long denominator, RoundingMode rounding) {
+        return divide(multiply(amount, numerator), denominator, rounding);
+    }
+
+    /**
+     * Integer division with the same rounding semantics as {@link BigDecimal#divide(BigDecimal, RoundingMode)}.
+     */
+    public static long divide(long dividend, long divisor, RoundingMode rounding) {
+        if (divisor == 0) {
+            throw new ShoppingCartException(ErrorCode.PRICE_201_CALCULATION_ERROR, "Division by zero");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = Long.signum(dividend) * Long.signum(divisor);
+        // Compare |remainder| with |divisor| - |remainder| rather than doubling the remainder, which could overflow.
+        long absRemainder = Math.abs(remainder);
+        int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        boolean awayFromZero = switch (rounding) {
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> sign < 0;
+            case CEILING -> sign > 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ShoppingCartException(ErrorCode.PRICE_201_CALCULATION_ERROR,
+                    "Rounding required for " + dividend + " / " + divisor);
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    public static int toIntExact(long minor) {
+        try {
+            return Math.toIntExact(minor);
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    /**
+     * Converts a stored major-unit amount (e.g. {@code 1.05}) to minor units, rounding half up beyond
+     * {@link #MINOR_DIGITS} decimal places. {@code null} is treated as zero.
+     */
+    public static long fromMajor(BigDecimal major) {
+        if (major == null) {
+            return 0;
+        }
+        try {
+            return major.setScale(MINOR_DIGITS, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    /**
+     * Reads a stored amount that is already a count of minor units (e.g. {@code 105} pence), rounding any fraction
+     * of a minor unit half up. {@code null} is treated as zero.
+     */
+    public static long fromMinor(BigDecimal minor) {
+        if (minor == null) {
+            return 0;
+        }
+        try {
+            return minor.setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw overflow(e);
+        }
+    }
+
+    /**
+     * @return the amount in major units, e.g. {@code 105} pence as {@code 1.05}
+     */
+    public static BigDecimal toMajor(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_DIGITS);
+    }
+
+    /**
+     * @return the amount as a decimal count of minor units, e.g. {@code 105} pence as {@code 105}
+     */
+    public static BigDecimal toMinorDecimal(long minor) {
+        return BigDecimal.valueOf(minor);
+    }
+
+    private static ShoppingCartException overflow(ArithmeticException cause) {
+        return new ShoppingCartException(ErrorCode.PRICE_201_CALCULATION_ERROR, "Monetary amount out of range", cause);
+    }
+}
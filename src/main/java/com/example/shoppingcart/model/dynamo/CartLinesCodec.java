@@ -0,0 +1,393 @@
+package com.example.shoppingcart.model.dynamo;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary form of {@link ShoppingCart#getItems()}, used for the DynamoDB {@code items} attribute and for
+ * cart snapshots in Redis.
+ * <p>
+ * Layout (format 1): a format byte, a dictionary of the distinct product ids and categories, then one record per
+ * line. A record holds the dictionary references of its product id and category, the quantity, and the unit and
+ * line prices as unscaled value plus scale. All integers are zigzag varints. Product name, description and image
+ * URL are not stored: they are catalog data, and the cart only copied them for display.
+ * <p>
+ * {@link #decode(byte[])} reads the dictionary and finds where each record starts, but builds a
+ * {@link ShoppingCart.CartItemData} only when that line is first accessed.
+ * <p>
+ * Archived carts use format 2: the format byte followed by a format 1 payload compressed with Deflate. It is
+ * smaller still but costs an inflate on every read, so it is only written by {@link #compress(List)} for carts
+ * nobody is using.
+ */
+public final class CartLinesCodec {
+
+    static final int FORMAT_VERSION = 1;
+    static final int FORMAT_DEFLATED = 2;
+
+    private static final int HAS_PRICE = 1;
+    private static final int HAS_TOTAL_PRICE = 1 << 1;
+
+    private CartLinesCodec() {}
+
+    public static byte[] encode(List<ShoppingCart.CartItemData> lines) {
+        Map<String, Integer> refs = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        Writer records = new Writer(lines.size() * 8);
+        for (ShoppingCart.CartItemData line : lines) {
+            records.varint(ref(line.getProductId(), refs, dictionary));
+            records.varint(ref(line.getCategory(), refs, dictionary));
+            records.varint(line.getQuantity());
+            int flags = (line.getPrice() != null ? HAS_PRICE : 0) | (line.getTotalPrice() != null ? HAS_TOTAL_PRICE : 0);
+            records.varint(flags);
+            if (line.getPrice() != null) {
+                records.decimal(line.getPrice());
+            }
+            if (line.getTotalPrice() != null) {
+                records.decimal(line.getTotalPrice());
+            }
+        }
+
+        Writer out = new Writer(records.size + dictionary.size() * 12 + 8);
+        out.varint(FORMAT_VERSION);
+        out.varint(dictionary.size());
+        for (String entry : dictionary) {
+            byte[] utf8 = entry.getBytes(StandardCharsets.UTF_8);
+            out.varint(utf8.length);
+            out.bytes(utf8, 0, utf8.length);
+        }
+        out.varint(lines.size());
+        out.bytes(records.buf, 0, records.size);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes {@code lines} in the compressed archive format.
+     */
+    public static byte[] compress(List<ShoppingCart.CartItemData> lines) {
+        byte[] plain = encode(lines);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(plain);
+            deflater.finish();
+            Writer out = new Writer(plain.length / 2 + 16);
+            out.varint(FORMAT_DEFLATED);
+            byte[] chunk = new byte[Math.max(plain.length, 64)];
+            while (!deflater.finished()) {
+                out.bytes(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return a mutable list over {@code data} that decodes each line on first access.
+     */
+    public static List<ShoppingCart.CartItemData> decode(byte[] data) {
+        Reader in = new Reader(data);
+        long format = in.varint();
+        if (format == FORMAT_DEFLATED) {
+            return decode(inflate(data, in.pos));
+        }
+        if (format != FORMAT_VERSION) {
+            throw malformed("Unsupported cart line format " + format, null);
+        }
+        String[] dictionary = new String[in.count()];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = in.count();
+            dictionary[i] = new String(data, in.skip(length), length, StandardCharsets.UTF_8);
+        }
+        int count = in.count();
+        List<Object> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(in.pos);
+            in.skipRecord();
+        }
+        return new Lines(data, dictionary, slots);
+    }
+
+    private static byte[] inflate(byte[] data, int offset) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            Writer out = new Writer(data.length * 4);
+            byte[] chunk = new byte[Math.max(data.length * 2, 64)];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw malformed("Truncated archived cart lines", null);
+                }
+                out.bytes(chunk, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw malformed("Corrupt archived cart lines", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Dictionary references are offset by one so that 0 can stand for null.
+    private static int ref(String value, Map<String, Integer> refs, List<String> dictionary) {
+        if (value == null) {
+            return 0;
+        }
+        return refs.computeIfAbsent(value, v -> {
+            dictionary.add(v);
+            return dictionary.size();
+        });
+    }
+
+    private static ShoppingCartException malformed(String message, Exception cause) {
+        return new ShoppingCartException(ErrorCode.SYS_500_INTERNAL_ERROR, message, cause);
+    }
+
+    /**
+     * Each slot holds either the record offset of a line not yet decoded or the decoded line itself.
+     */
+    private static final class Lines extends AbstractList<ShoppingCart.CartItemData> implements RandomAccess {
+        private final byte[] data;
+        private final String[] dictionary;
+        private final List<Object> slots;
+
+        Lines(byte[] data, String[] dictionary, List<Object> slots) {
+            this.data = data;
+            this.dictionary = dictionary;
+            this.slots = slots;
+        }
+
+        @Override
+        public ShoppingCart.CartItemData get(int index) {
+            Object slot = slots.get(index);
+            if (slot instanceof ShoppingCart.CartItemData line) {
+                return line;
+            }
+            ShoppingCart.CartItemData line = decodeAt((Integer) slot);
+            slots.set(index, line);
+            return line;
+        }
+
+        @Override
+        public ShoppingCart.CartItemData set(int index, ShoppingCart.CartItemData element) {
+            ShoppingCart.CartItemData previous = get(index);
+            slots.set(index, element);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, ShoppingCart.CartItemData element) {
+            slots.add(index, element);
+            modCount++;
+        }
+
+        @Override
+        public ShoppingCart.CartItemData remove(int index) {
+            ShoppingCart.CartItemData previous = get(index);
+            slots.remove(index);
+            modCount++;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return slots.size();
+        }
+
+        private ShoppingCart.CartItemData decodeAt(int offset) {
+            Reader in = new Reader(data);
+            in.pos = offset;
+            ShoppingCart.CartItemData line = new ShoppingCart.CartItemData();
+            line.setProductId(lookup(in.count()));
+            line.setCategory(lookup(in.count()));
+            line.setQuantity(Math.toIntExact(in.varint()));
+            long flags = in.varint();
+            if ((flags & HAS_PRICE) != 0) {
+                line.setPrice(in.decimal());
+            }
+            if ((flags & HAS_TOTAL_PRICE) != 0) {
+                line.setTotalPrice(in.decimal());
+            }
+            return line;
+        }
+
+        private String lookup(int ref) {
+            if (ref > dictionary.length) {
+                throw malformed("Cart line refers to missing dictionary entry " + ref, null);
+            }
+            return ref == 0 ? null : dictionary[ref - 1];
+        }
+
+        // The lazy slots are an in-memory detail; serialise as a plain list.
+        private Object writeReplace() {
+            return new ArrayList<>(this);
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int size;
+
+        Writer(int capacity) {
+            this.buf = new byte[Math.max(capacity, 16)];
+        }
+
+        void varint(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            put((byte) v);
+        }
+
+        void decimal(BigDecimal value) {
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw malformed("Cart line price out of range: " + value, null);
+            }
+            varint(unscaled.longValue());
+            varint(value.scale());
+        }
+
+        void bytes(byte[] src, int offset, int length) {
+            ensure(length);
+            System.arraycopy(src, offset, buf, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            buf[size++] = b;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= data.length) {
+                    throw malformed("Truncated cart lines", null);
+                }
+                byte b = data[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return (v >>> 1) ^ -(v & 1);
+                }
+            }
+            throw malformed("Malformed varint in cart lines", null);
+        }
+
+        int count() {
+            long v = varint();
+            if (v < 0 || v > data.length) {
+                throw malformed("Cart line count or reference out of range: " + v, null);
+            }
+            return (int) v;
+        }
+
+        BigDecimal decimal() {
+            long unscaled = varint();
+            return BigDecimal.valueOf(unscaled, Math.toIntExact(varint()));
+        }
+
+        int skip(int length) {
+            int start = pos;
+            if (length > data.length - pos) {
+                throw malformed("Truncated cart lines", null);
+            }
+            pos += length;
+            return start;
+        }
+
+        void skipRecord() {
+            varint();
+            varint();
+            varint();
+            long flags = varint();
+            if ((flags & HAS_PRICE) != 0) {
+                varint();
+                varint();
+            }
+            if ((flags & HAS_TOTAL_PRICE) != 0) {
+                varint();
+                varint();
+            }
+        }
+    }
+
+    /**
+     * Writes the lines as the base64 of their binary form, so Redis snapshots are as compact as the stored item.
+     */
+    public static final class ToJson extends StdSerializer<List<ShoppingCart.CartItemData>> {
+
+        @SuppressWarnings("unchecked")
+        public ToJson() {
+            super((Class<List<ShoppingCart.CartItemData>>) (Class<?>) List.class);
+        }
+
+        @Override
+        public void serialize(List<ShoppingCart.CartItemData> value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeBinary(encode(value));
+        }
+    }
+
+    /**
+     * Reads the base64 form written by {@link ToJson}, and plain JSON arrays from snapshots written before it.
+     */
+    public static final class FromJson extends StdDeserializer<List<ShoppingCart.CartItemData>> {
+
+        public FromJson() {
+            super(List.class);
+        }
+
+        @Override
+        public List<ShoppingCart.CartItemData> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.START_ARRAY) {
+                return ctxt.readValue(p, ctxt.getTypeFactory()
+                        .constructCollectionType(ArrayList.class, ShoppingCart.CartItemData.class));
+            }
+            return decode(p.getBinaryValue());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.shoppingcart.model.dynamo;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeConverter;
+import software.amazon.awssdk.enhanced.dynamodb.AttributeValueType;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores {@link ShoppingCart#getItems()} as a single binary attribute in the {@link CartLinesCodec} format.
+ * Carts written before the codec hold a list of maps, which is still read.
+ */
+public class CartLinesConverter implements AttributeConverter<List<ShoppingCart.CartItemData>> {
+
+    private static final TableSchema<ShoppingCart.CartItemData> LEGACY_LINE_SCHEMA =
+            TableSchema.fromBean(ShoppingCart.CartItemData.class);
+
+    @Override
+    public AttributeValue transformFrom(List<ShoppingCart.CartItemData> input) {
+        return AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(CartLinesCodec.encode(input)));
+    }
+
+    @Override
+    public List<ShoppingCart.CartItemData> transformTo(AttributeValue input) {
+        if (input.b() != null) {
+            return CartLinesCodec.decode(input.b().asByteArrayUnsafe());
+        }
+        List<ShoppingCart.CartItemData> lines = new ArrayList<>();
+        if (input.hasL()) {
+            for (AttributeValue line : input.l()) {
+                lines.add(LEGACY_LINE_SCHEMA.mapToItem(line.m()));
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public EnhancedType<List<ShoppingCart.CartItemData>> type() {
+        return EnhancedType.listOf(ShoppingCart.CartItemData.class);
+    }
+
+    @Override
+    public AttributeValueType attributeValueType() {
+        return AttributeValueType.B;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.shoppingcart.model.dynamo;
 
+import com.example.shoppingcart.config.AppConstants;
 import lombok.Data;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @Data
@@ -22,10 +25,14 @@ public class CatalogItem {
     private String region;
 
     @DynamoDbPartitionKey
+    @DynamoDbSecondarySortKey(indexNames = AppConstants.Product.CATALOG_CATEGORY_INDEX)
     public String getPk() { return pk; }
 
     @DynamoDbSortKey
     public String getSk() { return sk; }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = AppConstants.Product.CATALOG_CATEGORY_INDEX)
+    public String getCategoryHierarchy() { return categoryHierarchy; }
+
     // Lombok's @Data provides setters; explicit setters removed.
 }
@@ -1,12 +1,16 @@
 package com.example.shoppingcart.model.dynamo;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbConvertedBy;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -26,7 +30,10 @@ public class ShoppingCart implements Serializable {
     private String userId;
 
     private CartStatus status;
-    private List<CartItemData> items = new ArrayList<>();
+    @JsonSerialize(using = CartLinesCodec.ToJson.class)
+    @JsonDeserialize(using = CartLinesCodec.FromJson.class)
+    private List<CartItemData> items = new ArrayList<>(); // Stored in the compact CartLinesCodec form
+    // Amounts are whole pence, like the line prices
     private BigDecimal subtotal;
     private BigDecimal totalDiscount;
     private BigDecimal total;
@@ -34,9 +41,14 @@ public class ShoppingCart implements Serializable {
     private String region;
     private Instant createdAt;
     private Instant updatedAt;
-    private Map<String, BigDecimal> appliedDiscounts;
+    private Map<String, BigDecimal> appliedDiscounts; // Discount amount in pence per ruleId from the last pricing
+    private String pricedRuleSetFingerprint; // Content hash of the rule set appliedDiscounts was computed against
+    private Instant pricedAt;
 
     private String sessionId;
+    private Long version; // Optimistic-concurrency counter, incremented by every write
+    private Long expiresAt; // Epoch seconds; the table's TTL attribute, pushed forward by every write
+    private Instant archivedAt; // Set while the cart is held in the compressed archive form
 
     @DynamoDbPartitionKey
     public String getCartId() { return cartId; }
@@ -47,6 +59,12 @@ public class ShoppingCart implements Serializable {
     @DynamoDbSecondaryPartitionKey(indexNames = "SessionIndex")
     public String getSessionId() { return sessionId; }
 
+    @DynamoDbVersionAttribute
+    public Long getVersion() { return version; }
+
+    @DynamoDbConvertedBy(CartLinesConverter.class)
+    public List<CartItemData> getItems() { return items; }
+
     private String notes;
 
     /**
@@ -64,7 +82,8 @@ public class ShoppingCart implements Serializable {
         private String productId;
         private int quantity;
         private BigDecimal price; // Price per item in pence
-        private BigDecimal totalPrice;
+        private BigDecimal totalPrice; // Line total in pence
+        // Display copies of catalog data; not persisted with the cart, so null after a reload.
         private String productName;
         private String description;
         private String imageUrl;
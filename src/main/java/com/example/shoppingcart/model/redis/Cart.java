@@ -1,17 +1,18 @@
 package com.example.shoppingcart.model.redis;
 
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import lombok.Data;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.redis.core.RedisHash;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * API view of a cart: product id to quantity plus header fields. Carts are stored as {@link ShoppingCart};
+ * this view is only built when a response is returned.
+ */
 @Data
-@RedisHash("Cart")
 public class Cart {
 
-    @Id
     private String userId;
     private Map<String, Integer> items = new HashMap<>();
     private String cartId;
@@ -29,6 +30,25 @@ public class Cart {
     // No-arg constructor required by some serialization/framework usages
     public Cart() {}
 
+    public static Cart of(ShoppingCart s) {
+        Cart c = new Cart(s.getUserId());
+        c.setCartId(s.getCartId());
+        c.setCurrency(s.getCurrency());
+        c.setRegion(s.getRegion());
+        c.setStatus(s.getStatus() != null ? s.getStatus().name() : null);
+        Map<String, Integer> itemsMap = new HashMap<>();
+        if (s.getItems() != null) {
+            for (ShoppingCart.CartItemData item : s.getItems()) {
+                itemsMap.put(item.getProductId(), item.getQuantity());
+            }
+        }
+        c.setItems(itemsMap);
+        c.setCreatedAt(s.getCreatedAt());
+        c.setUpdatedAt(s.getUpdatedAt());
+        c.setAppliedDiscounts(s.getAppliedDiscounts());
+        return c;
+    }
+
     // Explicit setters (Lombok will also generate them) to avoid compile-time reliance
     public void setCartId(String cartId) { this.cartId = cartId; }
     public void setCurrency(String currency) { this.currency = currency; }
@@ -0,0 +1,30 @@
+package com.example.shoppingcart.model.redis;
+
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
+
+import java.time.Instant;
+
+/**
+ * The result of a completed checkout, stored under the client's Idempotency-Key so that retries replay it.
+ */
+@Data
+@NoArgsConstructor
+@RedisHash("CheckoutQuote")
+public class CheckoutQuote {
+
+    @Id
+    private String idempotencyKey;
+    // Hash of the cart lines, user tags, payment method and region
+    private String contentHash;
+    // Content hash of the discount rules it was priced under, comparable across instances
+    private String ruleSetFingerprint;
+    private CheckoutResponseDto response;
+    private Instant createdAt;
+    @TimeToLive
+    private Long ttlSeconds;
+}
@@ -0,0 +1,32 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+
+/**
+ * Describes which line of an already-mutated {@link ShoppingCart} changed, so
+ * {@link CartTierRepository#putLine} can touch only that line's field of the cached copy. DynamoDB stores the lines
+ * as one encoded attribute, so {@link ShoppingCartRepository#updateLines} needs no such description.
+ *
+ * @param kind      how the line changed
+ * @param index     position of the line in the items list as it was read (for {@link Kind#APPEND}, the new last index)
+ * @param productId product of the line, which identifies it within the cart
+ */
+public record CartLineWrite(Kind kind, int index, String productId) {
+
+    public enum Kind {
+        APPEND, REPLACE, REMOVE
+    }
+
+    public static CartLineWrite appended(ShoppingCart cart) {
+        int index = cart.getItems().size() - 1;
+        return new CartLineWrite(Kind.APPEND, index, cart.getItems().get(index).getProductId());
+    }
+
+    public static CartLineWrite replaced(ShoppingCart cart, int index) {
+        return new CartLineWrite(Kind.REPLACE, index, cart.getItems().get(index).getProductId());
+    }
+
+    public static CartLineWrite removed(int index, String productId) {
+        return new CartLineWrite(Kind.REMOVE, index, productId);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link ShoppingCartRepository#putAllIfNewer}.
+ *
+ * @param unprocessed carts DynamoDB did not get to after retrying; writing them again may succeed
+ * @param conflicts   carts that were not written because DynamoDB already held that version or a newer one
+ */
+public record CartPutResult(List<ShoppingCart> unprocessed, List<ShoppingCart> conflicts) {
+}
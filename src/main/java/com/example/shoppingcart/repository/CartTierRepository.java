@@ -0,0 +1,35 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+
+import java.util.Optional;
+
+/**
+ * The Redis copy of carts kept in front of DynamoDB.
+ * <p>
+ * Each copy carries the cart version and is only ever replaced by a newer one, so writes of copies can race
+ * freely. Copies expire after a TTL that every read and write restarts.
+ */
+public interface CartTierRepository {
+
+    /**
+     * @return the cached copy, whose TTL is restarted, or empty on a miss
+     */
+    Optional<ShoppingCart> find(String cartId);
+
+    /**
+     * Replaces the whole copy, unless the cached one is already at the same or a newer version.
+     */
+    void put(ShoppingCart cart);
+
+    /**
+     * Writes just the changed line and the cart header. Only applies to a copy still at {@code readVersion};
+     * any other copy is dropped, so the next read rebuilds it.
+     *
+     * @param cart        the cart as written, at its new version
+     * @param readVersion the version the cart was read at, before the write
+     */
+    void putLine(ShoppingCart cart, Long readVersion, CartLineWrite write);
+
+    void evict(String cartId);
+}
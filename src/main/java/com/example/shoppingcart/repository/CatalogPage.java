@@ -0,0 +1,14 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+
+import java.util.List;
+
+/**
+ * One page of a catalog query.
+ *
+ * @param items         the items on this page
+ * @param nextPageToken opaque token that fetches the next page, or null on the last page
+ */
+public record CatalogPage(List<CatalogItem> items, String nextPageToken) {
+}
@@ -1,10 +1,48 @@
 package com.example.shoppingcart.repository;
 
 import com.example.shoppingcart.model.dynamo.CatalogItem;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CatalogReadRepository {
     Optional<CatalogItem> findById(String productId);
-    List<CatalogItem> findByCategory(String categoryHierarchy, int limit);
+
+    /**
+     * Reads several products of one region at once, so callers pay one round trip per batch instead of one per
+     * product. The default reads them one by one through {@link #findById}; the DynamoDB implementations issue
+     * BatchGetItem with full (product, region) keys.
+     *
+     * @return the items found, keyed by product id; products that do not exist are left out
+     */
+    default Map<String, CatalogItem> findAllByIds(Collection<String> productIds, String region) {
+        Map<String, CatalogItem> found = new HashMap<>();
+        for (String productId : productIds) {
+            findById(productId).ifPresent(item -> found.put(productId, item));
+        }
+        return found;
+    }
+
+    /**
+     * Reads one page of a category through the category GSI, so the cost follows the page size rather than the
+     * size of the catalog.
+     *
+     * @param pageToken the previous page's {@link CatalogPage#nextPageToken()}, or null for the first page
+     * @throws com.example.shoppingcart.exception.ShoppingCartException with {@code VAL_300} if the token is not one
+     *                                                                  this query handed out
+     */
+    CatalogPage findByCategory(String categoryHierarchy, int limit, String pageToken);
+
+    default List<CatalogItem> findByCategory(String categoryHierarchy, int limit) {
+        return findByCategory(categoryHierarchy, limit, null).items();
+    }
+
+    /**
+     * Reads the whole catalog lazily, page by page. Meant for background builds of in-memory views, never for
+     * request paths.
+     */
+    Stream<CatalogItem> streamAll();
 }
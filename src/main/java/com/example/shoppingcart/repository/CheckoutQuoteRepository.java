@@ -0,0 +1,10 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.redis.CheckoutQuote;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+// This repository stores completed checkout results in Redis, keyed by Idempotency-Key.
+@Repository
+public interface CheckoutQuoteRepository extends CrudRepository<CheckoutQuote, String> {
+}
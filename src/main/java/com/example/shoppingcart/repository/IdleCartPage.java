@@ -0,0 +1,14 @@
+package com.example.shoppingcart.repository;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * One bounded slice of the idle-cart scan.
+ *
+ * @param carts      the idle carts found in this slice
+ * @param nextCursor where the next slice starts, or null once the scan reached the end of the table
+ */
+public record IdleCartPage(List<ShoppingCart> carts, String nextCursor) {
+}
@@ -4,6 +4,73 @@ import com.example.shoppingcart.model.dynamo.ShoppingCart; // Corrected import
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Carts are versioned: {@link #save} and {@link #updateLines} only succeed when the stored version still matches
+ * the one the cart was read at, and otherwise throw
+ * {@link org.springframework.dao.OptimisticLockingFailureException} so the caller can re-read and retry.
+ */
 @Repository
 public interface ShoppingCartRepository extends CrudRepository<ShoppingCart, String> {
-}
\ No newline at end of file
+
+    /**
+     * Writes the cart's lines together with its re-priced totals in one conditional UpdateItem, leaving the cart's
+     * other attributes as stored. The lines are a single encoded attribute, so all of them are sent, however few
+     * changed.
+     *
+     * @param cart the cart as read, with the line change and re-pricing already applied in memory
+     * @return the cart, with its version advanced to the one now stored
+     */
+    ShoppingCart updateLines(ShoppingCart cart);
+
+    /**
+     * Writes whole carts with the versions they carry, each only if DynamoDB does not already hold that version
+     * or a newer one. For the write-behind buffer, whose carts were version-checked when they were journaled but
+     * may since have been overtaken by a direct write.
+     *
+     * @param carts carts with distinct ids
+     * @return the carts left unprocessed and the carts rejected as conflicts
+     */
+    CartPutResult putAllIfNewer(List<ShoppingCart> carts);
+
+    /**
+     * Finds up to {@code limit} carts last updated before {@code updatedBefore} that are not archived yet, reading
+     * at most {@code scanBudget} items of the table from {@code cursor}. Scans the table, so it is only for
+     * background maintenance.
+     *
+     * @param cursor where the previous slice stopped, or null to start at the beginning of the table
+     */
+    IdleCartPage findIdleSince(Instant updatedBefore, int limit, int scanBudget, String cursor);
+
+    /**
+     * Rewrites the cart in its compressed archive form, conditional on the version it was read at.
+     *
+     * @return the cart, with its version advanced to the one now stored
+     */
+    ShoppingCart archive(ShoppingCart cart);
+
+    /**
+     * Finds a signed-in user's cart through the UserCartIndex GSI. Index reads are eventually consistent, so
+     * callers that write should re-read the cart by id.
+     */
+    Optional<ShoppingCart> findByUserId(String userId);
+
+    /**
+     * Finds an anonymous session's guest cart through the SessionIndex GSI. Index reads are eventually
+     * consistent, so callers that write should re-read the cart by id.
+     */
+    Optional<ShoppingCart> findBySessionId(String sessionId);
+
+    /**
+     * Writes the merged user cart and deletes the guest cart in one TransactWriteItems, each conditional on the
+     * version it was read at.
+     *
+     * @param merged the user's cart with the guest lines merged in; a cart without a version is created
+     * @param guest  the guest cart as read
+     * @return the merged cart, with its version advanced to the one now stored
+     */
+    ShoppingCart merge(ShoppingCart merged, ShoppingCart guest);
+}
@@ -1,7 +1,12 @@
 package com.example.shoppingcart.repository.impl;
 
+import com.example.shoppingcart.config.AppConstants;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.repository.CatalogPage;
 import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.repository.impl.dynamo.CatalogBatchReads;
+import com.example.shoppingcart.repository.impl.dynamo.CatalogCategoryQuery;
+import com.example.shoppingcart.repository.impl.dynamo.CatalogNearCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
@@ -9,43 +14,53 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class CatalogReadRepositoryImpl implements CatalogReadRepository {
 
     private final DynamoDbTable<CatalogItem> catalogTable;
+    private final DynamoDbClient dynamoDbClient;
+    private final CatalogNearCache nearCache;
     private final DynamoDbIndex<CatalogItem> categoryIndex; // GSI for category lookups
 
     @Autowired
-    public CatalogReadRepositoryImpl(DynamoDbEnhancedClient enhancedClient) {
+    public CatalogReadRepositoryImpl(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient,
+                                     CatalogNearCache nearCache) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.nearCache = nearCache;
         this.catalogTable = enhancedClient.table("Catalog", TableSchema.fromBean(CatalogItem.class));
-        // This assumes a GSI named 'category-index' exists on the table.
-        // The GSI partition key would be a composite key like 'REGION#CATEGORY'
-        this.categoryIndex = catalogTable.index("category-index");
+        // categoryHierarchy partition, pk sort; see CatalogItem
+        this.categoryIndex = catalogTable.index(AppConstants.Product.CATALOG_CATEGORY_INDEX);
     }
 
     @Override
     public Optional<CatalogItem> findById(String productId) {
-        // We perform a partition-only lookup; the table design uses PRODUCT#<id> as PK
-        Key key = Key.builder().partitionValue("PRODUCT#" + productId).build();
-        return Optional.ofNullable(catalogTable.getItem(key));
+        return nearCache.get(productId, id -> {
+            // We perform a partition-only lookup; the table design uses PRODUCT#<id> as PK
+            Key key = Key.builder().partitionValue("PRODUCT#" + id).build();
+            return catalogTable.getItem(key);
+        });
     }
 
     @Override
-    public List<CatalogItem> findByCategory(String categoryHierarchy, int limit) {
-        // Query the GSI using categoryHierarchy as the partition key (assumes index exists)
-        QueryConditional qc = QueryConditional.keyEqualTo(k -> k.partitionValue(categoryHierarchy));
-        QueryEnhancedRequest request = QueryEnhancedRequest.builder().queryConditional(qc).limit(limit).build();
-
-        return categoryIndex.query(request).stream()
-                .flatMap(page -> page.items().stream())
-                .collect(Collectors.toList());
+    public Map<String, CatalogItem> findAllByIds(Collection<String> productIds, String region) {
+        return nearCache.getAll(productIds, region,
+                missing -> CatalogBatchReads.getAll(dynamoDbClient, missing, region));
+    }
+
+    @Override
+    public CatalogPage findByCategory(String categoryHierarchy, int limit, String pageToken) {
+        return CatalogCategoryQuery.query(categoryIndex, categoryHierarchy, limit, pageToken);
+    }
+
+    @Override
+    public Stream<CatalogItem> streamAll() {
+        return catalogTable.scan().items().stream();
     }
 }
@@ -0,0 +1,84 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues BatchGetItem reads of catalog items, shared by the catalog read repositories.
+ * <p>
+ * The Catalog table is keyed by product and region ({@code PRODUCT#<id>}, {@code REGION#<region>}), and
+ * BatchGetItem only accepts complete keys, so every read names the region. Keys go out in chunks of 100, the DynamoDB limit for one call. Unprocessed keys are retried with exponential
+ * backoff; if some are still unprocessed after the last attempt the read fails rather than reporting those products
+ * as missing.
+ */
+public final class CatalogBatchReads {
+
+    static final String TABLE_NAME = "Catalog";
+    // DynamoDB limit for one BatchGetItem call
+    static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 25;
+    private static final String KEY_PREFIX = "PRODUCT#";
+    private static final String REGION_PREFIX = "REGION#";
+
+    private static final TableSchema<CatalogItem> CATALOG_SCHEMA = TableSchema.fromBean(CatalogItem.class);
+
+    private CatalogBatchReads() {}
+
+    /**
+     * @return the items found for {@code region}, keyed by product id; products that do not exist there are left out
+     */
+    public static Map<String, CatalogItem> getAll(DynamoDbClient client, Collection<String> productIds, String region) {
+        AttributeValue sortKey = AttributeValue.fromS(REGION_PREFIX + region);
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<String, CatalogItem> found = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            List<Map<String, AttributeValue>> pending = new ArrayList<>();
+            for (String id : ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size()))) {
+                pending.add(Map.of("pk", AttributeValue.fromS(KEY_PREFIX + id), "sk", sortKey));
+            }
+
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw new ShoppingCartException(ErrorCode.SYS_502_DATABASE_ERROR,
+                            pending.size() + " catalog keys were left unprocessed by BatchGetItem");
+                }
+                if (attempt > 0) {
+                    backOff(attempt);
+                }
+                List<Map<String, AttributeValue>> batch = pending;
+                BatchGetItemResponse response = client.batchGetItem(request -> request
+                        .requestItems(Map.of(TABLE_NAME, KeysAndAttributes.builder().keys(batch).build())));
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(TABLE_NAME, List.of())) {
+                    CatalogItem catalogItem = CATALOG_SCHEMA.mapToItem(item);
+                    found.put(catalogItem.getPk().substring(KEY_PREFIX.length()), catalogItem);
+                }
+                KeysAndAttributes unprocessed = response.unprocessedKeys().get(TABLE_NAME);
+                pending = unprocessed == null ? List.of() : unprocessed.keys();
+            }
+        }
+        return found;
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(BASE_BACKOFF_MS << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShoppingCartException(ErrorCode.SYS_502_DATABASE_ERROR, "Interrupted while reading the catalog", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.repository.CatalogPage;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One-page category query against the Catalog category GSI, shared by the catalog read repositories.
+ * <p>
+ * Each call is a single Query with {@code Limit}, so reading a page costs the page and not the catalog. The page
+ * token is the query's LastEvaluatedKey (category, pk and sk, all strings), encoded as URL-safe Base64 so callers
+ * treat it as opaque. A token is only accepted for the category it was issued for.
+ */
+public final class CatalogCategoryQuery {
+
+    private static final String CATEGORY_ATTRIBUTE = "categoryHierarchy";
+    private static final char FIELD_SEPARATOR = '\u001f';
+    private static final char ENTRY_SEPARATOR = '\u001e';
+
+    private CatalogCategoryQuery() {}
+
+    public static CatalogPage query(DynamoDbIndex<CatalogItem> categoryIndex, String categoryHierarchy, int limit,
+                                    String pageToken) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(categoryHierarchy)))
+                .limit(limit);
+        if (pageToken != null && !pageToken.isBlank()) {
+            request.exclusiveStartKey(decode(pageToken, categoryHierarchy));
+        }
+        Page<CatalogItem> page = categoryIndex.query(request.build()).iterator().next();
+        Map<String, AttributeValue> last = page.lastEvaluatedKey();
+        return new CatalogPage(page.items(), last == null || last.isEmpty() ? null : encode(last));
+    }
+
+    /**
+     * The page token a category query returns when {@code item} is the last item on its page, so a page served
+     * from elsewhere can be continued through this query.
+     */
+    public static String tokenAfter(CatalogItem item) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put(CATEGORY_ATTRIBUTE, AttributeValue.fromS(item.getCategoryHierarchy()));
+        key.put("pk", AttributeValue.fromS(item.getPk()));
+        key.put("sk", AttributeValue.fromS(item.getSk()));
+        return encode(key);
+    }
+
+    static String encode(Map<String, AttributeValue> key) {
+        StringBuilder token = new StringBuilder();
+        key.forEach((name, value) -> {
+            if (!token.isEmpty()) {
+                token.append(ENTRY_SEPARATOR);
+            }
+            token.append(name).append(FIELD_SEPARATOR).append(value.s());
+        });
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<String, AttributeValue> decode(String pageToken, String categoryHierarchy) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            for (String entry : token.split(String.valueOf(ENTRY_SEPARATOR))) {
+                int separator = entry.indexOf(FIELD_SEPARATOR);
+                key.put(entry.substring(0, separator), AttributeValue.fromS(entry.substring(separator + 1)));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw invalid(e);
+        }
+        AttributeValue category = key.get(CATEGORY_ATTRIBUTE);
+        if (category == null || !categoryHierarchy.equals(category.s())) {
+            throw invalid(null);
+        }
+        return key;
+    }
+
+    private static ShoppingCartException invalid(Exception cause) {
+        return new ShoppingCartException(ErrorCode.VAL_300_INVALID_PARAMS, "Invalid page token", cause);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Size-bounded, TTL-based in-JVM cache of catalog items, consulted by the catalog read repositories before
+ * DynamoDB so every caller of {@code findById} shares it.
+ * <p>
+ * Entries are dropped when {@link CartChangeBus} announces a product, price or stock change, so every instance
+ * forgets the item at once; the TTL only bounds staleness if a notification is lost. Concurrent misses for the same
+ * product share one read, batch lookups send only their misses on, and products that do not exist are not cached.
+ * Batch lookups are per region and cached apart from the regionless {@code findById} entries, so a product is cached
+ * once for each region it was read in; a change evicts all of them.
+ * Items are shared between callers and must be treated as read-only. Hit, miss and eviction counts are published as
+ * {@code cache.*} metrics tagged {@code cache=catalogNearCache}.
+ */
+@Component
+public class CatalogNearCache implements MessageListener {
+
+    private final Cache<ItemKey, CatalogItem> items;
+    // Every region read so far, so an eviction reaches each regional entry of a product without scanning the cache
+    private final Set<String> regions = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public CatalogNearCache(MeterRegistry meterRegistry,
+                            RedisMessageListenerContainer listenerContainer,
+                            @Value("${app.catalog.near-cache.max-size:" + AppConstants.CacheConstants.DEFAULT_CATALOG_NEAR_CACHE_SIZE + "}") long maxSize,
+                            @Value("${app.catalog.near-cache.ttl-seconds:" + AppConstants.CacheConstants.DEFAULT_CATALOG_NEAR_CACHE_TTL_SECONDS + "}") long ttlSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.listenerContainer = listenerContainer;
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        CaffeineCacheMetrics.monitor(meterRegistry, items, AppConstants.CacheConstants.CATALOG_NEAR_CACHE);
+        listenerContainer.addMessageListener(this, new ChannelTopic(CartChangeBus.CHANNEL));
+    }
+
+    @PreDestroy
+    void stop() {
+        listenerContainer.removeMessageListener(this);
+    }
+
+    /**
+     * Returns the cached item, or reads it with {@code loader} (which may return null) and caches it.
+     */
+    public Optional<CatalogItem> get(String productId, Function<String, CatalogItem> loader) {
+        return Optional.ofNullable(items.get(new ItemKey(productId, null), key -> loader.apply(key.productId())));
+    }
+
+    /**
+     * Returns the cached items of {@code region} among {@code productIds} and reads all the others with one call to
+     * {@code loader}, which returns only the items it found, keyed by product id.
+     */
+    public Map<String, CatalogItem> getAll(Collection<String> productIds, String region,
+                                           Function<Set<String>, Map<String, CatalogItem>> loader) {
+        regions.add(region);
+        List<ItemKey> keys = productIds.stream().map(productId -> new ItemKey(productId, region)).toList();
+        Map<ItemKey, CatalogItem> found = items.getAll(keys, missing -> {
+            Map<ItemKey, CatalogItem> loaded = new HashMap<>();
+            loader.apply(missing.stream().map(ItemKey::productId).collect(Collectors.toUnmodifiableSet()))
+                    .forEach((productId, item) -> loaded.put(new ItemKey(productId, region), item));
+            return loaded;
+        });
+        Map<String, CatalogItem> byProduct = new HashMap<>();
+        found.forEach((key, item) -> byProduct.put(key.productId(), item));
+        return byProduct;
+    }
+
+    public void evict(String productId) {
+        items.invalidate(new ItemKey(productId, null));
+        for (String region : regions) {
+            items.invalidate(new ItemKey(productId, region));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String change = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (change.startsWith(CartChangeBus.PRODUCT_PREFIX)) {
+            evict(change.substring(CartChangeBus.PRODUCT_PREFIX.length()));
+        }
+    }
+
+    // region is null for entries read by findById
+    private record ItemKey(String productId, String region) {}
+}
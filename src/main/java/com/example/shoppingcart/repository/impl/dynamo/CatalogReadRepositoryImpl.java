@@ -1,45 +1,60 @@
 package com.example.shoppingcart.repository.impl.dynamo;
 
+import com.example.shoppingcart.config.AppConstants;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.repository.CatalogPage;
 import com.example.shoppingcart.repository.CatalogReadRepository;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class CatalogReadRepositoryImpl implements CatalogReadRepository {
 
     private final DynamoDbTable<CatalogItem> catalogTable;
+    private final DynamoDbClient dynamoDbClient;
+    private final CatalogNearCache nearCache;
+    private final DynamoDbIndex<CatalogItem> categoryIndex;
 
-    public CatalogReadRepositoryImpl(DynamoDbEnhancedClient enhancedClient) {
+    public CatalogReadRepositoryImpl(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient,
+                                     CatalogNearCache nearCache) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.nearCache = nearCache;
         this.catalogTable = enhancedClient.table("Catalog", TableSchema.fromBean(CatalogItem.class));
+        this.categoryIndex = catalogTable.index(AppConstants.Product.CATALOG_CATEGORY_INDEX);
     }
 
     @Override
     public Optional<CatalogItem> findById(String productId) {
-        // Assume PK format PRODUCT#<id>; the table may use SK for region but we perform partition lookup
-        Key key = Key.builder().partitionValue("PRODUCT#" + productId).build();
-        return Optional.ofNullable(catalogTable.getItem(key));
+        return nearCache.get(productId, id -> {
+            // Assume PK format PRODUCT#<id>; the table may use SK for region but we perform partition lookup
+            Key key = Key.builder().partitionValue("PRODUCT#" + id).build();
+            return catalogTable.getItem(key);
+        });
     }
 
     @Override
-    public List<CatalogItem> findByCategory(String categoryHierarchy, int limit) {
-        // WARNING: This is a full table scan with a filter, which is inefficient for large tables.
-        // A Global Secondary Index (GSI) on categoryHierarchy and region would be required for efficient querying.
-    // Fall back to scanning and filtering in-memory when a GSI is not available.
-    return catalogTable.scan().stream()
-        .flatMap(page -> page.items().stream())
-        .filter(item -> categoryHierarchy.equals(item.getCategoryHierarchy()))
-        .limit(limit)
-        .collect(Collectors.toList());
+    public Map<String, CatalogItem> findAllByIds(Collection<String> productIds, String region) {
+        return nearCache.getAll(productIds, region,
+                missing -> CatalogBatchReads.getAll(dynamoDbClient, missing, region));
     }
-}
\ No newline at end of file
+
+    @Override
+    public CatalogPage findByCategory(String categoryHierarchy, int limit, String pageToken) {
+        return CatalogCategoryQuery.query(categoryIndex, categoryHierarchy, limit, pageToken);
+    }
+
+    @Override
+    public Stream<CatalogItem> streamAll() {
+        return catalogTable.scan().items().stream();
+    }
+}
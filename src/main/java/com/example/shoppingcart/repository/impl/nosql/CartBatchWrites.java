@@ -0,0 +1,103 @@
+package com.example.shoppingcart.repository.impl.nosql;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartPutResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes whole carts in bulk for the write-behind buffer, shared by the cart repositories.
+ * <p>
+ * Each chunk is one TransactWriteItems of conditional puts: a cart is only written if it still exists and its
+ * stored version is older than the one it carries, so a flush can never put back a state that a direct write (a
+ * checkout, a merge, a newer flush) already replaced. BatchWriteItem would be cheaper but cannot carry
+ * conditions. When a transaction is cancelled, the cancellation reasons say which carts failed their condition;
+ * those are handed back as conflicts and the rest are retried with exponential backoff. Whatever is still left
+ * is handed back as unprocessed.
+ */
+final class CartBatchWrites {
+
+    private static final Logger log = LoggerFactory.getLogger(CartBatchWrites.class);
+
+    // Kept well under the TransactWriteItems limit, so one cancelled transaction holds back few carts
+    static final int MAX_BATCH_SIZE = 25;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 25;
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    // Deleted carts (merged guests) stay deleted; carts written before versioning carry no version attribute.
+    private static final String NEWER_CONDITION =
+            "attribute_exists(#cartId) AND (attribute_not_exists(#version) OR #version < :version)";
+
+    private static final TableSchema<ShoppingCart> CART_SCHEMA = TableSchema.fromBean(ShoppingCart.class);
+
+    private CartBatchWrites() {}
+
+    static CartPutResult putAllIfNewer(DynamoDbClient client, List<ShoppingCart> carts) {
+        List<ShoppingCart> unprocessed = new ArrayList<>();
+        List<ShoppingCart> conflicts = new ArrayList<>();
+        for (int from = 0; from < carts.size(); from += MAX_BATCH_SIZE) {
+            List<ShoppingCart> pending = new ArrayList<>(carts.subList(from, Math.min(from + MAX_BATCH_SIZE, carts.size())));
+            for (int attempt = 0; !pending.isEmpty() && attempt < MAX_ATTEMPTS; attempt++) {
+                if (attempt > 0 && !backOff(attempt)) {
+                    break;
+                }
+                List<ShoppingCart> batch = pending;
+                try {
+                    client.transactWriteItems(request -> request.transactItems(batch.stream()
+                            .map(cart -> TransactWriteItem.builder().put(conditionalPut(cart)).build())
+                            .toList()));
+                    pending = List.of();
+                } catch (TransactionCanceledException e) {
+                    // Reasons are listed in request order; carts cancelled for any other reason are retried.
+                    List<CancellationReason> reasons = e.cancellationReasons();
+                    pending = new ArrayList<>();
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (i < reasons.size() && CONDITIONAL_CHECK_FAILED.equals(reasons.get(i).code())) {
+                            conflicts.add(batch.get(i));
+                        } else {
+                            pending.add(batch.get(i));
+                        }
+                    }
+                }
+            }
+            unprocessed.addAll(pending);
+        }
+        if (!unprocessed.isEmpty() || !conflicts.isEmpty()) {
+            log.warn("Of {} carts, {} were left unprocessed and {} were already overtaken in DynamoDB",
+                    carts.size(), unprocessed.size(), conflicts.size());
+        }
+        return new CartPutResult(unprocessed, conflicts);
+    }
+
+    private static Put conditionalPut(ShoppingCart cart) {
+        return Put.builder()
+                .tableName(CartLineUpdates.TABLE_NAME)
+                .item(CART_SCHEMA.itemToMap(cart, true))
+                .conditionExpression(NEWER_CONDITION)
+                .expressionAttributeNames(Map.of("#cartId", "cartId", "#version", "version"))
+                .expressionAttributeValues(Map.of(":version", AttributeValue.fromN(
+                        Long.toString(cart.getVersion() != null ? cart.getVersion() : 0L))))
+                .build();
+    }
+
+    private static boolean backOff(int attempt) {
+        try {
+            Thread.sleep(BASE_BACKOFF_MS << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
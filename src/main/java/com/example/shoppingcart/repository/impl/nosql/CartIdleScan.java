@@ -0,0 +1,64 @@
+package com.example.shoppingcart.repository.impl.nosql;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.IdleCartPage;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds carts for the background compactor, shared by the cart repositories.
+ * <p>
+ * A filtered scan that starts at a cursor and evaluates at most {@code scanBudget} items. DynamoDB charges a scan
+ * for every item it reads, not for the ones the filter keeps, so the budget (passed as each page's {@code Limit})
+ * is what bounds the read capacity of one pass, however few carts are idle. The cursor is the cart id to continue
+ * after, so successive calls walk the whole table in slices. Only meant for that background job; request paths
+ * never scan.
+ */
+final class CartIdleScan {
+
+    private static final String CART_ID = "cartId";
+
+    private CartIdleScan() {}
+
+    static IdleCartPage findIdle(DynamoDbTable<ShoppingCart> table, Instant updatedBefore, int limit,
+                                 int scanBudget, String cursor) {
+        Expression filter = Expression.builder()
+                .expression("#updatedAt < :cutoff AND attribute_not_exists(#archivedAt)")
+                .putExpressionName("#updatedAt", "updatedAt")
+                .putExpressionName("#archivedAt", "archivedAt")
+                .putExpressionValue(":cutoff", AttributeValue.fromS(updatedBefore.toString()))
+                .build();
+        List<ShoppingCart> idle = new ArrayList<>();
+        String next = cursor;
+        int remaining = scanBudget;
+        while (remaining > 0) {
+            ScanEnhancedRequest.Builder request = ScanEnhancedRequest.builder().filterExpression(filter).limit(remaining);
+            if (next != null) {
+                request.exclusiveStartKey(Map.of(CART_ID, AttributeValue.fromS(next)));
+            }
+            Page<ShoppingCart> page = table.scan(request.build()).iterator().next();
+            for (ShoppingCart cart : page.items()) {
+                idle.add(cart);
+                if (idle.size() >= limit) {
+                    // Any key is a valid place to resume a scan, so the rest of this page is read next time.
+                    return new IdleCartPage(idle, cart.getCartId());
+                }
+            }
+            Map<String, AttributeValue> last = page.lastEvaluatedKey();
+            if (last == null || last.isEmpty()) {
+                return new IdleCartPage(idle, null);
+            }
+            next = last.get(CART_ID).s();
+            remaining -= page.scannedCount() != null ? page.scannedCount() : remaining;
+        }
+        return new IdleCartPage(idle, next);
+    }
+}
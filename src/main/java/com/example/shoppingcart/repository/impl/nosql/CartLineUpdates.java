@@ -0,0 +1,114 @@
+package com.example.shoppingcart.repository.impl.nosql;
+
+import com.example.shoppingcart.model.dynamo.CartLinesCodec;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import org.springframework.dao.OptimisticLockingFailureException;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds and issues the lines-and-totals UpdateItem shared by the cart repositories.
+ * <p>
+ * The expression rewrites {@code items} and the top-level totals that re-pricing derives from the lines, and
+ * advances {@code version}, all conditional on the version the cart was read at. The lines are one compact
+ * binary attribute ({@link com.example.shoppingcart.model.dynamo.CartLinesCodec}), so the whole list is sent,
+ * but the rest of the item is left as stored. Archiving an idle cart goes through the same conditional update.
+ */
+final class CartLineUpdates {
+
+    static final String TABLE_NAME = ShoppingCart.class.getSimpleName();
+
+    private static final TableSchema<ShoppingCart> CART_SCHEMA = TableSchema.fromBean(ShoppingCart.class);
+    // Top-level attributes a line change can alter; everything else on the cart is left as stored.
+    private static final List<String> DERIVED_ATTRIBUTES = List.of(
+            "items", "subtotal", "totalDiscount", "total", "appliedDiscounts", "pricedRuleSetFingerprint", "pricedAt",
+            "updatedAt", "expiresAt", "archivedAt");
+    private static final List<String> ARCHIVED_ATTRIBUTES = List.of(
+            "items", "appliedDiscounts", "pricedRuleSetFingerprint", "pricedAt", "archivedAt");
+
+    private CartLineUpdates() {}
+
+    static ShoppingCart updateLines(DynamoDbClient client, ShoppingCart cart) {
+        return update(client, cart, CART_SCHEMA.itemToMap(cart, DERIVED_ATTRIBUTES), DERIVED_ATTRIBUTES);
+    }
+
+    /**
+     * Rewrites a cart nobody is using in its archive form: lines compressed, and the pricing state that re-pricing
+     * can rebuild dropped. Conditional on the version like any other write, so a concurrent change wins.
+     */
+    static ShoppingCart archive(DynamoDbClient client, ShoppingCart cart, Instant archivedAt) {
+        cart.setAppliedDiscounts(null);
+        cart.setPricedRuleSetFingerprint(null);
+        cart.setPricedAt(null);
+        cart.setArchivedAt(archivedAt);
+        Map<String, AttributeValue> attributes = new HashMap<>(CART_SCHEMA.itemToMap(cart, ARCHIVED_ATTRIBUTES));
+        attributes.put("items", AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(CartLinesCodec.compress(cart.getItems()))));
+        return update(client, cart, attributes, ARCHIVED_ATTRIBUTES);
+    }
+
+    private static ShoppingCart update(DynamoDbClient client, ShoppingCart cart,
+                                       Map<String, AttributeValue> attributes, List<String> written) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        List<String> sets = new ArrayList<>();
+        List<String> removes = new ArrayList<>();
+
+        for (String attribute : written) {
+            names.put("#" + attribute, attribute);
+            AttributeValue value = attributes.get(attribute);
+            if (value == null || Boolean.TRUE.equals(value.nul())) {
+                removes.add("#" + attribute);
+            } else {
+                sets.add("#" + attribute + " = :" + attribute);
+                values.put(":" + attribute, value);
+            }
+        }
+
+        Long expected = cart.getVersion();
+        long next = expected == null ? 1L : expected + 1;
+        names.put("#version", "version");
+        names.put("#cartId", "cartId");
+        sets.add("#version = :next");
+        values.put(":next", AttributeValue.fromN(Long.toString(next)));
+        String condition;
+        if (expected == null) {
+            // Carts written before versioning carry no version attribute yet.
+            condition = "attribute_exists(#cartId) AND attribute_not_exists(#version)";
+        } else {
+            condition = "attribute_exists(#cartId) AND #version = :expected";
+            values.put(":expected", AttributeValue.fromN(Long.toString(expected)));
+        }
+
+        String expression = "SET " + String.join(", ", sets)
+                + (removes.isEmpty() ? "" : " REMOVE " + String.join(", ", removes));
+        try {
+            client.updateItem(UpdateItemRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .key(Map.of("cartId", AttributeValue.fromS(cart.getCartId())))
+                    .updateExpression(expression)
+                    .conditionExpression(condition)
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            throw conflict(cart, e);
+        }
+        cart.setVersion(next);
+        return cart;
+    }
+
+    static OptimisticLockingFailureException conflict(ShoppingCart cart, ConditionalCheckFailedException cause) {
+        return new OptimisticLockingFailureException(
+                "Cart " + cart.getCartId() + " changed since version " + cart.getVersion() + " was read", cause);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.shoppingcart.repository.impl.nosql;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import org.springframework.dao.OptimisticLockingFailureException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Looks up and commits guest-to-user cart merges, shared by the cart repositories.
+ * <p>
+ * The merge is one TransactWriteItems: a put of the merged user cart, conditional on the version it was read at
+ * (or on not existing yet), and a delete of the guest cart, conditional on its version. Either both happen or
+ * neither does, so a guest cart is never lost and never merged twice.
+ */
+final class CartMerges {
+
+    static final String USER_INDEX = "UserCartIndex";
+    static final String SESSION_INDEX = "SessionIndex";
+
+    private static final TableSchema<ShoppingCart> CART_SCHEMA = TableSchema.fromBean(ShoppingCart.class);
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final String TRANSACTION_CONFLICT = "TransactionConflict";
+
+    private CartMerges() {}
+
+    static Optional<ShoppingCart> findFirst(DynamoDbTable<ShoppingCart> table, String indexName, String value) {
+        return table.index(indexName)
+                .query(QueryConditional.keyEqualTo(Key.builder().partitionValue(value).build()))
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .findFirst();
+    }
+
+    static ShoppingCart merge(DynamoDbClient client, ShoppingCart merged, ShoppingCart guest) {
+        Long expected = merged.getVersion();
+        long next = expected == null ? 1L : expected + 1;
+        Map<String, AttributeValue> item = new HashMap<>(CART_SCHEMA.itemToMap(merged, true));
+        item.put("version", AttributeValue.fromN(Long.toString(next)));
+
+        Map<String, AttributeValue> putValues = new HashMap<>();
+        String putCondition = versionCondition(expected, putValues);
+        Put put = Put.builder()
+                .tableName(CartLineUpdates.TABLE_NAME)
+                .item(item)
+                .conditionExpression(putCondition)
+                .expressionAttributeNames(Map.of("#version", "version"))
+                .expressionAttributeValues(putValues.isEmpty() ? null : putValues)
+                .build();
+
+        Map<String, AttributeValue> deleteValues = new HashMap<>();
+        String deleteCondition = "attribute_exists(#cartId) AND " + versionCondition(guest.getVersion(), deleteValues);
+        Delete delete = Delete.builder()
+                .tableName(CartLineUpdates.TABLE_NAME)
+                .key(Map.of("cartId", AttributeValue.fromS(guest.getCartId())))
+                .conditionExpression(deleteCondition)
+                .expressionAttributeNames(Map.of("#cartId", "cartId", "#version", "version"))
+                .expressionAttributeValues(deleteValues.isEmpty() ? null : deleteValues)
+                .build();
+
+        try {
+            client.transactWriteItems(request -> request.transactItems(
+                    TransactWriteItem.builder().put(put).build(),
+                    TransactWriteItem.builder().delete(delete).build()));
+        } catch (TransactionCanceledException e) {
+            if (e.cancellationReasons().stream().map(CancellationReason::code)
+                    .anyMatch(code -> CONDITIONAL_CHECK_FAILED.equals(code) || TRANSACTION_CONFLICT.equals(code))) {
+                throw new OptimisticLockingFailureException("Cart " + merged.getCartId() + " or guest cart "
+                        + guest.getCartId() + " changed since they were read", e);
+            }
+            throw e;
+        }
+        merged.setVersion(next);
+        return merged;
+    }
+
+    // Carts written before versioning (and carts not created yet) carry no version attribute.
+    private static String versionCondition(Long expected, Map<String, AttributeValue> values) {
+        if (expected == null) {
+            return "attribute_not_exists(#version)";
+        }
+        values.put(":expected", AttributeValue.fromN(Long.toString(expected)));
+        return "#version = :expected";
+    }
+}
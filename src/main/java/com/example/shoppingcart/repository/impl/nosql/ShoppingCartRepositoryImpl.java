@@ -1,6 +1,8 @@
 package com.example.shoppingcart.repository.impl.nosql;
 
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartPutResult;
+import com.example.shoppingcart.repository.IdleCartPage;
 import com.example.shoppingcart.repository.ShoppingCartRepository;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
@@ -9,7 +11,11 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.StreamSupport;
 
@@ -18,18 +24,61 @@ public class ShoppingCartRepositoryImpl implements ShoppingCartRepository {
 
     private final DynamoDbTable<ShoppingCart> cartTable;
     private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
 
-    public ShoppingCartRepositoryImpl(DynamoDbEnhancedClient enhancedClient) {
+    public ShoppingCartRepositoryImpl(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
         this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
         this.cartTable = enhancedClient.table(ShoppingCart.class.getSimpleName(), TableSchema.fromBean(ShoppingCart.class));
     }
 
     @Override
     public <S extends ShoppingCart> S save(S entity) {
-        cartTable.putItem(entity);
+        try {
+            // The version attribute makes this put conditional on the version the cart was read at.
+            cartTable.putItem(entity);
+        } catch (ConditionalCheckFailedException e) {
+            throw CartLineUpdates.conflict(entity, e);
+        }
+        entity.setVersion(entity.getVersion() == null ? 1L : entity.getVersion() + 1);
         return entity;
     }
 
+    @Override
+    public ShoppingCart updateLines(ShoppingCart cart) {
+        return CartLineUpdates.updateLines(dynamoDbClient, cart);
+    }
+
+    @Override
+    public CartPutResult putAllIfNewer(List<ShoppingCart> carts) {
+        return CartBatchWrites.putAllIfNewer(dynamoDbClient, carts);
+    }
+
+    @Override
+    public IdleCartPage findIdleSince(Instant updatedBefore, int limit, int scanBudget, String cursor) {
+        return CartIdleScan.findIdle(cartTable, updatedBefore, limit, scanBudget, cursor);
+    }
+
+    @Override
+    public ShoppingCart archive(ShoppingCart cart) {
+        return CartLineUpdates.archive(dynamoDbClient, cart, Instant.now());
+    }
+
+    @Override
+    public Optional<ShoppingCart> findByUserId(String userId) {
+        return CartMerges.findFirst(cartTable, CartMerges.USER_INDEX, userId);
+    }
+
+    @Override
+    public Optional<ShoppingCart> findBySessionId(String sessionId) {
+        return CartMerges.findFirst(cartTable, CartMerges.SESSION_INDEX, sessionId);
+    }
+
+    @Override
+    public ShoppingCart merge(ShoppingCart merged, ShoppingCart guest) {
+        return CartMerges.merge(dynamoDbClient, merged, guest);
+    }
+
     @Override
     public <S extends ShoppingCart> Iterable<S> saveAll(Iterable<S> entities) {
         entities.forEach(this::save);
@@ -0,0 +1,186 @@
+package com.example.shoppingcart.repository.impl.redis;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CartLinesCodec;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartLineWrite;
+import com.example.shoppingcart.repository.CartTierRepository;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@link CartTierRepository} over one Redis hash per cart, written with field-level commands.
+ * <p>
+ * Fields: {@code v} the version, {@code h} the cart header as JSON (everything but the lines), {@code n} a line
+ * sequence counter, and one {@code l:<productId>} field per line holding its sequence number and its
+ * {@link CartLinesCodec} encoding. The sequence numbers keep the lines in the order they were added.
+ * <p>
+ * A single-line change rewrites that line's field (HSET or HDEL, HINCRBY for a new line's sequence number) and
+ * the header, and restarts the TTL. The commands run in a Lua script rather than a pipeline because the
+ * version check has to be atomic with them; only whole-cart loads rewrite every field.
+ */
+@Repository
+public class CartTierRepositoryImpl implements CartTierRepository {
+
+    static final String KEY_PREFIX = "CartTier:h:";
+
+    private static final String HEADER = "h";
+    private static final String SEQUENCE = "n";
+    private static final String LINE_PREFIX = "l:";
+
+    // KEYS: cart hash. ARGV: ttl in seconds.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = new DefaultRedisScript<>("""
+            local fields = redis.call('HGETALL', KEYS[1])
+            if #fields > 0 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end
+            return fields
+            """, List.class);
+
+    // KEYS: cart hash. ARGV: version, ttl in seconds, then field/value pairs.
+    private static final RedisScript<Long> PUT = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'v')
+            if current and tonumber(current) >= tonumber(ARGV[1]) then return 0 end
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'v', ARGV[1], unpack(ARGV, 3))
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: cart hash. ARGV: version read at, new version, ttl in seconds, header, kind, line field, line value.
+    private static final RedisScript<Long> PUT_LINE = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], 'v')
+            if not current then return 0 end
+            if tonumber(current) ~= tonumber(ARGV[1]) then
+                redis.call('DEL', KEYS[1])
+                return 0
+            end
+            if ARGV[5] == 'REMOVE' then
+                redis.call('HDEL', KEYS[1], ARGV[6])
+            else
+                local old = redis.call('HGET', KEYS[1], ARGV[6])
+                local seq = old and string.match(old, '^(%d+):') or redis.call('HINCRBY', KEYS[1], 'n', 1)
+                redis.call('HSET', KEYS[1], ARGV[6], seq .. ':' .. ARGV[7])
+            end
+            redis.call('HSET', KEYS[1], 'v', ARGV[2], 'h', ARGV[4])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper headerMapper;
+    private final long ttlSeconds;
+
+    public CartTierRepositoryImpl(RedisTemplate<String, String> redisTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.cart.tier.ttl-seconds:" + AppConstants.Cart.DEFAULT_TIER_TTL_SECONDS + "}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.headerMapper = objectMapper.copy().addMixIn(ShoppingCart.class, HeaderOnly.class);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public Optional<ShoppingCart> find(String cartId) {
+        List<?> fields = redisTemplate.execute(READ, List.of(KEY_PREFIX + cartId), Long.toString(ttlSeconds));
+        if (fields == null || fields.isEmpty()) {
+            return Optional.empty();
+        }
+        String header = null;
+        TreeMap<Long, ShoppingCart.CartItemData> lines = new TreeMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            String field = fields.get(i).toString();
+            String value = fields.get(i + 1).toString();
+            if (field.equals(HEADER)) {
+                header = value;
+            } else if (field.startsWith(LINE_PREFIX)) {
+                int separator = value.indexOf(':');
+                lines.put(Long.parseLong(value.substring(0, separator)), decodeLine(value.substring(separator + 1)));
+            }
+        }
+        if (header == null) {
+            return Optional.empty();
+        }
+        ShoppingCart cart = readHeader(header);
+        cart.setItems(new ArrayList<>(lines.values()));
+        return Optional.of(cart);
+    }
+
+    @Override
+    public void put(ShoppingCart cart) {
+        List<ShoppingCart.CartItemData> items = cart.getItems();
+        List<String> args = new ArrayList<>(6 + 2 * items.size());
+        args.add(versionOf(cart.getVersion()));
+        args.add(Long.toString(ttlSeconds));
+        args.add(HEADER);
+        args.add(writeHeader(cart));
+        args.add(SEQUENCE);
+        args.add(Integer.toString(items.size()));
+        for (int i = 0; i < items.size(); i++) {
+            args.add(LINE_PREFIX + items.get(i).getProductId());
+            args.add((i + 1) + ":" + encodeLine(items.get(i)));
+        }
+        redisTemplate.execute(PUT, List.of(KEY_PREFIX + cart.getCartId()), args.toArray());
+    }
+
+    @Override
+    public void putLine(ShoppingCart cart, Long readVersion, CartLineWrite write) {
+        String line = "";
+        if (write.kind() != CartLineWrite.Kind.REMOVE) {
+            line = encodeLine(cart.getItems().get(write.index()));
+        }
+        redisTemplate.execute(PUT_LINE, List.of(KEY_PREFIX + cart.getCartId()),
+                versionOf(readVersion), versionOf(cart.getVersion()), Long.toString(ttlSeconds), writeHeader(cart),
+                write.kind().name(), LINE_PREFIX + write.productId(), line);
+    }
+
+    @Override
+    public void evict(String cartId) {
+        redisTemplate.delete(KEY_PREFIX + cartId);
+    }
+
+    private static String versionOf(Long version) {
+        return version == null ? "0" : version.toString();
+    }
+
+    private static String encodeLine(ShoppingCart.CartItemData line) {
+        return Base64.getEncoder().encodeToString(CartLinesCodec.encode(List.of(line)));
+    }
+
+    private static ShoppingCart.CartItemData decodeLine(String value) {
+        return CartLinesCodec.decode(Base64.getDecoder().decode(value)).get(0);
+    }
+
+    private String writeHeader(ShoppingCart cart) {
+        try {
+            return headerMapper.writeValueAsString(cart);
+        } catch (JsonProcessingException e) {
+            throw new ShoppingCartException(ErrorCode.SYS_500_INTERNAL_ERROR, "Cart could not be cached", e);
+        }
+    }
+
+    private ShoppingCart readHeader(String header) {
+        try {
+            return headerMapper.readValue(header, ShoppingCart.class);
+        } catch (JsonProcessingException e) {
+            throw new ShoppingCartException(ErrorCode.SYS_500_INTERNAL_ERROR, "Cached cart could not be read", e);
+        }
+    }
+
+    // The lines live in their own fields, so the header leaves them out.
+    @JsonIgnoreProperties({"items"})
+    private abstract static class HeaderOnly {
+    }
+}
@@ -1,9 +1,40 @@
 package com.example.shoppingcart.repository.jpa;
 
 import com.example.shoppingcart.model.postgres.OrderItem;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
 @Repository
 public interface OrderItemJpaRepository extends JpaRepository<OrderItem, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Streams the lines of orders placed in {@code [from, to)}, grouped by order, without loading entities.
+     * The caller must hold a transaction open and close the stream.
+     */
+    @Query("select o.orderId as orderId, o.paymentMethod as paymentMethod, i.productId as productId, "
+            + "i.productName as productName, i.quantity as quantity, i.itemPrice as itemPrice, "
+            + "i.categoryHierarchy as categoryHierarchy "
+            + "from OrderItem i join i.order o "
+            + "where o.orderDate >= :from and o.orderDate < :to "
+            + "order by o.orderId")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<HistoricalOrderLine> streamHistoricalLines(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface HistoricalOrderLine {
+        String getOrderId();
+        String getPaymentMethod();
+        String getProductId();
+        String getProductName();
+        Integer getQuantity();
+        BigDecimal getItemPrice();
+        String getCategoryHierarchy();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.shoppingcart.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Describes a single cart line mutation for incremental re-pricing.
+ *
+ * @param productId         The product whose line was added, changed or removed.
+ * @param category          The line's category, used to find the discount rules that read it.
+ * @param previousLineTotal The line total in pence recorded by the previous pricing, or zero for a new line.
+ */
+public record CartLineChange(String productId, String category, BigDecimal previousLineTotal) {
+
+    public static CartLineChange added(String productId, String category) {
+        return new CartLineChange(productId, category, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.shoppingcart.service;
+
+/**
+ * How a guest cart's quantity is combined with the user's for a product that is in both carts. Products in only
+ * one of the carts are always kept.
+ */
+public enum CartMergePolicy {
+    /** Add the guest quantity to the user's. */
+    SUM,
+    /** Keep the larger of the two quantities. */
+    MAX,
+    /** Keep the user's quantity. */
+    KEEP_USER,
+    /** Take the guest quantity. */
+    KEEP_GUEST;
+
+    public int merge(int userQuantity, int guestQuantity) {
+        return switch (this) {
+            case SUM -> userQuantity + guestQuantity;
+            case MAX -> Math.max(userQuantity, guestQuantity);
+            case KEEP_USER -> userQuantity;
+            case KEEP_GUEST -> guestQuantity;
+        };
+    }
+}
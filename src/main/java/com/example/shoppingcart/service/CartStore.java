@@ -0,0 +1,59 @@
+package com.example.shoppingcart.service;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartLineWrite;
+
+import java.util.Optional;
+
+/**
+ * The single way carts are read and written. {@link ShoppingCart} is the canonical representation in every tier;
+ * the {@link com.example.shoppingcart.model.redis.Cart} view is only built at the API edge.
+ * <p>
+ * Writes are versioned: they succeed only against the version the cart was read at and otherwise throw
+ * {@link org.springframework.dao.OptimisticLockingFailureException}, after which the caller should re-read.
+ */
+public interface CartStore {
+
+    Optional<ShoppingCart> find(String cartId);
+
+    /**
+     * Finds a signed-in user's cart: by the user id first, which is the id carts created on first read get, then
+     * through the user index.
+     */
+    Optional<ShoppingCart> findByUser(String userId);
+
+    /**
+     * Finds the guest cart of an anonymous session through the session index.
+     */
+    Optional<ShoppingCart> findBySession(String sessionId);
+
+    /**
+     * Stores a cart that does not exist yet.
+     */
+    ShoppingCart create(ShoppingCart cart);
+
+    /**
+     * Writes the whole cart through to DynamoDB, including any changes still pending in the write-behind buffer.
+     */
+    ShoppingCart save(ShoppingCart cart);
+
+    /**
+     * Writes a line change of a cart that was read from this store. DynamoDB gets the lines and totals (not the
+     * whole cart); the cached copy only has the line described by {@code write} replaced.
+     */
+    ShoppingCart updateLine(ShoppingCart cart, CartLineWrite write);
+
+    /**
+     * Writes the user's cart with the guest lines merged in and deletes the guest cart, atomically. Both carts
+     * must have been read from this store.
+     */
+    ShoppingCart merge(ShoppingCart merged, ShoppingCart guest);
+
+    /**
+     * Moves an idle cart to the compressed archive form and out of the cache tier. The next write restores the
+     * normal form.
+     *
+     * @return false if the cart is in use and was left alone
+     */
+    boolean archive(ShoppingCart cart);
+}
@@ -0,0 +1,18 @@
+package com.example.shoppingcart.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes a cart's contents and totals to connected clients whenever the cart, a price in it or the discount
+ * rules change, so clients do not have to poll for them.
+ */
+public interface CartStreamService {
+
+    /**
+     * Opens a stream of snapshots for the cart. The current snapshot is sent straight away.
+     *
+     * @param cartId The ID of the cart.
+     * @return the emitter to return from the request handler
+     */
+    SseEmitter subscribe(String cartId);
+}
@@ -1,7 +1,10 @@
 package com.example.shoppingcart.service;
 
+import com.example.shoppingcart.dto.CartMutationRequestDto;
 import com.example.shoppingcart.model.redis.Cart;
 
+import java.util.List;
+
 public interface CartWriteService {
 
     Cart createCart(String userId);
@@ -12,5 +15,20 @@ public interface CartWriteService {
 
     Cart updateItemQuantity(String cartId, String productId, int quantity);
 
+    /**
+     * Applies the operations in order in a single read-modify-write, re-pricing the cart once at the end.
+     * Products are validated against the catalog and stock before anything is written; if any operation fails,
+     * none is applied.
+     */
+    Cart applyOperations(String cartId, List<CartMutationRequestDto.Operation> operations, String region);
+
+    /**
+     * Merges the guest cart of an anonymous session into the user's cart and deletes the guest cart, in one
+     * transaction. The user's cart is created if the user has none.
+     *
+     * @param policy how quantities of products in both carts are combined; null for the configured default
+     */
+    Cart mergeGuestCart(String sessionId, String userId, CartMergePolicy policy);
+
     Cart checkout(String cartId);
 }
@@ -19,6 +19,9 @@ import com.example.shoppingcart.repository.CatalogReadRepository; // Read-only,
 import com.example.shoppingcart.repository.PromotionReadRepository; // Read-only, not for writing
 import com.example.shoppingcart.repository.jpa.DiscountActionRepository;
 import com.example.shoppingcart.repository.jpa.DiscountConditionRepository;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import com.example.shoppingcart.service.search.ProductSearchIndex;
 
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -39,6 +42,9 @@ public class CdcService {
     private final DiscountRuleRepository discountRuleRepository; // For writing DynamoDB DiscountRule
     private final DiscountConditionRepository discountConditionRepository;
     private final DiscountActionRepository discountActionRepository;
+    private final RuleSetRegistry ruleSetRegistry; // Recompiled whenever a discount rule is synced
+    private final CartChangeBus cartChangeBus; // Tells open cart streams and catalog near caches about product, price and rule changes
+    private final ProductSearchIndex productSearchIndex; // Updated in place here; other instances re-read on the bus event
 
     // Method to sync Product (Postgres) to DynamoDB (ProductCatalogItem)
     public void syncProductToDynamoDB(Product postgresProduct) {
@@ -55,6 +61,8 @@ public class CdcService {
         item.setImageUrl(postgresProduct.getImageUrl());
         // Price, currency, stock, region are in separate tables in Postgres, will be synced by other methods
         productCatalogRepository.save(item);
+        productSearchIndex.index(postgresProduct);
+        cartChangeBus.productChanged(postgresProduct.getId());
     }
 
     // Method to sync Inventory (Postgres) to DynamoDB (ProductCatalogItem with INVENTORY SK)
@@ -67,6 +75,7 @@ public class CdcService {
         item.setRegion(postgresInventory.getRegion());
         // Other product details are in the METADATA item, not duplicated here
         productCatalogRepository.save(item);
+        cartChangeBus.productChanged(postgresInventory.getProductId());
     }
 
     // Method to sync ProductPrice (Postgres) to DynamoDB (ProductCatalogItem with PRICE SK)
@@ -81,6 +90,7 @@ public class CdcService {
         item.setRegion(postgresProductPrice.getRegion());
         // Other product details are in the METADATA item, not duplicated here
         productCatalogRepository.save(item);
+        cartChangeBus.priceChanged(String.valueOf(postgresProductPrice.getProductId()));
     }
 
     // Method to sync DiscountRule (Postgres) to DynamoDB (DiscountRule)
@@ -133,6 +143,8 @@ public class CdcService {
             dynamoDbDiscountRule.setActions(dynamoActions);
         }
         discountRuleRepository.save(dynamoDbDiscountRule);
+        ruleSetRegistry.refresh();
+        cartChangeBus.rulesChanged();
     }
 
     // Method to sync User (Postgres) to DynamoDB (User)
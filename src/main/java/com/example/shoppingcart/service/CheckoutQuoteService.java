@@ -0,0 +1,26 @@
+package com.example.shoppingcart.service;
+
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+
+import java.util.Set;
+
+public interface CheckoutQuoteService {
+
+    /**
+     * Runs a checkout at most once per idempotency key.
+     * The first request for a key runs {@link CheckoutService#calculateFinalPrice} and stores the result;
+     * a retry with the same key and the same cart contents returns the stored result without re-pricing
+     * or placing another order.
+     *
+     * @param idempotencyKey The client supplied Idempotency-Key header.
+     * @param cart The user's shopping cart DTO.
+     * @param userTags A set of tags associated with the user (e.g., "PRIME_MEMBER").
+     * @param paymentMethod The payment method selected by the user.
+     * @param region The region for stock and price validation.
+     * @return The checkout result, either freshly calculated or replayed.
+     * @throws com.example.shoppingcart.exception.ShoppingCartException if the key was already used for a
+     *         different cart, or a checkout with the same key is still in progress.
+     */
+    CheckoutResponseDto checkout(String idempotencyKey, CartDto cart, Set<String> userTags, String paymentMethod, String region);
+}
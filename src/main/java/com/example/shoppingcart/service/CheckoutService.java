@@ -1,9 +1,14 @@
 package com.example.shoppingcart.service;
 
+import com.example.shoppingcart.dto.BulkCheckoutRequestDto;
+import com.example.shoppingcart.dto.BulkCheckoutResultDto;
 import com.example.shoppingcart.dto.CartDto;
 import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ShoppingCartException;
 
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CheckoutService {
 
@@ -21,8 +26,22 @@ public interface CheckoutService {
      * @param paymentMethod The payment method selected by the user.
      * @param region The region for stock and price validation.
      * @return A DTO containing the full breakdown of the checkout calculation.
-     * @throws IllegalStateException if an item is out of stock.
+     * @throws ShoppingCartException with {@code PROD_103} if an item is out of stock.
      * @throws IllegalArgumentException if an item ID is invalid or the cart is empty.
      */
     CheckoutResponseDto calculateFinalPrice(CartDto cart, Set<String> userTags, String paymentMethod, String region);
+
+    /**
+     * Prices many carts with the same stages as {@link #calculateFinalPrice}, without placing orders or
+     * reserving stock. Catalog, stock and promotion data are loaded once for the whole batch, then the carts
+     * are priced in parallel.
+     *
+     * @param carts The carts to price.
+     * @param paymentMethod The payment method to evaluate promotions against.
+     * @param region The region for stock and price validation.
+     * @param sink Receives one result per cart, on the calling thread, in the order the carts finish.
+     *             A cart that would fail single-cart checkout yields a result with its error code instead.
+     */
+    void priceCarts(List<BulkCheckoutRequestDto.BulkCart> carts, String paymentMethod, String region,
+                    Consumer<BulkCheckoutResultDto> sink);
 }
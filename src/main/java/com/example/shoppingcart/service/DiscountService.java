@@ -9,7 +9,19 @@ import java.math.BigDecimal;
 import java.util.Optional;
 
 public interface DiscountService extends CrudService<DiscountRule, String, DiscountRuleDto> {
+    /**
+     * Prices every applicable rule against the cart. The per-rule amounts and the rule set fingerprint are recorded
+     * on the cart so that later line changes can be re-priced with {@link #recalculateTotalDiscount}.
+     *
+     * @return the total discount in pence
+     */
     BigDecimal calculateTotalDiscount(ShoppingCart cart);
+
+    /**
+     * Re-prices only the rules affected by a single line change, reusing the per-rule amounts recorded on the cart.
+     * Falls back to {@link #calculateTotalDiscount} when the recorded amounts are missing or from another rule set.
+     */
+    BigDecimal recalculateTotalDiscount(ShoppingCart cart, CartLineChange change);
     DiscountRule createDiscountRule(DiscountRuleDto discountRuleDto);
     Optional<DiscountRule> getDiscountRuleById(String ruleId);
     void deleteDiscountRule(String ruleId);
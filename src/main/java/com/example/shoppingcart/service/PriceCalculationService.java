@@ -13,4 +13,14 @@ public interface PriceCalculationService {
      * @param cart The ShoppingCart object to calculate totals for.
      */
     void calculateCartTotals(ShoppingCart cart);
+
+    /**
+     * Updates the totals after a single line was added, changed or removed, adjusting the subtotal by the line's
+     * delta and re-pricing only the discount rules that read that line. Carts that were never priced this way
+     * get a full {@link #calculateCartTotals} instead.
+     *
+     * @param cart   The ShoppingCart object, already carrying the mutation.
+     * @param change The line that changed and its total before the change.
+     */
+    void recalculateCartTotals(ShoppingCart cart, CartLineChange change);
 }
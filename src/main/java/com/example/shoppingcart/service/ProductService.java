@@ -3,6 +3,7 @@ package com.example.shoppingcart.service;
 import com.example.shoppingcart.dto.ProductDto;
 import com.example.shoppingcart.dto.ProductResponseDto; // Corrected import
 import com.example.shoppingcart.model.dynamo.CatalogItem; // Corrected import
+import com.example.shoppingcart.repository.CatalogPage;
 import com.example.shoppingcart.service.crud.CrudService;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 
@@ -57,20 +58,32 @@ public interface ProductService extends CrudService<ProductResponseDto, String,
     CatalogItem getProductById(String productId, String region);
 
     /**
-     * Gets a product by its name with pagination. Note: This can be inefficient without a GSI.
+     * Searches product names, categories and descriptions through the in-process search index. Every query term
+     * matches as a prefix, so this also serves typeahead.
+     *
+     * @param query the search text; a blank query lists every product in name order
+     * @param limit the maximum number of products on the page
+     * @param pageToken the previous page's {@link CatalogPage#nextPageToken()}, or null for the first page
+     * @param region the region whose catalog entries are returned
+     * @return the matching catalog items, best match first
+     */
+    CatalogPage searchProducts(String query, int limit, String pageToken, String region);
+
+    /**
+     * Gets a product by its name with pagination, through {@link #searchProducts}.
      *
      * @param name The name of the product.
      * @param pageSize the maximum number of items to retrieve per page
-     * @param lastEvaluatedKey the primary key of the last item from the previous page, or null for the first page
+     * @param lastEvaluatedKey the page token from the previous page's last evaluated key, or null for the first page
      * @return a Page of CatalogItem
      */
     Page<CatalogItem> getProductByNamePaginated(String name, int pageSize, String lastEvaluatedKey);
 
     /**
-     * Gets all products from the catalog with pagination.
+     * Gets all products from the catalog with pagination, in name order.
      *
      * @param pageSize the maximum number of items to retrieve per page
-     * @param lastEvaluatedKey the primary key of the last item from the previous page, or null for the first page
+     * @param lastEvaluatedKey the page token from the previous page's last evaluated key, or null for the first page
      * @return a Page of CatalogItem
      */
     Page<CatalogItem> getAllProductsPaginated(int pageSize, String lastEvaluatedKey);
@@ -0,0 +1,74 @@
+package com.example.shoppingcart.service.catalog;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.repository.CatalogPage;
+import com.example.shoppingcart.repository.impl.dynamo.CatalogCategoryQuery;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One category in a {@link CategoryTree}, with its children, the counts for its whole subtree and the first items
+ * filed directly under it. Immutable, like the tree.
+ */
+@Getter
+public final class CategoryNode {
+
+    private final String path;
+    private final String name;
+    private final List<CategoryNode> children;
+    private final Counts counts;
+    private final Map<String, Counts> countsByRegion;
+    // Items filed directly under this path, in category-index order (pk, then sk), capped
+    private final List<CatalogItem> firstItems;
+    private final int itemCount;
+    private final Map<String, List<CatalogItem>> firstItemsByRegion;
+
+    CategoryNode(String path, String name, List<CategoryNode> children, Counts counts,
+                 Map<String, Counts> countsByRegion, List<CatalogItem> firstItems, int itemCount,
+                 Map<String, List<CatalogItem>> firstItemsByRegion) {
+        this.path = path;
+        this.name = name;
+        this.children = List.copyOf(children);
+        this.counts = counts;
+        this.countsByRegion = Map.copyOf(countsByRegion);
+        this.firstItems = List.copyOf(firstItems);
+        this.itemCount = itemCount;
+        this.firstItemsByRegion = Map.copyOf(firstItemsByRegion);
+    }
+
+    /**
+     * Distinct products and in-stock products in this category and everything below it, in one region or, for a
+     * null region, anywhere.
+     */
+    public Counts counts(String region) {
+        return region == null ? counts : countsByRegion.getOrDefault(region, Counts.NONE);
+    }
+
+    /**
+     * The first page of the category listing, the same page the category index query returns, with a token that
+     * continues through that query. Empty when the page reaches past the materialised items.
+     */
+    public Optional<CatalogPage> firstPage(int limit) {
+        if (limit > firstItems.size() && itemCount > firstItems.size()) {
+            return Optional.empty();
+        }
+        List<CatalogItem> page = firstItems.subList(0, Math.min(limit, firstItems.size()));
+        String nextPageToken = itemCount > page.size() ? CatalogCategoryQuery.tokenAfter(page.getLast()) : null;
+        return Optional.of(new CatalogPage(page, nextPageToken));
+    }
+
+    /**
+     * The first items filed directly under this category for one region, for landing pages.
+     */
+    public List<CatalogItem> firstItems(String region, int limit) {
+        List<CatalogItem> items = firstItemsByRegion.getOrDefault(region, List.of());
+        return items.subList(0, Math.min(limit, items.size()));
+    }
+
+    public record Counts(int products, int inStock) {
+        public static final Counts NONE = new Counts(0, 0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.shoppingcart.service.catalog;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the category hierarchy as a trie keyed by path segment, e.g. {@code /FOOD/FRUIT/} under
+ * {@code /FOOD/}. Every node carries precomputed product and in-stock counts for its subtree and the first items
+ * of its own listing, so browsing and category landing pages never touch DynamoDB. A snapshot is never mutated;
+ * {@link CategoryTreeRegistry} swaps in a new one on each rebuild.
+ */
+@Getter
+public final class CategoryTree {
+
+    public static final String ROOT_PATH = "/";
+    private static final String KEY_PREFIX = "PRODUCT#";
+    public static final CategoryTree EMPTY = new CategoryTree(new CategoryNode(ROOT_PATH, ROOT_PATH, List.of(),
+            CategoryNode.Counts.NONE, Map.of(), List.of(), 0, Map.of()), 0L);
+
+    private final CategoryNode root;
+    private final long builtAtEpochMillis;
+    private final Map<String, CategoryNode> nodesByPath;
+    // Paths whose materialised first items include the product, keyed by product id
+    private final Map<String, Set<String>> listingPathsByProduct;
+
+    CategoryTree(CategoryNode root, long builtAtEpochMillis) {
+        this.root = root;
+        this.builtAtEpochMillis = builtAtEpochMillis;
+        Map<String, CategoryNode> byPath = new HashMap<>();
+        Map<String, Set<String>> byProduct = new HashMap<>();
+        index(root, byPath, byProduct);
+        this.nodesByPath = Collections.unmodifiableMap(byPath);
+        this.listingPathsByProduct = Collections.unmodifiableMap(byProduct);
+    }
+
+    /**
+     * Turns a category as users and clients send it ({@code fruit}, {@code /Food/Fruit/}, {@code food/fruit}) into
+     * the stored {@code categoryHierarchy} form, {@code /FOOD/FRUIT/}. Blank means the root.
+     */
+    public static String path(String category) {
+        StringBuilder path = new StringBuilder(ROOT_PATH);
+        if (category != null) {
+            for (String segment : category.split("/")) {
+                String trimmed = segment.trim();
+                if (!trimmed.isEmpty()) {
+                    path.append(trimmed.toUpperCase(Locale.ROOT)).append('/');
+                }
+            }
+        }
+        return path.toString();
+    }
+
+    public Optional<CategoryNode> find(String category) {
+        return Optional.ofNullable(nodesByPath.get(path(category)));
+    }
+
+    public int size() {
+        return nodesByPath.size();
+    }
+
+    /**
+     * The paths whose first page, as materialised in this snapshot, lists the product.
+     */
+    public Set<String> listedUnder(String productId) {
+        return listingPathsByProduct.getOrDefault(productId, Set.of());
+    }
+
+    private static void index(CategoryNode node, Map<String, CategoryNode> byPath, Map<String, Set<String>> byProduct) {
+        byPath.put(node.getPath(), node);
+        for (CatalogItem item : node.getFirstItems()) {
+            // Change notifications name the bare product id, not the PRODUCT#<id> partition key
+            String pk = item.getPk();
+            String productId = pk.startsWith(KEY_PREFIX) ? pk.substring(KEY_PREFIX.length()) : pk;
+            byProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(node.getPath());
+        }
+        node.getChildren().forEach(child -> index(child, byPath, byProduct));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.shoppingcart.service.catalog;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Collects categories and catalog items in one pass and freezes them into a {@link CategoryTree}.
+ * <p>
+ * Counts are of distinct products (catalog {@code pk}), so a product listed in several regions counts once overall
+ * and once in each of its regions; it is in stock where its stock is above zero. Only items whose stored
+ * {@code categoryHierarchy} is already in canonical form are materialised as listing items, because the listing
+ * query matches that attribute exactly.
+ */
+final class CategoryTreeBuilder {
+
+    private static final Comparator<CatalogItem> INDEX_ORDER = Comparator
+            .comparing(CatalogItem::getPk, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CatalogItem::getSk, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final int pageItems;
+    private final Map<String, Draft> drafts = new HashMap<>();
+
+    CategoryTreeBuilder(int pageItems) {
+        this.pageItems = pageItems;
+        draft(CategoryTree.ROOT_PATH);
+    }
+
+    /**
+     * Declares a category, so it appears in the tree even before it has products.
+     */
+    CategoryTreeBuilder category(String category, String name) {
+        draft(CategoryTree.path(category)).name = name;
+        return this;
+    }
+
+    CategoryTreeBuilder item(CatalogItem item) {
+        if (item.getPk() == null) {
+            return this;
+        }
+        String path = CategoryTree.path(item.getCategoryHierarchy());
+        boolean inStock = item.getStock() != null && item.getStock() > 0;
+        String region = item.getRegion();
+        for (String ancestor : ancestors(path)) {
+            draft(ancestor).count(item.getPk(), region, inStock);
+        }
+        Draft own = drafts.get(path);
+        if (path.equals(item.getCategoryHierarchy())) {
+            own.itemCount++;
+            offer(own.firstItems, item);
+            if (region != null) {
+                offer(own.firstItemsByRegion.computeIfAbsent(region, r -> new TreeSet<>(INDEX_ORDER)), item);
+            }
+        }
+        return this;
+    }
+
+    CategoryTree build() {
+        return new CategoryTree(freeze(CategoryTree.ROOT_PATH), System.currentTimeMillis());
+    }
+
+    private CategoryNode freeze(String path) {
+        Draft draft = drafts.get(path);
+        List<CategoryNode> children = new ArrayList<>();
+        for (String child : draft.children) {
+            children.add(freeze(child));
+        }
+        children.sort(Comparator.comparing(CategoryNode::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(CategoryNode::getPath));
+
+        Map<String, CategoryNode.Counts> countsByRegion = new HashMap<>();
+        draft.regionProducts.forEach((region, products) -> countsByRegion.put(region, new CategoryNode.Counts(
+                products.size(), draft.regionInStock.getOrDefault(region, Set.of()).size())));
+        Map<String, List<CatalogItem>> firstItemsByRegion = new HashMap<>();
+        draft.firstItemsByRegion.forEach((region, items) -> firstItemsByRegion.put(region, List.copyOf(items)));
+
+        return new CategoryNode(path, draft.name != null ? draft.name : lastSegment(path), children,
+                new CategoryNode.Counts(draft.products.size(), draft.inStock.size()), countsByRegion,
+                List.copyOf(draft.firstItems), draft.itemCount, firstItemsByRegion);
+    }
+
+    // Creates the node and any missing ancestors, linked to their parents.
+    private Draft draft(String path) {
+        Draft existing = drafts.get(path);
+        if (existing != null) {
+            return existing;
+        }
+        Draft created = new Draft();
+        drafts.put(path, created);
+        if (!path.equals(CategoryTree.ROOT_PATH)) {
+            draft(parent(path)).children.add(path);
+        }
+        return created;
+    }
+
+    private void offer(TreeSet<CatalogItem> items, CatalogItem item) {
+        items.add(item);
+        if (items.size() > pageItems) {
+            items.pollLast();
+        }
+    }
+
+    private static List<String> ancestors(String path) {
+        List<String> paths = new ArrayList<>();
+        paths.add(CategoryTree.ROOT_PATH);
+        for (int slash = path.indexOf('/', 1); slash > 0; slash = path.indexOf('/', slash + 1)) {
+            paths.add(path.substring(0, slash + 1));
+        }
+        return paths;
+    }
+
+    private static String parent(String path) {
+        return path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+    }
+
+    private static String lastSegment(String path) {
+        return path.equals(CategoryTree.ROOT_PATH) ? path : path.substring(parent(path).length(), path.length() - 1);
+    }
+
+    private static final class Draft {
+        private String name;
+        private final Set<String> children = new LinkedHashSet<>();
+        private final Set<String> products = new HashSet<>();
+        private final Set<String> inStock = new HashSet<>();
+        private final Map<String, Set<String>> regionProducts = new HashMap<>();
+        private final Map<String, Set<String>> regionInStock = new HashMap<>();
+        private final TreeSet<CatalogItem> firstItems = new TreeSet<>(INDEX_ORDER);
+        private final Map<String, TreeSet<CatalogItem>> firstItemsByRegion = new HashMap<>();
+        private int itemCount;
+
+        void count(String productId, String region, boolean inStock) {
+            products.add(productId);
+            if (inStock) {
+                this.inStock.add(productId);
+            }
+            if (region != null) {
+                regionProducts.computeIfAbsent(region, r -> new HashSet<>()).add(productId);
+                if (inStock) {
+                    regionInStock.computeIfAbsent(region, r -> new HashSet<>()).add(productId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.shoppingcart.service.catalog;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.postgres.Category;
+import com.example.shoppingcart.repository.CatalogPage;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.repository.jpa.CategoryJpaRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Holds the current {@link CategoryTree} and rebuilds it from the Postgres categories and a scan of the catalog on
+ * startup and then on a fixed interval, on a background thread. Readers get the last complete snapshot and never
+ * block; counts and landing items are at most one refresh interval behind the catalog. Until the first build
+ * finishes the tree is {@link CategoryTree#EMPTY}, and callers fall back to querying DynamoDB.
+ * <p>
+ * First pages of a listing must not trail the catalog, so the registry also listens for product announcements on
+ * {@link CartChangeBus}. A changed product marks the listings it appears in, and the one it is filed under now, as
+ * stale; {@link #firstPage} serves those from the index query until a rebuild that started after the change.
+ */
+@Component
+public class CategoryTreeRegistry implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeRegistry.class);
+
+    // Marks every listing stale, when a changed product could not be read to find where it is filed
+    private static final String ALL_LISTINGS = "*";
+
+    private final CategoryJpaRepository categoryJpaRepository;
+    private final CatalogReadRepository catalogReadRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long refreshMinutes;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("category-tree-refresh").daemon().factory());
+    private final AtomicReference<CategoryTree> current = new AtomicReference<>(CategoryTree.EMPTY);
+    // Listing path to the System.nanoTime() at which a product change last made it stale
+    private final Map<String, Long> staleListings = new ConcurrentHashMap<>();
+
+    public CategoryTreeRegistry(CategoryJpaRepository categoryJpaRepository,
+                                CatalogReadRepository catalogReadRepository,
+                                RedisMessageListenerContainer listenerContainer,
+                                @Value("${app.catalog.category-tree.refresh-minutes:" + AppConstants.Product.DEFAULT_CATEGORY_TREE_REFRESH_MINUTES + "}") long refreshMinutes) {
+        this.categoryJpaRepository = categoryJpaRepository;
+        this.catalogReadRepository = catalogReadRepository;
+        this.listenerContainer = listenerContainer;
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    @PostConstruct
+    void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CartChangeBus.CHANNEL));
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        listenerContainer.removeMessageListener(this);
+        refresher.shutdownNow();
+    }
+
+    public CategoryTree current() {
+        return current.get();
+    }
+
+    /**
+     * The first page of a category listing from the current tree, or empty when the category is unknown, the page
+     * reaches past the materialised items, or a product in the listing changed since the tree was built.
+     */
+    public Optional<CatalogPage> firstPage(String category, int limit) {
+        String path = CategoryTree.path(category);
+        if (staleListings.containsKey(ALL_LISTINGS) || staleListings.containsKey(path)) {
+            return Optional.empty();
+        }
+        return current().find(path).flatMap(node -> node.firstPage(limit));
+    }
+
+    /**
+     * Builds a new tree and swaps it in.
+     *
+     * @return the number of categories in the new tree, including the root
+     */
+    public int refresh() {
+        long started = System.nanoTime();
+        CategoryTreeBuilder builder = new CategoryTreeBuilder(AppConstants.Product.CATEGORY_FIRST_PAGE_ITEMS);
+        Map<Long, Category> categories = new HashMap<>();
+        for (Category category : categoryJpaRepository.findAll()) {
+            categories.put(category.getId(), category);
+        }
+        for (Category category : categories.values()) {
+            if (!category.isDeleted()) {
+                builder.category(categoryPath(category, categories), category.getName());
+            }
+        }
+        try (Stream<CatalogItem> items = catalogReadRepository.streamAll()) {
+            items.forEach(builder::item);
+        }
+        CategoryTree tree = builder.build();
+        current.set(tree);
+        // Changes announced while this build read the catalog may be missing from it, so only older marks go.
+        staleListings.values().removeIf(marked -> marked - started < 0);
+        log.info("Rebuilt category tree with {} categories", tree.size());
+        return tree.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(CartChangeBus.PRODUCT_PREFIX)) {
+            productChanged(body.substring(CartChangeBus.PRODUCT_PREFIX.length()));
+        }
+    }
+
+    private void productChanged(String productId) {
+        long marked = System.nanoTime();
+        current().listedUnder(productId).forEach(path -> staleListings.put(path, marked));
+        try {
+            catalogReadRepository.findById(productId)
+                    .ifPresent(item -> staleListings.put(CategoryTree.path(item.getCategoryHierarchy()), marked));
+        } catch (RuntimeException e) {
+            log.warn("Could not read changed product {}; serving every listing from DynamoDB until the next rebuild",
+                    productId, e);
+            staleListings.put(ALL_LISTINGS, marked);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule; the registry keeps serving the previous tree.
+            log.warn("Category tree refresh failed", e);
+        }
+    }
+
+    // Walks the parent chain; the depth bound stops a corrupt cycle in product_categories from looping forever.
+    private static String categoryPath(Category category, Map<Long, Category> categories) {
+        StringBuilder path = new StringBuilder();
+        Category node = category;
+        for (int depth = 0; node != null && depth < categories.size(); depth++) {
+            path.insert(0, "/" + node.getName());
+            node = node.getParentId() == null ? null : categories.get(node.getParentId());
+        }
+        return CategoryTree.path(path.toString());
+    }
+}
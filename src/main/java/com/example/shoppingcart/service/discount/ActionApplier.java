@@ -3,17 +3,21 @@ package com.example.shoppingcart.service.discount;
 import com.example.shoppingcart.dto.AppliedDiscountDto;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 public class ActionApplier {
@@ -21,31 +25,72 @@ public class ActionApplier {
     private static final Logger log = LoggerFactory.getLogger(ActionApplier.class);
 
     private final Map<ActionType, ActionStrategy> strategyMap;
+    private final RuleSetRegistry ruleSetRegistry;
 
-    @Autowired
     public ActionApplier(List<ActionStrategy> strategies) {
+        this(strategies, null);
+    }
+
+    @Autowired
+    public ActionApplier(List<ActionStrategy> strategies, RuleSetRegistry ruleSetRegistry) {
         this.strategyMap = strategies.stream()
                 .collect(Collectors.toUnmodifiableMap(ActionStrategy::getType, Function.identity()));
+        this.ruleSetRegistry = ruleSetRegistry;
     }
 
     public List<AppliedDiscountDto> apply(List<DiscountRule> finalRules, EvaluationContext context) {
-        return finalRules.stream()
-                .flatMap(rule -> rule.getActions() == null ? Stream.empty() : rule.getActions().stream())
-                .map(action -> {
-                    ActionType type = ActionType.fromString(action.getType());
-                    if (type == null) {
-                        log.warn("Unknown action type found: {}", action.getType());
-                        return null;
-                    }
-
-                    ActionStrategy strategy = strategyMap.get(type);
-                    if (strategy == null) {
-                        log.warn("No strategy implementation found for action type: {}", type);
-                        return null;
-                    }
-                    return strategy.apply(action, context);
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        // Rules handed out by the current rule set already have a compiled form; use it.
+        RuleSet snapshot = ruleSetRegistry != null ? ruleSetRegistry.peek() : RuleSet.EMPTY;
+        List<AppliedDiscountDto> applied = new ArrayList<>();
+        for (DiscountRule rule : finalRules) {
+            CompiledRule compiled = snapshot.compiledFor(rule);
+            if (compiled != null) {
+                applyRule(compiled, context, applied);
+            } else if (rule.getActions() != null) {
+                rule.getActions().stream()
+                        .map(action -> applyRaw(action, context))
+                        .filter(Objects::nonNull)
+                        .forEach(applied::add);
+            }
+        }
+        return applied;
+    }
+
+    private AppliedDiscountDto applyRaw(DiscountRule.Action action, EvaluationContext context) {
+        ActionType type = ActionType.fromString(action.getType());
+        if (type == null) {
+            log.warn("Unknown action type found: {}", action.getType());
+            return null;
+        }
+
+        ActionStrategy strategy = strategyMap.get(type);
+        if (strategy == null) {
+            log.warn("No strategy implementation found for action type: {}", type);
+            return null;
+        }
+        return strategy.apply(action, context);
+    }
+
+    /**
+     * Applies the actions of compiled rules. Strategies were bound when the rule set was compiled,
+     * so no type resolution happens here. Each result is stamped with the id and name of its rule.
+     */
+    public List<AppliedDiscountDto> applyCompiled(List<CompiledRule> finalRules, EvaluationContext context) {
+        List<AppliedDiscountDto> applied = new ArrayList<>();
+        for (CompiledRule rule : finalRules) {
+            applyRule(rule, context, applied);
+        }
+        return applied;
+    }
+
+    private void applyRule(CompiledRule rule, EvaluationContext context, List<AppliedDiscountDto> applied) {
+        for (CompiledAction action : rule.getActions()) {
+            AppliedDiscountDto discount = action.getStrategy().apply(action, context);
+            if (discount != null) {
+                discount.setRuleId(rule.getRuleId());
+                discount.setRuleName(rule.getRuleName());
+                applied.add(discount);
+            }
+        }
     }
 }
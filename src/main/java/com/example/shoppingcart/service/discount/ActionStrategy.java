@@ -3,6 +3,7 @@ package com.example.shoppingcart.service.discount;
 import com.example.shoppingcart.dto.AppliedDiscountDto;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
 
 public interface ActionStrategy {
     /**
@@ -18,4 +19,15 @@ public interface ActionStrategy {
      * @return An AppliedDiscountDto containing the description and calculated value of the discount.
      */
     AppliedDiscountDto apply(DiscountRule.Action action, EvaluationContext context);
+
+    /**
+     * Applies a pre-resolved action from the compiled rule set.
+     * Strategies that read numeric parameters should override this to use the unboxed values.
+     * @param action The compiled action.
+     * @param context The current evaluation context (cart, user, etc.).
+     * @return An AppliedDiscountDto containing the description and calculated value of the discount.
+     */
+    default AppliedDiscountDto apply(CompiledAction action, EvaluationContext context) {
+        return apply(action.getSource(), context);
+    }
 }
@@ -1,6 +1,10 @@
 package com.example.shoppingcart.service.discount;
 
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public enum ActionType {
     PERCENTAGE_OFF_PRODUCT,
@@ -9,10 +13,10 @@ public enum ActionType {
     FIXED_AMOUNT_OFF_CART,
     APPLY_FREE_SHIPPING;
 
+    private static final Map<String, ActionType> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, Function.identity()));
+
     public static ActionType fromString(String text) {
-        return Arrays.stream(ActionType.values())
-                .filter(e -> e.name().equalsIgnoreCase(text))
-                .findFirst()
-                .orElse(null);
+        return text == null ? null : BY_NAME.get(text.toUpperCase(Locale.ROOT));
     }
 }
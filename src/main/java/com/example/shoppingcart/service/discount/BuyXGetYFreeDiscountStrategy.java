@@ -1,11 +1,12 @@
 package com.example.shoppingcart.service.discount;
 
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,11 +40,21 @@ public class BuyXGetYFreeDiscountStrategy implements DiscountStrategy {
         int numberOfFreeItems = numberOfOffers * rule.getFreeQuantity();
 
         // Find the cheapest items to apply the discount to
-        return applicableItems.stream()
-                .sorted(Comparator.comparing(ShoppingCart.CartItemData::getPrice))
-                .limit(numberOfFreeItems)
-                .map(ShoppingCart.CartItemData::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long[] prices = new long[applicableItems.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = Money.fromMinor(applicableItems.get(i).getPrice());
+        }
+        Arrays.sort(prices);
+        long discount = 0;
+        for (int i = 0; i < Math.min(numberOfFreeItems, prices.length); i++) {
+            discount = Money.add(discount, prices[i]);
+        }
+        return Money.toMinorDecimal(discount);
+    }
+
+    @Override
+    public PricingScope scopeOf(DiscountRule rule) {
+        return PricingScope.categories(rule.getApplicableCategories());
     }
 
     private boolean isApplicable(ShoppingCart.CartItemData item, DiscountRule rule) {
@@ -2,6 +2,9 @@ package com.example.shoppingcart.service.discount;
 
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ruleset.CompiledCondition;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,14 +21,25 @@ public class ConditionEvaluator {
     private static final Logger log = LoggerFactory.getLogger(ConditionEvaluator.class);
 
     private final Map<ConditionType, ConditionStrategy> strategyMap;
+    private final RuleSetRegistry ruleSetRegistry;
 
-    @Autowired
     public ConditionEvaluator(List<ConditionStrategy> strategies) {
+        this(strategies, null);
+    }
+
+    @Autowired
+    public ConditionEvaluator(List<ConditionStrategy> strategies, RuleSetRegistry ruleSetRegistry) {
         this.strategyMap = strategies.stream()
                 .collect(Collectors.toUnmodifiableMap(ConditionStrategy::getType, Function.identity()));
+        this.ruleSetRegistry = ruleSetRegistry;
     }
 
     public boolean areConditionsMet(DiscountRule rule, EvaluationContext context) {
+        // Rules handed out by the current rule set already have a compiled form; use it.
+        CompiledRule compiled = ruleSetRegistry != null ? ruleSetRegistry.peek().compiledFor(rule) : null;
+        if (compiled != null) {
+            return matches(compiled, context);
+        }
         if (rule.getConditions() == null || rule.getConditions().isEmpty()) {
             return true; // No conditions means the rule is always applicable
         }
@@ -48,4 +62,17 @@ public class ConditionEvaluator {
         }
         return true;
     }
+
+    /**
+     * Evaluates a compiled rule. Condition types and strategies were resolved when the rule set was compiled,
+     * so this walks the bound strategies directly.
+     */
+    public boolean matches(CompiledRule rule, EvaluationContext context) {
+        for (CompiledCondition condition : rule.getConditions()) {
+            if (!condition.getStrategy().evaluate(condition, context)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -2,6 +2,7 @@ package com.example.shoppingcart.service.discount;
 
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ruleset.CompiledCondition;
 
 public interface ConditionStrategy {
     /**
@@ -17,4 +18,15 @@ public interface ConditionStrategy {
      * @return true if the condition is met, false otherwise.
      */
     boolean evaluate(DiscountRule.Condition condition, EvaluationContext context);
+
+    /**
+     * Evaluates a pre-resolved condition from the compiled rule set.
+     * Strategies that read numeric parameters should override this to use the unboxed values.
+     * @param condition The compiled condition.
+     * @param context The current evaluation context (cart, user, etc.).
+     * @return true if the condition is met, false otherwise.
+     */
+    default boolean evaluate(CompiledCondition condition, EvaluationContext context) {
+        return evaluate(condition.getSource(), context);
+    }
 }
@@ -1,6 +1,10 @@
 package com.example.shoppingcart.service.discount;
 
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public enum ConditionType {
     USER_HAS_TAG,
@@ -8,10 +12,10 @@ public enum ConditionType {
     CART_CONTAINS,
     PAYMENT_METHOD_IS;
 
+    private static final Map<String, ConditionType> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(Enum::name, Function.identity()));
+
     public static ConditionType fromString(String text) {
-        return Arrays.stream(ConditionType.values())
-                .filter(e -> e.name().equalsIgnoreCase(text))
-                .findFirst()
-                .orElse(null);
+        return text == null ? null : BY_NAME.get(text.toUpperCase(Locale.ROOT));
     }
 }
@@ -0,0 +1,21 @@
+package com.example.shoppingcart.service.discount;
+
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link ConflictResolver#resolveBestForCustomer}: the chosen rules, the discounts they produce
+ * (already applied, so callers need not apply them again) and the mode that produced them.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ConflictResolution {
+    private final List<DiscountRule> rules;
+    private final List<AppliedDiscountDto> appliedDiscounts;
+    private final ResolutionMode mode;
+    private final long nodesExplored;
+}
@@ -1,17 +1,55 @@
 package com.example.shoppingcart.service.discount;
 
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.AppliedDiscountDto;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Component
 public class ConflictResolver {
 
+    private static final Logger log = LoggerFactory.getLogger(ConflictResolver.class);
+
+    private final ResolutionMode mode;
+    private final long maxNodes;
+    private final long budgetNanos;
+
+    public ConflictResolver() {
+        this(ResolutionMode.PRIORITY.name(), AppConstants.Discount.DEFAULT_SOLVER_MAX_NODES,
+                AppConstants.Discount.DEFAULT_SOLVER_BUDGET_MS);
+    }
+
+    @Autowired
+    public ConflictResolver(@Value("${app.discount.resolution-mode:PRIORITY}") String mode,
+                            @Value("${app.discount.solver.max-nodes:" + AppConstants.Discount.DEFAULT_SOLVER_MAX_NODES + "}") long maxNodes,
+                            @Value("${app.discount.solver.budget-ms:" + AppConstants.Discount.DEFAULT_SOLVER_BUDGET_MS + "}") long budgetMs) {
+        this.mode = ResolutionMode.fromString(mode);
+        this.maxNodes = maxNodes;
+        this.budgetNanos = budgetMs * 1_000_000L;
+    }
+
+    /**
+     * @return true if callers should use {@link #resolveBestForCustomer} instead of {@link #resolveNonStackable}.
+     */
+    public boolean isOptimising() {
+        return mode == ResolutionMode.BEST_FOR_CUSTOMER;
+    }
+
     /**
      * Resolves conflicts among a list of non-stackable rules.
      * It groups the rules by their exclusivity group and selects the one with the highest priority from each group.
@@ -36,4 +74,172 @@ public class ConflictResolver {
 
         return new ArrayList<>(bestRulesByGroup.values());
     }
+
+    /**
+     * Chooses at most one rule per exclusivity group so that the combined saving, capped at {@code maxSaving},
+     * is as large as possible.
+     * Each rule is applied once through {@code applyRule} and its result is reused by every combination that
+     * includes it. The search is a depth-first branch-and-bound over the groups, ordered by their best single
+     * saving; a branch is pruned as soon as its optimistic bound (saving so far plus the best saving of every
+     * remaining group) cannot beat the best combination already found.
+     * If the node or time budget runs out, the priority rule per group is used instead.
+     * @param nonStackableRules A list of applicable, non-stackable promotion rules.
+     * @param applyRule Applies a single rule's actions against the current cart.
+     * @param maxSaving The most the customer can save, normally the cart subtotal.
+     * @return The chosen rules, their applied discounts and the mode that produced them.
+     */
+    public ConflictResolution resolveBestForCustomer(List<DiscountRule> nonStackableRules,
+                                                     Function<DiscountRule, List<AppliedDiscountDto>> applyRule,
+                                                     int maxSaving) {
+        if (nonStackableRules == null || nonStackableRules.isEmpty()) {
+            return new ConflictResolution(Collections.emptyList(), Collections.emptyList(), ResolutionMode.BEST_FOR_CUSTOMER, 0);
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        Map<DiscountRule, List<AppliedDiscountDto>> applied = new IdentityHashMap<>();
+        Function<DiscountRule, List<AppliedDiscountDto>> memoised = rule -> applied.computeIfAbsent(rule, r -> {
+            List<AppliedDiscountDto> result = applyRule.apply(r);
+            return result != null ? result : Collections.emptyList();
+        });
+
+        Map<String, List<DiscountRule>> byGroup = new LinkedHashMap<>();
+        for (DiscountRule rule : nonStackableRules) {
+            byGroup.computeIfAbsent(rule.getExclusivityGroup(), group -> new ArrayList<>()).add(rule);
+        }
+
+        int cap = Math.max(0, maxSaving);
+        List<RankedGroup> groups = new ArrayList<>(byGroup.size());
+        for (List<DiscountRule> group : byGroup.values()) {
+            if (System.nanoTime() > deadline) {
+                return fallback(nonStackableRules, memoised, 0);
+            }
+            groups.add(RankedGroup.of(group, rule -> Math.min(cap, saving(memoised.apply(rule)))));
+        }
+        // Explore the groups with the largest potential saving first so good incumbents appear early.
+        groups.sort(Comparator.comparingInt(RankedGroup::best).reversed());
+
+        Search search = new Search(groups, cap, maxNodes, deadline);
+        search.run();
+        if (search.exhausted) {
+            return fallback(nonStackableRules, memoised, search.nodes);
+        }
+
+        List<DiscountRule> chosen = search.bestRules();
+        List<AppliedDiscountDto> discounts = new ArrayList<>();
+        chosen.forEach(rule -> discounts.addAll(memoised.apply(rule)));
+        log.debug("Best-for-customer resolution chose {} of {} rules, saving {} after {} nodes",
+                chosen.size(), nonStackableRules.size(), search.bestValue, search.nodes);
+        return new ConflictResolution(chosen, discounts, ResolutionMode.BEST_FOR_CUSTOMER, search.nodes);
+    }
+
+    private ConflictResolution fallback(List<DiscountRule> nonStackableRules,
+                                        Function<DiscountRule, List<AppliedDiscountDto>> memoised, long nodes) {
+        log.warn("Best-for-customer resolution exceeded its budget after {} nodes; falling back to priority", nodes);
+        List<DiscountRule> rules = resolveNonStackable(nonStackableRules);
+        List<AppliedDiscountDto> discounts = new ArrayList<>();
+        rules.forEach(rule -> discounts.addAll(memoised.apply(rule)));
+        return new ConflictResolution(rules, discounts, ResolutionMode.PRIORITY_FALLBACK, nodes);
+    }
+
+    private static int saving(List<AppliedDiscountDto> discounts) {
+        if (discounts == null) {
+            return 0;
+        }
+        return discounts.stream().mapToInt(AppliedDiscountDto::getAmount).sum();
+    }
+
+    /**
+     * The rules of one exclusivity group, best (capped) saving first; equal savings keep the higher priority rule first.
+     */
+    private record RankedGroup(DiscountRule[] rules, int[] savings) {
+
+        static RankedGroup of(List<DiscountRule> group, ToIntFunction<DiscountRule> savingOf) {
+            Map<DiscountRule, Integer> saving = new IdentityHashMap<>();
+            group.forEach(rule -> saving.put(rule, savingOf.applyAsInt(rule)));
+            List<DiscountRule> sorted = new ArrayList<>(group);
+            sorted.sort(Comparator.<DiscountRule>comparingInt(saving::get).reversed()
+                    .thenComparing(ConflictResolver::priorityOf, Comparator.reverseOrder()));
+            return new RankedGroup(sorted.toArray(new DiscountRule[0]), sorted.stream().mapToInt(saving::get).toArray());
+        }
+
+        int best() {
+            return savings.length == 0 ? 0 : Math.max(0, savings[0]);
+        }
+    }
+
+    private static Integer priorityOf(DiscountRule rule) {
+        return rule.getPriority() == null ? Integer.MIN_VALUE : rule.getPriority();
+    }
+
+    /**
+     * Branch-and-bound state. Choice -1 at a depth means "no rule from this group".
+     */
+    private static final class Search {
+        private final List<RankedGroup> groups;
+        private final int[] bestRemaining;
+        private final int[] choice;
+        private final int cap;
+        private final long maxNodes;
+        private final long deadline;
+
+        private int[] bestChoice;
+        private int bestValue = -1;
+        private long nodes;
+        private boolean exhausted;
+
+        Search(List<RankedGroup> groups, int cap, long maxNodes, long deadline) {
+            this.groups = groups;
+            this.bestRemaining = new int[groups.size() + 1];
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                bestRemaining[i] = bestRemaining[i + 1] + groups.get(i).best();
+            }
+            this.choice = new int[groups.size()];
+            this.cap = cap;
+            this.maxNodes = maxNodes;
+            this.deadline = deadline;
+        }
+
+        void run() {
+            search(0, 0);
+        }
+
+        private void search(int depth, int sum) {
+            if (++nodes > maxNodes || System.nanoTime() > deadline) {
+                exhausted = true;
+                return;
+            }
+            if (depth == groups.size()) {
+                int value = Math.min(sum, cap);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestChoice = choice.clone();
+                }
+                return;
+            }
+            if (Math.min(sum + bestRemaining[depth], cap) <= bestValue) {
+                return;
+            }
+            int[] savings = groups.get(depth).savings();
+            for (int i = 0; i < savings.length && !exhausted; i++) {
+                choice[depth] = i;
+                search(depth + 1, sum + savings[i]);
+                if (bestValue == cap) {
+                    return;
+                }
+            }
+            if (!exhausted) {
+                choice[depth] = -1;
+                search(depth + 1, sum);
+            }
+        }
+
+        List<DiscountRule> bestRules() {
+            List<DiscountRule> rules = new ArrayList<>();
+            for (int depth = 0; depth < groups.size(); depth++) {
+                if (bestChoice[depth] >= 0) {
+                    rules.add(groups.get(depth).rules()[bestChoice[depth]]);
+                }
+            }
+            return rules;
+        }
+    }
 }
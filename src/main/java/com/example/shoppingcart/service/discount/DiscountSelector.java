@@ -0,0 +1,134 @@
+package com.example.shoppingcart.service.discount;
+
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.Money;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The evaluate, resolve and apply stages shared by checkout and the promotion simulator. Stackable rules are
+ * applied together; non-stackable rules are reduced to one winner per exclusivity group, either by priority or,
+ * when the resolver is optimising, by the largest saving. The customer gets whichever outcome is worth more.
+ */
+public class DiscountSelector {
+
+    private final ConditionEvaluator conditionEvaluator;
+    private final ConflictResolver conflictResolver;
+    private final ActionApplier actionApplier;
+
+    public DiscountSelector(ConditionEvaluator conditionEvaluator,
+                            ConflictResolver conflictResolver,
+                            ActionApplier actionApplier) {
+        this.conditionEvaluator = conditionEvaluator;
+        this.conflictResolver = conflictResolver;
+        this.actionApplier = actionApplier;
+    }
+
+    /**
+     * Selects among rules of the live rule set, using their compiled form where the registry has one.
+     */
+    public Selection select(List<DiscountRule> candidates, EvaluationContext context, StageListener listener) {
+        return select(candidates, context, listener,
+                rule -> conditionEvaluator.areConditionsMet(rule, context),
+                rules -> actionApplier.apply(rules, context));
+    }
+
+    /**
+     * Selects among rules compiled into {@code ruleSet}, which need not be the live one.
+     */
+    public Selection select(List<CompiledRule> candidates, RuleSet ruleSet, EvaluationContext context) {
+        return select(candidates.stream().map(CompiledRule::getSource).toList(), context, StageListener.NONE,
+                rule -> conditionEvaluator.matches(ruleSet.compiledFor(rule), context),
+                rules -> actionApplier.applyCompiled(rules.stream()
+                        .map(ruleSet::compiledFor)
+                        .filter(Objects::nonNull)
+                        .toList(), context));
+    }
+
+    private Selection select(List<DiscountRule> candidates, EvaluationContext context, StageListener listener,
+                             Predicate<DiscountRule> matches,
+                             Function<List<DiscountRule>, List<AppliedDiscountDto>> apply) {
+        ResolutionMode mode = conflictResolver.isOptimising() ? ResolutionMode.BEST_FOR_CUSTOMER : ResolutionMode.PRIORITY;
+        long started = System.nanoTime();
+        List<DiscountRule> stackable = new ArrayList<>();
+        List<DiscountRule> nonStackable = new ArrayList<>();
+        for (DiscountRule rule : candidates) {
+            if (!matches.test(rule)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(rule.getIsStackable())) {
+                stackable.add(rule);
+            } else {
+                nonStackable.add(rule);
+            }
+        }
+        listener.stageFinished(Stage.EVALUATE, started);
+        if (stackable.isEmpty() && nonStackable.isEmpty()) {
+            return new Selection(Collections.emptyList(), mode);
+        }
+
+        // The optimising resolver applies each candidate itself, so its result needs no separate apply stage.
+        List<AppliedDiscountDto> exclusiveOutcome = Collections.emptyList();
+        List<DiscountRule> resolved = Collections.emptyList();
+        started = System.nanoTime();
+        if (!nonStackable.isEmpty() && mode == ResolutionMode.BEST_FOR_CUSTOMER) {
+            ConflictResolution resolution = conflictResolver.resolveBestForCustomer(
+                    nonStackable, rule -> apply.apply(List.of(rule)), context.getCartSubtotal());
+            exclusiveOutcome = resolution.getAppliedDiscounts();
+            mode = resolution.getMode();
+        } else if (!nonStackable.isEmpty()) {
+            resolved = conflictResolver.resolveNonStackable(nonStackable);
+        }
+        listener.stageFinished(Stage.RESOLVE, started);
+
+        started = System.nanoTime();
+        List<AppliedDiscountDto> stackableOutcome = stackable.isEmpty()
+                ? Collections.emptyList()
+                : apply.apply(stackable);
+        if (!resolved.isEmpty()) {
+            exclusiveOutcome = apply.apply(resolved);
+        }
+        listener.stageFinished(Stage.APPLY, started);
+
+        List<AppliedDiscountDto> best = total(stackableOutcome) >= total(exclusiveOutcome) ? stackableOutcome : exclusiveOutcome;
+        return new Selection(best, mode);
+    }
+
+    private static long total(List<AppliedDiscountDto> discounts) {
+        long total = 0;
+        for (AppliedDiscountDto discount : discounts) {
+            total = Money.add(total, discount.getAmount());
+        }
+        return total;
+    }
+
+    public enum Stage {
+        EVALUATE,
+        RESOLVE,
+        APPLY
+    }
+
+    /**
+     * Told when each stage finishes, with the {@link System#nanoTime()} at which it started.
+     */
+    @FunctionalInterface
+    public interface StageListener {
+        StageListener NONE = (stage, startedNanos) -> { };
+
+        void stageFinished(Stage stage, long startedNanos);
+    }
+
+    /**
+     * The discounts to grant and the resolution mode that chose them.
+     */
+    public record Selection(List<AppliedDiscountDto> discounts, ResolutionMode mode) {}
+}
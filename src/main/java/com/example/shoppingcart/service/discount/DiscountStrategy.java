@@ -19,4 +19,16 @@ public interface DiscountStrategy {
      * @return The calculated discount amount in pence.
      */
     BigDecimal apply(ShoppingCart cart, DiscountRule rule);
+
+    /**
+     * Declares which cart lines {@link #apply} reads for the given rule, so incremental re-pricing can skip the
+     * rule when an unrelated line changes, and so the candidate index only offers the rule to carts holding at least
+     * one of the products or categories it names. Defaults to the whole cart.
+     *
+     * @param rule The discount rule the strategy would be applied with.
+     * @return The scope of cart lines the calculation depends on.
+     */
+    default PricingScope scopeOf(DiscountRule rule) {
+        return PricingScope.CART;
+    }
 }
\ No newline at end of file
@@ -13,4 +13,9 @@ public class FlatDiscountStrategy implements DiscountStrategy {
     public BigDecimal apply(ShoppingCart cart, DiscountRule rule) {
         return rule.getDiscountValue();
     }
+
+    @Override
+    public PricingScope scopeOf(DiscountRule rule) {
+        return PricingScope.NONE;
+    }
 }
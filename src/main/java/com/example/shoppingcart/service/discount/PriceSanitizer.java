@@ -2,7 +2,10 @@ package com.example.shoppingcart.service.discount;
 
 import com.example.shoppingcart.dto.CheckoutResponseDto;
 import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.Money;
 import org.springframework.stereotype.Component;
+
+import java.math.RoundingMode;
 import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
@@ -41,7 +44,6 @@ public class PriceSanitizer {
 
         // If totalDiscount > allowedDiscount, scale down each applied discount proportionally
         if (totalDiscount > allowedDiscount) {
-            final double scale = (double) allowedDiscount / (double) totalDiscount;
             final List<AppliedDiscountDto> current = response.getAppliedDiscounts();
             // If there are no detailed applied discounts, treat as none and clamp totals
             if (current == null || current.isEmpty()) {
@@ -51,22 +53,47 @@ public class PriceSanitizer {
                 return response;
             }
 
-            final List<AppliedDiscountDto> adjusted = new ArrayList<>();
-            int adjustedTotal = 0;
-            for (final AppliedDiscountDto d : current) {
-                final int newAmt = (int) Math.round(d.getAmount() * scale);
+            // Scale in exact integer pence, rounding down, then hand the pence lost to rounding to the
+            // discounts with the largest remainders so the scaled amounts add up to the allowed total.
+            final int size = current.size();
+            final long[] scaled = new long[size];
+            final long[] remainders = new long[size];
+            long adjustedTotal = 0;
+            for (int i = 0; i < size; i++) {
+                final long amount = current.get(i).getAmount();
+                scaled[i] = Money.scale(amount, allowedDiscount, totalDiscount, RoundingMode.DOWN);
+                remainders[i] = Money.multiply(amount, allowedDiscount) - Money.multiply(scaled[i], totalDiscount);
+                adjustedTotal = Money.add(adjustedTotal, scaled[i]);
+            }
+            for (long shortfall = allowedDiscount - adjustedTotal; shortfall > 0; shortfall--) {
+                int largest = 0;
+                for (int i = 1; i < size; i++) {
+                    if (remainders[i] > remainders[largest]) {
+                        largest = i;
+                    }
+                }
+                if (remainders[largest] == Long.MIN_VALUE) {
+                    break; // every discount already received a penny; amounts did not add up to the total
+                }
+                scaled[largest]++;
+                remainders[largest] = Long.MIN_VALUE;
+                adjustedTotal++;
+            }
+
+            final List<AppliedDiscountDto> adjusted = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final AppliedDiscountDto d = current.get(i);
                 final AppliedDiscountDto copy = new AppliedDiscountDto();
                 copy.setRuleId(d.getRuleId());
                 copy.setRuleName(d.getRuleName());
-                copy.setAmount(newAmt);
+                copy.setAmount(Money.toIntExact(scaled[i]));
                 copy.setDescription(d.getDescription());
                 adjusted.add(copy);
-                adjustedTotal += newAmt;
             }
 
             response.setAppliedDiscounts(adjusted);
-            response.setTotalDiscount(adjustedTotal);
-            response.setFinalTotalPrice(Math.max(0, original - adjustedTotal));
+            response.setTotalDiscount(Money.toIntExact(adjustedTotal));
+            response.setFinalTotalPrice(Math.max(0, original - response.getTotalDiscount()));
         } else {
             // discounts within allowed limits; ensure finalTotalPrice computed correctly
             response.setFinalTotalPrice(Math.max(0, original - totalDiscount));
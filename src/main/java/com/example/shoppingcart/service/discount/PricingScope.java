@@ -0,0 +1,79 @@
+package com.example.shoppingcart.service.discount;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which cart lines a discount rule reads when it is priced.
+ * Used by incremental re-pricing to decide whether a rule's previous result is still valid after a line changes.
+ */
+public final class PricingScope {
+
+    /** The rule's amount does not depend on the cart lines at all. */
+    public static final PricingScope NONE = new PricingScope(false, Set.of(), Set.of());
+    /** The rule may read any line (or the whole cart), so every change affects it. */
+    public static final PricingScope CART = new PricingScope(true, Set.of(), Set.of());
+
+    private final boolean cartWide;
+    private final Set<String> productIds;
+    private final Set<String> categories;
+
+    private PricingScope(boolean cartWide, Set<String> productIds, Set<String> categories) {
+        this.cartWide = cartWide;
+        this.productIds = productIds;
+        this.categories = categories;
+    }
+
+    public static PricingScope products(Collection<String> productIds) {
+        return productIds == null || productIds.isEmpty()
+                ? NONE
+                : new PricingScope(false, Set.copyOf(productIds), Set.of());
+    }
+
+    /** Categories are matched case-insensitively against the category recorded on the cart line. */
+    public static PricingScope categories(Collection<String> categories) {
+        return categories == null || categories.isEmpty()
+                ? NONE
+                : new PricingScope(false, Set.of(), categories.stream()
+                        .map(category -> category.toLowerCase(Locale.ROOT))
+                        .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    /**
+     * @return true if the rule may read any line, so it cannot be narrowed to particular products or categories
+     */
+    public boolean isCartWide() {
+        return cartWide;
+    }
+
+    /**
+     * @return true if the rule reads no lines at all, so its amount does not depend on what the cart holds
+     */
+    public boolean isEmpty() {
+        return !cartWide && productIds.isEmpty() && categories.isEmpty();
+    }
+
+    public Set<String> getProductIds() {
+        return productIds;
+    }
+
+    /**
+     * @return the categories the rule reads, lower-cased
+     */
+    public Set<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * @return true if a change to the line for {@code productId} (in {@code category}) can change the rule's amount
+     */
+    public boolean isAffectedBy(String productId, String category) {
+        if (cartWide) {
+            return true;
+        }
+        return (productId != null && productIds.contains(productId))
+                || (category != null && categories.contains(category.toLowerCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingcart.service.discount;
+
+/**
+ * How a set of competing non-stackable rules was narrowed down.
+ */
+public enum ResolutionMode {
+    /** Highest priority rule per exclusivity group. */
+    PRIORITY,
+    /** Combination with the largest customer saving, found within the search budget. */
+    BEST_FOR_CUSTOMER,
+    /** Optimisation was requested but ran out of budget, so the priority rule was used. */
+    PRIORITY_FALLBACK;
+
+    public static ResolutionMode fromString(String text) {
+        for (ResolutionMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(text)) {
+                return mode;
+            }
+        }
+        return PRIORITY;
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.shoppingcart.service.discount.action;
 
 import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ActionStrategy;
 import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -18,10 +20,15 @@ public class BuyXGetYFreeStrategy implements ActionStrategy {
 
     @Override
     public AppliedDiscountDto apply(DiscountRule.Action action, EvaluationContext context) {
+        return apply(CompiledAction.unbound(action), context);
+    }
+
+    @Override
+    public AppliedDiscountDto apply(CompiledAction action, EvaluationContext context) {
         String productId = action.getProductId();
-        Integer getQuantity = action.getGetQuantity();
+        int getQuantity = action.getGetQuantity();
 
-        if (productId == null || getQuantity == null) {
+        if (productId == null || !action.isGetQuantityPresent()) {
             return new AppliedDiscountDto("Invalid BOGO discount", 0);
         }
 
@@ -31,8 +38,8 @@ public class BuyXGetYFreeStrategy implements ActionStrategy {
         }
 
         // The value of the discount is the price of the items the customer gets for free.
-    int discountAmount = item.getPrice() * getQuantity;
-    String description = String.format("Buy %d Get %d Free on %s", action.getBuyQuantity(), getQuantity, item.getName());
+        int discountAmount = Money.toIntExact(Money.multiply(item.getPrice(), getQuantity));
+        String description = String.format("Buy %d Get %d Free on %s", action.getSource().getBuyQuantity(), getQuantity, item.getName());
 
         return new AppliedDiscountDto(description, discountAmount);
     }
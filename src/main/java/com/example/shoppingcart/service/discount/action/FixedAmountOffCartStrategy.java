@@ -1,10 +1,12 @@
 package com.example.shoppingcart.service.discount.action;
 
 import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ActionStrategy;
 import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,10 +19,15 @@ public class FixedAmountOffCartStrategy implements ActionStrategy {
 
     @Override
     public AppliedDiscountDto apply(DiscountRule.Action action, EvaluationContext context) {
-        if (action.getValue() == null) {
+        return apply(CompiledAction.unbound(action), context);
+    }
+
+    @Override
+    public AppliedDiscountDto apply(CompiledAction action, EvaluationContext context) {
+        if (!action.isValuePresent()) {
             return new AppliedDiscountDto("Invalid fixed amount discount", 0);
         }
-        String description = String.format("£%.2f off your order", action.getValue() / 100.0);
+        String description = String.format("£%s off your order", Money.toMajor(action.getValue()).toPlainString());
         return new AppliedDiscountDto(description, action.getValue());
     }
 }
@@ -2,13 +2,17 @@ package com.example.shoppingcart.service.discount.action;
 
 import com.example.shoppingcart.dto.AppliedDiscountDto;
 import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ActionStrategy;
 import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
 import org.springframework.stereotype.Component;
 
+import java.math.RoundingMode;
+
 @Component
 public class PercentageOffCategoryStrategy implements ActionStrategy {
 
@@ -19,19 +23,24 @@ public class PercentageOffCategoryStrategy implements ActionStrategy {
 
     @Override
     public AppliedDiscountDto apply(DiscountRule.Action action, EvaluationContext context) {
+        return apply(CompiledAction.unbound(action), context);
+    }
+
+    @Override
+    public AppliedDiscountDto apply(CompiledAction action, EvaluationContext context) {
         String categoryPath = action.getCategoryPath();
-        Integer percentage = action.getValue();
+        int percentage = action.getValue();
 
-        if (categoryPath == null || percentage == null) {
+        if (categoryPath == null || !action.isValuePresent()) {
             return new AppliedDiscountDto("Invalid percentage-off-category discount", 0);
         }
 
         // Calculate the subtotal of only the items in the specified category
-        int categorySubtotal = 0;
+        long categorySubtotal = 0;
         for (CartItemDto cartItem : context.getCart().getItems()) {
             CatalogItem catalogItem = context.getCatalogItemMap().get(cartItem.getProductId());
             if (catalogItem != null && categoryPath.equals(catalogItem.getCategoryHierarchy())) {
-                categorySubtotal += catalogItem.getPrice() * cartItem.getQuantity();
+                categorySubtotal = Money.add(categorySubtotal, Money.multiply(catalogItem.getPrice(), cartItem.getQuantity()));
             }
         }
 
@@ -39,7 +48,7 @@ public class PercentageOffCategoryStrategy implements ActionStrategy {
             return new AppliedDiscountDto("No items in the specified category", 0);
         }
 
-        int discountAmount = (int) (categorySubtotal * (percentage / 100.0));
+        int discountAmount = Money.toIntExact(Money.percentage(categorySubtotal, percentage, RoundingMode.DOWN));
         String description = String.format("%d%% off all items in category %s", percentage, categoryPath);
 
         return new AppliedDiscountDto(description, discountAmount);
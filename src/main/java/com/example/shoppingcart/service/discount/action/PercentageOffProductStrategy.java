@@ -1,13 +1,17 @@
 package com.example.shoppingcart.service.discount.action;
 
 import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ActionStrategy;
 import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledAction;
 import org.springframework.stereotype.Component;
 
+import java.math.RoundingMode;
+
 @Component
 public class PercentageOffProductStrategy implements ActionStrategy {
 
@@ -18,10 +22,15 @@ public class PercentageOffProductStrategy implements ActionStrategy {
 
     @Override
     public AppliedDiscountDto apply(DiscountRule.Action action, EvaluationContext context) {
+        return apply(CompiledAction.unbound(action), context);
+    }
+
+    @Override
+    public AppliedDiscountDto apply(CompiledAction action, EvaluationContext context) {
         String productId = action.getProductId();
-        Integer percentage = action.getValue();
+        int percentage = action.getValue();
 
-        if (productId == null || percentage == null) {
+        if (productId == null || !action.isValuePresent()) {
             return new AppliedDiscountDto("Invalid percentage-off-product discount", 0);
         }
 
@@ -31,7 +40,7 @@ public class PercentageOffProductStrategy implements ActionStrategy {
         }
 
         // Calculate the discount amount based on the real price from the catalog
-        int discountAmount = (int) (item.getPrice() * (percentage / 100.0));
+        int discountAmount = Money.toIntExact(Money.percentage(item.getPrice(), percentage, RoundingMode.DOWN));
         String description = String.format("%d%% off %s", percentage, item.getName());
 
     return new AppliedDiscountDto(description, discountAmount);
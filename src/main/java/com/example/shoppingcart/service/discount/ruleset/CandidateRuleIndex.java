@@ -0,0 +1,178 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ConditionType;
+import com.example.shoppingcart.service.discount.PricingScope;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from cart contents to the rules that could possibly apply to them.
+ * <p>
+ * A rule is filed under a product when it has a {@code CART_CONTAINS} condition for that product
+ * (a necessary condition), or under the products and category paths its actions target when every
+ * action is product- or category-scoped. A bean-strategy rule is also filed under the products and categories of
+ * its {@link PricingScope}; scope categories match a cart line's category exactly, ignoring case, the way the
+ * strategies compare them. Everything else lands in the global bucket and is always a candidate.
+ * Lookups therefore cost O(cart lines x category depth) instead of O(active rules).
+ */
+final class CandidateRuleIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, int[]> byProduct;
+    private final Map<String, int[]> byCategory;
+    private final Map<String, int[]> byScopeCategory;
+    private final int[] global;
+
+    CandidateRuleIndex(List<CompiledRule> rules) {
+        Map<String, List<Integer>> products = new HashMap<>();
+        Map<String, List<Integer>> categories = new HashMap<>();
+        Map<String, List<Integer>> scopeCategories = new HashMap<>();
+        List<Integer> globalRules = new ArrayList<>();
+
+        for (int ordinal = 0; ordinal < rules.size(); ordinal++) {
+            CompiledRule rule = rules.get(ordinal);
+            Set<String> productTargets = new LinkedHashSet<>();
+            Set<String> categoryTargets = new LinkedHashSet<>();
+            Set<String> scopeCategoryTargets = new LinkedHashSet<>();
+            if (collectTargets(rule, productTargets, categoryTargets, scopeCategoryTargets)) {
+                for (String productId : productTargets) {
+                    products.computeIfAbsent(productId, k -> new ArrayList<>()).add(ordinal);
+                }
+                for (String categoryPath : categoryTargets) {
+                    categories.computeIfAbsent(categoryPath, k -> new ArrayList<>()).add(ordinal);
+                }
+                for (String category : scopeCategoryTargets) {
+                    scopeCategories.computeIfAbsent(category, k -> new ArrayList<>()).add(ordinal);
+                }
+            } else {
+                globalRules.add(ordinal);
+            }
+        }
+
+        this.byProduct = freeze(products);
+        this.byCategory = freeze(categories);
+        this.byScopeCategory = freeze(scopeCategories);
+        this.global = toArray(globalRules);
+    }
+
+    /**
+     * Returns the candidate rules for a cart, in the same (priority) order as {@code rules}.
+     *
+     * @param rules               the rule list this index was built from
+     * @param productIds          the product ids present in the cart
+     * @param categoryHierarchies the category hierarchies of the products in the cart, e.g. {@code /FOOD/FRUIT/}
+     */
+    List<CompiledRule> candidates(List<CompiledRule> rules, Collection<String> productIds, Collection<String> categoryHierarchies) {
+        BitSet selected = new BitSet(rules.size());
+        mark(selected, global);
+        if (productIds != null) {
+            for (String productId : productIds) {
+                if (productId != null) {
+                    mark(selected, byProduct.getOrDefault(productId, NONE));
+                }
+            }
+        }
+        if (categoryHierarchies != null && !(byCategory.isEmpty() && byScopeCategory.isEmpty())) {
+            for (String hierarchy : categoryHierarchies) {
+                markCategoryPrefixes(selected, hierarchy);
+                if (hierarchy != null) {
+                    mark(selected, byScopeCategory.getOrDefault(hierarchy.toLowerCase(Locale.ROOT), NONE));
+                }
+            }
+        }
+
+        List<CompiledRule> candidates = new ArrayList<>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            candidates.add(rules.get(i));
+        }
+        return candidates;
+    }
+
+    int globalSize() {
+        return global.length;
+    }
+
+    // "/FOOD/FRUIT/" is looked up as "/FOOD/" and "/FOOD/FRUIT/" so category rules match whole subtrees.
+    private void markCategoryPrefixes(BitSet selected, String hierarchy) {
+        if (hierarchy == null || hierarchy.isEmpty()) {
+            return;
+        }
+        for (int slash = hierarchy.indexOf('/', 1); slash >= 0; slash = hierarchy.indexOf('/', slash + 1)) {
+            mark(selected, byCategory.getOrDefault(hierarchy.substring(0, slash + 1), NONE));
+        }
+        if (hierarchy.charAt(hierarchy.length() - 1) != '/') {
+            mark(selected, byCategory.getOrDefault(hierarchy, NONE));
+        }
+    }
+
+    /**
+     * @return true if the rule can be filed under specific targets, false if it belongs in the global bucket
+     */
+    static boolean collectTargets(CompiledRule rule, Set<String> productTargets, Set<String> categoryTargets,
+                                  Set<String> scopeCategoryTargets) {
+        for (CompiledCondition condition : rule.getConditions()) {
+            if (condition.getType() == ConditionType.CART_CONTAINS
+                    && condition.getProductId() != null
+                    && condition.getQuantity() > 0) {
+                productTargets.add(condition.getProductId());
+                return true;
+            }
+        }
+
+        // A bean-strategy rule can apply through its strategy or through its actions, so it is filed under both.
+        if (rule.getDiscountStrategy() != null) {
+            PricingScope scope = rule.getPricingScope();
+            if (scope.isCartWide() || scope.isEmpty()) {
+                return false;
+            }
+            productTargets.addAll(scope.getProductIds());
+            scopeCategoryTargets.addAll(scope.getCategories());
+            if (rule.getActions().isEmpty()) {
+                return true;
+            }
+        } else if (rule.getActions().isEmpty()) {
+            return false;
+        }
+        for (CompiledAction action : rule.getActions()) {
+            ActionType type = action.getType();
+            if ((type == ActionType.PERCENTAGE_OFF_PRODUCT || type == ActionType.BUY_X_GET_Y_FREE)
+                    && action.getProductId() != null) {
+                productTargets.add(action.getProductId());
+            } else if (type == ActionType.PERCENTAGE_OFF_CATEGORY && action.getCategoryPath() != null) {
+                categoryTargets.add(action.getCategoryPath());
+            } else {
+                productTargets.clear();
+                categoryTargets.clear();
+                scopeCategoryTargets.clear();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void mark(BitSet selected, int[] ordinals) {
+        for (int ordinal : ordinals) {
+            selected.set(ordinal);
+        }
+    }
+
+    private static Map<String, int[]> freeze(Map<String, List<Integer>> source) {
+        Map<String, int[]> frozen = new HashMap<>(source.size() * 2);
+        source.forEach((key, ordinals) -> frozen.put(key, toArray(ordinals)));
+        return Map.copyOf(frozen);
+    }
+
+    private static int[] toArray(List<Integer> ordinals) {
+        return ordinals.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
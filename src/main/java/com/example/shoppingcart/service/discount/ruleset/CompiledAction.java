@@ -0,0 +1,48 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.ActionStrategy;
+import com.example.shoppingcart.service.discount.ActionType;
+import lombok.Getter;
+
+/**
+ * Immutable, pre-resolved form of a {@link DiscountRule.Action}.
+ * The action type and its strategy are bound once at compile time and numeric parameters are unboxed.
+ */
+@Getter
+public final class CompiledAction {
+
+    private final ActionType type;
+    private final ActionStrategy strategy;
+    private final String productId;
+    private final String categoryPath;
+    private final boolean buyQuantityPresent;
+    private final int buyQuantity;
+    private final boolean getQuantityPresent;
+    private final int getQuantity;
+    private final boolean valuePresent;
+    private final int value;
+    private final DiscountRule.Action source;
+
+    CompiledAction(ActionType type, ActionStrategy strategy, DiscountRule.Action source) {
+        this.type = type;
+        this.strategy = strategy;
+        this.productId = source.getProductId();
+        this.categoryPath = source.getCategoryPath();
+        this.buyQuantityPresent = source.getBuyQuantity() != null;
+        this.buyQuantity = buyQuantityPresent ? source.getBuyQuantity() : 0;
+        this.getQuantityPresent = source.getGetQuantity() != null;
+        this.getQuantity = getQuantityPresent ? source.getGetQuantity() : 0;
+        this.valuePresent = source.getValue() != null;
+        this.value = valuePresent ? source.getValue() : 0;
+        this.source = source;
+    }
+
+    /**
+     * Builds a compiled view of a raw action without a bound strategy.
+     * Used by strategies to serve the legacy bean-based entry point through the compiled code path.
+     */
+    public static CompiledAction unbound(DiscountRule.Action source) {
+        return new CompiledAction(ActionType.fromString(source.getType()), null, source);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.ConditionStrategy;
+import com.example.shoppingcart.service.discount.ConditionType;
+import lombok.Getter;
+
+/**
+ * Immutable, pre-resolved form of a {@link DiscountRule.Condition}.
+ * The condition type and its strategy are resolved once at compile time and numeric
+ * parameters are unboxed, so evaluation does no string matching or null-unboxing.
+ */
+@Getter
+public final class CompiledCondition {
+
+    public static final String GREATER_THAN_OR_EQUAL = "GREATER_THAN_OR_EQUAL";
+
+    private final ConditionType type;
+    private final ConditionStrategy strategy;
+    private final String productId;
+    private final boolean quantityPresent;
+    private final int quantity;
+    private final boolean greaterThanOrEqual;
+    private final boolean valuePresent;
+    private final int value;
+    private final String tag;
+    private final String method;
+    private final DiscountRule.Condition source;
+
+    CompiledCondition(ConditionType type, ConditionStrategy strategy, DiscountRule.Condition source) {
+        this.type = type;
+        this.strategy = strategy;
+        this.productId = source.getProductId();
+        this.quantityPresent = source.getQuantity() != null;
+        this.quantity = quantityPresent ? source.getQuantity() : 0;
+        this.greaterThanOrEqual = GREATER_THAN_OR_EQUAL.equalsIgnoreCase(source.getOperator());
+        this.valuePresent = source.getValue() != null;
+        this.value = valuePresent ? source.getValue() : 0;
+        this.tag = source.getTag();
+        this.method = source.getMethod();
+        this.source = source;
+    }
+
+    /**
+     * Builds a compiled view of a raw condition without a bound strategy.
+     * Used by strategies to serve the legacy bean-based entry point through the compiled code path.
+     */
+    public static CompiledCondition unbound(DiscountRule.Condition source) {
+        return new CompiledCondition(ConditionType.fromString(source.getType()), null, source);
+    }
+}
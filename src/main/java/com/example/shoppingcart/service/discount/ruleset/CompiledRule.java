@@ -0,0 +1,60 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.DiscountStrategy;
+import com.example.shoppingcart.service.discount.PricingScope;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Immutable, executable form of a {@link DiscountRule}.
+ * Conditions and actions are pre-resolved, priority and stackability are unboxed and the
+ * validity window is pre-parsed to epoch millis (UTC) so the hot path never touches date objects.
+ */
+@Getter
+public final class CompiledRule {
+
+    private final String ruleId;
+    private final String ruleName;
+    private final int priority;
+    private final boolean prioritized;
+    private final boolean stackable;
+    private final String exclusivityGroup;
+    private final long validFromEpochMillis;
+    private final long validUntilEpochMillis;
+    private final List<CompiledCondition> conditions;
+    private final List<CompiledAction> actions;
+    private final DiscountStrategy discountStrategy;
+    private final PricingScope pricingScope;
+    private final DiscountRule source;
+
+    CompiledRule(DiscountRule source,
+                 long validFromEpochMillis,
+                 long validUntilEpochMillis,
+                 List<CompiledCondition> conditions,
+                 List<CompiledAction> actions,
+                 DiscountStrategy discountStrategy) {
+        this.ruleId = source.getRuleId();
+        this.ruleName = source.getRuleName();
+        this.prioritized = source.getPriority() != null;
+        this.priority = prioritized ? source.getPriority() : 0;
+        this.stackable = Boolean.TRUE.equals(source.getIsStackable());
+        this.exclusivityGroup = source.getExclusivityGroup();
+        this.validFromEpochMillis = validFromEpochMillis;
+        this.validUntilEpochMillis = validUntilEpochMillis;
+        this.conditions = List.copyOf(conditions);
+        this.actions = List.copyOf(actions);
+        this.discountStrategy = discountStrategy;
+        this.pricingScope = discountStrategy != null ? discountStrategy.scopeOf(source) : PricingScope.CART;
+        this.source = source;
+    }
+
+    /**
+     * @param nowEpochMillis the evaluation instant in epoch millis (UTC)
+     * @return true if the rule's validity window contains the instant
+     */
+    public boolean isLiveAt(long nowEpochMillis) {
+        return nowEpochMillis >= validFromEpochMillis && nowEpochMillis <= validUntilEpochMillis;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.ActionStrategy;
+import com.example.shoppingcart.service.discount.ActionType;
+import com.example.shoppingcart.service.discount.ConditionStrategy;
+import com.example.shoppingcart.service.discount.ConditionType;
+import com.example.shoppingcart.service.discount.DiscountStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles raw {@link DiscountRule} beans into an executable {@link RuleSet}.
+ * All type resolution and strategy lookup happens here, once per rule change, instead of once per checkout.
+ */
+@Component
+public class RuleCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleCompiler.class);
+
+    private static final Comparator<CompiledRule> BY_PRIORITY = Comparator
+            .comparing(CompiledRule::isPrioritized).reversed()
+            .thenComparingInt(CompiledRule::getPriority);
+
+    private final Map<ConditionType, ConditionStrategy> conditionStrategies;
+    private final Map<ActionType, ActionStrategy> actionStrategies;
+    private final Map<String, DiscountStrategy> discountStrategies;
+
+    @Autowired
+    public RuleCompiler(List<ConditionStrategy> conditionStrategies,
+                        List<ActionStrategy> actionStrategies,
+                        Map<String, DiscountStrategy> discountStrategies) {
+        this.conditionStrategies = conditionStrategies.stream()
+                .collect(Collectors.toUnmodifiableMap(ConditionStrategy::getType, Function.identity()));
+        this.actionStrategies = actionStrategies.stream()
+                .collect(Collectors.toUnmodifiableMap(ActionStrategy::getType, Function.identity()));
+        this.discountStrategies = Map.copyOf(discountStrategies);
+    }
+
+    /**
+     * Compiles the given rules into a new immutable snapshot.
+     * Inactive rules and rules referencing unknown condition types are dropped with a warning,
+     * mirroring the runtime behaviour of {@code ConditionEvaluator} which treats them as never matching.
+     *
+     * @param rules   the raw rules, typically the active rules from the repository
+     * @param version the version number to stamp on the snapshot
+     * @return the compiled snapshot, ordered by ascending priority (rules without a priority last)
+     */
+    public RuleSet compile(List<DiscountRule> rules, long version) {
+        if (rules == null || rules.isEmpty()) {
+            return new RuleSet(version, List.of());
+        }
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (DiscountRule rule : rules) {
+            CompiledRule compiledRule = compileRule(rule);
+            if (compiledRule != null) {
+                compiled.add(compiledRule);
+            }
+        }
+        compiled.sort(BY_PRIORITY);
+        log.debug("Compiled {} of {} discount rules into rule set version {}", compiled.size(), rules.size(), version);
+        return new RuleSet(version, compiled);
+    }
+
+    /**
+     * Compiles a single rule.
+     *
+     * @return the compiled rule, or null if the rule can never apply
+     */
+    public CompiledRule compileRule(DiscountRule rule) {
+        if (rule == null || !rule.isActive()) {
+            return null;
+        }
+
+        List<CompiledCondition> conditions = new ArrayList<>();
+        if (rule.getConditions() != null) {
+            for (DiscountRule.Condition condition : rule.getConditions()) {
+                ConditionType type = ConditionType.fromString(condition.getType());
+                ConditionStrategy strategy = type != null ? conditionStrategies.get(type) : null;
+                if (strategy == null) {
+                    log.warn("Dropping rule {}: no strategy for condition type {}", rule.getRuleId(), condition.getType());
+                    return null;
+                }
+                conditions.add(new CompiledCondition(type, strategy, condition));
+            }
+        }
+
+        List<CompiledAction> actions = new ArrayList<>();
+        if (rule.getActions() != null) {
+            for (DiscountRule.Action action : rule.getActions()) {
+                ActionType type = ActionType.fromString(action.getType());
+                ActionStrategy strategy = type != null ? actionStrategies.get(type) : null;
+                if (strategy == null) {
+                    log.warn("Skipping action {} on rule {}: no strategy implementation", action.getType(), rule.getRuleId());
+                    continue;
+                }
+                actions.add(new CompiledAction(type, strategy, action));
+            }
+        }
+
+        DiscountStrategy discountStrategy = rule.getStrategyBeanName() != null
+                ? discountStrategies.get(rule.getStrategyBeanName())
+                : null;
+
+        return new CompiledRule(rule,
+                toEpochMillis(rule.getStartDate(), Long.MIN_VALUE),
+                toEpochMillis(rule.getEndDate(), Long.MAX_VALUE),
+                conditions,
+                actions,
+                discountStrategy);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime, long defaultValue) {
+        return dateTime == null ? defaultValue : dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
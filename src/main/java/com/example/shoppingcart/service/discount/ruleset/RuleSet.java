@@ -0,0 +1,103 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of all active discount rules in compiled form, ordered by priority.
+ * A snapshot is never mutated after construction; rule changes produce a new snapshot with a higher version.
+ * <p>
+ * The version only orders snapshots within one process. The {@link #getFingerprint() fingerprint} is a hash of the
+ * rules' content, so it is the same on every instance and across restarts for the same rules, and is what
+ * anything persisted alongside a pricing result should be keyed on.
+ */
+@Getter
+public final class RuleSet {
+
+    public static final RuleSet EMPTY = new RuleSet(0L, Collections.emptyList());
+
+    private final long version;
+    private final String fingerprint;
+    private final long compiledAtEpochMillis;
+    private final List<CompiledRule> rules;
+    private final Map<String, CompiledRule> rulesById;
+    @Getter(AccessLevel.NONE)
+    private final CandidateRuleIndex candidateIndex;
+    @Getter(AccessLevel.NONE)
+    private final Map<DiscountRule, CompiledRule> rulesBySource;
+
+    RuleSet(long version, List<CompiledRule> rules) {
+        this.version = version;
+        this.compiledAtEpochMillis = System.currentTimeMillis();
+        this.rules = List.copyOf(rules);
+        this.fingerprint = fingerprintOf(this.rules);
+        Map<String, CompiledRule> byId = new LinkedHashMap<>();
+        Map<DiscountRule, CompiledRule> bySource = new IdentityHashMap<>();
+        for (CompiledRule rule : this.rules) {
+            if (rule.getRuleId() != null) {
+                byId.put(rule.getRuleId(), rule);
+            }
+            bySource.put(rule.getSource(), rule);
+        }
+        this.rulesBySource = Collections.unmodifiableMap(bySource);
+        this.rulesById = Collections.unmodifiableMap(byId);
+        this.candidateIndex = new CandidateRuleIndex(this.rules);
+    }
+
+    /**
+     * Returns only the rules that could apply to a cart with the given contents, in priority order.
+     * Rules that are not scoped to a product or category are always included.
+     *
+     * @param productIds          the product ids in the cart
+     * @param categoryHierarchies the category hierarchies of those products, e.g. {@code /FOOD/FRUIT/}
+     */
+    public List<CompiledRule> candidatesFor(Collection<String> productIds, Collection<String> categoryHierarchies) {
+        return candidateIndex.candidates(rules, productIds, categoryHierarchies);
+    }
+
+    /**
+     * @return the number of rules that are evaluated for every cart regardless of its contents
+     */
+    public int globalRuleCount() {
+        return candidateIndex.globalSize();
+    }
+
+    /**
+     * Returns the compiled form of a rule bean that came from this snapshot (matched by identity),
+     * or null if the bean was loaded elsewhere and has no compiled counterpart here.
+     */
+    public CompiledRule compiledFor(DiscountRule source) {
+        return source == null ? null : rulesBySource.get(source);
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    // Independent of load order, which the repository only guarantees by priority.
+    private static String fingerprintOf(List<CompiledRule> rules) {
+        List<String> sources = rules.stream().map(rule -> String.valueOf(rule.getSource())).sorted().toList();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String source : sources) {
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current compiled {@link RuleSet} and swaps it atomically when rules change.
+ * Readers call {@link #current()} once per checkout and work against that snapshot for the whole request,
+ * so a concurrent refresh can never expose a half-updated rule list.
+ * <p>
+ * The instance that changes a rule refreshes straight away and announces it on {@link CartChangeBus}; every
+ * instance reloads on that announcement, and on a fixed interval in case an announcement was lost.
+ */
+@Component
+public class RuleSetRegistry implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleSetRegistry.class);
+
+    private final DiscountRuleRepository discountRuleRepository;
+    private final RuleCompiler ruleCompiler;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long refreshIntervalMs;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("rule-set-refresh").daemon().factory());
+
+    private final AtomicReference<RuleSet> current = new AtomicReference<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    public RuleSetRegistry(DiscountRuleRepository discountRuleRepository,
+                           RuleCompiler ruleCompiler,
+                           RedisMessageListenerContainer listenerContainer,
+                           @Value("${app.discount.rules-refresh-ms:" + AppConstants.Discount.DEFAULT_RULES_REFRESH_MS + "}") long refreshIntervalMs) {
+        this.discountRuleRepository = discountRuleRepository;
+        this.ruleCompiler = ruleCompiler;
+        this.listenerContainer = listenerContainer;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    @PostConstruct
+    void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CartChangeBus.CHANNEL));
+        // The first snapshot is loaded on first use, so the schedule only has to catch missed announcements.
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        listenerContainer.removeMessageListener(this);
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Returns the current snapshot, loading it from the repository on first use.
+     */
+    public RuleSet current() {
+        RuleSet snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            return snapshot != null ? snapshot : refresh();
+        }
+    }
+
+    /**
+     * Returns the current snapshot without triggering a load; {@link RuleSet#EMPTY} if nothing is published yet.
+     */
+    public RuleSet peek() {
+        RuleSet snapshot = current.get();
+        return snapshot != null ? snapshot : RuleSet.EMPTY;
+    }
+
+    /**
+     * Reloads the active rules from the repository, compiles them and publishes the new snapshot.
+     * Should be called whenever a discount rule is created, updated or deleted.
+     *
+     * @return the newly published snapshot
+     */
+    public RuleSet refresh() {
+        long version = versionSequence.incrementAndGet();
+        List<DiscountRule> activeRules = discountRuleRepository.findActiveAndOrderedRules();
+        return install(ruleCompiler.compile(activeRules, version));
+    }
+
+    /**
+     * Compiles the given rules and publishes them as the new snapshot, bypassing the repository.
+     *
+     * @return the newly published snapshot
+     */
+    public RuleSet publish(List<DiscountRule> rules) {
+        return install(ruleCompiler.compile(rules, versionSequence.incrementAndGet()));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (CartChangeBus.RULES.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            refreshQuietly();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule; checkouts keep the previous snapshot.
+            log.warn("Discount rule set refresh failed", e);
+        }
+    }
+
+    // A slow refresh that started earlier must never overwrite a newer snapshot.
+    private RuleSet install(RuleSet compiled) {
+        RuleSet installed = current.accumulateAndGet(compiled,
+                (previous, next) -> previous == null || next.getVersion() > previous.getVersion() ? next : previous);
+        if (installed == compiled) {
+            log.info("Published discount rule set version {} with {} rules", compiled.getVersion(), compiled.size());
+        }
+        return installed;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.shoppingcart.model.dynamo.PromotionRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ConditionStrategy;
 import com.example.shoppingcart.service.discount.ConditionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledCondition;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,12 +18,21 @@ public class CartContainsStrategy implements ConditionStrategy {
 
     @Override
     public boolean evaluate(PromotionRule.Condition condition, EvaluationContext context) {
-        if (condition.getProductId() == null || condition.getQuantity() == null) {
+        return evaluate(CompiledCondition.unbound(condition), context);
+    }
+
+    @Override
+    public boolean evaluate(CompiledCondition condition, EvaluationContext context) {
+        String productId = condition.getProductId();
+        if (productId == null || !condition.isQuantityPresent()) {
             return false;
         }
-        return context.getCart().getItems().stream()
-                .filter(item -> item.getProductId().equals(condition.getProductId()))
-                .mapToInt(CartItemDto::getQuantity)
-                .sum() >= condition.getQuantity();
+        int total = 0;
+        for (CartItemDto item : context.getCart().getItems()) {
+            if (productId.equals(item.getProductId())) {
+                total += item.getQuantity();
+            }
+        }
+        return total >= condition.getQuantity();
     }
 }
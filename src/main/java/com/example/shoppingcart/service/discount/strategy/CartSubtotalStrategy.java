@@ -4,6 +4,7 @@ import com.example.shoppingcart.model.dynamo.PromotionRule;
 import com.example.shoppingcart.service.EvaluationContext;
 import com.example.shoppingcart.service.discount.ConditionStrategy;
 import com.example.shoppingcart.service.discount.ConditionType;
+import com.example.shoppingcart.service.discount.ruleset.CompiledCondition;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,11 +17,16 @@ public class CartSubtotalStrategy implements ConditionStrategy {
 
     @Override
     public boolean evaluate(PromotionRule.Condition condition, EvaluationContext context) {
-        if (condition.getValue() == null || condition.getOperator() == null || context.getCartSubtotal() == null) {
+        return evaluate(CompiledCondition.unbound(condition), context);
+    }
+
+    @Override
+    public boolean evaluate(CompiledCondition condition, EvaluationContext context) {
+        if (!condition.isValuePresent() || context.getCartSubtotal() == null) {
             return false;
         }
         // This is a simplified implementation. A real one would handle all operators.
-        if ("GREATER_THAN_OR_EQUAL".equalsIgnoreCase(condition.getOperator())) {
+        if (condition.isGreaterThanOrEqual()) {
             return context.getCartSubtotal() >= condition.getValue();
         }
         return false;
@@ -0,0 +1,55 @@
+package com.example.shoppingcart.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Announces changes that alter what a cart looks like, on a Redis pub/sub channel every instance listens to.
+ * <p>
+ * Messages are {@code cart:<cartId>} after a cart write, {@code product:<productId>} after a product, its price or its stock changed and
+ * {@code rules} after the discount rules changed. They only say what changed; listeners read the current state
+ * themselves. Publishing is best effort: a lost notification never fails the write that caused it.
+ */
+@Component
+public class CartChangeBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CartChangeBus.class);
+
+    public static final String CHANNEL = "cart-changes";
+    public static final String CART_PREFIX = "cart:";
+    public static final String PRODUCT_PREFIX = "product:";
+    public static final String RULES = "rules";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public CartChangeBus(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void cartChanged(String cartId) {
+        send(CART_PREFIX + cartId);
+    }
+
+    public void priceChanged(String productId) {
+        send(PRODUCT_PREFIX + productId);
+    }
+
+    public void productChanged(String productId) {
+        send(PRODUCT_PREFIX + productId);
+    }
+
+    public void rulesChanged() {
+        send(RULES);
+    }
+
+    private void send(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (DataAccessException e) {
+            log.warn("Could not announce cart change {}", message, e);
+        }
+    }
+}
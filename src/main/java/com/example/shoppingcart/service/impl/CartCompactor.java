@@ -0,0 +1,123 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.IdleCartPage;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.example.shoppingcart.service.CartStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background compaction of idle carts.
+ * <p>
+ * Carts that nobody has changed for {@code app.cart.retention.compact-after-hours} are still kept until DynamoDB
+ * TTL deletes them, but there is no reason to hold them in their working form. Each pass finds up to
+ * {@code compaction-batch} such carts and moves them to the archive form through {@link CartStore#archive}:
+ * lines deflated, derived pricing state dropped, Redis copy evicted. Archiving is a versioned write, so a cart
+ * that comes back to life mid-pass simply wins, and passes on several instances at once are harmless.
+ * <p>
+ * Finding idle carts means scanning the table, so a pass reads at most {@code compaction-scan-budget} items and
+ * leaves a cursor in Redis where it stopped. The next pass, on whichever instance, continues from there, so the
+ * passes sweep the table in slices of fixed read cost and start over once they reach its end.
+ */
+@Component
+public class CartCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(CartCompactor.class);
+
+    static final String CURSOR_KEY = "CartCompactor:cursor";
+
+    private final ShoppingCartRepository cartRepository;
+    private final CartStore cartStore;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final boolean enabled;
+    private final Duration compactAfter;
+    private final long intervalMinutes;
+    private final int batchSize;
+    private final int scanBudget;
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cart-compactor").daemon().factory());
+
+    public CartCompactor(ShoppingCartRepository cartRepository,
+                         CartStore cartStore,
+                         RedisTemplate<String, String> redisTemplate,
+                         @Value("${app.cart.retention.compaction-enabled:true}") boolean enabled,
+                         @Value("${app.cart.retention.compact-after-hours:" + AppConstants.Cart.DEFAULT_COMPACT_AFTER_HOURS + "}") long compactAfterHours,
+                         @Value("${app.cart.retention.compaction-interval-minutes:" + AppConstants.Cart.DEFAULT_COMPACTION_INTERVAL_MINUTES + "}") long intervalMinutes,
+                         @Value("${app.cart.retention.compaction-batch:" + AppConstants.Cart.DEFAULT_COMPACTION_BATCH + "}") int batchSize,
+                         @Value("${app.cart.retention.compaction-scan-budget:" + AppConstants.Cart.DEFAULT_COMPACTION_SCAN_BUDGET + "}") int scanBudget) {
+        this.cartRepository = cartRepository;
+        this.cartStore = cartStore;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.compactAfter = Duration.ofHours(compactAfterHours);
+        this.intervalMinutes = intervalMinutes;
+        this.batchSize = batchSize;
+        this.scanBudget = scanBudget;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            compactor.scheduleWithFixedDelay(this::compactQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+            log.info("Cart compaction enabled: carts idle for {} archived every {} minutes", compactAfter, intervalMinutes);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        compactor.shutdownNow();
+    }
+
+    private void compactQuietly() {
+        try {
+            compact(Instant.now());
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule; the carts are picked up by the next pass.
+            log.warn("Cart compaction pass failed", e);
+        }
+    }
+
+    /**
+     * Archives up to {@code batchSize} carts last updated before {@code now} minus the idle threshold, found in the
+     * next slice of the table.
+     *
+     * @return the number of carts archived
+     */
+    int compact(Instant now) {
+        IdleCartPage page = cartRepository.findIdleSince(now.minus(compactAfter), batchSize, scanBudget,
+                redisTemplate.opsForValue().get(CURSOR_KEY));
+        if (page.nextCursor() != null) {
+            redisTemplate.opsForValue().set(CURSOR_KEY, page.nextCursor());
+        } else {
+            redisTemplate.delete(CURSOR_KEY);
+        }
+        List<ShoppingCart> idle = page.carts();
+        int archived = 0;
+        for (ShoppingCart cart : idle) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (cartStore.archive(cart)) {
+                archived++;
+            }
+        }
+        if (!idle.isEmpty()) {
+            log.info("Archived {} of {} idle carts", archived, idle.size());
+        }
+        return archived;
+    }
+}
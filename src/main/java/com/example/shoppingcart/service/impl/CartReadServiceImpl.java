@@ -1,36 +1,57 @@
 package com.example.shoppingcart.service.impl;
 
-import com.example.shoppingcart.exception.ErrorCode;
-import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import com.example.shoppingcart.model.redis.Cart;
-import com.example.shoppingcart.repository.CartRepository;
 import com.example.shoppingcart.service.CartReadService;
+import com.example.shoppingcart.service.CartStore;
 import com.example.shoppingcart.service.InventoryReadService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+
 @Service
 public class CartReadServiceImpl implements CartReadService {
 
     private static final Logger log = LoggerFactory.getLogger(CartReadServiceImpl.class);
 
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final InventoryReadService inventoryReadService;
 
     @Autowired
-    public CartReadServiceImpl(CartRepository cartRepository, InventoryReadService inventoryReadService) {
-        this.cartRepository = cartRepository;
+    public CartReadServiceImpl(CartStore cartStore, InventoryReadService inventoryReadService) {
+        this.cartStore = cartStore;
         this.inventoryReadService = inventoryReadService;
     }
 
     @Override
     public Cart getCart(String userId) {
         log.debug("Fetching cart for user: {}", userId);
-        return cartRepository.findById(userId).orElseGet(() -> {
-            Cart c = new Cart(userId);
-            return cartRepository.save(c);
-        });
+        return Cart.of(cartStore.find(userId).orElseGet(() -> createFor(userId)));
+    }
+
+    private ShoppingCart createFor(String userId) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId(userId);
+        cart.setUserId(userId);
+        cart.setStatus(ShoppingCart.CartStatus.ACTIVE);
+        cart.setItems(new ArrayList<>());
+        cart.setCreatedAt(Instant.now());
+        cart.setUpdatedAt(Instant.now());
+        cart.setRegion(AppConstants.Pricing.DEFAULT_REGION);
+        cart.setCurrency(AppConstants.Pricing.DEFAULT_CURRENCY);
+        cart.setAppliedDiscounts(new HashMap<>());
+        try {
+            return cartStore.create(cart);
+        } catch (OptimisticLockingFailureException e) {
+            // Another request created the cart first; use theirs.
+            return cartStore.find(userId).orElseThrow(() -> e);
+        }
     }
 }
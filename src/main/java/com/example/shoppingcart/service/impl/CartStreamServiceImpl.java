@@ -0,0 +1,223 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.CartSnapshotDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.service.CartStore;
+import com.example.shoppingcart.service.CartStreamService;
+import com.example.shoppingcart.service.PriceCalculationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CartStreamService} over server-sent events, fed by {@link CartChangeBus}.
+ * <p>
+ * Every instance hears every change but only acts on carts it has streams for. Changes to one cart are coalesced:
+ * at most one push per cart is queued, and it reads the cart when it runs, so a burst of writes costs one read.
+ * <p>
+ * A cart write pushes the stored snapshot. A price change for a product in the cart, or a discount rule change,
+ * pushes the cart re-priced at current catalog prices and rules; the stored cart itself is left alone and picks the
+ * new prices up on its next re-pricing write. Once a stream has shown re-priced totals it keeps doing so, so a later
+ * write does not flip the client back to the old prices.
+ */
+@Service
+public class CartStreamServiceImpl implements CartStreamService, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CartStreamServiceImpl.class);
+
+    private final CartStore cartStore;
+    private final CatalogReadRepository catalogReadRepository;
+    private final PriceCalculationService priceCalculationService;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long timeoutMillis;
+    private final long heartbeatSeconds;
+    private final int maxStreams;
+
+    private final ConcurrentHashMap<String, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+    // Products of each streamed cart as last pushed, to route price changes without reading carts
+    private final ConcurrentHashMap<String, Set<String>> products = new ConcurrentHashMap<>();
+    // Carts with a push queued, mapped to whether it must re-price
+    private final ConcurrentHashMap<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final Set<String> repriced = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ExecutorService pushes = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cart-stream-heartbeat").daemon().factory());
+
+    public CartStreamServiceImpl(CartStore cartStore,
+                                 CatalogReadRepository catalogReadRepository,
+                                 PriceCalculationService priceCalculationService,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 @Value("${app.cart.stream.timeout-ms:" + AppConstants.Cart.DEFAULT_STREAM_TIMEOUT_MS + "}") long timeoutMillis,
+                                 @Value("${app.cart.stream.heartbeat-seconds:" + AppConstants.Cart.DEFAULT_STREAM_HEARTBEAT_SECONDS + "}") long heartbeatSeconds,
+                                 @Value("${app.cart.stream.max-streams:" + AppConstants.Cart.DEFAULT_MAX_STREAMS + "}") int maxStreams) {
+        this.cartStore = cartStore;
+        this.catalogReadRepository = catalogReadRepository;
+        this.priceCalculationService = priceCalculationService;
+        this.listenerContainer = listenerContainer;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatSeconds = heartbeatSeconds;
+        this.maxStreams = maxStreams;
+    }
+
+    @PostConstruct
+    void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CartChangeBus.CHANNEL));
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        listenerContainer.removeMessageListener(this);
+        heartbeat.shutdownNow();
+        pushes.shutdownNow();
+        streams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    @Override
+    public SseEmitter subscribe(String cartId) {
+        if (open.incrementAndGet() > maxStreams) {
+            open.decrementAndGet();
+            throw new ShoppingCartException(ErrorCode.SYS_501_SERVICE_UNAVAILABLE, "Too many open cart streams, please poll instead");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        streams.computeIfAbsent(cartId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(cartId, emitter));
+        emitter.onTimeout(() -> unsubscribe(cartId, emitter));
+        emitter.onError(e -> unsubscribe(cartId, emitter));
+        schedule(cartId, false);
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String change = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (change.startsWith(CartChangeBus.CART_PREFIX)) {
+            String cartId = change.substring(CartChangeBus.CART_PREFIX.length());
+            if (streams.containsKey(cartId)) {
+                schedule(cartId, false);
+            }
+        } else if (change.startsWith(CartChangeBus.PRODUCT_PREFIX)) {
+            String productId = change.substring(CartChangeBus.PRODUCT_PREFIX.length());
+            products.forEach((cartId, cartProducts) -> {
+                if (cartProducts.contains(productId)) {
+                    schedule(cartId, true);
+                }
+            });
+        } else if (change.equals(CartChangeBus.RULES)) {
+            streams.keySet().forEach(cartId -> schedule(cartId, true));
+        }
+    }
+
+    private void schedule(String cartId, boolean reprice) {
+        boolean[] queued = {false};
+        pending.compute(cartId, (id, previous) -> {
+            queued[0] = previous == null;
+            return previous == null ? reprice : previous || reprice;
+        });
+        if (queued[0]) {
+            pushes.execute(() -> push(cartId));
+        }
+    }
+
+    private void push(String cartId) {
+        Boolean reprice = pending.remove(cartId);
+        Set<SseEmitter> emitters = streams.get(cartId);
+        if (reprice == null || emitters == null) {
+            return;
+        }
+        try {
+            ShoppingCart cart = cartStore.find(cartId).orElse(null);
+            if (cart == null) {
+                return;
+            }
+            if (reprice) {
+                repriced.add(cartId);
+            }
+            if (repriced.contains(cartId)) {
+                reprice(cart);
+            }
+            Set<String> cartProducts = ConcurrentHashMap.newKeySet();
+            cart.getItems().forEach(item -> cartProducts.add(item.getProductId()));
+            products.put(cartId, cartProducts);
+
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                    .name(AppConstants.Cart.STREAM_EVENT)
+                    .id(String.valueOf(cart.getVersion()))
+                    .data(CartSnapshotDto.of(cart));
+            emitters.forEach(emitter -> send(cartId, emitter, event));
+        } catch (RuntimeException e) {
+            log.warn("Could not push cart {} to its streams", cartId, e);
+        }
+    }
+
+    // Totals at current catalog prices and rules; only this snapshot changes, not the stored cart.
+    private void reprice(ShoppingCart cart) {
+        Map<String, CatalogItem> catalog = catalogReadRepository.findAllByIds(
+                cart.getItems().stream().map(ShoppingCart.CartItemData::getProductId).toList(),
+                cart.getRegion() != null ? cart.getRegion() : AppConstants.Pricing.DEFAULT_REGION);
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            CatalogItem product = catalog.get(item.getProductId());
+            if (product != null && product.getPrice() != null) {
+                item.setPrice(new BigDecimal(product.getPrice()));
+            }
+        }
+        priceCalculationService.calculateCartTotals(cart);
+    }
+
+    private void sendHeartbeats() {
+        SseEmitter.SseEventBuilder comment = SseEmitter.event().comment("keep-alive");
+        streams.forEach((cartId, emitters) -> emitters.forEach(emitter -> send(cartId, emitter, comment)));
+    }
+
+    private void send(String cartId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the container completes the emitter, this only stops writing to it.
+            log.debug("Dropping closed stream for cart {}", cartId);
+            unsubscribe(cartId, emitter);
+        }
+    }
+
+    private void unsubscribe(String cartId, SseEmitter emitter) {
+        boolean[] removed = {false};
+        streams.computeIfPresent(cartId, (id, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (removed[0]) {
+            open.decrementAndGet();
+        }
+        if (!streams.containsKey(cartId)) {
+            products.remove(cartId);
+            repriced.remove(cartId);
+        }
+    }
+}
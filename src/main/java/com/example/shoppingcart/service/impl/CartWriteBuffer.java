@@ -0,0 +1,323 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartPutResult;
+import com.example.shoppingcart.repository.CartTierRepository;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for cart mutations.
+ * <p>
+ * A staged cart is written to a Redis journal hash (cart id to JSON snapshot) and acknowledged straight away;
+ * a sorted set remembers when each cart first became dirty. Once a cart has been dirty for the coalescing
+ * window, the flusher writes its latest snapshot to DynamoDB with BatchWriteItem, so a burst of changes to one
+ * cart costs a single write. A journal entry is only released after its snapshot reached DynamoDB, and only if
+ * no newer change replaced it meanwhile, so acknowledged changes survive a crash of this instance: any
+ * instance's flusher picks them up.
+ * <p>
+ * Staging is version-checked inside Redis, so concurrent writers on different instances still conflict
+ * instead of overwriting each other. While a cart has no journal entry, the check is against the last version
+ * known to have reached DynamoDB: a released flush and every direct write leave that version behind for
+ * {@code app.cart.write-behind.version-ttl-ms}, so a writer still holding an older read is refused. The flush
+ * itself is conditional too, as a backstop for reads older than that: a snapshot DynamoDB has already overtaken
+ * is dropped rather than written, and the cart is evicted and announced so readers pick up the stored state.
+ */
+@Component
+public class CartWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(CartWriteBuffer.class);
+
+    static final String JOURNAL_KEY = "CartJournal";
+    static final String DUE_KEY = "CartJournal:due";
+    static final String WRITTEN_KEY_PREFIX = "CartJournal:written:";
+
+    // KEYS: journal, due, written version. ARGV: cart id, version the cart was read at (-1 if none), snapshot,
+    // now in millis.
+    private static final RedisScript<Long> STAGE = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if current then
+                local version = cjson.decode(current)['version']
+                if version == nil or version == cjson.null then version = -1 end
+                if tonumber(version) ~= tonumber(ARGV[2]) then return 0 end
+            else
+                local written = redis.call('GET', KEYS[3])
+                if written and tonumber(written) > tonumber(ARGV[2]) then return 0 end
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS: journal, due, written version. ARGV: cart id, snapshot that was flushed, its version, ttl in millis.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then
+                redis.call('HDEL', KEYS[1], ARGV[1])
+                redis.call('ZREM', KEYS[2], ARGV[1])
+                local written = redis.call('GET', KEYS[3])
+                if not written or tonumber(written) < tonumber(ARGV[3]) then
+                    redis.call('SET', KEYS[3], ARGV[3], 'PX', ARGV[4])
+                end
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: written version. ARGV: version now in DynamoDB, ttl in millis. Never moves the version backwards.
+    private static final RedisScript<Long> WRITTEN = new DefaultRedisScript<>("""
+            local written = redis.call('GET', KEYS[1])
+            if not written or tonumber(written) < tonumber(ARGV[1]) then
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ShoppingCartRepository cartRepository;
+    private final CartTierRepository tier;
+    private final CartChangeBus changeBus;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long flushIntervalMillis;
+    private final int maxFlush;
+    private final long writtenTtlMillis;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cart-write-behind").daemon().factory());
+
+    public CartWriteBuffer(RedisTemplate<String, String> redisTemplate,
+                           ShoppingCartRepository cartRepository,
+                           CartTierRepository tier,
+                           CartChangeBus changeBus,
+                           ObjectMapper objectMapper,
+                           @Value("${app.cart.write-behind.enabled:false}") boolean enabled,
+                           @Value("${app.cart.write-behind.window-ms:" + AppConstants.Cart.DEFAULT_WRITE_BEHIND_WINDOW_MS + "}") long windowMillis,
+                           @Value("${app.cart.write-behind.flush-interval-ms:" + AppConstants.Cart.DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MS + "}") long flushIntervalMillis,
+                           @Value("${app.cart.write-behind.max-flush:" + AppConstants.Cart.DEFAULT_WRITE_BEHIND_MAX_FLUSH + "}") int maxFlush,
+                           @Value("${app.cart.write-behind.version-ttl-ms:" + AppConstants.Cart.DEFAULT_WRITE_BEHIND_VERSION_TTL_MS + "}") long writtenTtlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.cartRepository = cartRepository;
+        this.tier = tier;
+        this.changeBus = changeBus;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxFlush = maxFlush;
+        this.writtenTtlMillis = writtenTtlMillis;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            flusher.scheduleWithFixedDelay(this::flushDueQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            log.info("Cart write-behind enabled: {}ms window, flushing every {}ms", windowMillis, flushIntervalMillis);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdown();
+        if (enabled) {
+            // Hand everything this instance acknowledged to DynamoDB before going away; leftovers stay journaled.
+            try {
+                int released;
+                do {
+                    released = flushOlderThan(Long.MAX_VALUE);
+                } while (released > 0);
+            } catch (RuntimeException e) {
+                log.warn("Final write-behind flush failed; pending carts remain in the journal", e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the latest acknowledged state of a cart that has not reached DynamoDB yet.
+     */
+    public Optional<ShoppingCart> find(String cartId) {
+        Object snapshot = redisTemplate.opsForHash().get(JOURNAL_KEY, cartId);
+        return snapshot == null ? Optional.empty() : Optional.of(read(snapshot.toString()));
+    }
+
+    /**
+     * Journals a mutated cart and advances its version.
+     *
+     * @param cart the cart as read, with the mutation applied in memory
+     * @return the cart, with its version advanced
+     * @throws OptimisticLockingFailureException if another writer journaled a newer version first
+     */
+    public ShoppingCart stage(ShoppingCart cart) {
+        Long expected = cart.getVersion();
+        cart.setVersion(expected == null ? 1L : expected + 1);
+        Long staged = redisTemplate.execute(STAGE, List.of(JOURNAL_KEY, DUE_KEY, WRITTEN_KEY_PREFIX + cart.getCartId()), cart.getCartId(),
+                expected == null ? "-1" : expected.toString(), write(cart), Long.toString(System.currentTimeMillis()));
+        if (staged == null || staged == 0L) {
+            cart.setVersion(expected);
+            throw new OptimisticLockingFailureException(
+                    "Cart " + cart.getCartId() + " changed since version " + expected + " was read");
+        }
+        return cart;
+    }
+
+    /**
+     * Records that a cart reached {@code version} in DynamoDB by a direct write (or, for a deleted cart, that it is
+     * gone as of that version), so writers that read it earlier are refused when they stage.
+     */
+    public void written(String cartId, Long version) {
+        if (!enabled || version == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(WRITTEN, List.of(WRITTEN_KEY_PREFIX + cartId), version.toString(),
+                    Long.toString(writtenTtlMillis));
+        } catch (DataAccessException e) {
+            // The conditional flush still refuses older snapshots; only the early refusal is lost.
+            log.warn("Could not record the written version of cart {}", cartId, e);
+        }
+    }
+
+    /**
+     * Writes a cart's journaled state through to DynamoDB now, for callers about to write the cart directly.
+     */
+    public void flush(String cartId) {
+        if (flush(List.of(cartId)) < 0) {
+            throw new ShoppingCartException(ErrorCode.SYS_501_SERVICE_UNAVAILABLE,
+                    "Pending changes to cart " + cartId + " could not be saved, please retry");
+        }
+    }
+
+    private void flushDueQuietly() {
+        try {
+            flushOlderThan(System.currentTimeMillis() - windowMillis);
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule; the carts stay journaled for the next pass.
+            log.warn("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * Flushes up to {@code maxFlush} carts that first became dirty at or before {@code cutoffMillis}.
+     *
+     * @return the number of carts released from the journal
+     */
+    int flushOlderThan(long cutoffMillis) {
+        Set<String> due = redisTemplate.opsForZSet().rangeByScore(DUE_KEY, 0, cutoffMillis, 0, maxFlush);
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, flush(new ArrayList<>(due)));
+    }
+
+    /**
+     * Writes the journaled snapshots of {@code cartIds} and releases them. Snapshots DynamoDB has already overtaken
+     * are released without being written: their writer staged against a read that is no longer current.
+     *
+     * @return the number of carts released, or -1 if DynamoDB left any of them unprocessed
+     */
+    private int flush(List<String> cartIds) {
+        List<Object> fields = new ArrayList<>(cartIds);
+        List<Object> snapshots = redisTemplate.opsForHash().multiGet(JOURNAL_KEY, fields);
+        Map<String, String> flushed = new LinkedHashMap<>();
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < cartIds.size(); i++) {
+            Object snapshot = snapshots.get(i);
+            if (snapshot == null) {
+                // Already flushed and released by another instance.
+                redisTemplate.opsForZSet().remove(DUE_KEY, cartIds.get(i));
+                continue;
+            }
+            flushed.put(cartIds.get(i), snapshot.toString());
+            carts.add(read(snapshot.toString()));
+        }
+        if (carts.isEmpty()) {
+            return 0;
+        }
+
+        CartPutResult result = cartRepository.putAllIfNewer(carts);
+        Set<String> failed = new HashSet<>();
+        result.unprocessed().forEach(cart -> failed.add(cart.getCartId()));
+        Map<String, Long> versions = new HashMap<>();
+        carts.forEach(cart -> versions.put(cart.getCartId(), cart.getVersion()));
+        int released = 0;
+        for (Map.Entry<String, String> entry : flushed.entrySet()) {
+            if (failed.contains(entry.getKey())) {
+                continue;
+            }
+            if (release(entry.getKey(), entry.getValue(), versions.get(entry.getKey()))) {
+                released++;
+            }
+        }
+        for (ShoppingCart conflict : result.conflicts()) {
+            log.warn("Dropped journaled cart {} at version {}: DynamoDB already holds a newer write",
+                    conflict.getCartId(), conflict.getVersion());
+            evict(conflict.getCartId());
+            changeBus.cartChanged(conflict.getCartId());
+        }
+        log.debug("Flushed {} carts to DynamoDB, released {}, {} conflicting, {} left for retry",
+                carts.size(), released, result.conflicts().size(), failed.size());
+        return failed.isEmpty() ? released : -1;
+    }
+
+    private boolean release(String cartId, String snapshot, Long version) {
+        Long result = redisTemplate.execute(RELEASE, List.of(JOURNAL_KEY, DUE_KEY, WRITTEN_KEY_PREFIX + cartId),
+                cartId, snapshot, version == null ? "0" : version.toString(), Long.toString(writtenTtlMillis));
+        return result != null && result == 1L;
+    }
+
+    // The tier may hold the dropped snapshot, published when it was staged.
+    private void evict(String cartId) {
+        try {
+            tier.evict(cartId);
+        } catch (DataAccessException e) {
+            log.warn("Could not evict cached cart {}; it expires with its TTL", cartId, e);
+        }
+    }
+
+    private String write(ShoppingCart cart) {
+        try {
+            return objectMapper.writeValueAsString(cart);
+        } catch (JsonProcessingException e) {
+            throw new ShoppingCartException(ErrorCode.SYS_500_INTERNAL_ERROR, "Cart could not be journaled", e);
+        }
+    }
+
+    private ShoppingCart read(String snapshot) {
+        try {
+            return objectMapper.readValue(snapshot, ShoppingCart.class);
+        } catch (JsonProcessingException e) {
+            throw new ShoppingCartException(ErrorCode.SYS_500_INTERNAL_ERROR, "Journaled cart could not be read", e);
+        }
+    }
+}
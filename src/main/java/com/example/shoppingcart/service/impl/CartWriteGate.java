@@ -0,0 +1,169 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs writes to the same cart one at a time.
+ * <p>
+ * On each instance a cart maps to one of {@code app.cart.writer.stripes} fair locks, so same-cart writes queue
+ * in arrival order instead of racing. Across instances the writer also holds a short Redis lease on the cart
+ * ({@code SET NX PX}, released only by its owner). The lease expires on its own after
+ * {@code app.cart.writer.lease-ms}, so a crashed holder blocks others for at most that long.
+ * <p>
+ * A write that spans several carts, such as a merge, holds all of them. It takes their stripes in stripe order and
+ * then their leases in cart id order, so two such writes over overlapping carts cannot deadlock.
+ * <p>
+ * The gate keeps contention away from the versioned writes; it does not replace them. A writer that outlives
+ * its lease, or runs while Redis is unreachable, is still caught by the version check and retried.
+ */
+@Component
+public class CartWriteGate {
+
+    private static final Logger log = LoggerFactory.getLogger(CartWriteGate.class);
+
+    static final String LEASE_KEY_PREFIX = "CartLease:";
+
+    // KEYS: lease. ARGV: owner token.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ReentrantLock[] stripes;
+    private final boolean leaseEnabled;
+    private final Duration lease;
+    private final long waitMillis;
+
+    public CartWriteGate(RedisTemplate<String, String> redisTemplate,
+                         @Value("${app.cart.writer.stripes:" + AppConstants.Cart.DEFAULT_WRITER_STRIPES + "}") int stripes,
+                         @Value("${app.cart.writer.lease-enabled:true}") boolean leaseEnabled,
+                         @Value("${app.cart.writer.lease-ms:" + AppConstants.Cart.DEFAULT_WRITER_LEASE_MS + "}") long leaseMillis,
+                         @Value("${app.cart.writer.wait-ms:" + AppConstants.Cart.DEFAULT_WRITER_WAIT_MS + "}") long waitMillis) {
+        this.redisTemplate = redisTemplate;
+        // A power of two, so a stripe is picked with a mask
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.leaseEnabled = leaseEnabled;
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * Runs {@code write} as the only writer of the cart.
+     *
+     * @throws ShoppingCartException with {@code CART_007} if the cart stays busy for longer than
+     *                               {@code app.cart.writer.wait-ms}
+     */
+    public <T> T run(String cartId, Supplier<T> write) {
+        return run(List.of(cartId), write);
+    }
+
+    /**
+     * Runs {@code write} as the only writer of every cart in {@code cartIds}.
+     *
+     * @throws ShoppingCartException with {@code CART_007} if any of the carts stays busy for longer than
+     *                               {@code app.cart.writer.wait-ms}
+     */
+    public <T> T run(Collection<String> cartIds, Supplier<T> write) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        List<String> ordered = cartIds.stream().distinct().sorted().toList();
+        int[] indexes = ordered.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+        int locked = 0;
+        Map<String, String> tokens = new LinkedHashMap<>();
+        try {
+            for (int index : indexes) {
+                if (!tryLock(stripes[index], deadline)) {
+                    throw busy(String.join(", ", ordered));
+                }
+                locked++;
+            }
+            if (leaseEnabled) {
+                for (String cartId : ordered) {
+                    String token = acquireLease(cartId, deadline);
+                    if (token != null) {
+                        tokens.put(cartId, token);
+                    }
+                }
+            }
+            return write.get();
+        } finally {
+            tokens.forEach(this::releaseLease);
+            while (locked > 0) {
+                stripes[indexes[--locked]].unlock();
+            }
+        }
+    }
+
+    private int stripeIndex(String cartId) {
+        int hash = cartId.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private boolean tryLock(ReentrantLock stripe, long deadline) {
+        try {
+            return stripe.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the owner token, or null if Redis could not be reached and the write goes ahead on its version check
+     */
+    private String acquireLease(String cartId, long deadline) {
+        String key = LEASE_KEY_PREFIX + cartId;
+        String token = UUID.randomUUID().toString();
+        try {
+            while (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, lease))) {
+                if (System.nanoTime() >= deadline) {
+                    throw busy(cartId);
+                }
+                Thread.sleep(AppConstants.Cart.WRITER_LEASE_POLL_MS);
+            }
+            return token;
+        } catch (DataAccessException e) {
+            log.warn("Could not lease cart {}; relying on versioned writes alone", cartId, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy(cartId);
+        }
+    }
+
+    private void releaseLease(String cartId, String token) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(LEASE_KEY_PREFIX + cartId), token);
+        } catch (DataAccessException e) {
+            log.warn("Could not release lease on cart {}; it expires within {}", cartId, lease, e);
+        }
+    }
+
+    private static ShoppingCartException busy(String cartId) {
+        return new ShoppingCartException(ErrorCode.CART_007_CONCURRENT_MODIFICATION,
+                "Cart " + cartId + " is busy with another change, please retry");
+    }
+}
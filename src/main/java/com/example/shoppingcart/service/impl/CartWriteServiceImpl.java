@@ -1,27 +1,44 @@
 package com.example.shoppingcart.service.impl;
 
 import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.CartMutationRequestDto;
 import com.example.shoppingcart.exception.ShoppingCartException;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import com.example.shoppingcart.model.redis.Cart;
-import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.example.shoppingcart.repository.CartLineWrite;
 import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.service.CartLineChange;
+import com.example.shoppingcart.service.CartMergePolicy;
+import com.example.shoppingcart.service.CartStore;
 import com.example.shoppingcart.service.CartWriteService;
+import com.example.shoppingcart.service.InventoryReadService;
 import com.example.shoppingcart.service.PriceCalculationService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.example.shoppingcart.exception.ErrorCode.*;
 
@@ -30,9 +47,14 @@ import static com.example.shoppingcart.exception.ErrorCode.*;
 public class CartWriteServiceImpl implements CartWriteService {
 
     private static final Logger log = LoggerFactory.getLogger(CartWriteServiceImpl.class);
-    private final ShoppingCartRepository cartRepository;
+    private final CartStore cartStore;
     private final CatalogReadRepository catalogReadRepository;
     private final PriceCalculationService priceCalculationService;
+    private final InventoryReadService inventoryReadService;
+    private final CartWriteGate cartWriteGate;
+
+    @Value("${app.cart.merge.default-policy:SUM}")
+    private CartMergePolicy defaultMergePolicy = CartMergePolicy.SUM;
 
     @Override
     public Cart createCart(String userId) {
@@ -49,73 +71,56 @@ public class CartWriteServiceImpl implements CartWriteService {
         cart.setCurrency(AppConstants.Pricing.DEFAULT_CURRENCY);
         cart.setAppliedDiscounts(new HashMap<>());
 
-    ShoppingCart savedCart = cartRepository.save(cart);
+    ShoppingCart savedCart = cartStore.create(cart);
     log.info("Created cart with ID: {}", savedCart.getCartId());
-    return toRedisCart(savedCart);
+    return Cart.of(savedCart);
     }
 
     @Override
-    @CacheEvict(value = "carts", key = "#cartId")
     public Cart addItem(String cartId, String productId, int quantity, int priceInSmallestUnit) {
         log.info("Adding {} of product {} to cart {}", quantity, productId, cartId);
 
-        ShoppingCart cart = getCart(cartId);
-            // Context lines before the change
-            // This line retrieves the product from the catalog
-            CatalogItem product = catalogReadRepository.findById(productId)
-                .orElseThrow(() -> new ShoppingCartException(PROD_100_NOT_FOUND, "Product not found: " + productId));
-
-        Optional<ShoppingCart.CartItemData> existingItemOpt = cart.getItems().stream()
-            .filter(item -> item.getProductId().equals(productId))
-            .findFirst();
-
-        if (existingItemOpt.isPresent()) {
-            ShoppingCart.CartItemData item = existingItemOpt.get();
-            int newQuantity = item.getQuantity() + quantity;
-            item.setQuantity(newQuantity);
-        } else {
-            ShoppingCart.CartItemData newItem = new ShoppingCart.CartItemData(
-                product.getPk(),
-                quantity,
-                new BigDecimal(priceInSmallestUnit),
-                new BigDecimal(priceInSmallestUnit).multiply(BigDecimal.valueOf(quantity)),
-                product.getName(),
-                product.getDescription(),
-                null, 
-                product.getCategoryHierarchy()
-            );
-            cart.getItems().add(newItem);
-        }
-
-        priceCalculationService.calculateCartTotals(cart);
-        cart.setUpdatedAt(Instant.now());
+        // This line retrieves the product from the catalog
+        CatalogItem product = catalogReadRepository.findById(productId)
+            .orElseThrow(() -> new ShoppingCartException(PROD_100_NOT_FOUND, "Product not found: " + productId));
+
+        return writeWithRetry(cartId, cart -> {
+            int index = indexOf(cart, productId);
+            CartLineChange change;
+            CartLineWrite write;
+            if (index >= 0) {
+                ShoppingCart.CartItemData item = cart.getItems().get(index);
+                change = changeOf(item);
+                item.setQuantity(item.getQuantity() + quantity);
+                write = CartLineWrite.replaced(cart, index);
+            } else {
+                ShoppingCart.CartItemData newItem = newLine(product, quantity, priceInSmallestUnit);
+                cart.getItems().add(newItem);
+                change = CartLineChange.added(newItem.getProductId(), newItem.getCategory());
+                write = CartLineWrite.appended(cart);
+            }
 
-    ShoppingCart saved = cartRepository.save(cart);
-    return toRedisCart(saved);
+            priceCalculationService.recalculateCartTotals(cart, change);
+            cart.setUpdatedAt(Instant.now());
+            return cartStore.updateLine(cart, write);
+        });
     }
 
     @Override
-    @CacheEvict(value = "carts", key = "#cartId")
     public Cart removeItem(String cartId, String productId) {
         log.info("Removing product {} from cart {}", productId, cartId);
 
-        ShoppingCart cart = getCart(cartId);
-
-        boolean removed = cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-
-        if (!removed) {
-            throw new ShoppingCartException(CART_002_ITEM_NOT_FOUND, "Item not found in cart: " + productId);
-        }
-
-        priceCalculationService.calculateCartTotals(cart);
-        cart.setUpdatedAt(Instant.now());
+        return writeWithRetry(cartId, cart -> {
+            int index = requireIndexOf(cart, productId);
+            CartLineChange change = changeOf(cart.getItems().remove(index));
 
-    ShoppingCart saved = cartRepository.save(cart);
-    return toRedisCart(saved);
+            priceCalculationService.recalculateCartTotals(cart, change);
+            cart.setUpdatedAt(Instant.now());
+            return cartStore.updateLine(cart, CartLineWrite.removed(index, productId));
+        });
     }
 
     @Override
-    @CacheEvict(value = "carts", key = "#cartId")
     public Cart updateItemQuantity(String cartId, String productId, int quantity) {
         log.info("Updating quantity of product {} in cart {} to {}", productId, cartId, quantity);
 
@@ -123,69 +128,288 @@ public class CartWriteServiceImpl implements CartWriteService {
             return removeItem(cartId, productId);
         }
 
-        ShoppingCart cart = getCart(cartId);
+        return writeWithRetry(cartId, cart -> {
+            int index = requireIndexOf(cart, productId);
+            ShoppingCart.CartItemData cartItem = cart.getItems().get(index);
+            CartLineChange change = changeOf(cartItem);
+            cartItem.setQuantity(quantity);
+
+            priceCalculationService.recalculateCartTotals(cart, change);
+            cart.setUpdatedAt(Instant.now());
+            return cartStore.updateLine(cart, CartLineWrite.replaced(cart, index));
+        });
+    }
+
+    @Override
+    public Cart applyOperations(String cartId, List<CartMutationRequestDto.Operation> operations, String region) {
+        log.info("Applying {} operations to cart {}", operations.size(), cartId);
+
+        Map<String, CatalogItem> catalog = loadCatalog(operations, region);
+
+        return writeWithRetry(cartId, cart -> {
+            Map<String, Integer> raised = new LinkedHashMap<>();
+            for (CartMutationRequestDto.Operation operation : operations) {
+                apply(cart, operation, catalog, raised);
+            }
+            if (cart.getItems().size() > AppConstants.Cart.DEFAULT_MAX_ITEMS) {
+                throw new ShoppingCartException(CART_003_MAX_ITEMS_EXCEEDED,
+                        "Cart would hold " + cart.getItems().size() + " items");
+            }
+            checkStock(raised, region);
+
+            // Many lines changed, so price once from scratch and write the whole cart.
+            priceCalculationService.calculateCartTotals(cart);
+            cart.setUpdatedAt(Instant.now());
+            return cartStore.save(cart);
+        });
+    }
+
+    /**
+     * Applies one operation in memory and records the resulting quantity of every line it added or raised,
+     * which is what needs a stock check.
+     */
+    private static void apply(ShoppingCart cart, CartMutationRequestDto.Operation operation,
+                              Map<String, CatalogItem> catalog, Map<String, Integer> raised) {
+        String productId = operation.getProductId();
+        int index = indexOf(cart, productId);
+        int current = index >= 0 ? cart.getItems().get(index).getQuantity() : 0;
+        int target = switch (operation.getOp()) {
+            case ADD -> {
+                if (operation.getQuantity() < 1) {
+                    throw new ShoppingCartException(VAL_301_INVALID_QUANTITY, "ADD needs a quantity of at least 1: " + productId);
+                }
+                yield current + operation.getQuantity();
+            }
+            case SET -> operation.getQuantity();
+            case REMOVE -> {
+                if (index < 0) {
+                    throw new ShoppingCartException(CART_002_ITEM_NOT_FOUND, "Item not found in cart: " + productId);
+                }
+                yield 0;
+            }
+        };
+
+        if (target <= 0) {
+            if (index >= 0) {
+                cart.getItems().remove(index);
+            }
+            raised.remove(productId);
+            return;
+        }
+        if (index >= 0) {
+            cart.getItems().get(index).setQuantity(target);
+        } else {
+            CatalogItem product = catalog.get(productId);
+            cart.getItems().add(newLine(product, target, product.getPrice()));
+        }
+        if (target > current || raised.containsKey(productId)) {
+            raised.put(productId, target);
+        }
+    }
+
+    /**
+     * Reads every distinct product that an operation may add in one batch, and fails with all unknown or unpriced
+     * ids at once.
+     */
+    private Map<String, CatalogItem> loadCatalog(List<CartMutationRequestDto.Operation> operations, String region) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (CartMutationRequestDto.Operation operation : operations) {
+            if (operation.getOp() != CartMutationRequestDto.Type.REMOVE && operation.getQuantity() > 0) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, CatalogItem> catalog = catalogReadRepository.findAllByIds(productIds, region);
+        List<String> missing = productIds.stream().filter(productId -> !catalog.containsKey(productId)).toList();
+        if (!missing.isEmpty()) {
+            throw new ShoppingCartException(PROD_100_NOT_FOUND, "Products not found: " + missing);
+        }
+        List<String> unpriced = productIds.stream().filter(productId -> catalog.get(productId).getPrice() == null).toList();
+        if (!unpriced.isEmpty()) {
+            throw new ShoppingCartException(PROD_104_NOT_PRICED, "Products have no price: " + unpriced);
+        }
+        return catalog;
+    }
+
+    /**
+     * Checks stock for the final quantity of every added or raised line, concurrently.
+     */
+    private void checkStock(Map<String, Integer> quantities, String region) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<String, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        try (ExecutorService fetch = Executors.newVirtualThreadPerTaskExecutor()) {
+            quantities.forEach((productId, quantity) -> checks.put(productId, CompletableFuture.supplyAsync(
+                    () -> inventoryReadService.isInStock(productId, region, quantity), fetch)));
+        }
+        List<String> understocked = new ArrayList<>();
+        checks.forEach((productId, check) -> {
+            if (!Boolean.TRUE.equals(check.join())) {
+                understocked.add(productId);
+            }
+        });
+        if (!understocked.isEmpty()) {
+            throw new ShoppingCartException(PROD_103_INSUFFICIENT_STOCK, "Insufficient stock for: " + understocked);
+        }
+    }
+
+    @Override
+    public Cart mergeGuestCart(String sessionId, String userId, CartMergePolicy policy) {
+        CartMergePolicy mergePolicy = policy != null ? policy : defaultMergePolicy;
+        log.info("Merging guest cart of session {} into the cart of user {} ({})", sessionId, userId, mergePolicy);
+
+        return retrying(userId, () -> {
+            // The merge writes both carts, and other writers gate on a cart's own id, which for a user cart found
+            // through the index need not be the user id. So gate on the ids read here and re-read under the gate.
+            List<String> cartIds = mergedCartIds(cartStore.findByUser(userId), cartStore.findBySession(sessionId), userId);
+            return cartWriteGate.run(cartIds, () -> {
+                Optional<ShoppingCart> existing = cartStore.findByUser(userId);
+                Optional<ShoppingCart> guest = cartStore.findBySession(sessionId);
+                if (!mergedCartIds(existing, guest, userId).equals(cartIds)) {
+                    throw new OptimisticLockingFailureException("Carts of user " + userId + " or session "
+                            + sessionId + " changed before they were locked");
+                }
+                return merge(existing, guest, sessionId, userId, mergePolicy);
+            });
+        });
+    }
 
-        ShoppingCart.CartItemData cartItem = cart.getItems().stream()
-            .filter(item -> item.getProductId().equals(productId))
-            .findFirst()
-            .orElseThrow(() -> new ShoppingCartException(CART_002_ITEM_NOT_FOUND, "Item not found in cart: " + productId));
+    private Cart merge(Optional<ShoppingCart> existing, Optional<ShoppingCart> guest, String sessionId, String userId,
+                       CartMergePolicy mergePolicy) {
+        if (guest.isEmpty() || existing.map(cart -> cart.getCartId().equals(guest.get().getCartId())).orElse(false)) {
+            // Nothing left to merge, e.g. a retried login whose first merge went through.
+            return Cart.of(existing.orElseThrow(() -> new ShoppingCartException(CART_001_NOT_FOUND,
+                    "No cart for user " + userId + " or session " + sessionId)));
+        }
+        ShoppingCart cart = existing.orElseGet(() -> newUserCart(userId, guest.get()));
+        for (ShoppingCart.CartItemData line : guest.get().getItems()) {
+            int index = indexOf(cart, line.getProductId());
+            if (index < 0) {
+                cart.getItems().add(line);
+            } else {
+                ShoppingCart.CartItemData mine = cart.getItems().get(index);
+                mine.setQuantity(mergePolicy.merge(mine.getQuantity(), line.getQuantity()));
+            }
+        }
+        if (cart.getItems().size() > AppConstants.Cart.DEFAULT_MAX_ITEMS) {
+            throw new ShoppingCartException(CART_003_MAX_ITEMS_EXCEEDED,
+                    "Merged cart would hold " + cart.getItems().size() + " items");
+        }
 
-        cartItem.setQuantity(quantity);
         priceCalculationService.calculateCartTotals(cart);
         cart.setUpdatedAt(Instant.now());
+        return Cart.of(cartStore.merge(cart, guest.get()));
+    }
 
-    ShoppingCart saved = cartRepository.save(cart);
-    return toRedisCart(saved);
+    // The user's cart, or the user id a new one is created under, and the guest cart; sorted, for a stable order
+    private static List<String> mergedCartIds(Optional<ShoppingCart> existing, Optional<ShoppingCart> guest, String userId) {
+        Set<String> cartIds = new TreeSet<>();
+        cartIds.add(existing.map(ShoppingCart::getCartId).orElse(userId));
+        guest.ifPresent(cart -> cartIds.add(cart.getCartId()));
+        return List.copyOf(cartIds);
+    }
+
+    // Same id convention as carts created on first read, so the merged cart is found by the user id
+    private static ShoppingCart newUserCart(String userId, ShoppingCart guest) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId(userId);
+        cart.setUserId(userId);
+        cart.setStatus(ShoppingCart.CartStatus.ACTIVE);
+        cart.setItems(new ArrayList<>());
+        cart.setCreatedAt(Instant.now());
+        cart.setRegion(guest.getRegion() != null ? guest.getRegion() : AppConstants.Pricing.DEFAULT_REGION);
+        cart.setCurrency(guest.getCurrency() != null ? guest.getCurrency() : AppConstants.Pricing.DEFAULT_CURRENCY);
+        cart.setAppliedDiscounts(new HashMap<>());
+        return cart;
     }
 
     @Override
-    @CacheEvict(value = {"carts", "cartTotals"}, key = "#cartId")
+    @CacheEvict(value = "cartTotals", key = "#cartId")
     public Cart checkout(String cartId) {
         log.info("Processing checkout for cart: {}", cartId);
 
-        ShoppingCart cart = getCart(cartId);
+        return writeWithRetry(cartId, cart -> {
+            if (cart.getItems().isEmpty()) {
+                throw new ShoppingCartException(CART_005_IS_EMPTY, "Cannot checkout empty cart: " + cartId);
+            }
+
+            priceCalculationService.calculateCartTotals(cart);
+
+            cart.setStatus(ShoppingCart.CartStatus.CHECKED_OUT);
+            cart.setUpdatedAt(Instant.now());
+            return cartStore.save(cart);
+        });
+    }
+
+    /**
+     * Reads the cart, applies {@code write} and retries from a fresh read when another writer got there first.
+     * Every write is conditional on the version that was read, so concurrent changes are never silently lost.
+     * Writes to one cart run one at a time through {@link CartWriteGate}, so retries are the exception.
+     */
+    private Cart writeWithRetry(String cartId, Function<ShoppingCart, ShoppingCart> write) {
+        return cartWriteGate.run(cartId, () -> retrying(cartId, () -> Cart.of(write.apply(getCart(cartId)))));
+    }
 
-        if (cart.getItems().isEmpty()) {
-            throw new ShoppingCartException(CART_005_IS_EMPTY, "Cannot checkout empty cart: " + cartId);
+    private Cart retrying(String cartId, Supplier<Cart> attempt) {
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempts >= AppConstants.Cart.MAX_WRITE_ATTEMPTS) {
+                    log.warn("Giving up on cart {} after {} conflicting writes", cartId, attempts);
+                    throw new ShoppingCartException(CART_007_CONCURRENT_MODIFICATION,
+                            "Cart " + cartId + " is being modified concurrently, please retry", e);
+                }
+                log.debug("Cart {} changed since it was read; retrying (attempt {})", cartId, attempts);
+            }
         }
+    }
 
-        priceCalculationService.calculateCartTotals(cart);
+    private static int indexOf(ShoppingCart cart, String productId) {
+        for (int i = 0; i < cart.getItems().size(); i++) {
+            if (cart.getItems().get(i).getProductId().equals(productId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        cart.setStatus(ShoppingCart.CartStatus.CHECKED_OUT);
-        cart.setUpdatedAt(Instant.now());
-    ShoppingCart checkedOutCart = cartRepository.save(cart);
-    return toRedisCart(checkedOutCart);
+    private static int requireIndexOf(ShoppingCart cart, String productId) {
+        int index = indexOf(cart, productId);
+        if (index < 0) {
+            throw new ShoppingCartException(CART_002_ITEM_NOT_FOUND, "Item not found in cart: " + productId);
+        }
+        return index;
     }
 
     private ShoppingCart getCart(String cartId) {
         log.debug("Retrieving cart: {}", cartId);
-        return cartRepository.findById(cartId)
+        return cartStore.find(cartId)
             .orElseThrow(() -> new ShoppingCartException(CART_001_NOT_FOUND, "Cart not found: " + cartId));
     }
 
-    private String generateCartId() {
-        return AppConstants.Cart.CART_ID_PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private static ShoppingCart.CartItemData newLine(CatalogItem product, int quantity, int priceInSmallestUnit) {
+        return new ShoppingCart.CartItemData(
+            product.getPk(),
+            quantity,
+            new BigDecimal(priceInSmallestUnit),
+            new BigDecimal(priceInSmallestUnit).multiply(BigDecimal.valueOf(quantity)),
+            product.getName(),
+            product.getDescription(),
+            null,
+            product.getCategoryHierarchy()
+        );
     }
 
-    // --- Conversion helpers between Dynamo ShoppingCart and Redis Cart ---
-    private Cart toRedisCart(ShoppingCart s) {
-        Cart c = new Cart();
-        c.setCartId(s.getCartId());
-        c.setUserId(s.getUserId());
-        c.setCurrency(s.getCurrency());
-        c.setRegion(s.getRegion());
-        c.setStatus(s.getStatus() != null ? s.getStatus().name() : null);
-        // Convert list of CartItemData to a simple map productId->quantity for Redis model
-    Map<String, Integer> itemsMap = new HashMap<>();
-        if (s.getItems() != null) {
-            for (ShoppingCart.CartItemData item : s.getItems()) {
-                itemsMap.put(item.getProductId(), item.getQuantity());
-            }
-        }
-        c.setItems(itemsMap);
-        c.setCreatedAt(s.getCreatedAt());
-        c.setUpdatedAt(s.getUpdatedAt());
-        c.setAppliedDiscounts(s.getAppliedDiscounts());
-        return c;
+    // Captures the line as last priced, before it is mutated
+    private static CartLineChange changeOf(ShoppingCart.CartItemData item) {
+        return new CartLineChange(item.getProductId(), item.getCategory(), item.getTotalPrice());
+    }
+
+    private String generateCartId() {
+        return AppConstants.Cart.CART_ID_PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 }
@@ -0,0 +1,162 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.redis.CheckoutQuote;
+import com.example.shoppingcart.repository.CheckoutQuoteRepository;
+import com.example.shoppingcart.service.CheckoutQuoteService;
+import com.example.shoppingcart.service.CheckoutService;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Service
+public class CheckoutQuoteServiceImpl implements CheckoutQuoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutQuoteServiceImpl.class);
+    private static final String CLAIM_KEY_PREFIX = "CheckoutQuote:claim:";
+    // Deletes the claim only while it still holds this request's token; once it expires another request may own it.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private final CheckoutService checkoutService;
+    private final CheckoutQuoteRepository quoteRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RuleSetRegistry ruleSetRegistry;
+    private final long quoteTtlSeconds;
+    private final Duration claimTtl;
+
+    public CheckoutQuoteServiceImpl(CheckoutService checkoutService,
+                                    CheckoutQuoteRepository quoteRepository,
+                                    RedisTemplate<String, String> redisTemplate,
+                                    RuleSetRegistry ruleSetRegistry,
+                                    @Value("${app.checkout.quote.ttl-seconds:" + AppConstants.Checkout.DEFAULT_QUOTE_TTL_SECONDS + "}") long quoteTtlSeconds,
+                                    @Value("${app.checkout.quote.claim-ttl-seconds:" + AppConstants.Checkout.DEFAULT_QUOTE_CLAIM_TTL_SECONDS + "}") long claimTtlSeconds) {
+        this.checkoutService = checkoutService;
+        this.quoteRepository = quoteRepository;
+        this.redisTemplate = redisTemplate;
+        this.ruleSetRegistry = ruleSetRegistry;
+        this.quoteTtlSeconds = quoteTtlSeconds;
+        this.claimTtl = Duration.ofSeconds(claimTtlSeconds);
+    }
+
+    @Override
+    public CheckoutResponseDto checkout(String idempotencyKey, CartDto cart, Set<String> userTags, String paymentMethod, String region) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new ShoppingCartException(ErrorCode.VAL_300_INVALID_PARAMS, "Idempotency-Key must not be blank");
+        }
+        String ruleSetFingerprint = ruleSetRegistry.current().getFingerprint();
+        String contentHash = contentHash(cart, userTags, paymentMethod, region);
+
+        Optional<CheckoutResponseDto> replay = replay(idempotencyKey, contentHash, ruleSetFingerprint);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+
+        // Claim the key so a double-click on another thread or node waits for the first request instead of re-running it.
+        String claimKey = CLAIM_KEY_PREFIX + idempotencyKey;
+        String claimToken = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(claimKey, claimToken, claimTtl))) {
+            // The first request may have finished between the lookup and the claim.
+            return replay(idempotencyKey, contentHash, ruleSetFingerprint)
+                    .orElseThrow(() -> new ShoppingCartException(ErrorCode.CART_006_CHECKOUT_IN_PROGRESS,
+                            "Checkout already in progress for Idempotency-Key " + idempotencyKey));
+        }
+        try {
+            CheckoutResponseDto response = checkoutService.calculateFinalPrice(cart, userTags, paymentMethod, region);
+            CheckoutQuote quote = new CheckoutQuote();
+            quote.setIdempotencyKey(idempotencyKey);
+            quote.setContentHash(contentHash);
+            quote.setRuleSetFingerprint(ruleSetFingerprint);
+            quote.setResponse(response);
+            quote.setCreatedAt(Instant.now());
+            quote.setTtlSeconds(quoteTtlSeconds);
+            quoteRepository.save(quote);
+            return response;
+        } finally {
+            release(claimKey, claimToken);
+        }
+    }
+
+    private void release(String claimKey, String claimToken) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(claimKey), claimToken);
+        } catch (DataAccessException e) {
+            log.warn("Could not release checkout claim {}; it expires within {}", claimKey, claimTtl, e);
+        }
+    }
+
+    private Optional<CheckoutResponseDto> replay(String idempotencyKey, String contentHash, String ruleSetFingerprint) {
+        Optional<CheckoutQuote> stored = quoteRepository.findById(idempotencyKey);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        CheckoutQuote quote = stored.get();
+        if (!contentHash.equals(quote.getContentHash())) {
+            throw new ShoppingCartException(ErrorCode.VAL_304_IDEMPOTENCY_KEY_REUSED,
+                    "Idempotency-Key " + idempotencyKey + " was already used for a different cart");
+        }
+        if (!ruleSetFingerprint.equals(quote.getRuleSetFingerprint())) {
+            // The order was placed under other rules; replaying keeps the retry from placing it twice.
+            log.info("Replaying checkout for Idempotency-Key {} priced under an earlier rule set {}",
+                    idempotencyKey, quote.getRuleSetFingerprint());
+        } else {
+            log.info("Replaying checkout for Idempotency-Key {}", idempotencyKey);
+        }
+        return Optional.ofNullable(quote.getResponse());
+    }
+
+    /**
+     * Hashes the inputs that determine a checkout's price in a canonical form, so line order, duplicate lines
+     * and tag order do not change the result.
+     */
+    static String contentHash(CartDto cart, Set<String> userTags, String paymentMethod, String region) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        if (cart != null && cart.getItems() != null) {
+            for (CartItemDto item : cart.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        StringBuilder canonical = new StringBuilder();
+        quantities.forEach((productId, quantity) -> canonical.append(productId).append('=').append(quantity).append(';'));
+        canonical.append('|').append(userTags != null ? String.join(",", new TreeSet<>(userTags)) : "");
+        canonical.append('|').append(paymentMethod);
+        canonical.append('|').append(region);
+        return sha256(canonical.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.config.CheckoutTimings;
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.dto.BulkCheckoutRequestDto;
+import com.example.shoppingcart.dto.BulkCheckoutResultDto;
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.Money;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.model.postgres.AppliedDiscount;
+import com.example.shoppingcart.model.postgres.Order;
+import com.example.shoppingcart.model.postgres.OrderItem;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.CheckoutService;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.InventoryReadService;
+import com.example.shoppingcart.service.InventoryWriteService;
+import com.example.shoppingcart.service.OrderService;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.ConflictResolver;
+import com.example.shoppingcart.service.discount.DiscountSelector;
+import com.example.shoppingcart.service.discount.PriceSanitizer;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Checkout pipeline.
+ * Catalog, stock and promotion reads are issued once per distinct product and fanned out concurrently,
+ * under a timeout, then the pricing stages (evaluate, resolve, apply, sanitize) run in-process and are logged
+ * when they take longer than their slow-stage threshold.
+ */
+@Service
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutServiceImpl.class);
+
+    private final DiscountRuleRepository discountRuleRepository;
+    private final CatalogReadRepository catalogReadRepository;
+    private final InventoryReadService inventoryReadService;
+    private final InventoryWriteService inventoryWriteService;
+    private final OrderService orderService;
+    private final DiscountSelector discountSelector;
+    private final PriceSanitizer priceSanitizer;
+    private final RuleSetRegistry ruleSetRegistry;
+    private final CheckoutTimings timings;
+
+    // Reads are I/O bound, so virtual threads keep the per-product fan-out cheap.
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CheckoutServiceImpl(DiscountRuleRepository discountRuleRepository,
+                               CatalogReadRepository catalogReadRepository,
+                               InventoryReadService inventoryReadService,
+                               InventoryWriteService inventoryWriteService,
+                               OrderService orderService,
+                               ConditionEvaluator conditionEvaluator,
+                               ConflictResolver conflictResolver,
+                               ActionApplier actionApplier,
+                               PriceSanitizer priceSanitizer) {
+        this(discountRuleRepository, catalogReadRepository, inventoryReadService, inventoryWriteService, orderService,
+                conditionEvaluator, conflictResolver, actionApplier, priceSanitizer, null, null);
+    }
+
+    @Autowired
+    public CheckoutServiceImpl(DiscountRuleRepository discountRuleRepository,
+                               CatalogReadRepository catalogReadRepository,
+                               InventoryReadService inventoryReadService,
+                               InventoryWriteService inventoryWriteService,
+                               OrderService orderService,
+                               ConditionEvaluator conditionEvaluator,
+                               ConflictResolver conflictResolver,
+                               ActionApplier actionApplier,
+                               PriceSanitizer priceSanitizer,
+                               RuleSetRegistry ruleSetRegistry,
+                               CheckoutTimings timings) {
+        this.discountRuleRepository = discountRuleRepository;
+        this.catalogReadRepository = catalogReadRepository;
+        this.inventoryReadService = inventoryReadService;
+        this.inventoryWriteService = inventoryWriteService;
+        this.orderService = orderService;
+        this.discountSelector = new DiscountSelector(conditionEvaluator, conflictResolver, actionApplier);
+        this.priceSanitizer = priceSanitizer;
+        // Without a registry, promotions are looked up per product in the repository.
+        this.ruleSetRegistry = ruleSetRegistry;
+        this.timings = timings != null ? timings : CheckoutTimings.defaults();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdown();
+    }
+
+    @Override
+    public CheckoutResponseDto calculateFinalPrice(CartDto cart, Set<String> userTags, String paymentMethod, String region) {
+        if (cart == null || cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Cannot checkout an empty cart.");
+        }
+
+        Map<String, Integer> quantities = quantitiesByProduct(cart);
+        PendingReads reads = startReads(List.of(quantities), region);
+        awaitFetch(reads.all(), timings.getFetchTimeout());
+        FetchedCart fetched = resolve(quantities, reads, ruleSetRegistry != null ? ruleSetRegistry.current() : null,
+                System.currentTimeMillis());
+
+        CheckoutResponseDto sanitized = price(cart, userTags, paymentMethod, fetched);
+        placeOrder(cart, sanitized, quantities, fetched.catalog(), paymentMethod, region);
+        return sanitized;
+    }
+
+    @Override
+    public void priceCarts(List<BulkCheckoutRequestDto.BulkCart> carts, String paymentMethod, String region,
+                           Consumer<BulkCheckoutResultDto> sink) {
+        if (carts == null || carts.isEmpty()) {
+            return;
+        }
+        List<Map<String, Integer>> quantities = new ArrayList<>(carts.size());
+        for (BulkCheckoutRequestDto.BulkCart bulkCart : carts) {
+            quantities.add(bulkCart.getItems() != null ? quantitiesByProduct(toCart(bulkCart)) : Collections.emptyMap());
+        }
+
+        // One read per distinct product (and per distinct stock quantity) across the whole batch, and one rule snapshot.
+        PendingReads reads = startReads(quantities, region);
+        awaitFetch(reads.all(), timings.getBulkFetchTimeout());
+        RuleSet ruleSet = ruleSetRegistry != null ? ruleSetRegistry.current() : null;
+        long now = System.currentTimeMillis();
+        log.info("Bulk pricing {} carts over {} products", carts.size(), reads.catalog.size());
+
+        // Pricing is CPU bound; results are handed to the sink on this thread, in completion order.
+        CompletionService<BulkCheckoutResultDto> completion = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+        for (int i = 0; i < carts.size(); i++) {
+            BulkCheckoutRequestDto.BulkCart bulkCart = carts.get(i);
+            Map<String, Integer> cartQuantities = quantities.get(i);
+            completion.submit(() -> priceOne(bulkCart, cartQuantities, reads, ruleSet, now, paymentMethod));
+        }
+        for (int i = 0; i < carts.size(); i++) {
+            try {
+                sink.accept(completion.take().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ShoppingCartException(ErrorCode.SYS_501_SERVICE_UNAVAILABLE, "Bulk pricing was interrupted");
+            } catch (ExecutionException e) {
+                // priceOne reports its own failures, so this is a bug rather than a pricing error.
+                throw new ShoppingCartException(ErrorCode.PRICE_201_CALCULATION_ERROR, "Bulk pricing failed", e.getCause());
+            }
+        }
+    }
+
+    private BulkCheckoutResultDto priceOne(BulkCheckoutRequestDto.BulkCart bulkCart, Map<String, Integer> quantities,
+                                           PendingReads reads, RuleSet ruleSet, long now, String paymentMethod) {
+        try {
+            CartDto cart = toCart(bulkCart);
+            if (cart.getItems() == null || cart.getItems().isEmpty()) {
+                throw new IllegalArgumentException("Cannot checkout an empty cart.");
+            }
+            Set<String> userTags = bulkCart.getUserTags() != null ? bulkCart.getUserTags() : Collections.emptySet();
+            CheckoutResponseDto result = price(cart, userTags, paymentMethod, resolve(quantities, reads, ruleSet, now));
+            return new BulkCheckoutResultDto(bulkCart.getReference(), result, null, null);
+        } catch (ShoppingCartException e) {
+            return new BulkCheckoutResultDto(bulkCart.getReference(), null, e.getErrorCode().getCode(), e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return new BulkCheckoutResultDto(bulkCart.getReference(), null, ErrorCode.VAL_300_INVALID_PARAMS.getCode(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Unexpected error pricing bulk cart {}", bulkCart.getReference(), e);
+            return new BulkCheckoutResultDto(bulkCart.getReference(), null,
+                    ErrorCode.SYS_500_INTERNAL_ERROR.getCode(), ErrorCode.SYS_500_INTERNAL_ERROR.getMessage());
+        }
+    }
+
+    /**
+     * Pricing stages shared by single and bulk checkout: subtotal, evaluate, resolve, apply and sanitize.
+     */
+    private CheckoutResponseDto price(CartDto cart, Set<String> userTags, String paymentMethod, FetchedCart fetched) {
+        EvaluationContext context = new EvaluationContext(cart, userTags, paymentMethod, fetched.catalog());
+        int originalTotal = subtotal(cart, fetched.catalog());
+        context.setCartSubtotal(originalTotal);
+
+        DiscountSelector.Selection outcome = discountSelector.select(fetched.promotions(), context,
+                (stage, started) -> reportSlowStage(stage.name().toLowerCase(Locale.ROOT), started, slowThresholdFor(stage)));
+        List<AppliedDiscountDto> applied = outcome.discounts();
+        int totalDiscount = total(applied);
+
+        CheckoutResponseDto response = new CheckoutResponseDto();
+        response.setOriginalTotalPrice(originalTotal);
+        response.setTotalDiscount(totalDiscount);
+        response.setFinalTotalPrice(Money.toIntExact(Money.subtract(originalTotal, totalDiscount)));
+        response.setAppliedDiscounts(applied);
+        response.setItems(pricedItems(cart, fetched.catalog()));
+        response.setResolutionMode(outcome.mode().name());
+
+        long started = System.nanoTime();
+        CheckoutResponseDto sanitized = priceSanitizer.sanitize(response);
+        reportSlowStage("sanitize", started, timings.getSlowSanitize());
+        return sanitized;
+    }
+
+    /**
+     * Fetch stage: one stock check per distinct product and quantity, one batched catalog read for every distinct
+     * product across all the given carts, and one promotion lookup per product, all in flight at once.
+     */
+    private PendingReads startReads(Collection<Map<String, Integer>> carts, String region) {
+        PendingReads reads = new PendingReads();
+        Set<String> productIds = new LinkedHashSet<>();
+        for (Map<String, Integer> quantities : carts) {
+            quantities.forEach((productId, quantity) -> {
+                productIds.add(productId);
+                reads.stock.computeIfAbsent(new StockKey(productId, quantity), key -> CompletableFuture.supplyAsync(
+                        () -> inventoryReadService.isInStock(productId, region, quantity), fetchExecutor));
+            });
+        }
+        CompletableFuture<Map<String, CatalogItem>> catalog = CompletableFuture.supplyAsync(
+                () -> catalogReadRepository.findAllByIds(productIds, region), fetchExecutor);
+        for (String id : productIds) {
+            CompletableFuture<Optional<CatalogItem>> item = catalog.thenApply(found -> Optional.ofNullable(found.get(id)));
+            reads.catalog.put(id, item);
+            if (ruleSetRegistry == null) {
+                reads.promotions.put(id, item.thenApplyAsync(found -> found
+                        .map(ci -> discountRuleRepository.findActiveRulesByProductAndHierarchy(
+                                id, hierarchyPrefixes(ci.getCategoryHierarchy())))
+                        .orElse(Collections.emptyList()), fetchExecutor));
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * Validates one cart against completed reads and collects its candidate promotions.
+     * Validation runs in a stable order: stock first, then product existence.
+     * @param ruleSet The compiled rules to draw candidates from, or null to use the per-product repository lookups.
+     */
+    private FetchedCart resolve(Map<String, Integer> quantities, PendingReads reads, RuleSet ruleSet, long now) {
+        quantities.forEach((productId, quantity) -> {
+            if (!Boolean.TRUE.equals(resultOf(reads.stock.get(new StockKey(productId, quantity))))) {
+                throw new ShoppingCartException(ErrorCode.PROD_103_INSUFFICIENT_STOCK, "Item out of stock: " + productId);
+            }
+        });
+        Map<String, CatalogItem> catalogItems = new LinkedHashMap<>();
+        for (String productId : quantities.keySet()) {
+            catalogItems.put(productId, resultOf(reads.catalog.get(productId))
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid product ID: " + productId)));
+        }
+
+        Set<DiscountRule> rules = new LinkedHashSet<>();
+        if (ruleSet == null) {
+            for (String productId : quantities.keySet()) {
+                rules.addAll(resultOf(reads.promotions.get(productId)));
+            }
+        } else {
+            List<String> hierarchies = catalogItems.values().stream()
+                    .map(CatalogItem::getCategoryHierarchy)
+                    .filter(Objects::nonNull)
+                    .toList();
+            for (CompiledRule rule : ruleSet.candidatesFor(catalogItems.keySet(), hierarchies)) {
+                if (rule.isLiveAt(now)) {
+                    rules.add(rule.getSource());
+                }
+            }
+        }
+        return new FetchedCart(catalogItems, new ArrayList<>(rules));
+    }
+
+    private void awaitFetch(CompletableFuture<?>[] inFlight, Duration limit) {
+        try {
+            CompletableFuture.allOf(inFlight).get(limit.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            for (CompletableFuture<?> future : inFlight) {
+                future.cancel(true);
+            }
+            log.warn("Checkout fetch stage exceeded its {}ms timeout", limit.toMillis());
+            throw new ShoppingCartException(ErrorCode.SYS_501_SERVICE_UNAVAILABLE,
+                    "Checkout data could not be loaded within " + limit.toMillis() + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShoppingCartException(ErrorCode.SYS_501_SERVICE_UNAVAILABLE, "Checkout was interrupted");
+        } catch (ExecutionException e) {
+            // Individual failures are rethrown while the results are read, so they surface in a stable order.
+        }
+    }
+
+    private Duration slowThresholdFor(DiscountSelector.Stage stage) {
+        return switch (stage) {
+            case EVALUATE -> timings.getSlowEvaluate();
+            case RESOLVE -> timings.getSlowResolve();
+            case APPLY -> timings.getSlowApply();
+        };
+    }
+
+    private void placeOrder(CartDto cart, CheckoutResponseDto response, Map<String, Integer> quantities,
+                            Map<String, CatalogItem> catalog, String paymentMethod, String region) {
+        // A pricing-only wiring (no order service / inventory writer) skips placement.
+        if (orderService != null) {
+            orderService.createOrder(toOrder(cart, response, catalog, paymentMethod, region));
+        }
+        if (inventoryWriteService != null) {
+            quantities.forEach((productId, quantity) -> {
+                if (quantity > 0) {
+                    inventoryWriteService.updateInventory(productId, region, -quantity);
+                }
+            });
+        }
+    }
+
+    private Order toOrder(CartDto cart, CheckoutResponseDto response, Map<String, CatalogItem> catalog,
+                          String paymentMethod, String region) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setUserId(cart.getUserId());
+        order.setCartId(cart.getCartId());
+        order.setOrderDate(LocalDateTime.now());
+        String currency = cart.getCurrency() != null ? cart.getCurrency() : AppConstants.Pricing.DEFAULT_CURRENCY;
+        // Checkout prices in pence; orders are stored in pounds.
+        order.setOriginalTotalPrice(Money.ofMinor(response.getOriginalTotalPrice(), currency).toMajor());
+        order.setTotalDiscount(Money.ofMinor(response.getTotalDiscount(), currency).toMajor());
+        order.setFinalTotalPrice(Money.ofMinor(response.getFinalTotalPrice(), currency).toMajor());
+        order.setCurrency(currency);
+        order.setRegion(region);
+        order.setPaymentMethod(paymentMethod);
+        order.setStatus(Order.OrderStatus.PENDING);
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CartItemDto line : cart.getItems()) {
+            CatalogItem item = catalog.get(line.getProductId());
+            Money unitPrice = Money.ofMinor(priceOf(item), currency);
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProductId(line.getProductId());
+            orderItem.setProductName(item.getName());
+            orderItem.setQuantity(line.getQuantity());
+            orderItem.setItemPrice(unitPrice.toMajor());
+            orderItem.setTotalItemPrice(unitPrice.times(line.getQuantity()).toMajor());
+            orderItem.setCategoryHierarchy(item.getCategoryHierarchy());
+            orderItems.add(orderItem);
+        }
+        order.setOrderItems(orderItems);
+
+        List<AppliedDiscount> discounts = new ArrayList<>();
+        if (response.getAppliedDiscounts() != null) {
+            for (AppliedDiscountDto applied : response.getAppliedDiscounts()) {
+                AppliedDiscount discount = new AppliedDiscount();
+                discount.setOrder(order);
+                discount.setRuleId(applied.getRuleId());
+                discount.setRuleName(applied.getRuleName());
+                discount.setDescription(applied.getDescription());
+                discount.setAmount(Money.ofMinor(applied.getAmount(), currency).toMajor());
+                discounts.add(discount);
+            }
+        }
+        order.setAppliedDiscounts(discounts);
+        return order;
+    }
+
+    private static CartDto toCart(BulkCheckoutRequestDto.BulkCart bulkCart) {
+        CartDto cart = new CartDto();
+        cart.setCartId(bulkCart.getReference());
+        cart.setItems(bulkCart.getItems());
+        return cart;
+    }
+
+    private static Map<String, Integer> quantitiesByProduct(CartDto cart) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemDto line : cart.getItems()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static int subtotal(CartDto cart, Map<String, CatalogItem> catalog) {
+        long subtotal = 0;
+        for (CartItemDto line : cart.getItems()) {
+            subtotal = Money.add(subtotal, Money.multiply(priceOf(catalog.get(line.getProductId())), line.getQuantity()));
+        }
+        return Money.toIntExact(subtotal);
+    }
+
+    private static List<CartItemDto> pricedItems(CartDto cart, Map<String, CatalogItem> catalog) {
+        List<CartItemDto> items = new ArrayList<>(cart.getItems().size());
+        for (CartItemDto line : cart.getItems()) {
+            CartItemDto priced = new CartItemDto();
+            priced.setProductId(line.getProductId());
+            priced.setQuantity(line.getQuantity());
+            priced.setPriceInPence(priceOf(catalog.get(line.getProductId())));
+            items.add(priced);
+        }
+        return items;
+    }
+
+    /**
+     * Expands "/FOOD/FRUIT/" into ["/FOOD/", "/FOOD/FRUIT/"] so rules targeting any ancestor category match.
+     */
+    private static List<String> hierarchyPrefixes(String categoryHierarchy) {
+        if (categoryHierarchy == null || categoryHierarchy.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (int i = categoryHierarchy.indexOf('/', 1); i > 0; i = categoryHierarchy.indexOf('/', i + 1)) {
+            prefixes.add(categoryHierarchy.substring(0, i + 1));
+        }
+        if (!categoryHierarchy.endsWith("/")) {
+            prefixes.add(categoryHierarchy);
+        }
+        return prefixes;
+    }
+
+    private static int priceOf(CatalogItem item) {
+        return item.getPrice() != null ? item.getPrice() : 0;
+    }
+
+    private static int total(List<AppliedDiscountDto> discounts) {
+        long total = 0;
+        for (AppliedDiscountDto discount : discounts) {
+            total = Money.add(total, discount.getAmount());
+        }
+        return Money.toIntExact(total);
+    }
+
+    private static <T> T resultOf(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // The stage has already finished; this only makes slow stages visible.
+    private static void reportSlowStage(String stage, long startedNanos, Duration threshold) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        if (elapsedMillis > threshold.toMillis()) {
+            log.warn("Checkout {} stage took {}ms, over its {}ms slow-stage threshold", stage, elapsedMillis, threshold.toMillis());
+        }
+    }
+
+    private record FetchedCart(Map<String, CatalogItem> catalog, List<DiscountRule> promotions) {}
+
+    private record StockKey(String productId, int quantity) {}
+
+    /**
+     * Reads issued by the fetch stage, keyed so that carts sharing a product share its reads.
+     */
+    private static final class PendingReads {
+        private final Map<StockKey, CompletableFuture<Boolean>> stock = new LinkedHashMap<>();
+        private final Map<String, CompletableFuture<Optional<CatalogItem>>> catalog = new LinkedHashMap<>();
+        private final Map<String, CompletableFuture<List<DiscountRule>>> promotions = new LinkedHashMap<>();
+
+        CompletableFuture<?>[] all() {
+            return Stream.of(stock.values(), catalog.values(), promotions.values())
+                    .flatMap(Collection::stream)
+                    .toArray(CompletableFuture[]::new);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.shoppingcart.service.impl;
 
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.service.CartLineChange;
 import com.example.shoppingcart.service.DiscountService;
 import com.example.shoppingcart.service.PriceCalculationService;
 import lombok.RequiredArgsConstructor;
@@ -8,12 +10,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-
 /**
  * Implementation of the price calculation service.
  * This service is responsible for orchestrating the calculation of all monetary
  * values in a shopping cart, including subtotal, discounts, and the final total.
+ * Every cart amount, line prices included, is stored in pence. This runs on every cart change, so arithmetic
+ * is done on raw minor units with the allocation-free {@link Money} helpers, and each stored field is read and
+ * written once.
  */
 @Service
 @RequiredArgsConstructor
@@ -27,21 +30,65 @@ public class PriceCalculationServiceImpl implements PriceCalculationService {
     public void calculateCartTotals(ShoppingCart cart) {
         log.debug("Calculating totals for cartId: {}", cart.getCartId());
 
-        // 1. Calculate Subtotal (sum of all item prices before discounts)
-        BigDecimal subtotal = cart.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        cart.setSubtotal(subtotal);
+        // 1. Calculate Subtotal (sum of all item prices before discounts), keeping each line's total for delta pricing
+        long subtotal = 0;
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            subtotal = Money.add(subtotal, refreshLineTotal(item));
+        }
+        cart.setSubtotal(Money.toMinorDecimal(subtotal));
         log.debug("Calculated subtotal for cart {}: {}", cart.getCartId(), subtotal);
 
         // 2. Calculate Discounts by delegating to the DiscountService
-        BigDecimal totalDiscount = discountService.calculateTotalDiscount(cart);
-        cart.setTotalDiscount(totalDiscount);
+        long totalDiscount = Money.fromMinor(discountService.calculateTotalDiscount(cart));
+        cart.setTotalDiscount(Money.toMinorDecimal(totalDiscount));
         log.debug("Calculated total discount for cart {}: {}", cart.getCartId(), totalDiscount);
 
         // 3. Calculate Final Total and ensure it's not negative
-        BigDecimal finalTotal = subtotal.subtract(totalDiscount).max(BigDecimal.ZERO);
-        cart.setTotal(finalTotal);
-        log.info("Final calculated total for cart {}: {}", cart.getCartId(), finalTotal);
+        setTotal(cart, subtotal, totalDiscount);
+        log.info("Final calculated total for cart {}: {}", cart.getCartId(), cart.getTotal());
+    }
+
+    @Override
+    public void recalculateCartTotals(ShoppingCart cart, CartLineChange change) {
+        if (cart.getSubtotal() == null || cart.getPricedAt() == null) {
+            // Never priced incrementally, so the stored line totals cannot be trusted.
+            calculateCartTotals(cart);
+            return;
+        }
+        log.debug("Re-pricing cartId: {} after a change to {}", cart.getCartId(), change.productId());
+
+        // 1. Adjust the subtotal by the changed line's delta only
+        long lineTotal = 0;
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            if (item.getProductId().equals(change.productId())) {
+                lineTotal = refreshLineTotal(item);
+                break;
+            }
+        }
+        long subtotal = Money.add(
+                Money.subtract(Money.fromMinor(cart.getSubtotal()), Money.fromMinor(change.previousLineTotal())),
+                lineTotal);
+        cart.setSubtotal(Money.toMinorDecimal(subtotal));
+
+        // 2. Re-price only the discount rules that read the changed line
+        long totalDiscount = Money.fromMinor(discountService.recalculateTotalDiscount(cart, change));
+        cart.setTotalDiscount(Money.toMinorDecimal(totalDiscount));
+
+        // 3. Calculate Final Total and ensure it's not negative
+        setTotal(cart, subtotal, totalDiscount);
+        log.debug("Re-priced total for cart {}: {}", cart.getCartId(), cart.getTotal());
+    }
+
+    private static void setTotal(ShoppingCart cart, long subtotal, long totalDiscount) {
+        cart.setTotal(Money.toMinorDecimal(Math.max(0, Money.subtract(subtotal, totalDiscount))));
+    }
+
+    /**
+     * @return the line total in pence, also stored on the line for the next delta.
+     */
+    private static long refreshLineTotal(ShoppingCart.CartItemData item) {
+        long lineTotal = Money.multiply(Money.fromMinor(item.getPrice()), item.getQuantity());
+        item.setTotalPrice(Money.toMinorDecimal(lineTotal));
+        return lineTotal;
     }
 }
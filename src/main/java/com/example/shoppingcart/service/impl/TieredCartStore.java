@@ -0,0 +1,197 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartLineWrite;
+import com.example.shoppingcart.repository.CartTierRepository;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.example.shoppingcart.service.CartStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link CartStore} with Redis as a read-through, write-through tier in front of DynamoDB (and of the
+ * write-behind journal when that is enabled).
+ * <p>
+ * Coherency protocol: every cached copy carries the cart version. A copy is only ever replaced by a newer
+ * version, whether it comes from a write or from a read-through, so a slow reader can never put an older cart
+ * back over a newer one. A single-line write only touches that line in the copy, and only if the copy is still at
+ * the version the write started from; otherwise the copy is dropped. When a write loses a version race the cached
+ * copy is evicted, because the next read must see the winner. Copies also expire {@code app.cart.tier.ttl-seconds}
+ * after they were last read or written, which keeps only carts in active use in Redis and bounds staleness if Redis
+ * itself missed an update.
+ * <p>
+ * Every write also pushes the cart's DynamoDB TTL ({@code expiresAt}) out to {@code app.cart.retention.days}
+ * from now, so only carts nobody touches for that long are deleted, and is announced on {@link CartChangeBus}.
+ */
+@Component
+public class TieredCartStore implements CartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredCartStore.class);
+
+    private final ShoppingCartRepository cartRepository;
+    private final CartWriteBuffer writeBuffer;
+    private final CartTierRepository tier;
+    private final CartChangeBus changeBus;
+    private final Duration retention;
+
+    public TieredCartStore(ShoppingCartRepository cartRepository,
+                           CartWriteBuffer writeBuffer,
+                           CartTierRepository tier,
+                           CartChangeBus changeBus,
+                           @Value("${app.cart.retention.days:" + AppConstants.Cart.DEFAULT_RETENTION_DAYS + "}") long retentionDays) {
+        this.cartRepository = cartRepository;
+        this.writeBuffer = writeBuffer;
+        this.tier = tier;
+        this.changeBus = changeBus;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public Optional<ShoppingCart> find(String cartId) {
+        // A hit also restarts the copy's TTL, so carts in use stay cached.
+        Optional<ShoppingCart> cached = tier.find(cartId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<ShoppingCart> cart = buffering() ? writeBuffer.find(cartId) : Optional.empty();
+        if (cart.isEmpty()) {
+            cart = cartRepository.findById(cartId);
+        }
+        cart.ifPresent(this::publish);
+        return cart;
+    }
+
+    @Override
+    public Optional<ShoppingCart> findByUser(String userId) {
+        Optional<ShoppingCart> cart = find(userId);
+        if (cart.isPresent()) {
+            return cart;
+        }
+        // Index hits can lag; re-read by id so the version is current.
+        return cartRepository.findByUserId(userId).flatMap(hit -> find(hit.getCartId()));
+    }
+
+    @Override
+    public Optional<ShoppingCart> findBySession(String sessionId) {
+        return cartRepository.findBySessionId(sessionId).flatMap(hit -> find(hit.getCartId()));
+    }
+
+    @Override
+    public ShoppingCart create(ShoppingCart cart) {
+        return written(cart, () -> cartRepository.save(cart), this::publish);
+    }
+
+    @Override
+    public ShoppingCart save(ShoppingCart cart) {
+        return written(cart, () -> {
+            if (buffering()) {
+                writeBuffer.flush(cart.getCartId());
+            }
+            ShoppingCart saved = cartRepository.save(cart);
+            if (buffering()) {
+                writeBuffer.written(saved.getCartId(), saved.getVersion());
+            }
+            return saved;
+        }, this::publish);
+    }
+
+    @Override
+    public ShoppingCart updateLine(ShoppingCart cart, CartLineWrite write) {
+        Long readVersion = cart.getVersion();
+        return written(cart, () -> buffering() ? writeBuffer.stage(cart) : cartRepository.updateLines(cart),
+                saved -> publish(saved.getCartId(), () -> tier.putLine(saved, readVersion, write)));
+    }
+
+    @Override
+    public ShoppingCart merge(ShoppingCart merged, ShoppingCart guest) {
+        Long guestVersion = guest.getVersion();
+        ShoppingCart saved = written(merged, () -> {
+            if (buffering()) {
+                writeBuffer.flush(merged.getCartId());
+                writeBuffer.flush(guest.getCartId());
+            }
+            ShoppingCart result = cartRepository.merge(merged, guest);
+            if (buffering()) {
+                // The guest cart is deleted: refuse anyone still holding the version it was merged at.
+                writeBuffer.written(result.getCartId(), result.getVersion());
+                writeBuffer.written(guest.getCartId(), guestVersion == null ? 1L : guestVersion + 1);
+            }
+            return result;
+        }, this::publish);
+        evict(guest.getCartId());
+        return saved;
+    }
+
+    @Override
+    public boolean archive(ShoppingCart cart) {
+        if (buffering() && writeBuffer.find(cart.getCartId()).isPresent()) {
+            // Changes are still waiting to be flushed, so the cart is not idle.
+            return false;
+        }
+        try {
+            ShoppingCart archived = cartRepository.archive(cart);
+            if (buffering()) {
+                writeBuffer.written(archived.getCartId(), archived.getVersion());
+            }
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Cart {} changed while being archived; leaving it", cart.getCartId());
+            return false;
+        } finally {
+            evict(cart.getCartId());
+        }
+    }
+
+    private ShoppingCart written(ShoppingCart cart, Supplier<ShoppingCart> write, Consumer<ShoppingCart> publish) {
+        // Any write makes the cart active again: restart its retention and leave the archive form.
+        cart.setExpiresAt(Instant.now().plus(retention).getEpochSecond());
+        cart.setArchivedAt(null);
+        ShoppingCart saved;
+        try {
+            saved = write.get();
+        } catch (OptimisticLockingFailureException e) {
+            evict(cart.getCartId());
+            throw e;
+        }
+        publish.accept(saved);
+        changeBus.cartChanged(saved.getCartId());
+        return saved;
+    }
+
+    private void publish(ShoppingCart cart) {
+        publish(cart.getCartId(), () -> tier.put(cart));
+    }
+
+    private void publish(String cartId, Runnable update) {
+        try {
+            update.run();
+        } catch (DataAccessException e) {
+            // The durable write already succeeded; drop the cached copy rather than leave an old one behind.
+            log.warn("Could not refresh cached cart {}; evicting it", cartId, e);
+            evict(cartId);
+        }
+    }
+
+    private void evict(String cartId) {
+        try {
+            tier.evict(cartId);
+        } catch (DataAccessException e) {
+            log.warn("Could not evict cached cart {}; it expires with its TTL", cartId, e);
+        }
+    }
+
+    private boolean buffering() {
+        return writeBuffer != null && writeBuffer.isEnabled();
+    }
+}
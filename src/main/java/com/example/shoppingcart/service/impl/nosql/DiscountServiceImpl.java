@@ -1,20 +1,30 @@
 package com.example.shoppingcart.service.impl.nosql;
 
 import com.example.shoppingcart.dto.DiscountRuleDto;
+import com.example.shoppingcart.model.Money;
 import com.example.shoppingcart.model.dynamo.DiscountRule; // Corrected import
 import com.example.shoppingcart.model.dynamo.ShoppingCart; // Corrected import
 import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.CartLineChange;
 import com.example.shoppingcart.service.DiscountService;
 import com.example.shoppingcart.service.discount.DiscountStrategy;
+import com.example.shoppingcart.service.discount.ruleset.CompiledRule;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import com.example.shoppingcart.service.impl.CartChangeBus;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -23,35 +33,102 @@ public class DiscountServiceImpl implements DiscountService {
 
     private static final Logger log = LoggerFactory.getLogger(DiscountServiceImpl.class);
     private final DiscountRuleRepository discountRuleRepository;
-    private final Map<String, DiscountStrategy> discountStrategies; // Injects all DiscountStrategy beans
+    private final RuleSetRegistry ruleSetRegistry; // Compiled snapshot of the active rules, strategies pre-bound
+    private final CartChangeBus cartChangeBus;
 
     @Override
     public BigDecimal calculateTotalDiscount(ShoppingCart cart) {
-        List<DiscountRule> activeRules = getActiveRules();
-        log.debug("Found {} active discount rules.", activeRules.size());
-
-        BigDecimal totalDiscount = BigDecimal.ZERO;
-
-        for (DiscountRule rule : activeRules) {
-            DiscountStrategy strategy = discountStrategies.get(rule.getStrategyBeanName());
-            if (strategy != null) {
-                try {
-                    BigDecimal discountAmount = strategy.apply(cart, rule);
-                    if (discountAmount.compareTo(BigDecimal.ZERO) > 0) {
-                        log.info("Applied discount \"{}\"", rule.getRuleName());
-                        totalDiscount = totalDiscount.add(discountAmount);
-                    } 
-                } catch (Exception e) {
-                    log.error("Error applying discount rule \"{}\"", rule.getRuleName(), e);
-                }
+        RuleSet ruleSet = ruleSetRegistry.current();
+        List<CompiledRule> candidates = ruleSet.candidatesFor(productIdsOf(cart), categoriesOf(cart));
+        log.debug("Evaluating {} of {} active discount rules from rule set version {}.",
+                candidates.size(), ruleSet.size(), ruleSet.getVersion());
+
+        long now = System.currentTimeMillis();
+        Map<String, BigDecimal> byRule = new HashMap<>();
+        for (CompiledRule rule : candidates) {
+            applyRule(cart, rule, now, byRule);
+        }
+        return record(cart, ruleSet, byRule, now);
+    }
+
+    @Override
+    public BigDecimal recalculateTotalDiscount(ShoppingCart cart, CartLineChange change) {
+        RuleSet ruleSet = ruleSetRegistry.current();
+        if (cart.getAppliedDiscounts() == null || cart.getPricedAt() == null
+                // Recorded amounts are only reusable against the same rules, wherever the cart was priced.
+                || !ruleSet.getFingerprint().equals(cart.getPricedRuleSetFingerprint())) {
+            return calculateTotalDiscount(cart);
+        }
+
+        // The changed product may no longer be in the cart, so add it explicitly to find the rules that read it.
+        Set<String> productIds = productIdsOf(cart);
+        productIds.add(change.productId());
+        Set<String> categories = categoriesOf(cart);
+        if (change.category() != null) {
+            categories.add(change.category());
+        }
+
+        long pricedAt = cart.getPricedAt().toEpochMilli();
+        long now = System.currentTimeMillis();
+        Map<String, BigDecimal> byRule = new HashMap<>(cart.getAppliedDiscounts());
+        int repriced = 0;
+        for (CompiledRule rule : ruleSet.candidatesFor(productIds, categories)) {
+            boolean affected = rule.getPricingScope().isAffectedBy(change.productId(), change.category())
+                    // A rule whose validity window opened or closed since the last pricing is stale as well.
+                    || rule.isLiveAt(pricedAt) != rule.isLiveAt(now);
+            if (affected) {
+                byRule.remove(rule.getRuleId());
+                applyRule(cart, rule, now, byRule);
+                repriced++;
             }
         }
-        return totalDiscount;
+        log.debug("Re-priced {} rules after a change to {} in cart {}.", repriced, change.productId(), cart.getCartId());
+        return record(cart, ruleSet, byRule, now);
     }
 
-    private List<DiscountRule> getActiveRules() {
-    // Use repository method (no args) and rely on repository to filter by defaults/GSI
-    return discountRuleRepository.findActiveAndOrderedRules();
+    private void applyRule(ShoppingCart cart, CompiledRule rule, long now, Map<String, BigDecimal> byRule) {
+        DiscountStrategy strategy = rule.getDiscountStrategy();
+        if (strategy == null || !rule.isLiveAt(now)) {
+            return;
+        }
+        try {
+            BigDecimal discountAmount = strategy.apply(cart, rule.getSource());
+            if (discountAmount != null && discountAmount.compareTo(BigDecimal.ZERO) > 0) {
+                log.info("Applied discount \"{}\"", rule.getRuleName());
+                byRule.merge(rule.getRuleId(), discountAmount, BigDecimal::add);
+            }
+        } catch (Exception e) {
+            log.error("Error applying discount rule \"{}\"", rule.getRuleName(), e);
+        }
+    }
+
+    private BigDecimal record(ShoppingCart cart, RuleSet ruleSet, Map<String, BigDecimal> byRule, long now) {
+        cart.setAppliedDiscounts(byRule);
+        cart.setPricedRuleSetFingerprint(ruleSet.getFingerprint());
+        cart.setPricedAt(Instant.ofEpochMilli(now));
+        long total = 0;
+        for (BigDecimal amount : byRule.values()) {
+            total = Money.add(total, Money.fromMinor(amount));
+        }
+        return Money.toMinorDecimal(total);
+    }
+
+    private static Set<String> productIdsOf(ShoppingCart cart) {
+        Set<String> productIds = new HashSet<>();
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            productIds.add(item.getProductId());
+        }
+        return productIds;
+    }
+
+    private static Set<String> categoriesOf(ShoppingCart cart) {
+        Set<String> categories = new HashSet<>();
+        for (ShoppingCart.CartItemData item : cart.getItems()) {
+            if (item.getCategory() != null) {
+                categories.add(item.getCategory());
+            }
+        }
+        return categories;
     }
 
     @Override
@@ -79,6 +156,7 @@ public class DiscountServiceImpl implements DiscountService {
         discountRule.setApplicableCategories(dto.getApplicableCategories());
         discountRule.setStrategyBeanName(dto.getStrategyBeanName());
         discountRuleRepository.save(discountRule);
+        rulesChanged();
         return discountRule;
     }
 
@@ -116,12 +194,20 @@ public class DiscountServiceImpl implements DiscountService {
         existingRule.setStrategyBeanName(dto.getStrategyBeanName());
 
         discountRuleRepository.save(existingRule);
+        rulesChanged();
         return existingRule;
     }
 
     @Override
     public void delete(String id) {
         discountRuleRepository.deleteById(id);
+        rulesChanged();
+    }
+
+    // Refreshes this instance straight away and announces the change, so the other instances reload too
+    private void rulesChanged() {
+        ruleSetRegistry.refresh();
+        cartChangeBus.rulesChanged();
     }
 
     @Override
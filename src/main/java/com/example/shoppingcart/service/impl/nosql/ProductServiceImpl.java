@@ -7,10 +7,13 @@ import com.example.shoppingcart.exception.ErrorCode;
 import com.example.shoppingcart.exception.ShoppingCartException;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.postgres.Product; // Corrected import
+import com.example.shoppingcart.repository.CatalogPage;
 import com.example.shoppingcart.repository.CatalogReadRepository;
 import com.example.shoppingcart.repository.ProductWriteRepository;
 import com.example.shoppingcart.service.InventoryReadService; // New import
 import com.example.shoppingcart.service.ProductService;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import com.example.shoppingcart.service.search.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,9 +21,12 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -29,10 +35,13 @@ import java.util.stream.Collectors;
 public class ProductServiceImpl implements ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
+    private static final String PAGE_TOKEN_KEY = "pageToken";
 
     private final ProductWriteRepository productWriteRepository;
     private final CatalogReadRepository catalogReadRepository;
     private final InventoryReadService inventoryReadService;
+    private final ProductSearchIndex productSearchIndex;
+    private final CartChangeBus cartChangeBus; // Tells every instance's caches and search index about deletions
 
     @Override
     public ProductResponseDto createProduct(ProductDto productDto) {
@@ -112,6 +121,7 @@ public class ProductServiceImpl implements ProductService {
     // delete by String id
     productWriteRepository.deleteById(productId);
         // Assuming CDC handles deletion from DynamoDB
+        cartChangeBus.productChanged(productId);
     }
 
     @Override
@@ -131,14 +141,32 @@ public class ProductServiceImpl implements ProductService {
                 "Product not found with ID: " + productId + " in region: " + region));
     }
 
+    @Override
+    public CatalogPage searchProducts(String query, int limit, String pageToken, String region) {
+        ProductSearchIndex.Hits hits = productSearchIndex.search(query, limit, pageToken);
+        Map<String, CatalogItem> catalog = catalogReadRepository.findAllByIds(hits.productIds(), region);
+        // Products not synced to the catalog yet are left out of the page rather than failing it
+        List<CatalogItem> items = hits.productIds().stream()
+                .map(catalog::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new CatalogPage(items, hits.nextPageToken());
+    }
+
     @Override
     public Page<CatalogItem> getProductByNamePaginated(String name, int pageSize, String lastEvaluatedKey) {
-        throw new UnsupportedOperationException("Finding products by name is not supported. Use a dedicated search index for this functionality.");
+        return toPage(searchProducts(name, pageSize, lastEvaluatedKey, AppConstants.Pricing.DEFAULT_REGION));
     }
 
     @Override
     public Page<CatalogItem> getAllProductsPaginated(int pageSize, String lastEvaluatedKey) {
-        throw new UnsupportedOperationException("Finding all products is not supported. Use key-based lookups for performance.");
+        return toPage(searchProducts(null, pageSize, lastEvaluatedKey, AppConstants.Pricing.DEFAULT_REGION));
+    }
+
+    // The search page token travels as the page's last evaluated key, for callers of the Page-based methods.
+    private static Page<CatalogItem> toPage(CatalogPage page) {
+        return Page.create(page.items(), page.nextPageToken() == null ? null
+                : Map.of(PAGE_TOKEN_KEY, AttributeValue.fromS(page.nextPageToken())));
     }
 
     @Override
@@ -0,0 +1,350 @@
+package com.example.shoppingcart.service.search;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.postgres.Category;
+import com.example.shoppingcart.model.postgres.Product;
+import com.example.shoppingcart.repository.jpa.CategoryJpaRepository;
+import com.example.shoppingcart.repository.jpa.ProductJpaRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process inverted index over product name, category and description, for typeahead and storefront search
+ * without an external search service.
+ * <p>
+ * Terms live in a sorted dictionary, so every query term is matched as a prefix with one range lookup. A product
+ * matches when every query term does; it scores the best field weight of each term (name over category over
+ * description), halved for prefix-only matches, plus a bonus when its name starts with the whole query.
+ * <p>
+ * The index is rebuilt from the Postgres {@code products} table on startup and then on a fixed interval, on a
+ * background thread. In between, CDC product syncs update it directly on the instance that wrote the product, and
+ * every instance re-reads the product when {@link CartChangeBus} announces a change to it. Changes that arrive
+ * during a rebuild are replayed onto the rebuilt index before it is swapped in. Readers never block.
+ */
+@Component
+public class ProductSearchIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double CATEGORY_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final double NAME_PREFIX_BONUS = 2.0;
+    private static final char TOKEN_SEPARATOR = '\u001f';
+
+    private final ProductJpaRepository productJpaRepository;
+    private final CategoryJpaRepository categoryJpaRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long rebuildIntervalMinutes;
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("product-search-rebuild").daemon().factory());
+
+    private final Object writeLock = new Object();
+    private final Object rebuildLock = new Object();
+    private volatile Postings postings = new Postings();
+    private volatile Map<Long, String> categoryNames = Map.of();
+    // Products changed while a rebuild reads Postgres, by id; a null value is a removal. Null when not rebuilding.
+    private Map<String, Product> changedDuringRebuild;
+
+    public ProductSearchIndex(ProductJpaRepository productJpaRepository,
+                              CategoryJpaRepository categoryJpaRepository,
+                              RedisMessageListenerContainer listenerContainer,
+                              @Value("${app.search.rebuild-interval-minutes:" + AppConstants.Product.DEFAULT_SEARCH_REBUILD_INTERVAL_MINUTES + "}") long rebuildIntervalMinutes) {
+        this.productJpaRepository = productJpaRepository;
+        this.categoryJpaRepository = categoryJpaRepository;
+        this.listenerContainer = listenerContainer;
+        this.rebuildIntervalMinutes = rebuildIntervalMinutes;
+    }
+
+    @PostConstruct
+    void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CartChangeBus.CHANNEL));
+        rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        listenerContainer.removeMessageListener(this);
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Returns one page of the products matching every term of {@code query}, best match first. A blank query
+     * matches every product, in name order.
+     *
+     * @param pageToken the previous page's {@link Hits#nextPageToken()}, or null for the first page
+     * @throws ShoppingCartException with {@code VAL_300} if the token was not issued for this query
+     */
+    public Hits search(String query, int limit, String pageToken) {
+        String normalized = SearchTokenizer.normalize(query);
+        int offset = pageToken == null || pageToken.isBlank() ? 0 : decode(pageToken, normalized);
+        List<Document> ranked = rank(postings, SearchTokenizer.tokens(normalized), normalized);
+        int from = Math.min(offset, ranked.size());
+        int to = Math.min(from + limit, ranked.size());
+        List<String> productIds = ranked.subList(from, to).stream().map(Document::productId).toList();
+        return new Hits(productIds, ranked.size(), to < ranked.size() ? encode(normalized, to) : null);
+    }
+
+    /**
+     * Adds or replaces a product, or removes it if it is marked deleted.
+     */
+    public void index(Product product) {
+        String categoryName = categoryName(product.getCategoryId());
+        synchronized (writeLock) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(product.getId(), product);
+            }
+            apply(postings, product, categoryName);
+        }
+    }
+
+    public void remove(String productId) {
+        synchronized (writeLock) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(productId, null);
+            }
+            postings.remove(productId);
+        }
+    }
+
+    /**
+     * Reads every product and category from Postgres and swaps the rebuilt index in.
+     *
+     * @return the number of products indexed
+     */
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (writeLock) {
+                changedDuringRebuild = new LinkedHashMap<>();
+            }
+            try {
+                Map<Long, String> categories = loadCategories();
+                Postings rebuilt = new Postings();
+                for (Product product : productJpaRepository.findAll()) {
+                    apply(rebuilt, product, categories.get(product.getCategoryId()));
+                }
+                synchronized (writeLock) {
+                    categoryNames = categories;
+                    changedDuringRebuild.forEach((productId, product) -> {
+                        if (product == null) {
+                            rebuilt.remove(productId);
+                        } else {
+                            apply(rebuilt, product, categories.get(product.getCategoryId()));
+                        }
+                    });
+                    postings = rebuilt;
+                }
+                log.info("Rebuilt product search index with {} products and {} terms",
+                        rebuilt.documents.size(), rebuilt.terms.size());
+                return rebuilt.documents.size();
+            } finally {
+                synchronized (writeLock) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return postings.documents.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String change = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!change.startsWith(CartChangeBus.PRODUCT_PREFIX)) {
+            return;
+        }
+        String productId = change.substring(CartChangeBus.PRODUCT_PREFIX.length());
+        try {
+            productJpaRepository.findById(productId).ifPresentOrElse(this::index, () -> remove(productId));
+        } catch (RuntimeException e) {
+            log.warn("Could not re-index product {}; the next rebuild picks it up", productId, e);
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the schedule; the index keeps serving the previous build.
+            log.warn("Product search index rebuild failed", e);
+        }
+    }
+
+    private static List<Document> rank(Postings current, List<String> tokens, String query) {
+        if (tokens.isEmpty()) {
+            List<Document> all = new ArrayList<>(current.documents.values());
+            all.sort(Comparator.comparing(Document::sortName).thenComparing(Document::productId));
+            return all;
+        }
+        Map<String, Double> scores = null;
+        for (String token : tokens) {
+            Map<String, Double> matches = new HashMap<>();
+            for (Map.Entry<String, Set<String>> entry
+                    : current.terms.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                double factor = entry.getKey().length() == token.length() ? 1.0 : PREFIX_FACTOR;
+                for (String productId : entry.getValue()) {
+                    Document document = current.documents.get(productId);
+                    Double weight = document == null ? null : document.terms().get(entry.getKey());
+                    if (weight != null) {
+                        matches.merge(productId, weight * factor, Math::max);
+                    }
+                }
+            }
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((productId, score) -> score + matches.get(productId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Document> results = new ArrayList<>(scores.size());
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Document document = current.documents.get(score.getKey());
+            if (document != null) {
+                results.add(document);
+                if (document.sortName().startsWith(query)) {
+                    score.setValue(score.getValue() + NAME_PREFIX_BONUS);
+                }
+            }
+        }
+        Map<String, Double> ranked = scores;
+        results.sort(Comparator.comparing((Document document) -> ranked.get(document.productId())).reversed()
+                .thenComparing(Document::sortName)
+                .thenComparing(Document::productId));
+        return results;
+    }
+
+    private static void apply(Postings target, Product product, String categoryName) {
+        if (product.isDeleted()) {
+            target.remove(product.getId());
+            return;
+        }
+        Map<String, Double> terms = new HashMap<>();
+        SearchTokenizer.tokens(product.getDescription()).forEach(term -> terms.merge(term, DESCRIPTION_WEIGHT, Math::max));
+        SearchTokenizer.tokens(categoryName).forEach(term -> terms.merge(term, CATEGORY_WEIGHT, Math::max));
+        SearchTokenizer.tokens(product.getName()).forEach(term -> terms.merge(term, NAME_WEIGHT, Math::max));
+        target.put(new Document(product.getId(), SearchTokenizer.normalize(product.getName()), terms));
+    }
+
+    // Categories are few and rarely change; an unknown id reloads them so a new category is searchable at once.
+    private String categoryName(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        String name = categoryNames.get(categoryId);
+        if (name == null) {
+            categoryNames = loadCategories();
+            name = categoryNames.get(categoryId);
+        }
+        return name;
+    }
+
+    // A HashMap rather than Map.copyOf: products without a category look up a null id.
+    private Map<Long, String> loadCategories() {
+        Map<Long, String> names = new HashMap<>();
+        for (Category category : categoryJpaRepository.findAll()) {
+            if (!category.isDeleted() && category.getName() != null) {
+                names.put(category.getId(), category.getName());
+            }
+        }
+        return Collections.unmodifiableMap(names);
+    }
+
+    private static String encode(String query, int offset) {
+        String token = query + TOKEN_SEPARATOR + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decode(String pageToken, String query) {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = token.lastIndexOf(TOKEN_SEPARATOR);
+            int offset = Integer.parseInt(token.substring(separator + 1));
+            if (separator < 0 || offset < 0 || !token.substring(0, separator).equals(query)) {
+                throw new IllegalArgumentException("Token issued for another query");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new ShoppingCartException(ErrorCode.VAL_300_INVALID_PARAMS, "Invalid page token", e);
+        }
+    }
+
+    /**
+     * One page of search results: product ids in rank order, the total number of matches, and the token for the
+     * next page or null on the last one.
+     */
+    public record Hits(List<String> productIds, int total, String nextPageToken) {}
+
+    private record Document(String productId, String sortName, Map<String, Double> terms) {}
+
+    /**
+     * Term dictionary and indexed products. Writers are serialised by the index; readers see each posting list
+     * change atomically but may briefly see a product under both its old and new terms, which ranking tolerates.
+     */
+    private static final class Postings {
+        private final ConcurrentSkipListMap<String, Set<String>> terms = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+
+        void put(Document document) {
+            Document previous = documents.put(document.productId(), document);
+            for (String term : document.terms().keySet()) {
+                terms.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(document.productId());
+            }
+            if (previous != null) {
+                for (String term : previous.terms().keySet()) {
+                    if (!document.terms().containsKey(term)) {
+                        unlink(term, previous.productId());
+                    }
+                }
+            }
+        }
+
+        void remove(String productId) {
+            Document previous = documents.remove(productId);
+            if (previous != null) {
+                previous.terms().keySet().forEach(term -> unlink(term, productId));
+            }
+        }
+
+        private void unlink(String term, String productId) {
+            terms.computeIfPresent(term, (t, productIds) -> {
+                productIds.remove(productId);
+                return productIds.isEmpty() ? null : productIds;
+            });
+        }
+    }
+}
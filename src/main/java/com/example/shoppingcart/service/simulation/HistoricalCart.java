@@ -0,0 +1,13 @@
+package com.example.shoppingcart.service.simulation;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A past order reduced to what pricing needs: its lines, with the unit price and category captured at the time,
+ * and the customer's tags where the source recorded them.
+ */
+public record HistoricalCart(String orderId, String paymentMethod, Set<String> userTags, List<Line> lines) {
+
+    public record Line(String productId, String productName, int quantity, int unitPricePence, String categoryHierarchy) {}
+}
@@ -0,0 +1,122 @@
+package com.example.shoppingcart.service.simulation;
+
+import com.example.shoppingcart.model.Money;
+import com.example.shoppingcart.repository.jpa.OrderItemJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads historical carts for simulation, either from the orders tables or from an exported CSV file.
+ * Both sources are streamed line by line so a corpus never has to fit in memory at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class HistoricalCartLoader {
+
+    static final String CSV_HEADER = "orderId,paymentMethod,productId,quantity,unitPricePence,categoryHierarchy,userTags";
+
+    private final OrderItemJpaRepository orderItemRepository;
+
+    /**
+     * Streams orders placed in {@code [from, to)}. Must be consumed, and closed, inside a read-only transaction.
+     * Orders do not record the customer's tags, so these carts have none.
+     */
+    public Stream<HistoricalCart> fromOrders(LocalDateTime from, LocalDateTime to) {
+        Stream<OrderItemJpaRepository.HistoricalOrderLine> rows = orderItemRepository.streamHistoricalLines(from, to);
+        return group(rows.map(row -> new Row(row.getOrderId(), row.getPaymentMethod(), Set.of(), new HistoricalCart.Line(
+                row.getProductId(), row.getProductName(), row.getQuantity() != null ? row.getQuantity() : 0,
+                Money.toIntExact(Money.fromMajor(row.getItemPrice())), row.getCategoryHierarchy()))))
+                .onClose(rows::close);
+    }
+
+    /**
+     * Streams an exported CSV with the header {@value #CSV_HEADER}. Lines of one order must be adjacent. The
+     * {@code userTags} column is optional and separated by {@code ;}; the first line of an order supplies them.
+     */
+    public Stream<HistoricalCart> fromCsv(BufferedReader reader) {
+        Stream<Row> rows = reader.lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("orderId,"))
+                .map(HistoricalCartLoader::parseCsvLine);
+        return group(rows).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Row parseCsvLine(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 6) {
+            throw new IllegalArgumentException("Expected " + CSV_HEADER + " but got: " + line);
+        }
+        Set<String> userTags = fields.length > 6 ? parseTags(fields[6]) : Set.of();
+        return new Row(fields[0], fields[1], userTags, new HistoricalCart.Line(fields[2], fields[2],
+                Integer.parseInt(fields[3].trim()), Integer.parseInt(fields[4].trim()),
+                fields[5].isEmpty() ? null : fields[5]));
+    }
+
+    private static Set<String> parseTags(String field) {
+        return Arrays.stream(field.split(";"))
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Folds adjacent rows of the same order into one cart.
+     */
+    private static Stream<HistoricalCart> group(Stream<Row> rows) {
+        Iterator<Row> source = rows.iterator();
+        Iterator<HistoricalCart> carts = new Iterator<>() {
+            private Row pending = source.hasNext() ? source.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return pending != null;
+            }
+
+            @Override
+            public HistoricalCart next() {
+                if (pending == null) {
+                    throw new NoSuchElementException();
+                }
+                Row first = pending;
+                List<HistoricalCart.Line> lines = new ArrayList<>();
+                lines.add(first.line());
+                pending = null;
+                while (source.hasNext()) {
+                    Row row = source.next();
+                    if (!Objects.equals(row.orderId(), first.orderId())) {
+                        pending = row;
+                        break;
+                    }
+                    lines.add(row.line());
+                }
+                return new HistoricalCart(first.orderId(), first.paymentMethod(), first.userTags(), lines);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(carts, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
+    }
+
+    private record Row(String orderId, String paymentMethod, Set<String> userTags, HistoricalCart.Line line) {}
+}
@@ -0,0 +1,302 @@
+package com.example.shoppingcart.service.simulation;
+
+import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.model.Money;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.ConditionType;
+import com.example.shoppingcart.service.discount.ConflictResolver;
+import com.example.shoppingcart.service.discount.DiscountSelector;
+import com.example.shoppingcart.service.discount.PriceSanitizer;
+import com.example.shoppingcart.service.discount.ruleset.RuleCompiler;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Offline what-if pricing: replays historical carts against a candidate rule set with the same condition,
+ * conflict resolution, action and sanitizing stages as checkout, and reports what the rules would have cost.
+ * <p>
+ * Prices and categories come from the historical lines themselves and the candidate rules are compiled
+ * locally, so a simulation never reads the live catalog or rule tables. Orders do not record the customer's
+ * tags, so rules that test a user tag can only fire for CSV carts that supply them; the report lists those rules.
+ * The corpus is consumed in chunks, each priced on a dedicated fork-join pool, so memory stays flat however
+ * many carts are replayed.
+ */
+@Service
+public class PromotionSimulator {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionSimulator.class);
+
+    private final RuleCompiler ruleCompiler;
+    private final DiscountSelector discountSelector;
+    private final PriceSanitizer priceSanitizer;
+    private final HistoricalCartLoader cartLoader;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public PromotionSimulator(RuleCompiler ruleCompiler,
+                              ConditionEvaluator conditionEvaluator,
+                              ConflictResolver conflictResolver,
+                              ActionApplier actionApplier,
+                              PriceSanitizer priceSanitizer,
+                              HistoricalCartLoader cartLoader,
+                              @Value("${app.simulation.parallelism:0}") int parallelism,
+                              @Value("${app.simulation.chunk-size:" + AppConstants.Simulation.DEFAULT_CHUNK_SIZE + "}") int chunkSize) {
+        this.ruleCompiler = ruleCompiler;
+        this.discountSelector = new DiscountSelector(conditionEvaluator, conflictResolver, actionApplier);
+        this.priceSanitizer = priceSanitizer;
+        this.cartLoader = cartLoader;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Simulates the candidate rules over orders placed in {@code [from, to)}.
+     */
+    @Transactional(readOnly = true)
+    public SimulationReport simulateOrders(List<DiscountRule> candidateRules, LocalDateTime from, LocalDateTime to) {
+        try (Stream<HistoricalCart> carts = cartLoader.fromOrders(from, to)) {
+            return simulate(candidateRules, carts.iterator());
+        }
+    }
+
+    /**
+     * Simulates the candidate rules over an exported CSV corpus.
+     */
+    public SimulationReport simulateCsv(List<DiscountRule> candidateRules, BufferedReader corpus) {
+        try (Stream<HistoricalCart> carts = cartLoader.fromCsv(corpus)) {
+            return simulate(candidateRules, carts.iterator());
+        }
+    }
+
+    /**
+     * Simulates the candidate rules over the given carts. Candidate rules are treated as active and their
+     * validity windows are ignored, since they are usually dated for a future launch.
+     */
+    public SimulationReport simulate(List<DiscountRule> candidateRules, Iterator<HistoricalCart> carts) {
+        long started = System.nanoTime();
+        // Activate copies, so the caller's rules are left as they were saved.
+        List<DiscountRule> rules = candidateRules != null
+                ? candidateRules.stream().map(PromotionSimulator::activeCopy).toList()
+                : Collections.emptyList();
+        RuleSet ruleSet = ruleCompiler.compile(rules, 0L);
+        List<String> userTagRules = userTagRules(rules);
+        if (!userTagRules.isEmpty()) {
+            log.warn("Rules {} test user tags; they only fire for carts whose corpus records the customer's tags",
+                    userTagRules);
+        }
+
+        Tally total = new Tally();
+        List<HistoricalCart> chunk = new ArrayList<>(chunkSize);
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            while (carts.hasNext()) {
+                chunk.add(carts.next());
+                if (chunk.size() == chunkSize || !carts.hasNext()) {
+                    total.merge(pool.invoke(new SimulateRange(chunk, 0, chunk.size(), ruleSet)));
+                    chunk.clear();
+                }
+            }
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Simulated {} rules over {} carts in {}ms: {} carts affected, {} pence discounted",
+                ruleSet.size(), total.carts, elapsed, total.affected, total.discount);
+        return total.toReport(userTagRules, elapsed);
+    }
+
+    /**
+     * Prices one historical cart with checkout's {@link DiscountSelector} and sanitizer.
+     */
+    private CheckoutResponseDto price(HistoricalCart historical, RuleSet ruleSet) {
+        CartDto cart = new CartDto();
+        cart.setCartId(historical.orderId());
+        List<CartItemDto> items = new ArrayList<>(historical.lines().size());
+        Map<String, CatalogItem> catalog = new LinkedHashMap<>();
+        List<String> hierarchies = new ArrayList<>();
+        long subtotal = 0;
+        for (HistoricalCart.Line line : historical.lines()) {
+            CartItemDto item = new CartItemDto();
+            item.setProductId(line.productId());
+            item.setQuantity(line.quantity());
+            item.setPriceInPence(line.unitPricePence());
+            items.add(item);
+            CatalogItem catalogItem = new CatalogItem();
+            catalogItem.setName(line.productName());
+            catalogItem.setPrice(line.unitPricePence());
+            catalogItem.setCategoryHierarchy(line.categoryHierarchy());
+            catalog.put(line.productId(), catalogItem);
+            if (line.categoryHierarchy() != null) {
+                hierarchies.add(line.categoryHierarchy());
+            }
+            subtotal = Money.add(subtotal, Money.multiply(line.unitPricePence(), line.quantity()));
+        }
+        cart.setItems(items);
+        int originalTotal = Money.toIntExact(subtotal);
+
+        EvaluationContext context = new EvaluationContext(cart, historical.userTags(), historical.paymentMethod(), catalog);
+        context.setCartSubtotal(originalTotal);
+
+        List<AppliedDiscountDto> best = discountSelector.select(
+                ruleSet.candidatesFor(catalog.keySet(), hierarchies), ruleSet, context).discounts();
+
+        CheckoutResponseDto response = new CheckoutResponseDto();
+        response.setOriginalTotalPrice(originalTotal);
+        response.setTotalDiscount(Money.toIntExact(total(best)));
+        response.setFinalTotalPrice(Money.toIntExact(Money.subtract(originalTotal, total(best))));
+        response.setAppliedDiscounts(best);
+        return priceSanitizer.sanitize(response);
+    }
+
+    private static DiscountRule activeCopy(DiscountRule rule) {
+        DiscountRule copy = new DiscountRule(rule.getRuleId(), rule.getRuleName(), rule.getDescription(),
+                rule.getDiscountType(), rule.getDiscountValue(), rule.getMinimumSpend(), rule.getApplicableTo(),
+                rule.getApplicableValue(), rule.getUserId(), rule.getConditionKey(), rule.getStartDate(),
+                rule.getEndDate(), rule.isActive(), rule.getActiveStatus(), rule.getPriority(), rule.getIsStackable(),
+                rule.getExclusivityGroup(), rule.getBuyQuantity(), rule.getFreeQuantity(),
+                rule.getApplicableCategories(), rule.getApplicableCurrencies(), rule.getApplicableRegions(),
+                rule.getStrategyBeanName(), rule.getConditions(), rule.getActions());
+        copy.setActive(true);
+        return copy;
+    }
+
+    private static List<String> userTagRules(List<DiscountRule> rules) {
+        return rules.stream()
+                .filter(rule -> rule.getConditions() != null && rule.getConditions().stream()
+                        .anyMatch(condition -> ConditionType.fromString(condition.getType()) == ConditionType.USER_HAS_TAG))
+                .map(DiscountRule::getRuleId)
+                .toList();
+    }
+
+    private static long total(List<AppliedDiscountDto> discounts) {
+        long total = 0;
+        for (AppliedDiscountDto discount : discounts) {
+            total = Money.add(total, discount.getAmount());
+        }
+        return total;
+    }
+
+    /**
+     * Splits a chunk of carts in half until it is small enough to price sequentially, then merges the tallies.
+     */
+    private final class SimulateRange extends RecursiveTask<Tally> {
+        private final List<HistoricalCart> carts;
+        private final int from;
+        private final int to;
+        private final RuleSet ruleSet;
+
+        SimulateRange(List<HistoricalCart> carts, int from, int to, RuleSet ruleSet) {
+            this.carts = carts;
+            this.from = from;
+            this.to = to;
+            this.ruleSet = ruleSet;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= AppConstants.Simulation.LEAF_SIZE) {
+                Tally tally = new Tally();
+                for (int i = from; i < to; i++) {
+                    tally.add(price(carts.get(i), ruleSet));
+                }
+                return tally;
+            }
+            int mid = (from + to) >>> 1;
+            SimulateRange left = new SimulateRange(carts, from, mid, ruleSet);
+            left.fork();
+            Tally right = new SimulateRange(carts, mid, to, ruleSet).compute();
+            right.merge(left.join());
+            return right;
+        }
+    }
+
+    /**
+     * Running totals for a range of carts; each task owns its own tally, so no synchronisation is needed.
+     */
+    private static final class Tally {
+        private long carts;
+        private long affected;
+        private long original;
+        private long discount;
+        private final Map<String, RuleTotals> byRule = new HashMap<>();
+
+        void add(CheckoutResponseDto priced) {
+            carts++;
+            original = Money.add(original, priced.getOriginalTotalPrice());
+            if (priced.getTotalDiscount() <= 0) {
+                return;
+            }
+            affected++;
+            discount = Money.add(discount, priced.getTotalDiscount());
+            Set<String> counted = new HashSet<>();
+            for (AppliedDiscountDto applied : priced.getAppliedDiscounts()) {
+                if (applied.getAmount() <= 0) {
+                    continue;
+                }
+                RuleTotals rule = byRule.computeIfAbsent(applied.getRuleId(), id -> new RuleTotals(applied.getRuleName()));
+                rule.discount = Money.add(rule.discount, applied.getAmount());
+                if (counted.add(applied.getRuleId())) {
+                    rule.carts++;
+                }
+            }
+        }
+
+        void merge(Tally other) {
+            carts += other.carts;
+            affected += other.affected;
+            original = Money.add(original, other.original);
+            discount = Money.add(discount, other.discount);
+            other.byRule.forEach((ruleId, totals) -> byRule.merge(ruleId, totals, (mine, theirs) -> {
+                mine.discount = Money.add(mine.discount, theirs.discount);
+                mine.carts += theirs.carts;
+                return mine;
+            }));
+        }
+
+        SimulationReport toReport(List<String> userTagRules, long elapsedMillis) {
+            List<SimulationReport.RuleContribution> rules = byRule.entrySet().stream()
+                    .map(entry -> new SimulationReport.RuleContribution(entry.getKey(), entry.getValue().name,
+                            entry.getValue().discount, entry.getValue().carts))
+                    .sorted(Comparator.comparingLong(SimulationReport.RuleContribution::discountPence).reversed())
+                    .toList();
+            return new SimulationReport(carts, affected, original, discount, rules, userTagRules, elapsedMillis);
+        }
+    }
+
+    private static final class RuleTotals {
+        private final String name;
+        private long discount;
+        private long carts;
+
+        RuleTotals(String name) {
+            this.name = name;
+        }
+    }
+}
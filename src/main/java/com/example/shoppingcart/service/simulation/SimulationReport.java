@@ -0,0 +1,26 @@
+package com.example.shoppingcart.service.simulation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Estimated cost of a candidate rule set over a corpus of historical carts. Amounts are in pence.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SimulationReport {
+
+    private final long cartsSimulated;
+    private final long cartsAffected;
+    private final long originalTotalPence;
+    private final long totalDiscountPence;
+    // Largest contribution first
+    private final List<RuleContribution> rules;
+    // Rules with a user tag condition; they contribute nothing for carts without recorded tags
+    private final List<String> userTagRules;
+    private final long elapsedMillis;
+
+    public record RuleContribution(String ruleId, String ruleName, long discountPence, long cartsAffected) {}
+}
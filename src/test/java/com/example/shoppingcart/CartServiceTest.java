@@ -1,18 +1,22 @@
 package com.example.shoppingcart;
 
 import com.example.shoppingcart.config.AppConstants;
+import com.example.shoppingcart.dto.CartMutationRequestDto;
+import com.example.shoppingcart.exception.ErrorCode;
 import com.example.shoppingcart.exception.ShoppingCartException;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.ShoppingCart;
 import com.example.shoppingcart.model.redis.Cart;
-import com.example.shoppingcart.repository.CartRepository;
+import com.example.shoppingcart.repository.CartLineWrite;
 import com.example.shoppingcart.repository.CatalogReadRepository;
-import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.example.shoppingcart.service.CartMergePolicy;
 import com.example.shoppingcart.service.CartReadService;
+import com.example.shoppingcart.service.CartStore;
 import com.example.shoppingcart.service.CartWriteService;
 import com.example.shoppingcart.service.InventoryReadService;
 import com.example.shoppingcart.service.PriceCalculationService;
 import com.example.shoppingcart.service.impl.CartReadServiceImpl;
+import com.example.shoppingcart.service.impl.CartWriteGate;
 import com.example.shoppingcart.service.impl.CartWriteServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,16 +24,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,9 +49,11 @@ import static org.mockito.Mockito.*;
 @MockitoSettings(strictness = Strictness.LENIENT)
 class CartServiceTest {
 
-    // Mocks for CartReadService
+    // Shared by both services
     @Mock
-    private CartRepository cartRepositoryRedis; // Redis CartRepository
+    private CartStore cartStore;
+
+    // Mocks for CartReadService
     @Mock
     private InventoryReadService inventoryReadService;
     @InjectMocks
@@ -51,18 +61,18 @@ class CartServiceTest {
 
     // Mocks for CartWriteService
     @Mock
-    private ShoppingCartRepository shoppingCartRepositoryDynamoDB; // DynamoDB ShoppingCartRepository
-    @Mock
     private CatalogReadRepository catalogReadRepository; // DynamoDB catalog read repository
     @Mock
     private PriceCalculationService priceCalculationService;
     @Mock
     private Object kafkaTemplate; // KafkaTemplate removed from test classpath; mock as plain Object
+    @Spy
+    private CartWriteGate cartWriteGate = new CartWriteGate(null, 16, false, 2_000, 2_500); // in-process only
     @InjectMocks
     private CartWriteServiceImpl cartWriteService;
 
     private CatalogItem testCatalogItem;
-    private Cart testRedisCart;
+    private ShoppingCart testUserCart;
     private ShoppingCart testDynamoDBCart;
 
     @BeforeEach
@@ -78,9 +88,12 @@ class CartServiceTest {
     testCatalogItem.setStatus("ACTIVE");
     testCatalogItem.setCurrency("GBP");
 
-        // Setup test Redis Cart
-        testRedisCart = new Cart("user123");
-        testRedisCart.setItems(new HashMap<>());
+        // Setup test cart addressed by user id, as the read API does
+        testUserCart = new ShoppingCart();
+        testUserCart.setCartId("user123");
+        testUserCart.setUserId("user123");
+        testUserCart.setStatus(ShoppingCart.CartStatus.ACTIVE);
+        testUserCart.setItems(new ArrayList<>());
 
         // Setup test DynamoDB ShoppingCart
         testDynamoDBCart = new ShoppingCart();
@@ -95,8 +108,9 @@ class CartServiceTest {
 
         // Default mock behaviors
     doNothing().when(priceCalculationService).calculateCartTotals(any(ShoppingCart.class));
-    // default catalog lookup
+    // default catalog lookup; batch reads go through the same stub
     when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(testCatalogItem));
+    when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
     }
 
     // --- CartReadService Tests ---
@@ -104,7 +118,7 @@ class CartServiceTest {
     @Test
     @DisplayName("CartReadService: Should return existing cart when found")
     void cartReadService_getCart_shouldReturnExistingCart() {
-        when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.of(testRedisCart));
+        when(cartStore.find("user123")).thenReturn(Optional.of(testUserCart));
         Cart result = cartReadService.getCart("user123");
         assertNotNull(result);
         assertEquals("user123", result.getUserId());
@@ -113,22 +127,31 @@ class CartServiceTest {
     @Test
     @DisplayName("CartReadService: Should create new cart when not found")
     void cartReadService_getCart_shouldCreateNewCart() {
-        when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.empty());
-        when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
+        when(cartStore.find("user123")).thenReturn(Optional.empty());
+        when(cartStore.create(any(ShoppingCart.class))).thenAnswer(invocation -> invocation.getArgument(0));
         Cart result = cartReadService.getCart("user123");
         assertNotNull(result);
         assertEquals("user123", result.getUserId());
-        verify(cartRepositoryRedis, times(1)).save(any(Cart.class));
+        verify(cartStore, times(1)).create(any(ShoppingCart.class));
+    }
+
+    @Test
+    @DisplayName("CartReadService: Should use the cart a concurrent request created first")
+    void cartReadService_getCart_shouldReReadWhenCreateLosesRace() {
+        when(cartStore.find("user123")).thenReturn(Optional.empty(), Optional.of(testUserCart));
+        when(cartStore.create(any(ShoppingCart.class))).thenThrow(new OptimisticLockingFailureException("exists"));
+        Cart result = cartReadService.getCart("user123");
+        assertEquals("user123", result.getCartId());
+        verify(cartStore, times(2)).find("user123");
     }
 
     @Test
     @DisplayName("CartReadService: Should add item to cart")
     void cartReadService_addItemToCart_shouldAddItem() {
-    when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.of(testRedisCart));
+    when(cartStore.find("user123")).thenReturn(Optional.of(testUserCart));
     when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
-    // simulate adding item via repository
-    testRedisCart.getItems().put("PROD1", 1);
-    when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
+    // simulate an item already added through the store
+    testUserCart.getItems().add(line("PROD1", 1));
 
     Cart result = cartReadService.getCart("user123");
     assertNotNull(result);
@@ -139,12 +162,10 @@ class CartServiceTest {
     @Test
     @DisplayName("CartReadService: Should update item quantity in cart")
     void cartReadService_updateItemQuantity_shouldUpdateQuantity() {
-        testRedisCart.getItems().put("PROD1", 1);
-        when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.of(testRedisCart));
-        when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
-    // simulate update via repository
-    testRedisCart.getItems().put("PROD1", 5);
-    when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
+        testUserCart.getItems().add(line("PROD1", 1));
+        when(cartStore.find("user123")).thenReturn(Optional.of(testUserCart));
+    // simulate update through the store
+    testUserCart.getItems().get(0).setQuantity(5);
 
     Cart result = cartReadService.getCart("user123");
     assertNotNull(result);
@@ -154,12 +175,10 @@ class CartServiceTest {
     @Test
     @DisplayName("CartReadService: Should remove item if quantity is zero")
     void cartReadService_updateItemQuantity_shouldRemoveItemIfQuantityZero() {
-        testRedisCart.getItems().put("PROD1", 1);
-        when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.of(testRedisCart));
-        when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
+        testUserCart.getItems().add(line("PROD1", 1));
+        when(cartStore.find("user123")).thenReturn(Optional.of(testUserCart));
     // simulate removal
-    testRedisCart.getItems().remove("PROD1");
-    when(cartRepositoryRedis.save(any(Cart.class))).thenReturn(testRedisCart);
+    testUserCart.getItems().clear();
 
     Cart result = cartReadService.getCart("user123");
     assertNotNull(result);
@@ -169,9 +188,8 @@ class CartServiceTest {
     @Test
     @DisplayName("CartReadService: Should throw exception if item not in cart for update")
     void cartReadService_updateItemQuantity_shouldThrowExceptionIfItemNotFound() {
-    when(cartRepositoryRedis.findById("user123")).thenReturn(Optional.of(testRedisCart));
-    // The updateItemQuantity operation now lives on the write service which operates on the Dynamo ShoppingCart
-    when(shoppingCartRepositoryDynamoDB.findById("user123")).thenReturn(Optional.of(testDynamoDBCart));
+    // The updateItemQuantity operation lives on the write service which operates on the ShoppingCart
+    when(cartStore.find("user123")).thenReturn(Optional.of(testDynamoDBCart));
     assertThrows(ShoppingCartException.class, () ->
         cartWriteService.updateItemQuantity("user123", "NON_EXISTENT_PROD", 5));
     }
@@ -181,19 +199,19 @@ class CartServiceTest {
     @Test
     @DisplayName("CartWriteService: Should create new ShoppingCart")
     void cartWriteService_createCart_shouldCreateNewCart() {
-        when(shoppingCartRepositoryDynamoDB.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
+        when(cartStore.create(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
         Cart result = cartWriteService.createCart("user123");
         assertNotNull(result);
         assertEquals("user123", result.getUserId());
-    verify(shoppingCartRepositoryDynamoDB, times(1)).save(any(ShoppingCart.class));
+    verify(cartStore, times(1)).create(any(ShoppingCart.class));
     }
 
     @Test
     @DisplayName("CartWriteService: Should add item to ShoppingCart")
     void cartWriteService_addItem_shouldAddItem() {
-    when(shoppingCartRepositoryDynamoDB.findById(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+    when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
     when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(testCatalogItem));
-    when(shoppingCartRepositoryDynamoDB.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
+    when(cartStore.updateLine(any(ShoppingCart.class), any(CartLineWrite.class))).thenReturn(testDynamoDBCart);
 
     // Call the current service signature which requires a priceInSmallestUnit argument
     Cart result = cartWriteService.addItem("CART-12345678", "APPLE", 2, 35);
@@ -217,8 +235,8 @@ class CartServiceTest {
         ShoppingCart.CartItemData itemData = new ShoppingCart.CartItemData("PROD1", 1, BigDecimal.ONE, BigDecimal.ONE, "", "", "", "");
         testDynamoDBCart.getItems().add(itemData);
 
-        when(shoppingCartRepositoryDynamoDB.findById(anyString())).thenReturn(Optional.of(testDynamoDBCart));
-        when(shoppingCartRepositoryDynamoDB.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
+        when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+        when(cartStore.updateLine(any(ShoppingCart.class), any(CartLineWrite.class))).thenReturn(testDynamoDBCart);
 
     Cart result = cartWriteService.removeItem("CART-12345678", "PROD1");
     assertNotNull(result);
@@ -232,8 +250,8 @@ class CartServiceTest {
         ShoppingCart.CartItemData itemData = new ShoppingCart.CartItemData("PROD1", 1, BigDecimal.ONE, BigDecimal.ONE, "", "", "", "");
         testDynamoDBCart.getItems().add(itemData);
 
-        when(shoppingCartRepositoryDynamoDB.findById(anyString())).thenReturn(Optional.of(testDynamoDBCart));
-        when(shoppingCartRepositoryDynamoDB.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
+        when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+        when(cartStore.updateLine(any(ShoppingCart.class), any(CartLineWrite.class))).thenReturn(testDynamoDBCart);
 
     Cart result = cartWriteService.updateItemQuantity("CART-12345678", "PROD1", 5);
     assertNotNull(result);
@@ -247,12 +265,165 @@ class CartServiceTest {
         ShoppingCart.CartItemData itemData = new ShoppingCart.CartItemData("PROD1", 1, BigDecimal.ONE, BigDecimal.ONE, "", "", "", "");
         testDynamoDBCart.getItems().add(itemData);
 
-        when(shoppingCartRepositoryDynamoDB.findById(anyString())).thenReturn(Optional.of(testDynamoDBCart));
-        when(shoppingCartRepositoryDynamoDB.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
+        when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+        when(cartStore.save(any(ShoppingCart.class))).thenReturn(testDynamoDBCart);
 
     Cart result = cartWriteService.checkout("CART-12345678");
     assertNotNull(result);
     assertEquals(ShoppingCart.CartStatus.CHECKED_OUT, ShoppingCart.CartStatus.valueOf(result.getStatus()));
     // Kafka send verified in integration tests; omitted in unit-only test
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("CartWriteService: Should re-read and retry when the cart version changed underneath the write")
+    void cartWriteService_updateItemQuantity_shouldRetryOnVersionConflict() {
+        when(cartStore.find(anyString())).thenAnswer(invocation -> Optional.of(cartWithOneLine()));
+        when(cartStore.updateLine(any(ShoppingCart.class), any(CartLineWrite.class)))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Cart result = cartWriteService.updateItemQuantity("CART-12345678", "PROD1", 5);
+
+        assertEquals(5, result.getItems().get("PROD1"));
+        verify(cartStore, times(2)).findById("CART-12345678");
+        verify(cartStore, times(2)).updateLine(any(ShoppingCart.class), eq(new CartLineWrite(CartLineWrite.Kind.REPLACE, 0, "PROD1")));
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should report a conflict after the bounded number of attempts")
+    void cartWriteService_addItem_shouldGiveUpAfterMaxAttempts() {
+        when(cartStore.find(anyString())).thenAnswer(invocation -> Optional.of(cartWithOneLine()));
+        when(cartStore.updateLine(any(ShoppingCart.class), any(CartLineWrite.class)))
+                .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class,
+                () -> cartWriteService.addItem("CART-12345678", "APPLE", 1, 35));
+
+        assertEquals(ErrorCode.CART_007_CONCURRENT_MODIFICATION, thrown.getErrorCode());
+        verify(cartStore, times(AppConstants.Cart.MAX_WRITE_ATTEMPTS))
+                .updateLine(any(ShoppingCart.class), eq(new CartLineWrite(CartLineWrite.Kind.APPEND, 1, "APPLE")));
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should apply many operations in one write with a single re-price")
+    void cartWriteService_applyOperations_shouldWriteOnce() {
+        testDynamoDBCart.getItems().add(line("PROD1", 1));
+        testDynamoDBCart.getItems().add(line("PROD2", 4));
+        when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
+        when(cartStore.save(any(ShoppingCart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Cart result = cartWriteService.applyOperations("CART-12345678", List.of(
+                new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.ADD, "APPLE", 2),
+                new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.ADD, "APPLE", 1),
+                new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.SET, "PROD1", 3),
+                new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.REMOVE, "PROD2", 0)), "UK");
+
+        assertEquals(3, result.getItems().get("APPLE"));
+        assertEquals(3, result.getItems().get("PROD1"));
+        assertFalse(result.getItems().containsKey("PROD2"));
+        verify(catalogReadRepository, times(1)).findAllByIds(Set.of("APPLE", "PROD1"), "UK");
+        verify(catalogReadRepository, times(1)).findById("APPLE");
+        verify(inventoryReadService).isInStock("APPLE", "UK", 3);
+        verify(priceCalculationService, times(1)).calculateCartTotals(any(ShoppingCart.class));
+        verify(cartStore, times(1)).save(any(ShoppingCart.class));
+        verify(cartStore, never()).updateLine(any(), any());
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should apply no operation when one of them is out of stock")
+    void cartWriteService_applyOperations_shouldRejectInsufficientStock() {
+        when(cartStore.find(anyString())).thenReturn(Optional.of(testDynamoDBCart));
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(false);
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class, () -> cartWriteService.applyOperations(
+                "CART-12345678", List.of(new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.SET, "APPLE", 500)), "UK"));
+
+        assertEquals(ErrorCode.PROD_103_INSUFFICIENT_STOCK, thrown.getErrorCode());
+        verify(cartStore, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should apply no operation when a product it adds has no price")
+    void cartWriteService_applyOperations_shouldRejectUnpricedProduct() {
+        testCatalogItem.setPrice(null);
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class, () -> cartWriteService.applyOperations(
+                "CART-12345678", List.of(new CartMutationRequestDto.Operation(CartMutationRequestDto.Type.ADD, "APPLE", 1)), "UK"));
+
+        assertEquals(ErrorCode.PROD_104_NOT_PRICED, thrown.getErrorCode());
+        verify(cartStore, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should merge a guest cart into the user's cart in one transaction")
+    void cartWriteService_mergeGuestCart_shouldCombineLines() {
+        ShoppingCart guest = new ShoppingCart();
+        guest.setCartId("GUEST-1");
+        guest.setSessionId("SESSION-1");
+        guest.setVersion(2L);
+        guest.setItems(new ArrayList<>(List.of(line("PROD1", 2), line("APPLE", 1))));
+        when(cartStore.findByUser("user123")).thenReturn(Optional.of(cartWithOneLine()));
+        when(cartStore.findBySession("SESSION-1")).thenReturn(Optional.of(guest));
+        when(cartStore.merge(any(ShoppingCart.class), eq(guest))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Cart result = cartWriteService.mergeGuestCart("SESSION-1", "user123", CartMergePolicy.SUM);
+
+        assertEquals(3, result.getItems().get("PROD1"));
+        assertEquals(1, result.getItems().get("APPLE"));
+        verify(priceCalculationService, times(1)).calculateCartTotals(any(ShoppingCart.class));
+        verify(cartStore, times(1)).merge(any(ShoppingCart.class), eq(guest));
+        verify(cartStore, never()).save(any());
+        verify(cartWriteGate).run(eq(List.of("CART-12345678", "GUEST-1")), any());
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should re-read and retry a merge when the user's cart changed before it was locked")
+    void cartWriteService_mergeGuestCart_shouldRetryWhenCartsChangeBeforeLocking() {
+        ShoppingCart guest = new ShoppingCart();
+        guest.setCartId("GUEST-1");
+        guest.setSessionId("SESSION-1");
+        guest.setItems(new ArrayList<>(List.of(line("APPLE", 1))));
+        // The index caught up with a cart created concurrently under another id between the first two reads.
+        ShoppingCart indexed = cartWithOneLine();
+        indexed.setCartId("CART-87654321");
+        when(cartStore.findByUser("user123"))
+                .thenReturn(Optional.of(cartWithOneLine()), Optional.of(indexed), Optional.of(indexed));
+        when(cartStore.findBySession("SESSION-1")).thenReturn(Optional.of(guest));
+        when(cartStore.merge(any(ShoppingCart.class), eq(guest))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Cart result = cartWriteService.mergeGuestCart("SESSION-1", "user123", CartMergePolicy.SUM);
+
+        assertEquals("CART-87654321", result.getCartId());
+        verify(cartWriteGate).run(eq(List.of("CART-12345678", "GUEST-1")), any());
+        verify(cartWriteGate).run(eq(List.of("CART-87654321", "GUEST-1")), any());
+        verify(cartStore, times(1)).merge(any(ShoppingCart.class), eq(guest));
+    }
+
+    @Test
+    @DisplayName("CartWriteService: Should return the user's cart unchanged when there is no guest cart left")
+    void cartWriteService_mergeGuestCart_withoutGuestCart_shouldNotWrite() {
+        when(cartStore.findByUser("user123")).thenReturn(Optional.of(cartWithOneLine()));
+        when(cartStore.findBySession("SESSION-1")).thenReturn(Optional.empty());
+
+        Cart result = cartWriteService.mergeGuestCart("SESSION-1", "user123", null);
+
+        assertEquals(1, result.getItems().get("PROD1"));
+        verify(cartStore, never()).merge(any(), any());
+    }
+
+    private static ShoppingCart.CartItemData line(String productId, int quantity) {
+        return new ShoppingCart.CartItemData(productId, quantity, BigDecimal.ONE, BigDecimal.valueOf(quantity), "", "", "", "");
+    }
+
+    private ShoppingCart cartWithOneLine() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-12345678");
+        cart.setUserId("user123");
+        cart.setStatus(ShoppingCart.CartStatus.ACTIVE);
+        cart.setVersion(4L);
+        cart.setItems(new ArrayList<>(List.of(
+                new ShoppingCart.CartItemData("PROD1", 1, BigDecimal.ONE, BigDecimal.ONE, "", "", "", ""))));
+        return cart;
+    }
+}
@@ -36,15 +36,31 @@ public class PriceCalculationServiceTest {
         when(discountService.calculateTotalDiscount(any(ShoppingCart.class))).thenReturn(BigDecimal.ZERO);
     }
 
+    @Test
+    void discountIsTakenInPence() {
+        ShoppingCart.CartItemData item = new ShoppingCart.CartItemData();
+        item.setProductId("APPLE");
+        item.setQuantity(3);
+        item.setPrice(new BigDecimal("35"));
+        cart.setItems(List.of(item));
+        when(discountService.calculateTotalDiscount(any(ShoppingCart.class))).thenReturn(new BigDecimal("35"));
+
+        priceCalculationService.calculateCartTotals(cart);
+
+        assertEquals(new BigDecimal("105"), cart.getSubtotal());
+        assertEquals(new BigDecimal("35"), cart.getTotalDiscount());
+        assertEquals(new BigDecimal("70"), cart.getTotal());
+    }
+
     @Test
     void testApplesPricing() {
         ShoppingCart.CartItemData item = new ShoppingCart.CartItemData();
         item.setProductId("APPLE");
         item.setQuantity(3);
-        item.setPrice(new BigDecimal("0.35"));
+        item.setPrice(new BigDecimal("35")); // pence
         cart.setItems(List.of(item));
 
         priceCalculationService.calculateCartTotals(cart);
-        assertEquals(new BigDecimal("1.05"), cart.getTotal());
+        assertEquals(new BigDecimal("105"), cart.getTotal());
     }
 }
\ No newline at end of file
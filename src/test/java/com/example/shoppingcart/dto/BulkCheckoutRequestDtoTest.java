@@ -0,0 +1,67 @@
+package com.example.shoppingcart.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkCheckoutRequestDtoTest {
+
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    @DisplayName("A valid bulk request has no violations")
+    void validRequest_ShouldPass() {
+        assertTrue(validator.validate(request(line("APPLE", 2))).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Invalid lines inside a bulk cart are rejected")
+    void invalidLines_ShouldBeRejected() {
+        Set<ConstraintViolation<BulkCheckoutRequestDto>> violations =
+                validator.validate(request(line("APPLE", 0), line(" ", 1), line("MELON", 101)));
+
+        assertEquals(Set.of("carts[0].items[0].quantity", "carts[0].items[1].productId", "carts[0].items[2].quantity"),
+                violations.stream().map(v -> v.getPropertyPath().toString())
+                        .collect(Collectors.toSet()));
+    }
+
+    private static BulkCheckoutRequestDto request(CartItemDto... items) {
+        BulkCheckoutRequestDto.BulkCart cart = new BulkCheckoutRequestDto.BulkCart();
+        cart.setReference("basket-1");
+        cart.setItems(List.of(items));
+        BulkCheckoutRequestDto request = new BulkCheckoutRequestDto();
+        request.setCarts(List.of(cart));
+        return request;
+    }
+
+    private static CartItemDto line(String productId, int quantity) {
+        CartItemDto item = new CartItemDto();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
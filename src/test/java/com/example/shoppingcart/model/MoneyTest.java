@@ -0,0 +1,76 @@
+package com.example.shoppingcart.model;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("Percentages are exact integer maths with the requested rounding")
+    void percentage_ShouldRoundExactly() {
+        // 29 * 100 / 100 is 28.999... in floating point
+        assertEquals(29, Money.percentage(29, 100, RoundingMode.DOWN));
+        assertEquals(3, Money.percentage(35, 10, RoundingMode.DOWN));
+        assertEquals(4, Money.percentage(35, 10, RoundingMode.HALF_UP));
+        assertEquals(4, Money.percentage(35, 10, RoundingMode.HALF_EVEN));
+        assertEquals(2, Money.percentage(25, 10, RoundingMode.HALF_EVEN));
+        assertEquals(-4, Money.percentage(-35, 10, RoundingMode.HALF_UP));
+        assertEquals(-4, Money.percentage(-35, 10, RoundingMode.FLOOR));
+    }
+
+    @Test
+    @DisplayName("Rounding matches BigDecimal for every mode")
+    void divide_ShouldMatchBigDecimal() {
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long dividend = -25; dividend <= 25; dividend++) {
+                long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.TEN, mode).longValueExact();
+                assertEquals(expected, Money.divide(dividend, 10, mode), dividend + " / 10 " + mode);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Overflow raises a calculation error instead of wrapping")
+    void arithmetic_ShouldDetectOverflow() {
+        ShoppingCartException ex = assertThrows(ShoppingCartException.class, () -> Money.multiply(Long.MAX_VALUE / 2, 3));
+        assertEquals(ErrorCode.PRICE_201_CALCULATION_ERROR, ex.getErrorCode());
+        assertThrows(ShoppingCartException.class, () -> Money.toIntExact(Integer.MAX_VALUE + 1L));
+    }
+
+    @Test
+    @DisplayName("Stored major-unit amounts round-trip through minor units")
+    void majorUnits_ShouldRoundTrip() {
+        assertEquals(105, Money.fromMajor(new BigDecimal("1.05")));
+        assertEquals(500, Money.fromMajor(new BigDecimal("5")));
+        assertEquals(0, Money.fromMajor(null));
+        assertEquals(new BigDecimal("1.05"), Money.ofMinor(35, "GBP").times(3).toMajor());
+    }
+
+    @Test
+    @DisplayName("Stored minor-unit amounts are read as minor units, not scaled again")
+    void minorUnits_ShouldNotBeScaled() {
+        assertEquals(35, Money.fromMinor(new BigDecimal("35")));
+        assertEquals(35, Money.fromMinor(new BigDecimal("35.00")));
+        assertEquals(36, Money.fromMinor(new BigDecimal("35.5")));
+        assertEquals(0, Money.fromMinor(null));
+        assertEquals(new BigDecimal("105"), Money.ofMinor(new BigDecimal("35"), "GBP").times(3).toMinorDecimal());
+        assertEquals(Money.ofMajor(new BigDecimal("0.35"), "GBP"), Money.ofMinor(new BigDecimal("35"), "GBP"));
+    }
+
+    @Test
+    @DisplayName("Amounts in different currencies cannot be combined")
+    void plus_ShouldRejectMixedCurrencies() {
+        assertThrows(ShoppingCartException.class, () -> Money.ofMinor(100, "GBP").plus(Money.ofMinor(100, "USD")));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.shoppingcart.model.dynamo;
+
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartLinesCodecTest {
+
+    @Test
+    @DisplayName("Lines round-trip without their descriptive text")
+    void encodeDecode_ShouldRoundTripPricingFields() {
+        List<ShoppingCart.CartItemData> lines = List.of(
+                new ShoppingCart.CartItemData("APPLE", 3, new BigDecimal("35"), new BigDecimal("105"), "Apple", "Crisp", "a.png", "/FRUITS/"),
+                new ShoppingCart.CartItemData("PEAR", 1, new BigDecimal("0.45"), null, "Pear", null, null, "/FRUITS/"));
+
+        List<ShoppingCart.CartItemData> decoded = CartLinesCodec.decode(CartLinesCodec.encode(lines));
+
+        assertEquals(2, decoded.size());
+        assertEquals(new ShoppingCart.CartItemData("APPLE", 3, new BigDecimal("35"), new BigDecimal("105"), null, null, null, "/FRUITS/"),
+                decoded.get(0));
+        assertEquals(new BigDecimal("0.45"), decoded.get(1).getPrice());
+        assertNull(decoded.get(1).getTotalPrice());
+    }
+
+    @Test
+    @DisplayName("Repeated product ids and categories are stored once")
+    void encode_ShouldDictionaryEncodeRepeatedStrings() {
+        List<ShoppingCart.CartItemData> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(new ShoppingCart.CartItemData("PRODUCT-" + (i % 2), 1, BigDecimal.ONE, BigDecimal.ONE,
+                    null, null, null, "/A/VERY/LONG/CATEGORY/HIERARCHY/"));
+        }
+
+        // Eight bytes a line, plus one copy of each distinct string
+        assertTrue(CartLinesCodec.encode(lines).length <= 100 * 8 + 64);
+    }
+
+    @Test
+    @DisplayName("The decoded list can be mutated like the list it replaced")
+    void decode_ShouldSupportMutation() {
+        List<ShoppingCart.CartItemData> decoded = CartLinesCodec.decode(CartLinesCodec.encode(List.of(
+                line("A", 1), line("B", 2), line("C", 3))));
+
+        decoded.remove(0);
+        decoded.get(0).setQuantity(5);
+        decoded.add(line("D", 4));
+
+        List<ShoppingCart.CartItemData> again = CartLinesCodec.decode(CartLinesCodec.encode(decoded));
+        assertEquals(List.of("B", "C", "D"), again.stream().map(ShoppingCart.CartItemData::getProductId).toList());
+        assertEquals(5, again.get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("The archive form is smaller and decodes to the same lines")
+    void compress_ShouldRoundTripAndShrink() {
+        List<ShoppingCart.CartItemData> lines = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            lines.add(line("PRODUCT-" + i, 1 + i % 3));
+        }
+
+        byte[] archived = CartLinesCodec.compress(lines);
+
+        assertTrue(archived.length < CartLinesCodec.encode(lines).length);
+        assertEquals(lines, CartLinesCodec.decode(archived));
+    }
+
+    @Test
+    @DisplayName("An unknown format version is rejected")
+    void decode_UnknownFormat_ShouldThrow() {
+        byte[] data = CartLinesCodec.encode(List.of(line("A", 1)));
+        data[0] = 100;
+
+        assertThrows(ShoppingCartException.class, () -> CartLinesCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("JSON snapshots carry the binary form and still read the older array form")
+    void json_ShouldReadBinaryAndLegacyArrays() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setItems(new ArrayList<>(List.of(line("A", 2))));
+
+        String json = mapper.writeValueAsString(cart);
+        assertEquals(2, mapper.readValue(json, ShoppingCart.class).getItems().get(0).getQuantity());
+
+        String legacy = "{\"cartId\":\"CART-1\",\"items\":[{\"productId\":\"A\",\"quantity\":7}]}";
+        assertEquals(7, mapper.readValue(legacy, ShoppingCart.class).getItems().get(0).getQuantity());
+    }
+
+    private static ShoppingCart.CartItemData line(String productId, int quantity) {
+        return new ShoppingCart.CartItemData(productId, quantity, BigDecimal.TEN, BigDecimal.TEN.multiply(BigDecimal.valueOf(quantity)),
+                null, null, null, "/X/");
+    }
+}
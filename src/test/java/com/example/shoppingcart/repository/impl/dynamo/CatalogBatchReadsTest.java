@@ -0,0 +1,99 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogBatchReadsTest {
+
+    private final DynamoDbClient client = mock(DynamoDbClient.class);
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @Test
+    @DisplayName("Full (product, region) keys go out in chunks of 100 and products that do not exist are left out")
+    void getAll_ShouldChunkKeys() {
+        when(client.batchGetItem(any(Consumer.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest request = build(invocation.getArgument(0));
+            List<Map<String, AttributeValue>> keys = request.requestItems().get(CatalogBatchReads.TABLE_NAME).keys();
+            batchSizes.add(keys.size());
+            keys.forEach(key -> assertEquals(AttributeValue.fromS("REGION#UK"), key.get("sk")));
+            // Every key except the ghost product exists
+            List<Map<String, AttributeValue>> items = keys.stream()
+                    .filter(key -> !key.get("pk").s().equals("PRODUCT#GHOST"))
+                    .map(key -> Map.of("pk", key.get("pk"), "sk", key.get("sk"), "price", AttributeValue.fromN("35")))
+                    .toList();
+            return BatchGetItemResponse.builder().responses(Map.of(CatalogBatchReads.TABLE_NAME, items)).build();
+        });
+        List<String> ids = new ArrayList<>(IntStream.range(0, 149).mapToObj(i -> "P" + i).toList());
+        ids.add("GHOST");
+
+        Map<String, CatalogItem> found = CatalogBatchReads.getAll(client, ids, "UK");
+
+        assertEquals(List.of(100, 50), batchSizes);
+        assertEquals(149, found.size());
+        assertEquals(35, found.get("P7").getPrice());
+    }
+
+    @Test
+    @DisplayName("Unprocessed keys are retried until DynamoDB returns them")
+    void getAll_ShouldRetryUnprocessedKeys() {
+        Map<String, AttributeValue> appleKey = Map.of("pk", AttributeValue.fromS("PRODUCT#APPLE"),
+                "sk", AttributeValue.fromS("REGION#UK"));
+        Map<String, AttributeValue> limeKey = Map.of("pk", AttributeValue.fromS("PRODUCT#LIME"),
+                "sk", AttributeValue.fromS("REGION#UK"));
+        when(client.batchGetItem(any(Consumer.class)))
+                .thenReturn(BatchGetItemResponse.builder()
+                        .responses(Map.of(CatalogBatchReads.TABLE_NAME, List.of(appleKey)))
+                        .unprocessedKeys(Map.of(CatalogBatchReads.TABLE_NAME, KeysAndAttributes.builder().keys(limeKey).build()))
+                        .build())
+                .thenReturn(BatchGetItemResponse.builder()
+                        .responses(Map.of(CatalogBatchReads.TABLE_NAME, List.of(limeKey)))
+                        .build());
+
+        Map<String, CatalogItem> found = CatalogBatchReads.getAll(client, List.of("APPLE", "LIME"), "UK");
+
+        assertEquals(2, found.size());
+        verify(client, times(2)).batchGetItem(any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Keys still unprocessed after the last attempt fail the read instead of looking missing")
+    void getAll_UnprocessedAfterRetries_ShouldFail() {
+        Map<String, AttributeValue> limeKey = Map.of("pk", AttributeValue.fromS("PRODUCT#LIME"),
+                "sk", AttributeValue.fromS("REGION#UK"));
+        when(client.batchGetItem(any(Consumer.class))).thenReturn(BatchGetItemResponse.builder()
+                .unprocessedKeys(Map.of(CatalogBatchReads.TABLE_NAME, KeysAndAttributes.builder().keys(limeKey).build()))
+                .build());
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class,
+                () -> CatalogBatchReads.getAll(client, List.of("LIME"), "UK"));
+        assertEquals(ErrorCode.SYS_502_DATABASE_ERROR, thrown.getErrorCode());
+    }
+
+    private static BatchGetItemRequest build(Consumer<BatchGetItemRequest.Builder> request) {
+        BatchGetItemRequest.Builder builder = BatchGetItemRequest.builder();
+        request.accept(builder);
+        return builder.build();
+    }
+}
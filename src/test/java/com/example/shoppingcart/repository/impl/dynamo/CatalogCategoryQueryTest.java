@@ -0,0 +1,52 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogCategoryQueryTest {
+
+    @Test
+    @DisplayName("A page token decodes back to the key it was issued for")
+    void token_ShouldRoundTrip() {
+        Map<String, AttributeValue> key = lastKey("/FRUIT/");
+
+        String token = CatalogCategoryQuery.encode(key);
+
+        assertEquals(key, CatalogCategoryQuery.decode(token, "/FRUIT/"));
+    }
+
+    @Test
+    @DisplayName("A page token issued for another category is rejected")
+    void token_OtherCategory_ShouldBeRejected() {
+        String token = CatalogCategoryQuery.encode(lastKey("/FRUIT/"));
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class,
+                () -> CatalogCategoryQuery.decode(token, "/BAKERY/"));
+        assertEquals(ErrorCode.VAL_300_INVALID_PARAMS, thrown.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("A page token that is not one we issued is rejected")
+    void token_Garbage_ShouldBeRejected() {
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class,
+                () -> CatalogCategoryQuery.decode("not a token!", "/FRUIT/"));
+        assertEquals(ErrorCode.VAL_300_INVALID_PARAMS, thrown.getErrorCode());
+    }
+
+    private static Map<String, AttributeValue> lastKey(String category) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put("categoryHierarchy", AttributeValue.fromS(category));
+        key.put("pk", AttributeValue.fromS("PRODUCT#APPLE"));
+        key.put("sk", AttributeValue.fromS("DETAILS"));
+        return key;
+    }
+}
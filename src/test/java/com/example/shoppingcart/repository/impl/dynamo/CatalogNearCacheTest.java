@@ -0,0 +1,113 @@
+package com.example.shoppingcart.repository.impl.dynamo;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CatalogNearCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogNearCache nearCache = new CatalogNearCache(meterRegistry,
+            mock(RedisMessageListenerContainer.class), 100, 60);
+    private final AtomicInteger reads = new AtomicInteger();
+    private final Function<String, CatalogItem> loader = id -> {
+        reads.incrementAndGet();
+        if (id.equals("MISSING")) {
+            return null;
+        }
+        CatalogItem item = new CatalogItem();
+        item.setPk("PRODUCT#" + id);
+        return item;
+    };
+    private final List<Set<String>> batches = new ArrayList<>();
+    private final Function<Set<String>, Map<String, CatalogItem>> batchLoader = ids -> {
+        batches.add(ids);
+        Map<String, CatalogItem> items = new HashMap<>();
+        ids.stream().filter(id -> !id.equals("MISSING")).forEach(id -> items.put(id, loader.apply(id)));
+        return items;
+    };
+
+    @BeforeEach
+    void setUp() {
+        nearCache.start();
+    }
+
+    @Test
+    @DisplayName("Repeated lookups of a product read the catalog once and count as hits")
+    void get_Repeated_ShouldReadOnce() {
+        nearCache.get("APPLE", loader);
+        nearCache.get("APPLE", loader);
+
+        assertEquals(1, reads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "catalogNearCache").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("A product change announced on the bus drops the cached item")
+    void productChange_ShouldEvict() {
+        nearCache.get("APPLE", loader);
+
+        nearCache.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+        nearCache.get("APPLE", loader);
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    @DisplayName("Products that do not exist are not cached")
+    void get_Missing_ShouldNotCache() {
+        assertTrue(nearCache.get("MISSING", loader).isEmpty());
+        nearCache.get("MISSING", loader);
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    @DisplayName("A batch lookup loads only the products that are not cached yet")
+    void getAll_ShouldLoadOnlyMisses() {
+        nearCache.getAll(List.of("APPLE"), "UK", batchLoader);
+
+        Map<String, CatalogItem> found = nearCache.getAll(List.of("APPLE", "LIME", "MISSING"), "UK", batchLoader);
+
+        assertEquals(List.of(Set.of("APPLE"), Set.of("LIME", "MISSING")), batches);
+        assertEquals(Set.of("APPLE", "LIME"), found.keySet());
+    }
+
+    @Test
+    @DisplayName("Batch lookups are cached per region, and a product change drops the item in every region")
+    void getAll_ShouldCachePerRegion() {
+        nearCache.getAll(List.of("APPLE"), "UK", batchLoader);
+        nearCache.getAll(List.of("APPLE"), "IE", batchLoader);
+        nearCache.getAll(List.of("APPLE"), "UK", batchLoader);
+        assertEquals(2, batches.size());
+
+        nearCache.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+        nearCache.getAll(List.of("APPLE"), "UK", batchLoader);
+        nearCache.getAll(List.of("APPLE"), "IE", batchLoader);
+
+        assertEquals(4, batches.size());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CartChangeBus.CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
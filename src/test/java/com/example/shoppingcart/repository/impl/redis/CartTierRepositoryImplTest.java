@@ -0,0 +1,96 @@
+package com.example.shoppingcart.repository.impl.redis;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartTierRepositoryImplTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    private final CartTierRepositoryImpl tier =
+            new CartTierRepositoryImpl(redisTemplate, new ObjectMapper().findAndRegisterModules(), 60);
+
+    // Stands in for the cart hash: the whole-cart write stores its field/value arguments, the read returns them.
+    private final Map<String, String> hash = new LinkedHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            Object[] args = Arrays.copyOfRange(invocation.getArguments(), 2, invocation.getArguments().length);
+            if (script.getResultType() == List.class) {
+                List<String> fields = new ArrayList<>();
+                hash.forEach((field, value) -> {
+                    fields.add(field);
+                    fields.add(value);
+                });
+                return fields;
+            }
+            hash.put("v", args[0].toString());
+            for (int i = 2; i + 1 < args.length; i += 2) {
+                hash.put(args[i].toString(), args[i + 1].toString());
+            }
+            return 1L;
+        });
+    }
+
+    @Test
+    @DisplayName("A cached cart reads back with its header and its lines in order")
+    void put_ThenFind_ShouldRoundTrip() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setVersion(4L);
+        cart.setTotal(new BigDecimal("350"));
+        cart.setItems(new ArrayList<>(List.of(line("BREAD", 1, "150"), line("APPLE", 2, "100"))));
+
+        tier.put(cart);
+        ShoppingCart cached = tier.find("CART-1").orElseThrow();
+
+        assertEquals(4L, cached.getVersion());
+        assertEquals(0, new BigDecimal("350").compareTo(cached.getTotal()));
+        assertEquals(List.of("BREAD", "APPLE"),
+                cached.getItems().stream().map(ShoppingCart.CartItemData::getProductId).toList());
+        assertEquals(2, cached.getItems().get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Each line gets its own field and the header leaves the lines out")
+    void put_ShouldStoreOneFieldPerLine() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setItems(new ArrayList<>(List.of(line("APPLE", 2, "100"))));
+
+        tier.put(cart);
+
+        assertTrue(hash.containsKey("l:APPLE"));
+        assertTrue(hash.get("l:APPLE").startsWith("1:"));
+        assertFalse(hash.get("h").contains("APPLE"));
+    }
+
+    private static ShoppingCart.CartItemData line(String productId, int quantity, String price) {
+        BigDecimal unit = new BigDecimal(price);
+        return new ShoppingCart.CartItemData(productId, quantity, unit, unit.multiply(BigDecimal.valueOf(quantity)),
+                null, null, null, "FRUIT");
+    }
+}
@@ -91,6 +91,7 @@ class CheckoutExampleTest {
         when(catalogReadRepository.findById("BANANA")).thenReturn(Optional.of(banana));
         when(catalogReadRepository.findById("MELON")).thenReturn(Optional.of(melon));
         when(catalogReadRepository.findById("LIME")).thenReturn(Optional.of(lime));
+        when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
 
     // Build real action applier with the available strategies
     actionApplier = new com.example.shoppingcart.service.discount.ActionApplier(
@@ -0,0 +1,201 @@
+package com.example.shoppingcart.service;
+
+import com.example.shoppingcart.config.CheckoutTimings;
+import com.example.shoppingcart.dto.BulkCheckoutRequestDto;
+import com.example.shoppingcart.dto.BulkCheckoutResultDto;
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.ConflictResolver;
+import com.example.shoppingcart.service.discount.PriceSanitizer;
+import com.example.shoppingcart.service.impl.CheckoutServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CheckoutPipelineTest {
+
+    @Mock
+    private DiscountRuleRepository discountRuleRepository;
+    @Mock
+    private CatalogReadRepository catalogReadRepository;
+    @Mock
+    private InventoryReadService inventoryReadService;
+    @Mock
+    private ConditionEvaluator conditionEvaluator;
+    @Mock
+    private ConflictResolver conflictResolver;
+    @Mock
+    private ActionApplier actionApplier;
+    @Mock
+    private PriceSanitizer priceSanitizer;
+
+    private CatalogItem apple;
+
+    @BeforeEach
+    void setUp() {
+        apple = new CatalogItem();
+        apple.setPrice(35);
+        apple.setCategoryHierarchy("/FOOD/FRUIT/");
+        when(priceSanitizer.sanitize(any(CheckoutResponseDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Batch catalog reads resolve through the per-product stubs
+        when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
+    }
+
+    @Test
+    @DisplayName("Repeated lines for a product are read once and priced with the combined quantity")
+    void duplicateLines_ShouldBeFetchedOnce() {
+        when(inventoryReadService.isInStock("APPLE", "UK", 3)).thenReturn(true);
+        when(catalogReadRepository.findById("APPLE")).thenReturn(Optional.of(apple));
+        when(discountRuleRepository.findActiveRulesByProductAndHierarchy(eq("APPLE"), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        CheckoutResponseDto response = service(CheckoutTimings.defaults())
+                .calculateFinalPrice(cart("APPLE", "APPLE", "APPLE"), Collections.emptySet(), "credit_card", "UK");
+
+        assertEquals(105, response.getOriginalTotalPrice());
+        verify(catalogReadRepository, times(1)).findById("APPLE");
+        verify(inventoryReadService, times(1)).isInStock("APPLE", "UK", 3);
+        verify(discountRuleRepository, times(1))
+                .findActiveRulesByProductAndHierarchy("APPLE", List.of("/FOOD/", "/FOOD/FRUIT/"));
+    }
+
+    @Test
+    @DisplayName("A rule returned for several products is evaluated once")
+    void sharedRule_ShouldBeEvaluatedOnce() {
+        DiscountRule fruitRule = new DiscountRule();
+        fruitRule.setRuleId("FRUIT");
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
+        when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(apple));
+        when(discountRuleRepository.findActiveRulesByProductAndHierarchy(anyString(), anyList())).thenReturn(List.of(fruitRule));
+        when(conditionEvaluator.areConditionsMet(any(), any())).thenReturn(false);
+
+        service(CheckoutTimings.defaults())
+                .calculateFinalPrice(cart("APPLE", "PEAR"), Collections.emptySet(), "credit_card", "UK");
+
+        verify(conditionEvaluator, times(1)).areConditionsMet(eq(fruitRule), any());
+    }
+
+    @Test
+    @DisplayName("Fetch stage should fail fast once it exceeds its timeout")
+    void slowFetch_ShouldExceedTimeout() {
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(2_000);
+            return true;
+        });
+        when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(apple));
+
+        CheckoutTimings tightFetch = new CheckoutTimings(20, 50, 50, 50, 10);
+        ShoppingCartException ex = assertThrows(ShoppingCartException.class, () -> service(tightFetch)
+                .calculateFinalPrice(cart("APPLE"), Collections.emptySet(), "credit_card", "UK"));
+        assertEquals(ErrorCode.SYS_501_SERVICE_UNAVAILABLE, ex.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Bulk pricing reads each product once and reports failures per cart")
+    void bulkPricing_ShouldShareReadsAcrossCarts() {
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
+        when(catalogReadRepository.findById("APPLE")).thenReturn(Optional.of(apple));
+        when(catalogReadRepository.findById("GHOST")).thenReturn(Optional.empty());
+        when(discountRuleRepository.findActiveRulesByProductAndHierarchy(anyString(), anyList())).thenReturn(Collections.emptyList());
+
+        List<BulkCheckoutResultDto> results = new ArrayList<>();
+        service(CheckoutTimings.defaults()).priceCarts(
+                List.of(bulkCart("first", "APPLE"), bulkCart("second", "APPLE"), bulkCart("broken", "APPLE", "GHOST")),
+                "credit_card", "UK", results::add);
+
+        Map<String, BulkCheckoutResultDto> byReference = results.stream()
+                .collect(Collectors.toMap(BulkCheckoutResultDto::getReference, Function.identity()));
+        assertEquals(3, results.size());
+        assertEquals(35, byReference.get("first").getResult().getFinalTotalPrice());
+        assertEquals(35, byReference.get("second").getResult().getFinalTotalPrice());
+        assertEquals(ErrorCode.VAL_300_INVALID_PARAMS.getCode(), byReference.get("broken").getErrorCode());
+        verify(catalogReadRepository, times(1)).findById("APPLE");
+        verify(inventoryReadService, times(1)).isInStock("APPLE", "UK", 1);
+    }
+
+    @Test
+    @DisplayName("Bulk pricing reports stock failures as such and any other failure as an internal error")
+    void bulkPricing_ShouldOnlyReportStockFailuresAsStock() {
+        when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
+        when(inventoryReadService.isInStock("PEAR", "UK", 1)).thenReturn(false);
+        when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(apple));
+        when(discountRuleRepository.findActiveRulesByProductAndHierarchy(anyString(), anyList())).thenReturn(Collections.emptyList());
+        when(priceSanitizer.sanitize(any(CheckoutResponseDto.class))).thenAnswer(invocation -> {
+            CheckoutResponseDto response = invocation.getArgument(0);
+            if (response.getOriginalTotalPrice() > 35) {
+                throw new IllegalStateException("Sanitizer misconfigured");
+            }
+            return response;
+        });
+
+        List<BulkCheckoutResultDto> results = new ArrayList<>();
+        service(CheckoutTimings.defaults()).priceCarts(
+                List.of(bulkCart("understocked", "PEAR"), bulkCart("failing", "APPLE", "APPLE")),
+                "credit_card", "UK", results::add);
+
+        Map<String, BulkCheckoutResultDto> byReference = results.stream()
+                .collect(Collectors.toMap(BulkCheckoutResultDto::getReference, Function.identity()));
+        assertEquals(ErrorCode.PROD_103_INSUFFICIENT_STOCK.getCode(), byReference.get("understocked").getErrorCode());
+        assertEquals(ErrorCode.SYS_500_INTERNAL_ERROR.getCode(), byReference.get("failing").getErrorCode());
+    }
+
+    private CheckoutServiceImpl service(CheckoutTimings timings) {
+        return new CheckoutServiceImpl(discountRuleRepository, catalogReadRepository, inventoryReadService, null, null,
+                conditionEvaluator, conflictResolver, actionApplier, priceSanitizer, null, timings);
+    }
+
+    private static BulkCheckoutRequestDto.BulkCart bulkCart(String reference, String... productIds) {
+        BulkCheckoutRequestDto.BulkCart bulkCart = new BulkCheckoutRequestDto.BulkCart();
+        bulkCart.setReference(reference);
+        bulkCart.setItems(cart(productIds).getItems());
+        return bulkCart;
+    }
+
+    private static CartDto cart(String... productIds) {
+        CartDto cart = new CartDto();
+        List<CartItemDto> items = new ArrayList<>();
+        for (String productId : productIds) {
+            CartItemDto item = new CartItemDto();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        cart.setItems(items);
+        return cart;
+    }
+}
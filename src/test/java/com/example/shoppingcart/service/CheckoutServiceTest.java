@@ -4,6 +4,8 @@ import com.example.shoppingcart.dto.AppliedDiscountDto;
 import com.example.shoppingcart.dto.CartDto;
 import com.example.shoppingcart.dto.CartItemDto;
 import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
 import com.example.shoppingcart.model.dynamo.CatalogItem;
 import com.example.shoppingcart.model.dynamo.DiscountRule;
 import com.example.shoppingcart.repository.CatalogReadRepository;
@@ -71,15 +73,18 @@ class CheckoutServiceTest {
 
         // By default, mock the sanitizer to return the object it receives.
         when(priceSanitizer.sanitize(any(CheckoutResponseDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Batch catalog reads resolve through the per-product stubs
+        lenient().when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
     }
 
     @Test
-    @DisplayName("Should throw IllegalStateException when an item is out of stock")
+    @DisplayName("Should reject the checkout as insufficient stock when an item is out of stock")
     void testOutOfStock_ShouldThrowException() {
     when(inventoryReadService.isInStock("item-1", "UK", 1)).thenReturn(false);
 
-        assertThrows(IllegalStateException.class, () ->
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class, () ->
             checkoutService.calculateFinalPrice(cart, Collections.emptySet(), "credit_card", "UK"));
+        assertEquals(ErrorCode.PROD_103_INSUFFICIENT_STOCK, thrown.getErrorCode());
     }
 
     @Test
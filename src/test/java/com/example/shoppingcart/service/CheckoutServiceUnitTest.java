@@ -50,6 +50,8 @@ public class CheckoutServiceUnitTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        // Batch catalog reads resolve through the per-product stubs
+        when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
     }
 
     @Test
@@ -31,6 +31,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -71,6 +72,7 @@ class DiscountEdgeCasesTest {
         // default mocks
     when(inventoryReadService.isInStock(anyString(), anyString(), anyInt())).thenReturn(true);
     when(catalogReadRepository.findById(anyString())).thenReturn(Optional.of(item));
+    lenient().when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
     when(conditionEvaluator.areConditionsMet(any(), any())).thenReturn(true);
     }
 
@@ -51,6 +51,8 @@ public class DiscountEngineUnitTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
+        // Batch catalog reads resolve through the per-product stubs
+        when(catalogReadRepository.findAllByIds(any(), any())).thenCallRealMethod();
     }
 
     @Test
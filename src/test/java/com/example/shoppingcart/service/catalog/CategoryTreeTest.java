@@ -0,0 +1,238 @@
+package com.example.shoppingcart.service.catalog;
+
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.postgres.Category;
+import com.example.shoppingcart.repository.CatalogPage;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.repository.jpa.CategoryJpaRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryTreeTest {
+
+    @Test
+    void normalisesCategoryPaths() {
+        assertEquals("/FRUIT/", CategoryTree.path("fruit"));
+        assertEquals("/FOOD/FRUIT/", CategoryTree.path("/Food/Fruit/"));
+        assertEquals("/FOOD/FRUIT/", CategoryTree.path(" food // fruit "));
+        assertEquals(CategoryTree.ROOT_PATH, CategoryTree.path(null));
+        assertEquals(CategoryTree.ROOT_PATH, CategoryTree.path(""));
+    }
+
+    @Test
+    void countsDistinctProductsOverTheWholeSubtree() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .item(item("APPLE", "UK", "/FOOD/FRUIT/", 5))
+                .item(item("APPLE", "US", "/FOOD/FRUIT/", 0))
+                .item(item("PEAR", "UK", "/FOOD/FRUIT/", 0))
+                .item(item("BREAD", "UK", "/FOOD/BAKERY/", 2))
+                .item(item("SOAP", "US", "/HOME/", 1))
+                .build();
+
+        CategoryNode food = tree.find("food").orElseThrow();
+        assertEquals(new CategoryNode.Counts(3, 2), food.counts(null));
+        assertEquals(new CategoryNode.Counts(3, 2), food.counts("UK"));
+        assertEquals(new CategoryNode.Counts(1, 0), food.counts("US"));
+        assertEquals(CategoryNode.Counts.NONE, food.counts("FR"));
+        assertEquals(new CategoryNode.Counts(4, 3), tree.getRoot().counts(null));
+        assertEquals(List.of("BAKERY", "FRUIT"), food.getChildren().stream().map(CategoryNode::getName).toList());
+        assertEquals(new CategoryNode.Counts(2, 1), tree.find("/food/fruit").orElseThrow().counts(null));
+        assertTrue(tree.find("toys").isEmpty());
+    }
+
+    @Test
+    void declaredCategoriesAppearWithoutProducts() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .category("/FOOD/DAIRY/", "Dairy")
+                .build();
+
+        CategoryNode dairy = tree.find("food/dairy").orElseThrow();
+        assertEquals("Dairy", dairy.getName());
+        assertEquals(CategoryNode.Counts.NONE, dairy.counts(null));
+        assertEquals("FOOD", tree.find("food").orElseThrow().getName());
+    }
+
+    @Test
+    void firstPageFollowsIndexOrderAndContinuesWhenThereAreMore() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .item(item("PEAR", "UK", "/FRUIT/", 1))
+                .item(item("APPLE", "UK", "/FRUIT/", 1))
+                .item(item("APPLE", "US", "/FRUIT/", 1))
+                .build();
+        CategoryNode fruit = tree.find("fruit").orElseThrow();
+
+        CatalogPage first = fruit.firstPage(2).orElseThrow();
+        assertEquals(List.of("PRODUCT#APPLE", "PRODUCT#APPLE"), first.items().stream().map(CatalogItem::getPk).toList());
+        assertEquals(List.of("REGION#UK", "REGION#US"), first.items().stream().map(CatalogItem::getSk).toList());
+        assertNotNull(first.nextPageToken());
+
+        CatalogPage all = fruit.firstPage(10).orElseThrow();
+        assertEquals(3, all.items().size());
+        assertNull(all.nextPageToken());
+    }
+
+    @Test
+    void firstPageIsEmptyWhenItReachesPastTheMaterialisedItems() {
+        CategoryTree tree = new CategoryTreeBuilder(2)
+                .item(item("A", "UK", "/FRUIT/", 1))
+                .item(item("B", "UK", "/FRUIT/", 1))
+                .item(item("C", "UK", "/FRUIT/", 1))
+                .build();
+        CategoryNode fruit = tree.find("fruit").orElseThrow();
+
+        assertEquals(List.of("PRODUCT#A", "PRODUCT#B"), fruit.firstPage(2).orElseThrow().items().stream()
+                .map(CatalogItem::getPk).toList());
+        assertTrue(fruit.firstPage(3).isEmpty());
+    }
+
+    @Test
+    void itemsStoredUnderANonCanonicalCategoryAreCountedButNotListed() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .item(item("KIWI", "UK", "fruit", 1))
+                .build();
+        CategoryNode fruit = tree.find("fruit").orElseThrow();
+
+        assertEquals(new CategoryNode.Counts(1, 1), fruit.counts(null));
+        assertTrue(fruit.getFirstItems().isEmpty());
+    }
+
+    @Test
+    void landingItemsAreRegional() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .item(item("APPLE", "UK", "/FRUIT/", 1))
+                .item(item("PEAR", "UK", "/FRUIT/", 1))
+                .item(item("MANGO", "US", "/FRUIT/", 1))
+                .build();
+        CategoryNode fruit = tree.find("fruit").orElseThrow();
+
+        assertEquals(List.of("PRODUCT#APPLE"), fruit.firstItems("UK", 1).stream().map(CatalogItem::getPk).toList());
+        assertEquals(List.of("PRODUCT#MANGO"), fruit.firstItems("US", 10).stream().map(CatalogItem::getPk).toList());
+        assertTrue(fruit.firstItems("FR", 10).isEmpty());
+    }
+
+    @Test
+    void listingsAreIndexedByBareProductId() {
+        CategoryTree tree = new CategoryTreeBuilder(100)
+                .item(item("APPLE", "UK", "/FOOD/FRUIT/", 1))
+                .build();
+
+        assertEquals(Set.of("/FOOD/FRUIT/"), tree.listedUnder("APPLE"));
+        assertTrue(tree.listedUnder("PRODUCT#APPLE").isEmpty());
+    }
+
+    @Test
+    void registryBuildsPathsFromTheCategoryParentChain() {
+        CategoryJpaRepository categories = mock(CategoryJpaRepository.class);
+        CatalogReadRepository catalog = mock(CatalogReadRepository.class);
+        Category deleted = category(3L, "Toys", null);
+        deleted.setDeleted(true);
+        when(categories.findAll()).thenReturn(List.of(category(1L, "Food", null), category(2L, "Fruit", 1L), deleted));
+        when(catalog.streamAll()).thenReturn(Stream.of(item("APPLE", "UK", "/FOOD/FRUIT/", 3)));
+        CategoryTreeRegistry registry = new CategoryTreeRegistry(categories, catalog,
+                mock(RedisMessageListenerContainer.class), 5);
+
+        assertSame(CategoryTree.EMPTY, registry.current());
+        assertEquals(3, registry.refresh());
+
+        CategoryNode fruit = registry.current().find("food/fruit").orElseThrow();
+        assertEquals("Fruit", fruit.getName());
+        assertEquals(new CategoryNode.Counts(1, 1), fruit.counts("UK"));
+        assertTrue(registry.current().find("toys").isEmpty());
+    }
+
+    @Test
+    void productAnnouncementServesTheAffectedListingsFromTheIndexUntilTheNextRebuild() {
+        CategoryJpaRepository categories = mock(CategoryJpaRepository.class);
+        CatalogReadRepository catalog = mock(CatalogReadRepository.class);
+        when(categories.findAll()).thenReturn(List.of());
+        when(catalog.streamAll()).thenAnswer(invocation -> Stream.of(
+                item("APPLE", "UK", "/FRUIT/", 1), item("CARROT", "UK", "/VEG/", 1), item("SOAP", "UK", "/HOME/", 1)));
+        CategoryTreeRegistry registry = new CategoryTreeRegistry(categories, catalog,
+                mock(RedisMessageListenerContainer.class), 5);
+        registry.refresh();
+        assertTrue(registry.firstPage("fruit", 10).isPresent());
+
+        // APPLE was re-filed under vegetables, so both its old and its new listing are stale.
+        when(catalog.findById("APPLE")).thenReturn(Optional.of(item("APPLE", "UK", "/VEG/", 1)));
+        registry.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+        registry.onMessage(message(CartChangeBus.CART_PREFIX + "CART-1"), null);
+
+        assertTrue(registry.firstPage("fruit", 10).isEmpty());
+        assertTrue(registry.firstPage("veg", 10).isEmpty());
+        assertTrue(registry.firstPage("home", 10).isPresent());
+
+        registry.refresh();
+        assertTrue(registry.firstPage("fruit", 10).isPresent());
+        assertTrue(registry.firstPage("veg", 10).isPresent());
+    }
+
+    @Test
+    void unreadableChangedProductServesEveryListingFromTheIndex() {
+        CategoryJpaRepository categories = mock(CategoryJpaRepository.class);
+        CatalogReadRepository catalog = mock(CatalogReadRepository.class);
+        when(categories.findAll()).thenReturn(List.of());
+        when(catalog.streamAll()).thenAnswer(invocation -> Stream.of(item("SOAP", "UK", "/HOME/", 1)));
+        CategoryTreeRegistry registry = new CategoryTreeRegistry(categories, catalog,
+                mock(RedisMessageListenerContainer.class), 5);
+        registry.refresh();
+
+        when(catalog.findById("PEAR")).thenThrow(new IllegalStateException("DynamoDB unavailable"));
+        assertDoesNotThrow(() -> registry.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "PEAR"), null));
+
+        assertTrue(registry.firstPage("home", 10).isEmpty());
+        registry.refresh();
+        assertTrue(registry.firstPage("home", 10).isPresent());
+    }
+
+    @Test
+    void startSubscribesToProductAnnouncements() {
+        RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+        CategoryTreeRegistry registry = new CategoryTreeRegistry(mock(CategoryJpaRepository.class),
+                mock(CatalogReadRepository.class), listenerContainer, 5);
+
+        registry.start();
+        registry.stop();
+
+        verify(listenerContainer).addMessageListener(eq(registry), eq(new ChannelTopic(CartChangeBus.CHANNEL)));
+        verify(listenerContainer).removeMessageListener(registry);
+    }
+
+    private static Message message(String body) {
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return message;
+    }
+
+    private static CatalogItem item(String productId, String region, String category, int stock) {
+        CatalogItem item = new CatalogItem();
+        item.setPk("PRODUCT#" + productId);
+        item.setSk("REGION#" + region);
+        item.setRegion(region);
+        item.setCategoryHierarchy(category);
+        item.setStock(stock);
+        return item;
+    }
+
+    private static Category category(Long id, String name, Long parentId) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setParentId(parentId);
+        return category;
+    }
+}
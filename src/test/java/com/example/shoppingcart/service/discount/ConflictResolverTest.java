@@ -0,0 +1,92 @@
+package com.example.shoppingcart.service.discount;
+
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConflictResolverTest {
+
+    private final Map<DiscountRule, Integer> savings = new IdentityHashMap<>();
+    private final Map<DiscountRule, Integer> applyCalls = new IdentityHashMap<>();
+
+    private final Function<DiscountRule, List<AppliedDiscountDto>> applyRule = rule -> {
+        applyCalls.merge(rule, 1, Integer::sum);
+        return List.of(new AppliedDiscountDto(rule.getRuleId(), savings.get(rule)));
+    };
+
+    @Test
+    @DisplayName("Priority mode keeps the highest priority rule even when another saves more")
+    void priorityMode_ShouldIgnoreSaving() {
+        DiscountRule highPriority = rule("HIGH", "G1", 10, 100);
+        DiscountRule bigSaving = rule("BIG", "G1", 1, 500);
+
+        ConflictResolver resolver = new ConflictResolver();
+
+        assertFalse(resolver.isOptimising());
+        assertEquals(List.of(highPriority), resolver.resolveNonStackable(List.of(highPriority, bigSaving)));
+    }
+
+    @Test
+    @DisplayName("Best-for-customer mode picks the largest saving in each exclusivity group")
+    void bestForCustomer_ShouldMaximiseSaving() {
+        DiscountRule highPriority = rule("HIGH", "G1", 10, 100);
+        DiscountRule bigSaving = rule("BIG", "G1", 1, 500);
+        DiscountRule other = rule("OTHER", "G2", 5, 50);
+
+        ConflictResolver resolver = new ConflictResolver("BEST_FOR_CUSTOMER", 10_000, 1_000);
+        ConflictResolution resolution = resolver.resolveBestForCustomer(List.of(highPriority, bigSaving, other), applyRule, 10_000);
+
+        assertTrue(resolver.isOptimising());
+        assertEquals(ResolutionMode.BEST_FOR_CUSTOMER, resolution.getMode());
+        assertEquals(List.of(bigSaving, other), resolution.getRules());
+        assertEquals(550, resolution.getAppliedDiscounts().stream().mapToInt(AppliedDiscountDto::getAmount).sum());
+        // Each rule's actions run once, however many combinations include it.
+        applyCalls.values().forEach(calls -> assertEquals(1, calls));
+    }
+
+    @Test
+    @DisplayName("Savings beyond the cart subtotal do not count, so ties go to the higher priority rule")
+    void bestForCustomer_ShouldCapSavingAtSubtotal() {
+        DiscountRule preferred = rule("PREFERRED", "G1", 10, 300);
+        DiscountRule larger = rule("LARGER", "G1", 1, 900);
+
+        ConflictResolution resolution = new ConflictResolver("BEST_FOR_CUSTOMER", 10_000, 1_000)
+                .resolveBestForCustomer(List.of(larger, preferred), applyRule, 200);
+
+        assertEquals(List.of(preferred), resolution.getRules());
+    }
+
+    @Test
+    @DisplayName("Falls back to priority resolution when the search budget is exhausted")
+    void bestForCustomer_ShouldFallBackWhenBudgetExceeded() {
+        DiscountRule highPriority = rule("HIGH", "G1", 10, 100);
+        DiscountRule bigSaving = rule("BIG", "G1", 1, 500);
+
+        ConflictResolution resolution = new ConflictResolver("BEST_FOR_CUSTOMER", 1, 1_000)
+                .resolveBestForCustomer(List.of(highPriority, bigSaving), applyRule, 10_000);
+
+        assertEquals(ResolutionMode.PRIORITY_FALLBACK, resolution.getMode());
+        assertEquals(List.of(highPriority), resolution.getRules());
+        assertEquals(100, resolution.getAppliedDiscounts().get(0).getAmount());
+    }
+
+    private DiscountRule rule(String id, String group, int priority, int saving) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(id);
+        rule.setExclusivityGroup(group);
+        rule.setPriority(priority);
+        rule.setIsStackable(false);
+        savings.put(rule, saving);
+        return rule;
+    }
+}
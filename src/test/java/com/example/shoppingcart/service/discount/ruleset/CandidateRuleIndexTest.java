@@ -0,0 +1,108 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.BuyXGetYFreeDiscountStrategy;
+import com.example.shoppingcart.service.discount.FlatDiscountStrategy;
+import com.example.shoppingcart.service.discount.action.FixedAmountOffCartStrategy;
+import com.example.shoppingcart.service.discount.action.PercentageOffCategoryStrategy;
+import com.example.shoppingcart.service.discount.action.PercentageOffProductStrategy;
+import com.example.shoppingcart.service.discount.strategy.CartContainsStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CandidateRuleIndexTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(
+            List.of(new CartContainsStrategy()),
+            List.of(new PercentageOffProductStrategy(), new PercentageOffCategoryStrategy(), new FixedAmountOffCartStrategy()),
+            Collections.emptyMap());
+
+    @Test
+    @DisplayName("Only rules targeting the cart's products or categories are candidates, plus global rules")
+    void candidatesFor_filtersByProductAndCategoryPrefix() {
+        RuleSet ruleSet = compiler.compile(List.of(
+                rule("APPLE_PCT", 1, action("PERCENTAGE_OFF_PRODUCT", "APPLE", null)),
+                rule("MELON_PCT", 2, action("PERCENTAGE_OFF_PRODUCT", "MELON", null)),
+                rule("FOOD_PCT", 3, action("PERCENTAGE_OFF_CATEGORY", null, "/FOOD/")),
+                rule("TOYS_PCT", 4, action("PERCENTAGE_OFF_CATEGORY", null, "/TOYS/")),
+                rule("FIVE_OFF", 5, action("FIXED_AMOUNT_OFF_CART", null, null))
+        ), 1L);
+
+        List<CompiledRule> candidates = ruleSet.candidatesFor(Set.of("APPLE"), Set.of("/FOOD/FRUIT/"));
+
+        assertEquals(List.of("APPLE_PCT", "FOOD_PCT", "FIVE_OFF"),
+                candidates.stream().map(CompiledRule::getRuleId).toList());
+        assertEquals(1, ruleSet.globalRuleCount());
+    }
+
+    @Test
+    @DisplayName("A CART_CONTAINS condition files the rule under that product even for cart-wide actions")
+    void candidatesFor_usesCartContainsAsNecessaryCondition() {
+        DiscountRule rule = rule("BUY_LIMES", 1, action("FIXED_AMOUNT_OFF_CART", null, null));
+        DiscountRule.Condition condition = new DiscountRule.Condition();
+        condition.setType("CART_CONTAINS");
+        condition.setProductId("LIME");
+        condition.setQuantity(3);
+        rule.setConditions(List.of(condition));
+
+        RuleSet ruleSet = compiler.compile(List.of(rule), 1L);
+
+        assertEquals(0, ruleSet.candidatesFor(Set.of("APPLE"), Set.of("/FOOD/")).size());
+        assertEquals(1, ruleSet.candidatesFor(Set.of("LIME"), Set.of("/FOOD/")).size());
+    }
+
+    @Test
+    @DisplayName("Bean-strategy rules are filed under the categories of their pricing scope")
+    void candidatesFor_narrowsStrategyRulesByPricingScope() {
+        RuleCompiler strategyCompiler = new RuleCompiler(List.of(), List.of(), Map.of(
+                "buyXGetYFreeDiscountStrategy", new BuyXGetYFreeDiscountStrategy(),
+                "flatDiscountStrategy", new FlatDiscountStrategy()));
+        DiscountRule fruitOffer = strategyRule("FRUIT_3FOR2", 1, "buyXGetYFreeDiscountStrategy");
+        fruitOffer.setApplicableCategories(List.of("fruit"));
+        DiscountRule toyOffer = strategyRule("TOYS_3FOR2", 2, "buyXGetYFreeDiscountStrategy");
+        toyOffer.setApplicableCategories(List.of("toys"));
+        DiscountRule flat = strategyRule("FLAT", 3, "flatDiscountStrategy");
+
+        RuleSet ruleSet = strategyCompiler.compile(List.of(fruitOffer, toyOffer, flat), 1L);
+
+        assertEquals(List.of("FRUIT_3FOR2", "FLAT"), ruleSet.candidatesFor(Set.of("APPLE"), Set.of("FRUIT"))
+                .stream().map(CompiledRule::getRuleId).toList());
+        assertEquals(List.of("FLAT"), ruleSet.candidatesFor(Set.of("BREAD"), Set.of("BAKERY"))
+                .stream().map(CompiledRule::getRuleId).toList());
+        assertEquals(1, ruleSet.globalRuleCount());
+    }
+
+    private DiscountRule strategyRule(String id, int priority, String strategyBeanName) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(id);
+        rule.setActive(true);
+        rule.setPriority(priority);
+        rule.setStrategyBeanName(strategyBeanName);
+        return rule;
+    }
+
+    private DiscountRule rule(String id, int priority, DiscountRule.Action action) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(id);
+        rule.setActive(true);
+        rule.setPriority(priority);
+        rule.setActions(List.of(action));
+        return rule;
+    }
+
+    private DiscountRule.Action action(String type, String productId, String categoryPath) {
+        DiscountRule.Action action = new DiscountRule.Action();
+        action.setType(type);
+        action.setProductId(productId);
+        action.setCategoryPath(categoryPath);
+        action.setValue(10);
+        return action;
+    }
+}
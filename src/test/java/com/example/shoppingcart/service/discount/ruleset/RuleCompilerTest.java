@@ -0,0 +1,128 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.dto.AppliedDiscountDto;
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.EvaluationContext;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.action.PercentageOffProductStrategy;
+import com.example.shoppingcart.service.discount.strategy.CartContainsStrategy;
+import com.example.shoppingcart.service.discount.strategy.CartSubtotalStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleCompilerTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(
+            List.of(new CartContainsStrategy(), new CartSubtotalStrategy()),
+            List.of(new PercentageOffProductStrategy()),
+            Collections.emptyMap());
+
+    private final ConditionEvaluator conditionEvaluator = new ConditionEvaluator(
+            List.of(new CartContainsStrategy(), new CartSubtotalStrategy()));
+
+    private final ActionApplier actionApplier = new ActionApplier(List.of(new PercentageOffProductStrategy()));
+
+    @Test
+    @DisplayName("Compiled rules are ordered by priority and evaluate without re-resolving types")
+    void compile_ordersByPriorityAndEvaluates() {
+        DiscountRule low = appleRule("LOW", 5, 10);
+        DiscountRule high = appleRule("HIGH", 1, 20);
+
+        RuleSet ruleSet = compiler.compile(List.of(low, high), 7L);
+
+        assertEquals(7L, ruleSet.getVersion());
+        assertEquals(List.of("HIGH", "LOW"), ruleSet.getRules().stream().map(CompiledRule::getRuleId).toList());
+
+        EvaluationContext context = contextWithApples(2);
+        CompiledRule first = ruleSet.getRules().get(0);
+        assertTrue(conditionEvaluator.matches(first, context));
+
+        List<AppliedDiscountDto> applied = actionApplier.applyCompiled(List.of(first), context);
+        assertEquals(1, applied.size());
+        assertEquals(20, applied.get(0).getAmount());
+        assertEquals("HIGH", applied.get(0).getRuleId());
+    }
+
+    @Test
+    @DisplayName("Compiled evaluation agrees with the raw bean path")
+    void compiledAndRawPathsAgree() {
+        DiscountRule rule = appleRule("R1", 1, 10);
+        CompiledRule compiled = compiler.compileRule(rule);
+
+        for (int quantity = 0; quantity <= 3; quantity++) {
+            EvaluationContext context = contextWithApples(quantity);
+            assertEquals(conditionEvaluator.areConditionsMet(rule, context), conditionEvaluator.matches(compiled, context));
+        }
+    }
+
+    @Test
+    @DisplayName("Rules with unknown condition types and inactive rules are dropped")
+    void compile_dropsUnusableRules() {
+        DiscountRule unknown = appleRule("UNKNOWN", 1, 10);
+        unknown.getConditions().get(0).setType("NOT_A_CONDITION");
+        DiscountRule inactive = appleRule("INACTIVE", 1, 10);
+        inactive.setActive(false);
+
+        assertEquals(0, compiler.compile(List.of(unknown, inactive), 1L).size());
+    }
+
+    @Test
+    @DisplayName("Validity window is pre-parsed and checked against epoch millis")
+    void compiledRule_respectsValidityWindow() {
+        DiscountRule rule = appleRule("WINDOW", 1, 10);
+        rule.setStartDate(LocalDateTime.of(2024, 1, 1, 0, 0));
+        rule.setEndDate(LocalDateTime.of(2024, 1, 31, 23, 59));
+
+        CompiledRule compiled = compiler.compileRule(rule);
+
+        long inside = LocalDateTime.of(2024, 1, 15, 12, 0).toInstant(java.time.ZoneOffset.UTC).toEpochMilli();
+        long after = LocalDateTime.of(2024, 2, 1, 0, 0).toInstant(java.time.ZoneOffset.UTC).toEpochMilli();
+        assertTrue(compiled.isLiveAt(inside));
+        assertFalse(compiled.isLiveAt(after));
+    }
+
+    private DiscountRule appleRule(String id, int priority, int percentage) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(id);
+        rule.setRuleName(id);
+        rule.setActive(true);
+        rule.setPriority(priority);
+
+        DiscountRule.Condition condition = new DiscountRule.Condition();
+        condition.setType("cart_contains");
+        condition.setProductId("APPLE");
+        condition.setQuantity(2);
+        rule.setConditions(new java.util.ArrayList<>(List.of(condition)));
+
+        DiscountRule.Action action = new DiscountRule.Action();
+        action.setType("PERCENTAGE_OFF_PRODUCT");
+        action.setProductId("APPLE");
+        action.setValue(percentage);
+        rule.setActions(List.of(action));
+        return rule;
+    }
+
+    private EvaluationContext contextWithApples(int quantity) {
+        CartItemDto item = new CartItemDto();
+        item.setProductId("APPLE");
+        item.setQuantity(quantity);
+        CartDto cart = new CartDto();
+        cart.setItems(List.of(item));
+
+        CatalogItem apple = new CatalogItem();
+        apple.setName("Apple");
+        apple.setPrice(100);
+        return new EvaluationContext(cart, Collections.emptySet(), "card", Map.of("APPLE", apple));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.shoppingcart.service.discount.ruleset;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RuleSetRegistryTest {
+
+    private final DiscountRuleRepository repository = mock(DiscountRuleRepository.class);
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    private final RuleCompiler compiler = new RuleCompiler(List.of(), List.of(), Map.of());
+
+    @Test
+    void rulesAnnouncementReloadsTheSnapshot() {
+        RuleSetRegistry registry = new RuleSetRegistry(repository, compiler, listenerContainer, 60_000);
+        when(repository.findActiveAndOrderedRules()).thenReturn(List.of());
+        assertEquals(0, registry.current().size());
+
+        when(repository.findActiveAndOrderedRules()).thenReturn(List.of(rule("NEW")));
+        registry.onMessage(message(CartChangeBus.RULES), null);
+
+        assertEquals(List.of("NEW"), registry.current().getRules().stream().map(CompiledRule::getRuleId).toList());
+    }
+
+    @Test
+    void otherAnnouncementsAreIgnored() {
+        RuleSetRegistry registry = new RuleSetRegistry(repository, compiler, listenerContainer, 60_000);
+
+        registry.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+        registry.onMessage(message(CartChangeBus.CART_PREFIX + "CART-1"), null);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void failedReloadKeepsThePreviousSnapshot() {
+        RuleSetRegistry registry = new RuleSetRegistry(repository, compiler, listenerContainer, 60_000);
+        when(repository.findActiveAndOrderedRules()).thenReturn(List.of(rule("OLD")));
+        RuleSet previous = registry.current();
+
+        when(repository.findActiveAndOrderedRules()).thenThrow(new IllegalStateException("DynamoDB unavailable"));
+        assertDoesNotThrow(() -> registry.onMessage(message(CartChangeBus.RULES), null));
+
+        assertSame(previous, registry.current());
+    }
+
+    @Test
+    void startSubscribesAndReloadsPeriodicallyWithoutAnnouncements() throws InterruptedException {
+        RuleSetRegistry registry = new RuleSetRegistry(repository, compiler, listenerContainer, 10);
+        when(repository.findActiveAndOrderedRules()).thenReturn(List.of());
+        registry.start();
+        try {
+            verify(listenerContainer).addMessageListener(eq(registry), eq(new ChannelTopic(CartChangeBus.CHANNEL)));
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (mockingDetails(repository).getInvocations().size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            verify(repository, atLeast(2)).findActiveAndOrderedRules();
+            assertTrue(registry.peek().getVersion() >= 2);
+        } finally {
+            registry.stop();
+        }
+        verify(listenerContainer).removeMessageListener(registry);
+    }
+
+    private static Message message(String body) {
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return message;
+    }
+
+    private static DiscountRule rule(String ruleId) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(ruleId);
+        rule.setActive(true);
+        return rule;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.IdleCartPage;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.example.shoppingcart.service.CartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartCompactorTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    private final ShoppingCartRepository cartRepository = mock(ShoppingCartRepository.class);
+    private final CartStore cartStore = mock(CartStore.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+    private final CartCompactor compactor = new CartCompactor(cartRepository, cartStore, redisTemplate, false, 72, 60, 100, 1_000);
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    }
+
+    @Test
+    @DisplayName("A pass archives the idle carts the store agrees to and counts only those")
+    void compact_ShouldArchiveIdleCarts() {
+        ShoppingCart idle = cart("CART-1");
+        ShoppingCart revived = cart("CART-2");
+        when(cartRepository.findIdleSince(NOW.minus(Duration.ofHours(72)), 100, 1_000, null))
+                .thenReturn(new IdleCartPage(List.of(idle, revived), null));
+        when(cartStore.archive(idle)).thenReturn(true);
+        when(cartStore.archive(revived)).thenReturn(false);
+
+        assertEquals(1, compactor.compact(NOW));
+        verify(cartStore).archive(revived);
+    }
+
+    @Test
+    @DisplayName("A pass resumes from the stored cursor and stores where its bounded scan stopped")
+    void compact_ShouldResumeFromStoredCursor() {
+        when(valueOps.get(CartCompactor.CURSOR_KEY)).thenReturn("CART-5");
+        when(cartRepository.findIdleSince(NOW.minus(Duration.ofHours(72)), 100, 1_000, "CART-5"))
+                .thenReturn(new IdleCartPage(List.of(), "CART-9"));
+
+        assertEquals(0, compactor.compact(NOW));
+        verify(valueOps).set(CartCompactor.CURSOR_KEY, "CART-9");
+    }
+
+    @Test
+    @DisplayName("A pass that reaches the end of the table clears the cursor so the next one starts over")
+    void compact_AtEndOfTable_ShouldClearCursor() {
+        when(valueOps.get(CartCompactor.CURSOR_KEY)).thenReturn("CART-9");
+        when(cartRepository.findIdleSince(NOW.minus(Duration.ofHours(72)), 100, 1_000, "CART-9"))
+                .thenReturn(new IdleCartPage(List.of(), null));
+
+        compactor.compact(NOW);
+        verify(redisTemplate).delete(CartCompactor.CURSOR_KEY);
+    }
+
+    private static ShoppingCart cart(String cartId) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId(cartId);
+        return cart;
+    }
+}
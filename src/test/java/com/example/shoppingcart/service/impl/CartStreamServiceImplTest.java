@@ -0,0 +1,106 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.CatalogItem;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CatalogReadRepository;
+import com.example.shoppingcart.service.CartStore;
+import com.example.shoppingcart.service.PriceCalculationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartStreamServiceImplTest {
+
+    private final CartStore cartStore = mock(CartStore.class);
+    private final CatalogReadRepository catalogReadRepository = mock(CatalogReadRepository.class);
+    private final PriceCalculationService priceCalculationService = mock(PriceCalculationService.class);
+    private final CartStreamServiceImpl streams = new CartStreamServiceImpl(cartStore, catalogReadRepository,
+            priceCalculationService, mock(RedisMessageListenerContainer.class), 60_000, 20, 2);
+
+    @BeforeEach
+    void setUp() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setVersion(3L);
+        cart.setRegion("IE");
+        cart.setItems(new ArrayList<>(List.of(new ShoppingCart.CartItemData("APPLE", 2, new BigDecimal("100"),
+                new BigDecimal("200"), null, null, null, "FRUIT"))));
+        when(cartStore.find("CART-1")).thenAnswer(invocation -> Optional.of(cart));
+        CatalogItem apple = new CatalogItem();
+        apple.setPrice(80);
+        when(catalogReadRepository.findAllByIds(List.of("APPLE"), "IE")).thenReturn(Map.of("APPLE", apple));
+    }
+
+    @AfterEach
+    void tearDown() {
+        streams.stop();
+    }
+
+    @Test
+    @DisplayName("Opening a stream pushes the stored cart straight away, without re-pricing it")
+    void subscribe_ShouldPushCurrentSnapshot() {
+        streams.subscribe("CART-1");
+
+        verify(cartStore, timeout(1_000)).find("CART-1");
+        verify(priceCalculationService, after(200).never()).calculateCartTotals(any());
+    }
+
+    @Test
+    @DisplayName("A price change for a product in a streamed cart pushes it re-priced at the catalog price")
+    void priceChange_ProductInCart_ShouldReprice() {
+        streams.subscribe("CART-1");
+        verify(cartStore, timeout(1_000)).find("CART-1");
+
+        streams.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+
+        verify(priceCalculationService, timeout(1_000)).calculateCartTotals(any());
+        verify(catalogReadRepository).findAllByIds(List.of("APPLE"), "IE");
+    }
+
+    @Test
+    @DisplayName("A price change for a product no streamed cart holds reads nothing")
+    void priceChange_OtherProduct_ShouldBeIgnored() {
+        streams.subscribe("CART-1");
+        verify(cartStore, timeout(1_000)).find("CART-1");
+
+        streams.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "BREAD"), null);
+
+        verify(priceCalculationService, after(200).never()).calculateCartTotals(any());
+    }
+
+    @Test
+    @DisplayName("Streams beyond the per-instance limit are refused so the client falls back to polling")
+    void subscribe_OverLimit_ShouldRefuse() {
+        streams.subscribe("CART-1");
+        streams.subscribe("CART-2");
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class, () -> streams.subscribe("CART-3"));
+        assertEquals(ErrorCode.SYS_501_SERVICE_UNAVAILABLE, thrown.getErrorCode());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CartChangeBus.CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartPutResult;
+import com.example.shoppingcart.repository.CartTierRepository;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the buffer's Lua scripts against a real Redis. DynamoDB is stood in for by a map that applies the same
+ * "only if the stored version is older" condition as the conditional flush.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class CartWriteBufferRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7.2-alpine"))
+            .withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final ShoppingCartRepository cartRepository = mock(ShoppingCartRepository.class);
+    private final CartTierRepository tier = mock(CartTierRepository.class);
+    private final CartChangeBus changeBus = mock(CartChangeBus.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    // Stands in for the DynamoDB table
+    private final Map<String, ShoppingCart> table = new ConcurrentHashMap<>();
+    private Runnable duringPut = () -> { };
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+        }
+        when(cartRepository.putAllIfNewer(anyList())).thenAnswer(invocation -> {
+            duringPut.run();
+            List<ShoppingCart> conflicts = new ArrayList<>();
+            for (ShoppingCart cart : invocation.<List<ShoppingCart>>getArgument(0)) {
+                ShoppingCart stored = table.get(cart.getCartId());
+                if (stored == null || stored.getVersion() >= cart.getVersion()) {
+                    conflicts.add(cart);
+                } else {
+                    table.put(cart.getCartId(), cart);
+                }
+            }
+            return new CartPutResult(List.of(), conflicts);
+        });
+        table.put("CART-1", cart(5L, ShoppingCart.CartStatus.ACTIVE));
+    }
+
+    @Test
+    @DisplayName("A staged cart is journaled, flushed once its window passed, and released")
+    void stage_ThenFlush_ShouldWriteAndRelease() {
+        CartWriteBuffer buffer = buffer();
+
+        ShoppingCart staged = buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+
+        assertEquals(6L, staged.getVersion());
+        assertEquals(6L, buffer.find("CART-1").orElseThrow().getVersion());
+        assertEquals(0, buffer.flushOlderThan(0));
+        assertEquals(1, buffer.flushOlderThan(Long.MAX_VALUE));
+        assertEquals(6L, table.get("CART-1").getVersion());
+        assertTrue(buffer.find("CART-1").isEmpty());
+        assertFalse(redisTemplate.hasKey(CartWriteBuffer.DUE_KEY));
+    }
+
+    @Test
+    @DisplayName("Coalesced changes stage against the journaled version and reach DynamoDB as one write")
+    void stage_Twice_ShouldCoalesce() {
+        CartWriteBuffer buffer = buffer();
+        buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE)));
+        buffer.stage(cart(6L, ShoppingCart.CartStatus.ACTIVE));
+
+        assertEquals(1, buffer.flushOlderThan(Long.MAX_VALUE));
+        assertEquals(7L, table.get("CART-1").getVersion());
+        verify(cartRepository).putAllIfNewer(anyList());
+    }
+
+    @Test
+    @DisplayName("A writer still holding a read from before a released flush is refused when it stages")
+    void stage_AfterRelease_StaleRead_ShouldConflict() {
+        CartWriteBuffer buffer = buffer();
+        buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+        buffer.flushOlderThan(Long.MAX_VALUE);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE)));
+        assertEquals(7L, buffer.stage(cart(6L, ShoppingCart.CartStatus.ACTIVE)).getVersion());
+    }
+
+    @Test
+    @DisplayName("A writer still holding a read from before a direct write is refused when it stages")
+    void stage_AfterDirectWrite_StaleRead_ShouldConflict() {
+        CartWriteBuffer buffer = buffer();
+        table.put("CART-1", cart(6L, ShoppingCart.CartStatus.CHECKED_OUT));
+        buffer.written("CART-1", 6L);
+        buffer.written("CART-1", 4L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE)));
+        assertTrue(buffer.find("CART-1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A snapshot DynamoDB already overtook is dropped, not written, and the cart is evicted and announced")
+    void flush_Overtaken_ShouldDropSnapshot() {
+        CartWriteBuffer buffer = buffer();
+        // The stale writer staged before the checkout recorded its version, or after that record expired.
+        buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+        table.put("CART-1", cart(6L, ShoppingCart.CartStatus.CHECKED_OUT));
+
+        buffer.flushOlderThan(Long.MAX_VALUE);
+
+        assertEquals(ShoppingCart.CartStatus.CHECKED_OUT, table.get("CART-1").getStatus());
+        assertTrue(buffer.find("CART-1").isEmpty());
+        verify(tier).evict("CART-1");
+        verify(changeBus).cartChanged("CART-1");
+    }
+
+    @Test
+    @DisplayName("A change staged while its cart is being flushed stays journaled for the next flush")
+    void flush_ChangedMeanwhile_ShouldKeepNewerSnapshot() {
+        CartWriteBuffer buffer = buffer();
+        buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+        duringPut = () -> {
+            duringPut = () -> { };
+            buffer.stage(cart(6L, ShoppingCart.CartStatus.ACTIVE));
+        };
+
+        assertEquals(0, buffer.flushOlderThan(Long.MAX_VALUE));
+        assertEquals(7L, buffer.find("CART-1").orElseThrow().getVersion());
+
+        assertEquals(1, buffer.flushOlderThan(Long.MAX_VALUE));
+        assertEquals(7L, table.get("CART-1").getVersion());
+    }
+
+    @Test
+    @DisplayName("Changes acknowledged by an instance that died before flushing are flushed by another instance")
+    void flush_AfterCrash_ShouldRecoverFromJournal() {
+        buffer().stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+
+        CartWriteBuffer survivor = buffer();
+        assertEquals(6L, survivor.find("CART-1").orElseThrow().getVersion());
+        assertEquals(1, survivor.flushOlderThan(Long.MAX_VALUE));
+        assertEquals(6L, table.get("CART-1").getVersion());
+    }
+
+    @Test
+    @DisplayName("Carts DynamoDB left unprocessed stay journaled and a direct flush reports them")
+    void flush_Unprocessed_ShouldRetain() {
+        CartWriteBuffer buffer = buffer();
+        buffer.stage(cart(5L, ShoppingCart.CartStatus.ACTIVE));
+        when(cartRepository.putAllIfNewer(anyList()))
+                .thenAnswer(invocation -> new CartPutResult(invocation.getArgument(0), List.of()));
+
+        assertThrows(ShoppingCartException.class, () -> buffer.flush("CART-1"));
+        assertEquals(6L, buffer.find("CART-1").orElseThrow().getVersion());
+    }
+
+    private CartWriteBuffer buffer() {
+        return new CartWriteBuffer(redisTemplate, cartRepository, tier, changeBus, objectMapper,
+                true, 2_000, 500, 100, 60_000);
+    }
+
+    private static ShoppingCart cart(Long version, ShoppingCart.CartStatus status) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setStatus(status);
+        cart.setVersion(version);
+        return cart;
+    }
+}
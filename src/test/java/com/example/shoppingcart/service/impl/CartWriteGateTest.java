@@ -0,0 +1,134 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartWriteGateTest {
+
+    private static final String LEASE_KEY = CartWriteGate.LEASE_KEY_PREFIX + "CART-1";
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final CartWriteGate gate = new CartWriteGate(redisTemplate, 16, true, 2_000, 50);
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+    }
+
+    @Test
+    @DisplayName("A write runs under a Redis lease that its owner releases afterwards")
+    @SuppressWarnings("unchecked")
+    void run_ShouldLeaseAndRelease() {
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        when(values.setIfAbsent(eq(LEASE_KEY), token.capture(), eq(Duration.ofMillis(2_000)))).thenReturn(true);
+
+        assertEquals("done", gate.run("CART-1", () -> "done"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LEASE_KEY)), eq(token.getValue()));
+    }
+
+    @Test
+    @DisplayName("A cart leased by another instance for longer than the wait is reported as busy")
+    void run_LeasedElsewhere_ShouldReportBusy() {
+        when(values.setIfAbsent(eq(LEASE_KEY), anyString(), any(Duration.class))).thenReturn(false);
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class,
+                () -> gate.run("CART-1", () -> "done"));
+        assertEquals(ErrorCode.CART_007_CONCURRENT_MODIFICATION, thrown.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("When Redis is unreachable the write still runs, guarded by its version check")
+    @SuppressWarnings("unchecked")
+    void run_RedisDown_ShouldStillWrite() {
+        when(values.setIfAbsent(eq(LEASE_KEY), anyString(), any(Duration.class)))
+                .thenThrow(new QueryTimeoutException("down"));
+
+        assertEquals("done", gate.run("CART-1", () -> "done"));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("A write over several carts leases them all in cart id order and releases every lease")
+    @SuppressWarnings("unchecked")
+    void run_SeveralCarts_ShouldLeaseEachInIdOrder() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertEquals("done", gate.run(List.of("GUEST-1", "CART-1", "GUEST-1"), () -> "done"));
+
+        InOrder leases = inOrder(values);
+        leases.verify(values).setIfAbsent(eq(LEASE_KEY), anyString(), any(Duration.class));
+        leases.verify(values).setIfAbsent(eq(CartWriteGate.LEASE_KEY_PREFIX + "GUEST-1"), anyString(), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LEASE_KEY)), anyString());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(CartWriteGate.LEASE_KEY_PREFIX + "GUEST-1")), anyString());
+    }
+
+    @Test
+    @DisplayName("When one of several carts is busy the leases already taken are released")
+    @SuppressWarnings("unchecked")
+    void run_SeveralCarts_OneBusy_ShouldReleaseTheOthers() {
+        when(values.setIfAbsent(eq(LEASE_KEY), anyString(), any(Duration.class))).thenReturn(true);
+        when(values.setIfAbsent(eq(CartWriteGate.LEASE_KEY_PREFIX + "GUEST-1"), anyString(), any(Duration.class)))
+                .thenReturn(false);
+
+        assertThrows(ShoppingCartException.class, () -> gate.run(List.of("CART-1", "GUEST-1"), () -> "done"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LEASE_KEY)), anyString());
+    }
+
+    @Test
+    @DisplayName("A second write to the same cart on this instance waits for the first")
+    void run_SameCart_ShouldRunOneAtATime() throws Exception {
+        CartWriteGate local = new CartWriteGate(redisTemplate, 16, false, 2_000, 50);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> local.run("CART-1", () -> {
+            inside.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(inside.await(1, TimeUnit.SECONDS));
+
+        assertThrows(ShoppingCartException.class, () -> local.run("CART-1", () -> "second"));
+
+        release.countDown();
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+        assertEquals("second", local.run("CART-1", () -> "second"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.dto.CartDto;
+import com.example.shoppingcart.dto.CartItemDto;
+import com.example.shoppingcart.dto.CheckoutResponseDto;
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.redis.CheckoutQuote;
+import com.example.shoppingcart.repository.CheckoutQuoteRepository;
+import com.example.shoppingcart.service.CheckoutService;
+import com.example.shoppingcart.service.discount.ruleset.RuleCompiler;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CheckoutQuoteServiceImplTest {
+
+    @Mock
+    private CheckoutService checkoutService;
+    @Mock
+    private CheckoutQuoteRepository quoteRepository;
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private RuleSetRegistry ruleSetRegistry;
+
+    private CheckoutQuoteServiceImpl quoteService;
+
+    @BeforeEach
+    void setUp() {
+        RuleSet ruleSet = new RuleCompiler(List.of(), List.of(), Map.of()).compile(List.of(), 7L);
+        when(ruleSetRegistry.current()).thenReturn(ruleSet);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(quoteRepository.findById(anyString())).thenReturn(Optional.empty());
+        quoteService = new CheckoutQuoteServiceImpl(checkoutService, quoteRepository, redisTemplate, ruleSetRegistry, 60, 5);
+    }
+
+    @Test
+    @DisplayName("A retry with the same key and cart replays the stored result without re-running checkout")
+    void retry_ShouldReplayStoredResult() {
+        CheckoutResponseDto priced = new CheckoutResponseDto();
+        when(checkoutService.calculateFinalPrice(any(), any(), anyString(), anyString())).thenReturn(priced);
+
+        quoteService.checkout("KEY-1", cart("APPLE", "BREAD"), Set.of("PRIME"), "credit_card", "UK");
+        ArgumentCaptor<CheckoutQuote> stored = ArgumentCaptor.forClass(CheckoutQuote.class);
+        verify(quoteRepository).save(stored.capture());
+        assertEquals(ruleSetRegistry.current().getFingerprint(), stored.getValue().getRuleSetFingerprint());
+        verify(redisTemplate, never()).delete(anyString());
+
+        when(quoteRepository.findById("KEY-1")).thenReturn(Optional.of(stored.getValue()));
+        // Line order does not change the content hash.
+        CheckoutResponseDto replayed = quoteService.checkout("KEY-1", cart("BREAD", "APPLE"), Set.of("PRIME"), "credit_card", "UK");
+
+        assertSame(priced, replayed);
+        verify(checkoutService, times(1)).calculateFinalPrice(any(), any(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Reusing a key for a different cart is rejected")
+    void reusedKey_WithDifferentCart_ShouldBeRejected() {
+        CheckoutQuote quote = new CheckoutQuote();
+        quote.setIdempotencyKey("KEY-1");
+        quote.setContentHash(CheckoutQuoteServiceImpl.contentHash(cart("APPLE"), Set.of(), "credit_card", "UK"));
+        when(quoteRepository.findById("KEY-1")).thenReturn(Optional.of(quote));
+
+        ShoppingCartException ex = assertThrows(ShoppingCartException.class,
+                () -> quoteService.checkout("KEY-1", cart("APPLE", "APPLE"), Set.of(), "credit_card", "UK"));
+
+        assertEquals(ErrorCode.VAL_304_IDEMPOTENCY_KEY_REUSED, ex.getErrorCode());
+        verify(checkoutService, never()).calculateFinalPrice(any(), any(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("A duplicate arriving while the first checkout is running is turned away")
+    void concurrentDuplicate_ShouldNotRunCheckoutTwice() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        ShoppingCartException ex = assertThrows(ShoppingCartException.class,
+                () -> quoteService.checkout("KEY-1", cart("APPLE"), Set.of(), "credit_card", "UK"));
+
+        assertEquals(ErrorCode.CART_006_CHECKOUT_IN_PROGRESS, ex.getErrorCode());
+        verify(checkoutService, never()).calculateFinalPrice(any(), any(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("The claim is released only if it still holds this request's token")
+    void release_ShouldCompareTokenBeforeDeleting() {
+        when(checkoutService.calculateFinalPrice(any(), any(), anyString(), anyString())).thenReturn(new CheckoutResponseDto());
+
+        quoteService.checkout("KEY-1", cart("APPLE"), Set.of(), "credit_card", "UK");
+
+        ArgumentCaptor<String> claimed = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).setIfAbsent(eq("CheckoutQuote:claim:KEY-1"), claimed.capture(), any(Duration.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("CheckoutQuote:claim:KEY-1")), eq(claimed.getValue()));
+        verify(redisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Each request claims the key with its own token")
+    void claims_ShouldUseDistinctTokens() {
+        when(checkoutService.calculateFinalPrice(any(), any(), anyString(), anyString())).thenReturn(new CheckoutResponseDto());
+
+        quoteService.checkout("KEY-1", cart("APPLE"), Set.of(), "credit_card", "UK");
+        quoteService.checkout("KEY-2", cart("APPLE"), Set.of(), "credit_card", "UK");
+
+        ArgumentCaptor<String> tokens = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations, times(2)).setIfAbsent(anyString(), tokens.capture(), any(Duration.class));
+        assertEquals(2, Set.copyOf(tokens.getAllValues()).size());
+    }
+
+    private static CartDto cart(String... productIds) {
+        CartDto cart = new CartDto();
+        List<CartItemDto> items = new ArrayList<>();
+        for (String productId : productIds) {
+            CartItemDto item = new CartItemDto();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        cart.setItems(items);
+        return cart;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.shoppingcart.service.impl;
+
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.CartLineWrite;
+import com.example.shoppingcart.repository.CartTierRepository;
+import com.example.shoppingcart.repository.ShoppingCartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TieredCartStoreTest {
+
+    private final ShoppingCartRepository cartRepository = mock(ShoppingCartRepository.class);
+    private final CartWriteBuffer writeBuffer = mock(CartWriteBuffer.class);
+    private final CartTierRepository tier = mock(CartTierRepository.class);
+    private final CartChangeBus changeBus = mock(CartChangeBus.class);
+    private final TieredCartStore store = new TieredCartStore(cartRepository, writeBuffer, tier, changeBus, 30);
+    private final CartLineWrite write = new CartLineWrite(CartLineWrite.Kind.REPLACE, 0, "APPLE");
+
+    private ShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setVersion(7L);
+        cart.setItems(new ArrayList<>());
+        when(tier.find("CART-1")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("A tier miss reads through to DynamoDB")
+    void find_TierMiss_ShouldReadThrough() {
+        when(cartRepository.findById("CART-1")).thenReturn(Optional.of(cart));
+
+        assertEquals(Optional.of(cart), store.find("CART-1"));
+        verify(tier).put(cart);
+    }
+
+    @Test
+    @DisplayName("A tier hit is served without touching DynamoDB")
+    void find_TierHit_ShouldNotReadDynamo() {
+        when(tier.find("CART-1")).thenReturn(Optional.of(cart));
+
+        assertEquals(7L, store.find("CART-1").orElseThrow().getVersion());
+        verify(cartRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("With write-behind enabled, a line change is staged, not written to DynamoDB")
+    void updateLine_Buffering_ShouldStage() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(writeBuffer.stage(cart)).thenReturn(cart);
+
+        store.updateLine(cart, write);
+
+        verify(writeBuffer).stage(cart);
+        verify(cartRepository, never()).updateLines(any());
+    }
+
+    @Test
+    @DisplayName("A line change updates only that line of the cached copy, checked against the version it was read at")
+    void updateLine_ShouldPutLineAgainstReadVersion() {
+        when(cartRepository.updateLines(cart)).thenAnswer(invocation -> {
+            cart.setVersion(8L);
+            return cart;
+        });
+
+        store.updateLine(cart, write);
+
+        verify(tier).putLine(cart, 7L, write);
+        verify(tier, never()).put(any());
+        verify(changeBus).cartChanged("CART-1");
+    }
+
+    @Test
+    @DisplayName("A merge caches the merged cart and drops the guest cart's copy")
+    void merge_ShouldPublishMergedAndEvictGuest() {
+        ShoppingCart guest = new ShoppingCart();
+        guest.setCartId("GUEST-1");
+        when(cartRepository.merge(cart, guest)).thenReturn(cart);
+
+        store.merge(cart, guest);
+
+        verify(tier).put(cart);
+        verify(tier).evict("GUEST-1");
+    }
+
+    @Test
+    @DisplayName("A full save flushes pending buffered changes before writing the cart, then records its version")
+    void save_Buffering_ShouldFlushFirst() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(cartRepository.save(cart)).thenReturn(cart);
+
+        store.save(cart);
+
+        InOrder order = inOrder(writeBuffer, cartRepository);
+        order.verify(writeBuffer).flush("CART-1");
+        order.verify(cartRepository).save(cart);
+        order.verify(writeBuffer).written("CART-1", 7L);
+    }
+
+    @Test
+    @DisplayName("With write-behind enabled, a merge records the merged version and the guest cart's deletion")
+    void merge_Buffering_ShouldRecordVersions() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        ShoppingCart guest = new ShoppingCart();
+        guest.setCartId("GUEST-1");
+        guest.setVersion(3L);
+        when(cartRepository.merge(cart, guest)).thenReturn(cart);
+
+        store.merge(cart, guest);
+
+        verify(writeBuffer).written("CART-1", 7L);
+        verify(writeBuffer).written("GUEST-1", 4L);
+    }
+
+    @Test
+    @DisplayName("Every write pushes the DynamoDB expiry out and leaves the archive form")
+    void updateLine_ShouldRestartRetention() {
+        cart.setArchivedAt(Instant.EPOCH);
+        when(cartRepository.updateLines(cart)).thenReturn(cart);
+
+        store.updateLine(cart, write);
+
+        long inThirtyDays = Instant.now().plus(Duration.ofDays(30)).getEpochSecond();
+        assertTrue(Math.abs(cart.getExpiresAt() - inThirtyDays) < 60);
+        assertNull(cart.getArchivedAt());
+    }
+
+    @Test
+    @DisplayName("Archiving leaves carts with pending buffered changes alone")
+    void archive_Journaled_ShouldSkip() {
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(writeBuffer.find("CART-1")).thenReturn(Optional.of(cart));
+
+        assertFalse(store.archive(cart));
+        verify(cartRepository, never()).archive(any());
+    }
+
+    @Test
+    @DisplayName("Archiving drops the cached copy")
+    void archive_ShouldEvict() {
+        when(cartRepository.archive(cart)).thenReturn(cart);
+
+        assertTrue(store.archive(cart));
+        verify(tier).evict("CART-1");
+    }
+
+    @Test
+    @DisplayName("A write that loses a version race evicts the cached copy")
+    void updateLine_Conflict_ShouldEvict() {
+        when(cartRepository.updateLines(cart))
+                .thenThrow(new OptimisticLockingFailureException("stale"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> store.updateLine(cart, write));
+        verify(tier).evict("CART-1");
+    }
+}
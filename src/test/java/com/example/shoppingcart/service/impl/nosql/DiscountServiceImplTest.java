@@ -0,0 +1,194 @@
+package com.example.shoppingcart.service.impl.nosql;
+
+import com.example.shoppingcart.dto.DiscountRuleDto;
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.model.dynamo.ShoppingCart;
+import com.example.shoppingcart.repository.DiscountRuleRepository;
+import com.example.shoppingcart.service.CartLineChange;
+import com.example.shoppingcart.service.discount.BuyXGetYFreeDiscountStrategy;
+import com.example.shoppingcart.service.discount.FlatDiscountStrategy;
+import com.example.shoppingcart.service.discount.ruleset.RuleCompiler;
+import com.example.shoppingcart.service.discount.ruleset.RuleSet;
+import com.example.shoppingcart.service.discount.ruleset.RuleSetRegistry;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiscountServiceImplTest {
+
+    private final FlatDiscountStrategy flat = spy(new FlatDiscountStrategy());
+    private final BuyXGetYFreeDiscountStrategy fruitOffer = spy(new BuyXGetYFreeDiscountStrategy());
+    private final DiscountRuleRepository discountRuleRepository = mock(DiscountRuleRepository.class);
+    private final RuleSetRegistry ruleSetRegistry = mock(RuleSetRegistry.class);
+    private final CartChangeBus cartChangeBus = mock(CartChangeBus.class);
+    private final DiscountServiceImpl discountService =
+            new DiscountServiceImpl(discountRuleRepository, ruleSetRegistry, cartChangeBus);
+
+    private ShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        RuleCompiler compiler = new RuleCompiler(List.of(), List.of(),
+                Map.of("flatDiscountStrategy", flat, "buyXGetYFreeDiscountStrategy", fruitOffer));
+        RuleSet ruleSet = compiler.compile(List.of(flatRule(), fruitRule()), 3L);
+        when(ruleSetRegistry.current()).thenReturn(ruleSet);
+
+        cart = new ShoppingCart();
+        cart.setCartId("CART-1");
+        cart.setItems(new ArrayList<>(List.of(line("APPLE", 3, "FRUIT"), line("BREAD", 1, "BAKERY"))));
+    }
+
+    @Test
+    @DisplayName("Full pricing records per-rule amounts and the rule set fingerprint on the cart")
+    void calculateTotalDiscount_ShouldRecordPerRuleAmounts() {
+        BigDecimal total = discountService.calculateTotalDiscount(cart);
+
+        assertEquals(new BigDecimal("150"), total); // 50 flat + one free apple at 100
+        assertEquals(new BigDecimal("50"), cart.getAppliedDiscounts().get("FLAT"));
+        assertEquals(new BigDecimal("100"), cart.getAppliedDiscounts().get("FRUIT"));
+        assertEquals(ruleSetRegistry.current().getFingerprint(), cart.getPricedRuleSetFingerprint());
+    }
+
+    @Test
+    @DisplayName("A change to an unrelated line re-prices no rules")
+    void recalculate_UnrelatedLine_ShouldReuseRecordedAmounts() {
+        discountService.calculateTotalDiscount(cart);
+        clearInvocations(flat, fruitOffer);
+
+        cart.getItems().get(1).setQuantity(4);
+        BigDecimal total = discountService.recalculateTotalDiscount(cart,
+                new CartLineChange("BREAD", "BAKERY", new BigDecimal("200")));
+
+        assertEquals(new BigDecimal("150"), total);
+        verify(flat, never()).apply(any(), any());
+        verify(fruitOffer, never()).apply(any(), any());
+    }
+
+    @Test
+    @DisplayName("A change to a line a rule reads re-prices only that rule")
+    void recalculate_RelatedLine_ShouldRepriceAffectedRule() {
+        discountService.calculateTotalDiscount(cart);
+        clearInvocations(flat, fruitOffer);
+
+        cart.getItems().get(0).setQuantity(1);
+        BigDecimal total = discountService.recalculateTotalDiscount(cart,
+                new CartLineChange("APPLE", "FRUIT", new BigDecimal("300")));
+
+        assertEquals(new BigDecimal("50"), total); // below the buy quantity, only the flat discount remains
+        assertFalse(cart.getAppliedDiscounts().containsKey("FRUIT"));
+        verify(fruitOffer, times(1)).apply(any(), any());
+        verify(flat, never()).apply(any(), any());
+    }
+
+    @Test
+    @DisplayName("Amounts recorded against other rules trigger a full re-price")
+    void recalculate_StaleRuleSetFingerprint_ShouldRepriceEverything() {
+        discountService.calculateTotalDiscount(cart);
+        cart.setPricedRuleSetFingerprint("priced-against-other-rules");
+        clearInvocations(flat, fruitOffer);
+
+        discountService.recalculateTotalDiscount(cart, new CartLineChange("BREAD", "BAKERY", new BigDecimal("200")));
+
+        verify(flat, times(1)).apply(any(), any());
+        verify(fruitOffer, times(1)).apply(any(), any());
+    }
+
+    @Test
+    @DisplayName("The same rules compiled elsewhere under a different version reuse the recorded amounts")
+    void recalculate_SameRulesOtherInstance_ShouldReuseRecordedAmounts() {
+        discountService.calculateTotalDiscount(cart);
+        // Another instance, or this one after a restart, numbers its snapshots independently.
+        RuleCompiler otherInstance = new RuleCompiler(List.of(), List.of(),
+                Map.of("flatDiscountStrategy", flat, "buyXGetYFreeDiscountStrategy", fruitOffer));
+        when(ruleSetRegistry.current()).thenReturn(otherInstance.compile(List.of(fruitRule(), flatRule()), 1L));
+        clearInvocations(flat, fruitOffer);
+
+        discountService.recalculateTotalDiscount(cart, new CartLineChange("BREAD", "BAKERY", new BigDecimal("200")));
+
+        verify(flat, never()).apply(any(), any());
+        verify(fruitOffer, never()).apply(any(), any());
+    }
+
+    @Test
+    @DisplayName("Changed rules under a reused version number trigger a full re-price")
+    void recalculate_ChangedRulesSameVersion_ShouldRepriceEverything() {
+        discountService.calculateTotalDiscount(cart);
+        DiscountRule richerFlat = flatRule();
+        richerFlat.setDiscountValue(new BigDecimal("75"));
+        RuleCompiler restarted = new RuleCompiler(List.of(), List.of(),
+                Map.of("flatDiscountStrategy", flat, "buyXGetYFreeDiscountStrategy", fruitOffer));
+        when(ruleSetRegistry.current()).thenReturn(restarted.compile(List.of(richerFlat, fruitRule()), 3L));
+        clearInvocations(flat, fruitOffer);
+
+        BigDecimal total = discountService.recalculateTotalDiscount(cart,
+                new CartLineChange("BREAD", "BAKERY", new BigDecimal("200")));
+
+        assertEquals(new BigDecimal("175"), total);
+        verify(flat, times(1)).apply(any(), any());
+    }
+
+    @Test
+    @DisplayName("Creating, updating and deleting a rule refreshes this instance and announces the change")
+    void ruleChanges_ShouldRefreshAndAnnounce() {
+        DiscountRuleDto dto = new DiscountRuleDto();
+        dto.setRuleId("FLAT");
+        dto.setRuleName("Flat");
+        when(discountRuleRepository.findById("FLAT")).thenReturn(Optional.of(flatRule()));
+
+        discountService.create(dto);
+        discountService.update("FLAT", dto);
+        discountService.delete("FLAT");
+
+        InOrder order = inOrder(ruleSetRegistry, cartChangeBus);
+        for (int i = 0; i < 3; i++) {
+            order.verify(ruleSetRegistry).refresh();
+            order.verify(cartChangeBus).rulesChanged();
+        }
+    }
+
+    private static DiscountRule flatRule() {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId("FLAT");
+        rule.setActive(true);
+        rule.setDiscountValue(new BigDecimal("50"));
+        rule.setStrategyBeanName("flatDiscountStrategy");
+        return rule;
+    }
+
+    private static DiscountRule fruitRule() {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId("FRUIT");
+        rule.setActive(true);
+        rule.setBuyQuantity(3);
+        rule.setFreeQuantity(1);
+        rule.setApplicableCategories(List.of("fruit"));
+        rule.setStrategyBeanName("buyXGetYFreeDiscountStrategy");
+        return rule;
+    }
+
+    private static ShoppingCart.CartItemData line(String productId, int quantity, String category) {
+        BigDecimal price = new BigDecimal(productId.equals("APPLE") ? "100" : "200");
+        return new ShoppingCart.CartItemData(productId, quantity, price, price.multiply(BigDecimal.valueOf(quantity)),
+                productId, null, null, category);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.shoppingcart.service.search;
+
+import com.example.shoppingcart.exception.ErrorCode;
+import com.example.shoppingcart.exception.ShoppingCartException;
+import com.example.shoppingcart.model.postgres.Category;
+import com.example.shoppingcart.model.postgres.Product;
+import com.example.shoppingcart.repository.jpa.CategoryJpaRepository;
+import com.example.shoppingcart.repository.jpa.ProductJpaRepository;
+import com.example.shoppingcart.service.impl.CartChangeBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductJpaRepository productJpaRepository = mock(ProductJpaRepository.class);
+    private final CategoryJpaRepository categoryJpaRepository = mock(CategoryJpaRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productJpaRepository, categoryJpaRepository,
+            mock(RedisMessageListenerContainer.class), 60);
+
+    @BeforeEach
+    void setUp() {
+        when(categoryJpaRepository.findAll()).thenReturn(List.of(category(1L, "Fruit"), category(2L, "Bakery")));
+        when(productJpaRepository.findAll()).thenReturn(List.of(
+                product("APPLE", "Green Apple", "Crisp and sharp", 1L),
+                product("PIE", "Apple Pie", "Baked with bramley apples", 2L),
+                product("BREAD", "Sourdough Loaf", "Slow proved, no apple in sight", 2L),
+                product("BRULEE", "Crème brûlée", "Vanilla custard", 2L)));
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("A partial term matches as a prefix, and name matches outrank description matches")
+    void search_Prefix_ShouldRankNameMatchesFirst() {
+        ProductSearchIndex.Hits hits = index.search("app", 10, null);
+
+        assertEquals(List.of("PIE", "APPLE", "BREAD"), hits.productIds());
+    }
+
+    @Test
+    @DisplayName("Every query term must match, in any field")
+    void search_SeveralTerms_ShouldRequireAll() {
+        assertEquals(List.of("PIE"), index.search("apple pie", 10, null).productIds());
+        assertEquals(List.of("APPLE"), index.search("fruit app", 10, null).productIds());
+    }
+
+    @Test
+    @DisplayName("Accents and case are folded on both sides")
+    void search_Accents_ShouldBeFolded() {
+        assertEquals(List.of("BRULEE"), index.search("CREME BRU", 10, null).productIds());
+    }
+
+    @Test
+    @DisplayName("Pages follow on from each other and the last page has no token")
+    void search_Pages_ShouldContinue() {
+        ProductSearchIndex.Hits first = index.search("", 3, null);
+        ProductSearchIndex.Hits second = index.search("", 3, first.nextPageToken());
+
+        assertEquals(List.of("PIE", "BRULEE", "APPLE"), first.productIds());
+        assertEquals(List.of("BREAD"), second.productIds());
+        assertEquals(4, second.total());
+        assertNull(second.nextPageToken());
+    }
+
+    @Test
+    @DisplayName("A page token from another query is rejected")
+    void search_TokenFromOtherQuery_ShouldBeRejected() {
+        String token = index.search("a", 1, null).nextPageToken();
+
+        ShoppingCartException thrown = assertThrows(ShoppingCartException.class, () -> index.search("b", 1, token));
+        assertEquals(ErrorCode.VAL_300_INVALID_PARAMS, thrown.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("A CDC product update replaces the old terms and a deletion removes the product")
+    void index_Update_ShouldReplaceTerms() {
+        index.index(product("APPLE", "Red Delicious", "Sweet", 1L));
+
+        assertEquals(List.of("APPLE"), index.search("delicious", 10, null).productIds());
+        assertEquals(List.of("PIE", "BREAD"), index.search("apple", 10, null).productIds());
+
+        Product deleted = product("PIE", "Apple Pie", "Baked with bramley apples", 2L);
+        deleted.setDeleted(true);
+        index.index(deleted);
+
+        assertEquals(List.of("BREAD"), index.search("apple", 10, null).productIds());
+    }
+
+    @Test
+    @DisplayName("A product change on the bus re-reads the product from Postgres")
+    void productChange_ShouldReindexFromPostgres() {
+        when(productJpaRepository.findById("BREAD")).thenReturn(Optional.of(product("BREAD", "Rye Loaf", "Dense", 2L)));
+        when(productJpaRepository.findById("APPLE")).thenReturn(Optional.empty());
+
+        index.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "BREAD"), null);
+        index.onMessage(message(CartChangeBus.PRODUCT_PREFIX + "APPLE"), null);
+
+        assertEquals(List.of("BREAD"), index.search("rye", 10, null).productIds());
+        assertEquals(3, index.size());
+    }
+
+    private static Product product(String id, String name, String description, Long categoryId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategoryId(categoryId);
+        return product;
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CartChangeBus.CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.shoppingcart.service.simulation;
+
+import com.example.shoppingcart.model.dynamo.DiscountRule;
+import com.example.shoppingcart.service.discount.ActionApplier;
+import com.example.shoppingcart.service.discount.ConditionEvaluator;
+import com.example.shoppingcart.service.discount.ConflictResolver;
+import com.example.shoppingcart.service.discount.PriceSanitizer;
+import com.example.shoppingcart.service.discount.action.PercentageOffProductStrategy;
+import com.example.shoppingcart.service.discount.ruleset.RuleCompiler;
+import com.example.shoppingcart.service.discount.strategy.CartContainsStrategy;
+import com.example.shoppingcart.service.discount.strategy.UserHasTagStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PromotionSimulatorTest {
+
+    private static final String CORPUS = """
+            orderId,paymentMethod,productId,quantity,unitPricePence,categoryHierarchy
+            O1,card,APPLE,2,100,FRUIT
+            O1,card,BREAD,1,200,BAKERY
+            O2,cash,APPLE,1,100,FRUIT
+            O3,card,BREAD,1,200,BAKERY
+            """;
+
+    // Chunks of two carts split across two workers, so both the chunking and the merge paths run.
+    private final PromotionSimulator simulator = new PromotionSimulator(
+            new RuleCompiler(List.of(new CartContainsStrategy(), new UserHasTagStrategy()),
+                    List.of(new PercentageOffProductStrategy()), Collections.emptyMap()),
+            new ConditionEvaluator(List.of(new CartContainsStrategy(), new UserHasTagStrategy())),
+            new ConflictResolver(),
+            new ActionApplier(List.of(new PercentageOffProductStrategy())),
+            new PriceSanitizer(),
+            new HistoricalCartLoader(null),
+            2, 2);
+
+    @Test
+    @DisplayName("Reports total discount, affected carts and per-rule contribution over a CSV corpus")
+    void simulateCsv_ShouldTallyDiscountsPerRule() {
+        DiscountRule apples = rule("APPLES", "APPLE", 2, 20);
+        DiscountRule bread = rule("BREAD", "BREAD", 1, 10);
+
+        SimulationReport report = simulator.simulateCsv(List.of(apples, bread), new BufferedReader(new StringReader(CORPUS)));
+
+        assertEquals(3, report.getCartsSimulated());
+        assertEquals(2, report.getCartsAffected());
+        assertEquals(700, report.getOriginalTotalPence());
+        assertEquals(60, report.getTotalDiscountPence());
+        assertEquals(List.of(
+                        new SimulationReport.RuleContribution("BREAD", "BREAD", 40, 2),
+                        new SimulationReport.RuleContribution("APPLES", "APPLES", 20, 1)),
+                report.getRules());
+    }
+
+    @Test
+    @DisplayName("Candidate rules are simulated even when saved inactive")
+    void simulateCsv_ShouldTreatCandidatesAsActive() {
+        DiscountRule draft = rule("DRAFT", "BREAD", 1, 50);
+        draft.setActive(false);
+
+        SimulationReport report = simulator.simulateCsv(List.of(draft), new BufferedReader(new StringReader(CORPUS)));
+
+        assertEquals(200, report.getTotalDiscountPence());
+        assertEquals(2, report.getCartsAffected());
+        assertFalse(draft.isActive(), "the caller's rule must not be activated");
+    }
+
+    @Test
+    @DisplayName("User tag rules fire for carts whose corpus records tags and are listed in the report")
+    void simulateCsv_ShouldReplayUserTags() {
+        DiscountRule members = rule("MEMBERS", "BREAD", 1, 50);
+        DiscountRule.Condition tag = new DiscountRule.Condition();
+        tag.setType("user_has_tag");
+        tag.setTag("PRIME_MEMBER");
+        members.setConditions(List.of(members.getConditions().get(0), tag));
+        String corpus = """
+                orderId,paymentMethod,productId,quantity,unitPricePence,categoryHierarchy,userTags
+                O1,card,BREAD,1,200,BAKERY,PRIME_MEMBER;STAFF
+                O2,card,BREAD,1,200,BAKERY,
+                O3,card,BREAD,1,200,BAKERY
+                """;
+
+        SimulationReport report = simulator.simulateCsv(List.of(members), new BufferedReader(new StringReader(corpus)));
+
+        assertEquals(1, report.getCartsAffected());
+        assertEquals(100, report.getTotalDiscountPence());
+        assertEquals(List.of("MEMBERS"), report.getUserTagRules());
+    }
+
+    private static DiscountRule rule(String id, String productId, int quantity, int percentage) {
+        DiscountRule rule = new DiscountRule();
+        rule.setRuleId(id);
+        rule.setRuleName(id);
+        rule.setActive(true);
+        rule.setPriority(1);
+        rule.setIsStackable(true);
+
+        DiscountRule.Condition condition = new DiscountRule.Condition();
+        condition.setType("cart_contains");
+        condition.setProductId(productId);
+        condition.setQuantity(quantity);
+        rule.setConditions(List.of(condition));
+
+        DiscountRule.Action action = new DiscountRule.Action();
+        action.setType("PERCENTAGE_OFF_PRODUCT");
+        action.setProductId(productId);
+        action.setValue(percentage);
+        rule.setActions(List.of(action));
+        return rule;
+    }
+}